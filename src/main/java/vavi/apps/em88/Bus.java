@@ -6,7 +6,12 @@
 
 package vavi.apps.em88;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -35,35 +40,281 @@ public abstract class Bus {
         WRITE
     }
 
+    /** ページの大きさ (bit 数) */
+    protected static final int PAGE_BITS = 8;
+
+    /** ページの大きさ */
+    protected static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /** ページ数 */
+    protected static final int PAGES = 0x10000 >> PAGE_BITS;
+
+    /** read page table, memory of each page */
+    private final byte[][] readBases = new byte[PAGES][];
+
+    /** read page table, add to a 16bit address to get the index into the memory */
+    private final int[] readOffsets = new int[PAGES];
+
+    /** write page table, memory of each page */
+    private final byte[][] writeBases = new byte[PAGES][];
+
+    /** write page table, add to a 16bit address to get the index into the memory */
+    private final int[] writeOffsets = new int[PAGES];
+
+    /** write generations of each memory, counted per physical page */
+    private final Map<byte[], int[]> generations = new IdentityHashMap<>();
+
+    /** read page table, write generations of the memory of each page */
+    private final int[][] readGenerations = new int[PAGES][];
+
+    /** write page table, write generations of the memory of each page */
+    private final int[][] writeGenerations = new int[PAGES][];
+
     /**
+     * Describes the memory layout, this is used only while rebuilding the page tables.
+     * a mapping must be linear within a page of {@link #PAGE_SIZE}.
+     *
      * @param address 16bit のアドレス
      * @param direction {@link Direction} で {@link Mapping} が変わる場合がある
+     * @see #updateMapping()
      */
     protected abstract Mapping getMapping(int address, Direction direction);
 
+    /**
+     * Rebuilds all page tables.
+     * call this when the memory layout is changed.
+     */
+    protected final void updateMapping() {
+        updateMapping(0x0000, 0xffff);
+    }
+
+    /**
+     * Rebuilds the page tables between start and end.
+     *
+     * @param start 16bit のアドレス
+     * @param end 16bit のアドレス (inclusive)
+     */
+    protected final void updateMapping(int start, int end) {
+        for (int page = start >> PAGE_BITS; page <= end >> PAGE_BITS; page++) {
+            int address = page << PAGE_BITS;
+
+            Mapping mapping = getMapping(address, Direction.READ);
+            readBases[page] = mapping.base;
+            readOffsets[page] = mapping.pointer - address;
+            readGenerations[page] = generationsOf(mapping.base);
+
+            mapping = getMapping(address, Direction.WRITE);
+            writeBases[page] = mapping.base;
+            writeOffsets[page] = mapping.pointer - address;
+            writeGenerations[page] = generationsOf(mapping.base);
+        }
+        mappings++;
+    }
+
+    /** page table rebuilds since power on */
+    private long mappings;
+
+    /** the cpu checks this to know the page tables are not changed */
+    final long getMappings() {
+        return mappings;
+    }
+
+    /** @return write generations of the memory, null if no memory */
+    private int[] generationsOf(byte[] base) {
+        if (base == null) {
+            return null;
+        }
+        return generations.computeIfAbsent(base, b -> new int[(b.length + PAGE_SIZE - 1) >> PAGE_BITS]);
+    }
+
+    /** for the cpu's decode cache, add to a 16bit address to get the index into the memory */
+    final int getReadOffset(int page) {
+        return readOffsets[page];
+    }
+
+    /**
+     * for the cpu's decode cache, a generation is incremented when the
+     * physical page is written, so rom pages are never changed.
+     * @return write generations of the memory mapped to the page, indexed by the physical page
+     */
+    final int[] getReadGenerations(int page) {
+        return readGenerations[page];
+    }
+
     /** */
     public final int peekb(int address) {
-        Mapping mapping = getMapping(address, Direction.READ);
-        return mapping.base[mapping.pointer] & 0xff;
+        address &= 0xffff;
+        int page = address >> PAGE_BITS;
+        int value = readBases[page][address + readOffsets[page]] & 0xff;
+        if ((traps[page] & Access.READ.bit) != 0) {
+            trap(address, value, Access.READ);
+        }
+        return value;
     }
 
-    /** */
+    /** for observers like {@link Z80Panel}, reads without notifying watchers */
+    final int peekwUntrapped(int address) {
+        return (peekbUntrapped(address + 1) << 8) | peekbUntrapped(address);
+    }
+
+    /** for observers, reads without notifying watchers */
+    final int peekbUntrapped(int address) {
+        address &= 0xffff;
+        int page = address >> PAGE_BITS;
+        return readBases[page][address + readOffsets[page]] & 0xff;
+    }
+
+    /**
+     * the page is looked up once if the word is in a page without read
+     * watchpoints, or the word is read byte by byte.
+     */
     public final int peekw(int address) {
+        address &= 0xffff;
+        int page = address >> PAGE_BITS;
+        if ((address & (PAGE_SIZE - 1)) != PAGE_SIZE - 1 && (traps[page] & Access.READ.bit) == 0) {
+            byte[] base = readBases[page];
+            int index = address + readOffsets[page];
+            return (base[index + 1] & 0xff) << 8 | (base[index] & 0xff);
+        }
+
         int l = peekb(address);
         int h = peekb(address + 1);
 
         return (h << 8) | l;
     }
 
-    /** */
-    public void pokeb(int address, int value) {
-        Mapping mapping = getMapping(address, Direction.WRITE);
-        mapping.base[mapping.pointer] = (byte) (value & 0xff);
+    /** memory writes since power on */
+    private long writes;
+
+    /** the cpu checks this to know the memory is not changed */
+    final long getWrites() {
+        return writes;
+    }
+
+    /** watch writes by {@link #addWatchpoint(int, int, Access, Watcher)} */
+    public final void pokeb(int address, int value) {
+        writes++;
+        address &= 0xffff;
+        int page = address >> PAGE_BITS;
+        int index = address + writeOffsets[page];
+        writeBases[page][index] = (byte) value;
+        writeGenerations[page][index >> PAGE_BITS]++;
+        if ((traps[page] & Access.WRITE.bit) != 0) {
+            trap(address, value & 0xff, Access.WRITE);
+        }
 // Debug.println(StringUtil.toHex4(a) + ": " + StringUtil.toHex2(d));
     }
 
-    /** */
+    /**
+     * tells writes to the range do nothing but store to the memory,
+     * false if a write watchpoint is in the pages of the range.
+     *
+     * @param start 16bit のアドレス
+     * @param end 16bit のアドレス (inclusive)
+     */
+    protected boolean isPlainMemory(int start, int end) {
+        for (int page = start >> PAGE_BITS; page <= end >> PAGE_BITS; page++) {
+            if ((traps[page] & Access.WRITE.bit) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * copies bytes like repeated ldi (step 1) or ldd (step -1), for the
+     * cpu's block transfer. stops at a page boundary of either address.
+     *
+     * @param length bytes to copy at most
+     * @return bytes copied, 0 if the destination is not plain memory or
+     *         the source is watched
+     */
+    final int copy(int from, int to, int length, int step) {
+        from &= 0xffff;
+        to &= 0xffff;
+        int fromPage = from >> PAGE_BITS;
+        int toPage = to >> PAGE_BITS;
+        int n;
+        if (step > 0) {
+            n = Math.min(length, PAGE_SIZE - (to & (PAGE_SIZE - 1)));
+            n = Math.min(n, PAGE_SIZE - (from & (PAGE_SIZE - 1)));
+        } else {
+            n = Math.min(length, (to & (PAGE_SIZE - 1)) + 1);
+            n = Math.min(n, (from & (PAGE_SIZE - 1)) + 1);
+        }
+        int first = step > 0 ? to : to - n + 1;
+        if ((traps[fromPage] & Access.READ.bit) != 0 || !isPlainMemory(first, first + n - 1)) {
+            return 0;
+        }
+
+        byte[] source = readBases[fromPage];
+        int s = from + readOffsets[fromPage];
+        byte[] destination = writeBases[toPage];
+        int d = to + writeOffsets[toPage];
+        if (source == destination && Math.abs(d - s) < n) { // overlapped, a byte at a time as the cpu does
+            for (int i = 0; i < n; i++) {
+                destination[d] = source[s];
+                s += step;
+                d += step;
+            }
+        } else if (step > 0) {
+            System.arraycopy(source, s, destination, d, n);
+        } else {
+            System.arraycopy(source, s - n + 1, destination, d - n + 1, n);
+        }
+
+        writes += n;
+        int index = first + writeOffsets[toPage];
+        writeGenerations[toPage][index >> PAGE_BITS]++;
+        writeGenerations[toPage][(index + n - 1) >> PAGE_BITS]++;
+        return n;
+    }
+
+    /**
+     * compares bytes like repeated cpi (step 1) or cpd (step -1), for the
+     * cpu's block search. stops at a page boundary.
+     *
+     * @param length bytes to compare at most
+     * @return bytes compared, including the one equal to the value,
+     *         0 if the memory is watched
+     */
+    final int find(int from, int value, int length, int step) {
+        from &= 0xffff;
+        int page = from >> PAGE_BITS;
+        if ((traps[page] & Access.READ.bit) != 0) {
+            return 0;
+        }
+        int n = Math.min(length, step > 0 ? PAGE_SIZE - (from & (PAGE_SIZE - 1)) : (from & (PAGE_SIZE - 1)) + 1);
+
+        byte[] base = readBases[page];
+        int s = from + readOffsets[page];
+        for (int i = 0; i < n; i++) {
+            if ((base[s] & 0xff) == value) {
+                return i + 1;
+            }
+            s += step;
+        }
+        return n;
+    }
+
+    /**
+     * the page is looked up once if the word is in a page without write
+     * watchpoints, or the word is written byte by byte.
+     */
     public final void pokew(int address, int value) {
+        address &= 0xffff;
+        int page = address >> PAGE_BITS;
+        if ((address & (PAGE_SIZE - 1)) != PAGE_SIZE - 1 && (traps[page] & Access.WRITE.bit) == 0) {
+            writes += 2;
+            byte[] base = writeBases[page];
+            int index = address + writeOffsets[page];
+            base[index] = (byte) value;
+            base[index + 1] = (byte) (value >> 8);
+            writeGenerations[page][index >> PAGE_BITS]++;
+            writeGenerations[page][(index + 1) >> PAGE_BITS]++;
+            return;
+        }
+
         pokeb(address, value);
         pokeb(address + 1, value >> 8);
 // Debug.println(StringUtil.toHex4(a) + ": " + StringUtil.toHex2(d >> 8) + StringUtil.toHex2(d & 0xff));
@@ -71,37 +322,307 @@ public abstract class Bus {
 
     /** */
     public final void pokew(int address, int h, int l) {
-        pokeb(address, h);
-        pokeb(address + 1, l);
+        pokew(address, (l & 0xff) << 8 | (h & 0xff));
 // Debug.println(StringUtil.toHex4(a) + ": " + StringUtil.toHex2(d >> 8) + StringUtil.toHex2(d & 0xff));
     }
 
-    /** */
-    public abstract int inp(int port);
+    // ----
+
+    /** an access watched */
+    public enum Access {
+        READ,
+        WRITE,
+        /** the opcode is read to execute */
+        EXECUTE;
+
+        /** in {@link Bus#getTraps(int)} */
+        final int bit = 1 << ordinal();
+    }
+
+    /** notified of an access to a watched address */
+    @FunctionalInterface
+    public interface Watcher {
+        /**
+         * called after the access.
+         * @param value read, written or the opcode
+         */
+        void watch(int address, int value, Access access);
+    }
+
+    /** an address range watched */
+    private static final class Watchpoint {
+        final int start;
+        final int end;
+        final Access access;
+        final Watcher watcher;
+
+        Watchpoint(int start, int end, Access access, Watcher watcher) {
+            this.start = start;
+            this.end = end;
+            this.access = access;
+            this.watcher = watcher;
+        }
+    }
 
     /** */
-    public abstract void outp(int port, int data);
+    private final List<Watchpoint> watchpoints = new ArrayList<>();
+
+    /**
+     * accesses watched in each page, bits of {@link Access}.
+     * an access not watched in the page costs nothing but testing its bit.
+     */
+    private final byte[] traps = new byte[PAGES];
+
+    /**
+     * the watcher is notified of the access to the range.
+     * the cpu doesn't cache decoded instructions of pages watched for
+     * reads or executions.
+     *
+     * @param start 16bit のアドレス
+     * @param end 16bit のアドレス (inclusive)
+     */
+    public void addWatchpoint(int start, int end, Access access, Watcher watcher) {
+        watchpoints.add(new Watchpoint(start & 0xffff, Math.min(end, 0xffff), access, watcher));
+        updateTraps();
+    }
+
+    /** removes all watchpoints of the watcher */
+    public void removeWatchpoint(Watcher watcher) {
+        if (watchpoints.removeIf(watchpoint -> watchpoint.watcher == watcher)) {
+            updateTraps();
+        }
+    }
+
+    /** the cpu looks up instructions again as the page tables are changed */
+    private void updateTraps() {
+        Arrays.fill(traps, (byte) 0);
+        for (Watchpoint watchpoint : watchpoints) {
+            for (int page = watchpoint.start >> PAGE_BITS; page <= watchpoint.end >> PAGE_BITS; page++) {
+                traps[page] |= watchpoint.access.bit;
+            }
+        }
+        mappings++;
+    }
+
+    /** @return accesses watched in the page, bits of {@link Access} */
+    final int getTraps(int page) {
+        return traps[page];
+    }
+
+    /** called by the cpu before executing the address */
+    final void execute(int address) {
+        address &= 0xffff;
+        int page = address >> PAGE_BITS;
+        if ((traps[page] & Access.EXECUTE.bit) != 0) {
+            trap(address, peekbUntrapped(address), Access.EXECUTE);
+        }
+    }
+
+    /** the slow path, notifies watchers of the address */
+    private void trap(int address, int value, Access access) {
+        for (int i = 0; i < watchpoints.size(); i++) {
+            Watchpoint watchpoint = watchpoints.get(i);
+            if (watchpoint.access == access && address >= watchpoint.start && address <= watchpoint.end) {
+                watchpoint.watcher.watch(address, value, access);
+            }
+        }
+    }
+
+    /** reads a port */
+    @FunctionalInterface
+    public interface InPort {
+        int inp(int port);
+    }
+
+    /** writes a port */
+    @FunctionalInterface
+    public interface OutPort {
+        void outp(int port, int data);
+    }
+
+    /** an unconnected port reads 0 */
+    private static final InPort defaultInPort = port -> 0;
+
+    /** an unconnected port ignores data */
+    private static final OutPort defaultOutPort = (port, data) -> {};
+
+    /** input handlers by the port */
+    private final InPort[] inPorts = new InPort[0x100];
+
+    /** output handlers by the port */
+    private final OutPort[] outPorts = new OutPort[0x100];
+
+    /** devices caught up before the input, null if none */
+    private final Device[] inDevices = new Device[0x100];
+
+    /** devices caught up before the output, null if none */
+    private final Device[] outDevices = new Device[0x100];
+
+    /** the earliest change told by {@link Device#catchUp(long)} of inputs [T-states] */
+    private long horizon = Long.MAX_VALUE;
+
+    /** inputs by the port since power on */
+    private final long[] inputs = new long[0x100];
+
+    /** outputs by the port since power on */
+    private final long[] outputs = new long[0x100];
+
+    /** */ {
+        Arrays.fill(inPorts, defaultInPort);
+        Arrays.fill(outPorts, defaultOutPort);
+    }
+
+    /**
+     * a device sets its ports when attached.
+     * @param handler null disconnects the port
+     */
+    public void setInPort(int port, InPort handler) {
+        setInPort(port, null, handler);
+    }
+
+    /**
+     * @param device {@link Device#catchUp(long)} is called before the handler
+     * @param handler null disconnects the port
+     */
+    public void setInPort(int port, Device device, InPort handler) {
+        inPorts[port & 0xff] = handler != null ? handler : defaultInPort;
+        inDevices[port & 0xff] = handler != null ? device : null;
+    }
+
+    /**
+     * a device sets its ports when attached.
+     * @param handler null disconnects the port
+     */
+    public void setOutPort(int port, OutPort handler) {
+        setOutPort(port, null, handler);
+    }
+
+    /**
+     * @param device {@link Device#catchUp(long)} is called before the handler
+     * @param handler null disconnects the port
+     */
+    public void setOutPort(int port, Device device, OutPort handler) {
+        outPorts[port & 0xff] = handler != null ? handler : defaultOutPort;
+        outDevices[port & 0xff] = handler != null ? device : null;
+    }
+
+    /**
+     * an input read may change by this time without a {@link Scheduler} event,
+     * so the cpu doesn't skip a polling loop beyond this.
+     * @return [T-states], may be past
+     */
+    final long getHorizon() {
+        return horizon;
+    }
+
+    /** @return inputs of the port since power on */
+    public long getInputs(int port) {
+        return inputs[port & 0xff];
+    }
+
+    /** @return outputs of the port since power on */
+    public long getOutputs(int port) {
+        return outputs[port & 0xff];
+    }
+
+    /** dispatches to the handler of the port */
+    public int inp(int port) {
+        port &= 0xff;
+        inputs[port]++;
+        Device device = inDevices[port];
+        if (device != null) {
+            long time = scheduler.getTime();
+            long next = device.catchUp(time);
+            if (next < horizon || horizon <= time) {
+                horizon = next;
+            }
+        }
+        return inPorts[port].inp(port);
+    }
+
+    /** dispatches to the handler of the port */
+    public void outp(int port, int data) {
+        port &= 0xff;
+        outputs[port]++;
+        Device device = outDevices[port];
+        if (device != null) {
+            device.catchUp(scheduler.getTime());
+        }
+        outPorts[port].outp(port, data);
+    }
 
     // ----
 
-    /** */
-    private final Map<String, Device> devices = new HashMap<>();
+    /** in the order added, a device of the same class is replaced */
+    private final Map<Class<?>, Device> devices = new LinkedHashMap<>();
 
-    /** */
+    /** added but not attached yet */
+    private final List<Device> unattached = new ArrayList<>();
+
+    /** the device is attached at the next {@link #reset()} */
     public void addDevice(Device device) {
-        devices.put(device.getClass().getName(), device);
+        Device old = devices.put(device.getClass(), device);
+        if (old != null) {
+            unattached.remove(old);
+        }
+        unattached.add(device);
     }
 
-    /** */
-    public Device getDevice(String name) {
-        return devices.get(name);
+    /**
+     * find devices in {@link Device#setBus(Bus)} or {@link Device#reset()},
+     * and keep them.
+     * @return the device of the class or its subclass, null if none
+     */
+    public <T extends Device> T getDevice(Class<T> type) {
+        Device device = devices.get(type);
+        if (device == null) {
+            for (Device d : devices.values()) {
+                if (type.isInstance(d)) {
+                    device = d;
+                    break;
+                }
+            }
+        }
+        return type.cast(device);
     }
 
+    /** device events on the emulated time */
+    private final Scheduler scheduler = new Scheduler();
+
     /** */
+    Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * attaches devices added since the last reset, then resets all devices.
+     * @after the memory layout is ready for {@link #getMapping(int, Direction)}
+     */
     public void reset() {
-        for (Device device : devices.values()) {
+        updateMapping();
+
+        scheduler.clear();
+
+        List<Device> devices = new ArrayList<>(unattached);
+        unattached.clear();
+        for (Device device : devices) {
             device.setBus(this);
         }
+
+        for (Device device : this.devices.values()) {
+            device.reset();
+        }
+    }
+
+    /** powers off devices in the reverse order added */
+    public void powerOff() {
+        scheduler.clear();
+
+        List<Device> devices = new ArrayList<>(this.devices.values());
+        Collections.reverse(devices);
+        for (Device device : devices) {
+            device.powerOff();
+        }
     }
 }
 
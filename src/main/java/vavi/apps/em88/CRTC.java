@@ -27,7 +27,12 @@ class CRTC implements Device {
     public void setBus(Bus bus) {
         this.bus = bus;
 
-        this.graphic = (Graphic) bus.getDevice(Graphic.class.getName());
+        this.graphic = bus.getDevice(Graphic.class);
+
+        bus.setInPort(0x50, port -> getData());
+        bus.setOutPort(0x50, (port, data) -> setData(data));
+        bus.setInPort(0x51, port -> getStatus());
+        bus.setOutPort(0x51, (port, data) -> setCommand(data));
     }
 
     //----
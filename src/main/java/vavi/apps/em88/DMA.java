@@ -6,8 +6,6 @@
 
 package vavi.apps.em88;
 
-import java.util.Timer;
-import java.util.TimerTask;
 import vavi.util.Debug;
 import vavi.util.StringUtil;
 
@@ -37,7 +35,7 @@ class DMA implements Device {
     public void setBus(Bus bus) {
         this.bus = bus;
 
-        this.graphic = (Graphic) bus.getDevice(Graphic.class.getName());
+        this.graphic = bus.getDevice(Graphic.class);
     }
 
     //----
@@ -49,11 +47,11 @@ class DMA implements Device {
     private int status;
 
     /** */
-    private int[] addresses = new int[3];
+    private int[] addresses = new int[4];
     /** */
-    private int[] counts = new int[3];
+    private int[] counts = new int[4];
     /** */
-    private int[] modes = new int[3];
+    private int[] modes = new int[4];
 
     private static final int MODE_VERIFY = 0;
     private static final int MODE_READ = 2;
@@ -73,6 +71,11 @@ class DMA implements Device {
         }
     }
 
+    /** @return true if the next address or count is the low byte, a word is written */
+    public boolean isLowByteNext() {
+        return !fl;
+    }
+
     /** */
     public int getAddress(int channel) {
         return addresses[channel];
@@ -96,7 +99,10 @@ class DMA implements Device {
     }
 
     /** */
-    private Timer[] timers = new Timer[4];
+    private DmaTask[] tasks = new DmaTask[4];
+
+    /** a transfer per frame [T-states] */
+    private static final long PERIOD = Z80.CLOCK / 60;
 
     /** */
     public void setMode(int mode) {
@@ -106,12 +112,12 @@ class DMA implements Device {
             boolean enabled = (mode & (0x01 << i)) != 0;
 
             if (enabled) {
-//                  timers[i] = new Timer();
-//                  timers[i].schedule(new DmaTimerTask(i), 0, 333);
+//                  tasks[i] = new DmaTask(i);
+//                  bus.getScheduler().schedule(tasks[i], 0, PERIOD);
 Debug.println("channel " + i + " start: " + StringUtil.toHex4(addresses[i]) + ", " + StringUtil.toHex4(counts[i]));
-            } else if (timers[i] != null) {
-//                  timers[i].cancel();
-//                  timers[i] = null;
+            } else if (tasks[i] != null) {
+                tasks[i].cancel();
+                tasks[i] = null;
 Debug.println("channel " + i + " stop");
             }
         }
@@ -125,9 +131,9 @@ Debug.println("channel " + i + " stop");
     //----
 
     /** */
-    private class DmaTimerTask extends TimerTask {
+    private class DmaTask extends Scheduler.Task {
         int channel;
-        DmaTimerTask(int channel) {
+        DmaTask(int channel) {
             this.channel = channel;
         }
         public void run() {
@@ -38,7 +38,7 @@ public class Debugger implements Device {
     public void setBus(Bus bus) {
         this.bus = bus;
 
-        this.z80 = (Z80) bus.getDevice(Z80.class.getName());
+        this.z80 = bus.getDevice(Z80.class);
         this.currentAddress = z80.getPC();
 
         disassembler.setBus(bus);
@@ -82,6 +82,8 @@ public class Debugger implements Device {
                 "p\t\tpassing trace\n" +
                 "RET\t\ttrace once\n" +
                 "b[nn]\t\tset/display break points\n" +
+                "w{r|w|x}nn[,nn]\tset watch points of read/write/execute\n" +
+                "w\t\tclear watch points\n" +
                 "ip\t\tinput from port p\n" +
                 "op,n\t\toutput n to port p\n" +
                 "r,filename,nn\tread file to address nn\n" +
@@ -234,6 +236,47 @@ System.out.println("read file " + filename + " address " + StringUtil.toHex4(add
                            " = " + StringUtil.toHex2(data));
     }
 
+    /** the last access watched since the step, null if none */
+    private String watched;
+
+    /** */
+    private final Bus.Watcher watcher = (address, value, access) -> {
+        watched = access + " " + StringUtil.toHex4(address) + " = " + StringUtil.toHex2(value);
+    };
+
+    /** */
+    private void setWatchpoint(String buf) {
+
+        if (buf.length() < 3) {
+            bus.removeWatchpoint(watcher);
+System.err.println("watch points cleared");
+            return;
+        }
+
+        Bus.Access access;
+        switch (buf.toLowerCase().charAt(1)) {
+        case 'r':
+            access = Bus.Access.READ;
+            break;
+        case 'w':
+            access = Bus.Access.WRITE;
+            break;
+        case 'x':
+            access = Bus.Access.EXECUTE;
+            break;
+        default:
+            System.err.println("unknown access: " + buf);
+            return;
+        }
+
+        StringTokenizer st = new StringTokenizer(buf.substring(2), ",\t ");
+        int start = Integer.parseInt(st.nextToken(), 16);
+        int end = st.hasMoreTokens() ? Integer.parseInt(st.nextToken(), 16) : start;
+
+        bus.addWatchpoint(start, end, access, watcher);
+System.err.println("watch point = " + access + " " + StringUtil.toHex4(start) + "-" + StringUtil.toHex4(end));
+    }
+
     /** */
     private int editedAddress = 0;
 
@@ -279,12 +322,17 @@ System.out.println("read file " + filename + " address " + StringUtil.toHex4(add
      * @return current address is brake point or not.
      */
     private boolean step(boolean verbose) {
+        watched = null;
         currentAddress = z80.execute(currentAddress, 1);
 
         if (currentAddress == brakeAddress) {
             System.err.println("break point");
             return true;
         }
+        if (watched != null) {
+            System.err.println("watch point: " + watched);
+            return true;
+        }
         if (z80.isUserBroken()) {
             System.err.println("user break");
             return true;
@@ -397,6 +445,9 @@ System.out.println("read file " + filename + " address " + StringUtil.toHex4(add
                     }
 System.err.println("break point = " + StringUtil.toHex4(brakeAddress));
                     break;
+                case 'w':
+                    setWatchpoint(line);
+                    break;
                 case 'r':
                     readFile(line);
                     break;
@@ -15,8 +15,32 @@ package vavi.apps.em88;
  */
 interface Device {
 
-    /** */
+    /**
+     * attaches to the bus, called once by the first {@link Bus#reset()}
+     * after added. other devices are added then, find them here.
+     */
     void setBus(Bus bus);
+
+    /** called by every {@link Bus#reset()} after devices are attached, schedule tasks here */
+    default void reset() {
+    }
+
+    /**
+     * brings the state changing by time up to the time, instead of ticking
+     * every instruction. called before a port set with the device is
+     * accessed, so the device runs only when observed or by its own
+     * {@link Scheduler} events.
+     * @param time [T-states]
+     * @return the time the state changes next without an event,
+     *         {@link Long#MAX_VALUE} if not
+     */
+    default long catchUp(long time) {
+        return Long.MAX_VALUE;
+    }
+
+    /** called by {@link Bus#powerOff()} */
+    default void powerOff() {
+    }
 }
 
 /* */
@@ -11,7 +11,10 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.NavigableMap;
 import java.util.Properties;
+import java.util.TreeMap;
 
 import vavi.util.Debug;
 import vavi.util.StringUtil;
@@ -189,12 +192,7 @@ if (currentMnemonic == null) {
 
     /** */
     private final String toName(int value) {
-        String key = StringUtil.toHex4(value);
-        if (names.containsKey(key)) {
-            return names.getProperty(key);
-        } else {
-            return null;
-        }
+        return names.get(value);
     }
 
     /** */
@@ -258,8 +256,13 @@ if (currentMnemonic == null) {
 
     //-------------------------------------------------------------------------
 
-    /** */
-    private static Properties names = new Properties();
+    /** routine names by the address, shared with {@link Profiler} */
+    private static final NavigableMap<Integer, String> names = new TreeMap<>();
+
+    /** @return routine names by the address, empty if "address.properties" is missing */
+    static NavigableMap<Integer, String> getNames() {
+        return Collections.unmodifiableNavigableMap(names);
+    }
 
     /** */
     private static Properties outportNames = new Properties();
@@ -292,7 +295,15 @@ if (currentMnemonic == null) {
 
             // names
             final String path2 = "/address.properties";
-            names.load(clazz.getResourceAsStream(path2));
+            InputStream is = clazz.getResourceAsStream(path2);
+            if (is != null) {
+                props = new Properties();
+                props.load(is);
+                is.close();
+                for (String key : props.stringPropertyNames()) {
+                    names.put(Integer.parseInt(key, 16), props.getProperty(key));
+                }
+            }
 
             final String path3 = "/inport.properties";
             inportNames.load(clazz.getResourceAsStream(path3));
@@ -9,15 +9,14 @@ package vavi.apps.em88;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
-import java.awt.Image;
-import java.awt.Toolkit;
 import java.awt.event.KeyListener;
-import java.awt.image.CropImageFilter;
-import java.awt.image.FilteredImageSource;
-import java.awt.image.ImageFilter;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
@@ -55,6 +54,7 @@ class Emu88 {
 
         Options options = new Options();
         options.addOption("d", false, "debug mode");
+        options.addOption("f", false, "run as fast as possible, not in real time");
         options.addOption(OptionBuilder.withArgName("sw1")
                           .hasArg()
                           .withDescription("dip switch 1" )
@@ -63,6 +63,10 @@ class Emu88 {
                           .hasArg()
                           .withDescription("dip switch 2" )
                           .create("2") );
+        options.addOption(OptionBuilder.withArgName("file")
+                          .hasArg()
+                          .withDescription("write hot routines to the file and call stacks to file.folded at exit" )
+                          .create("p") );
         options.addOption("h", false, "display help");
 
         CommandLineParser parser = new BasicParser();
@@ -77,6 +81,9 @@ class Emu88 {
         if (cl.hasOption("d")) {
             debug_flg = true;
         }
+        if (cl.hasOption("f")) {
+            pc88.setThrottled(false);
+        }
         if (cl.hasOption("1")) {
             pc88.setDipSwitch1(~Integer.parseInt(cl.getOptionValue("1"), 16));
         }
@@ -88,9 +95,25 @@ class Emu88 {
 
         pc88.setView(new SwingView());
         pc88.setRomDao(new MyRomDao());
+        pc88.getBus().addDevice(new Z80Panel());
+        if (cl.hasOption("p")) {
+            Profiler profiler = new Profiler();
+            pc88.getBus().addDevice(profiler);
+            String file = cl.getOptionValue("p");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try (PrintStream ps = new PrintStream(file);
+                     PrintStream folded = new PrintStream(file + ".folded")) {
+                    profiler.report(ps, 100);
+                    profiler.collapse(folded);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        }
         pc88.reset();
         pc88.setDebugMode(debug_flg);
         pc88.exec(0);
+        pc88.powerOff();
 
         System.exit(0);
     }
@@ -101,17 +124,73 @@ class Emu88 {
     static class SwingView implements View {
         /** */
         JFrame frame = new JFrame();
-        /** */
-        private Image[] textCharacters = new Image[256];
+        /**
+         * glyph atlases, a bit mask per dot row (msb is the left most dot),
+         * H rows per character. indexed by {@link #variant(int, int)}.
+         */
+        private int[][] atlases = new int[4][];
+        /** the current atlas */
+        private int[] atlas;
+        /** glyph dot color */
+        private int foreground = 0xffffff;
         /** */
         private JPanel screen;
 
+        /** screen size */
+        private static final int WIDTH = 640, HEIGHT = 400;
+        /** double buffered frames, composed by the emulation thread */
+        private BufferedImage[] images = {
+            new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB),
+            new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB)
+        };
+        /** rasters of {@link #images} */
+        private int[][] pixels = {
+            ((DataBufferInt) images[0].getRaster().getDataBuffer()).getData(),
+            ((DataBufferInt) images[1].getRaster().getDataBuffer()).getData()
+        };
+        /** index of the frame to be composed next */
+        private int back;
+        /** the last composed frame */
+        private volatile BufferedImage image = images[1];
+
         /** */
         private int[][] tvram = new int[26][120];
 
-        /* */
+        /**
+         * cells to be redrawn, a bit per cell (l * 80 + c) of 80x25,
+         * for each frame of {@link #images}.
+         */
+        private long[][] dirty = new long[2][(80 * 25 + 63) / 64];
+
+        /* columns 80 ~ are attributes, those affect the whole line */
         public void setTextVram(int c, int l, int value) {
+            if (tvram[l][c] == value) {
+                return;
+            }
             tvram[l][c] = value;
+
+            if (l >= 25) {
+                return;
+            }
+            if (c < 80) {
+                setDirty(l * 80 + c);
+            } else {
+                for (int i = 0; i < 80; i++) {
+                    setDirty(l * 80 + i);
+                }
+            }
+        }
+
+        /** */
+        private void setDirty(int cell) {
+            dirty[0][cell >> 6] |= 1L << cell;
+            dirty[1][cell >> 6] |= 1L << cell;
+        }
+
+        /** the whole screen will be redrawn */
+        private void setDirty() {
+            Arrays.fill(dirty[0], -1L);
+            Arrays.fill(dirty[1], -1L);
         }
 
         /* */
@@ -126,41 +205,85 @@ class Emu88 {
 
         public void set40(boolean _40) {
             W = _40 ? 16 : 8;
+            atlas = atlases[variant(W, H)];
+            setDirty();
         }
 
         public void set25Line(boolean _25Line) {
             H = _25Line ? 16 : 20;
+            atlas = atlases[variant(W, H)];
+            setDirty();
+        }
+
+        /** */
+        private static int variant(int w, int h) {
+            return (w == 16 ? 1 : 0) | (h == 20 ? 2 : 0);
         }
 
         /** */
         SwingView() {
             try {
-                Toolkit t = Toolkit.getDefaultToolkit();
-
                 String path = "/font2.png";
-                Image image = ImageIO.read(getClass().getResourceAsStream(path));
+                BufferedImage image = ImageIO.read(getClass().getResourceAsStream(path));
+
+                // 16x16 characters of 8x16 dots
+                int[] glyphs = new int[256 * 16];
+                boolean colored = false;
+                for (int code = 0; code < 256; code++) {
+                    for (int y = 0; y < 16; y++) {
+                        int bits = 0;
+                        for (int x = 0; x < 8; x++) {
+                            int dot = image.getRGB((code % 16) * 8 + x, (code / 16) * 16 + y);
+                            if ((dot >>> 24) != 0 && (dot & 0xffffff) != 0) {
+                                bits |= 0x80 >> x;
+                                if (!colored) {
+                                    foreground = dot & 0xffffff;
+                                    colored = true;
+                                }
+                            }
+                        }
+                        glyphs[code * 16 + y] = bits;
+                    }
+                }
 
-                for (int i = 0; i < 16; i++) {
-                    for (int j = 0; j < 16; j++) {
-                        ImageFilter cif = new CropImageFilter(j * 8, i * 16, 8, 16);
-                        FilteredImageSource fis = new FilteredImageSource(image.getSource(), cif);
-                        textCharacters[i * 16 + j] = t.createImage(fis);
+                for (int w = 8; w <= 16; w += 8) {
+                    for (int h = 16; h <= 20; h += 4) {
+                        int[] atlas = new int[256 * h];
+                        for (int code = 0; code < 256; code++) {
+                            for (int y = 0; y < 16; y++) { // rows 16 ~ h are blank
+                                int bits = glyphs[code * 16 + y];
+                                atlas[code * h + y] = w == 8 ? bits : doubleWidth(bits);
+                            }
+                        }
+                        atlases[variant(w, h)] = atlas;
                     }
                 }
+                atlas = atlases[variant(W, H)];
+                setDirty();
             } catch (IOException e) {
                 throw new IllegalStateException(e);
             }
         }
 
+        /** @return 16 dots, each dot of 8 dots bits doubled */
+        private static int doubleWidth(int bits) {
+            int doubled = 0;
+            for (int x = 0; x < 8; x++) {
+                if ((bits & (0x01 << x)) != 0) {
+                    doubled |= 0x03 << (x * 2);
+                }
+            }
+            return doubled;
+        }
+
         /* TODO  */
         public void reset() {
             screen = new JPanel() {
                 public void paint(Graphics g) {
-                    super.paint(g);
-                    drawText(g);
+                    g.drawImage(image, 0, 0, null);
                 }
             };
-            screen.setPreferredSize(new Dimension(640, 400));
+            screen.setPreferredSize(new Dimension(WIDTH, HEIGHT));
             screen.setOpaque(true);
             screen.setBackground(Color.black);
 
@@ -174,12 +297,39 @@ class Emu88 {
             frame.setVisible(true);
         }
 
-        /** */
-        private final void drawText(Graphics g) {
-            for (int l = 0; l < 25; l++) {
-                for (int c = 0; c < 80; c++) {
-                    Image image = textCharacters[tvram[l][c]];
-                    g.drawImage(image, c * W, l * H, null);
+        /** redraws dirty cells of the text screen */
+        private final void drawText(int[] pixels, long[] dirty) {
+            int[] atlas = this.atlas;
+            int w = W;
+            int h = H;
+            int fg = foreground;
+            int bg = colors[background].getRGB() & 0xffffff;
+            int columns = WIDTH / w;
+            int lines = Math.min(25, HEIGHT / h);
+
+            for (int i = 0; i < dirty.length; i++) {
+                long cells = dirty[i];
+                dirty[i] = 0;
+                while (cells != 0) {
+                    int cell = (i << 6) + Long.numberOfTrailingZeros(cells);
+                    cells &= cells - 1;
+
+                    int l = cell / 80;
+                    int c = cell % 80;
+                    if (l >= lines || c >= columns) {
+                        continue;
+                    }
+
+                    int p = tvram[l][c] * h;
+                    int q = l * h * WIDTH + c * w;
+                    for (int y = 0; y < h; y++) {
+                        int bits = atlas[p + y];
+                        for (int x = w - 1; x >= 0; x--) {
+                            pixels[q + x] = (bits & 1) != 0 ? fg : bg;
+                            bits >>= 1;
+                        }
+                        q += WIDTH;
+                    }
                 }
             }
         }
@@ -197,13 +347,23 @@ class Emu88 {
             Color.green, Color.cyan, Color.yellow, Color.white
         };
 
+        /** background color index */
+        private int background;
+
         /* */
         public void setBackground(int color) {
-            screen.setBackground(colors[color]);
+            if (background != color) {
+                background = color;
+                setDirty();
+            }
         }
 
-        /* */
+        /* composes a frame and blits it in a single call */
         public void repaint() {
+            drawText(pixels[back], dirty[back]);
+            image = images[back];
+            back ^= 1;
+
             screen.repaint();
         }
     }
@@ -25,6 +25,21 @@ final class Graphic implements Device {
         this.bus = bus;
     }
 
+    /** */
+    public void reset() {
+        // vsync, along with vrtc of INTC
+        bus.getScheduler().schedule(new VsyncTask(), INTC.FRAME - INTC.RETRACE, INTC.FRAME);
+    }
+
+    /** the screen is rendered once per frame, not per vram write */
+    private class VsyncTask extends Scheduler.Task {
+        public void run() {
+            if (view != null) {
+                view.repaint();
+            }
+        }
+    }
+
     // ----
 
     private View view;
@@ -160,6 +175,7 @@ final class Graphic implements Device {
 //          for (int j = 0; j < len; j++) {
 //              xxx(l * 80 + ((p + j) % 80)) * 2, atr);
 //          }
+            view.setTextVram(c, l, data); // keeps attributes, the line will be redrawn
         } else {
             view.setTextVram(c, l, data);
         }
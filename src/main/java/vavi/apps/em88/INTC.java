@@ -6,12 +6,15 @@
 
 package vavi.apps.em88;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
  * INTC.
+ * <p>
+ * requests are held in a bitmask until acknowledged, the channel is chosen
+ * by the priority at the acknowledge. a request may come from any thread.
+ * </p>
  *
  * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (nsano)
  * @version 0.00 031230 nsano initial version <br>
@@ -28,14 +31,25 @@ class INTC implements Device {
     public void setBus(Bus bus) {
         this.bus = bus;
 
-        this.z80 = (Z80) bus.getDevice(Z80.class.getName());
+        this.z80 = bus.getDevice(Z80.class);
+
+        bus.setOutPort(0xe4, (port, data) -> setRegister(data));
+        bus.setOutPort(0xe6, (port, data) -> setMask(data));
+    }
+
+    /** */
+    public void reset() {
+        pending.set(0);
+        channel = -1;
+
+        Scheduler scheduler = bus.getScheduler();
 
         // vrtc
-        timers[0] = new Timer();
-        timers[0].schedule(new VrtcTimerTask(), 0, 60);
+        origin = scheduler.getTime();
+        scheduler.schedule(new VrtcTask(), FRAME - RETRACE, FRAME);
 
-        timers[1] = new Timer();
-        timers[1].schedule(new IntcTimerTask(1), 0, 160);
+        // 1/600 sec
+        scheduler.schedule(new IntcTask(2), Z80.CLOCK / 600, Z80.CLOCK / 600);
     }
 
     // ----
@@ -51,6 +65,7 @@ class INTC implements Device {
         this.sgs_ = (data & 0x08) != 0;
         this.level = data & 0x07;
         // Debug.println("sgs_: " + sgs_ + ", level: " + level);
+        updateLine();
     }
 
     /** */
@@ -74,45 +89,79 @@ class INTC implements Device {
             mask |= (0x01 << 0);
         }
         // Debug.println("mask: " + StringUtil.toHex2(mask) + " " + StringUtil.toBits(mask));
+        pending.getAndAccumulate(mask, (p, m) -> p & m);
+        updateLine();
     }
 
-    /** */
-    private int channel;
+    /** the last acknowledged, -1 if the last acknowledge found no request */
+    private int channel = -1;
 
-    /** */
-    private int irff = 0xff;
+    /** requests not acknowledged yet, bit n for the channel n */
+    private final AtomicInteger pending = new AtomicInteger();
 
-    /** */
+    /** a masked request is ignored, the same channel requested again is merged */
     public void requestInterrupt(int channel) {
         if ((mask & (0x01 << channel)) == 0) {
             return;
         }
 
-        if (sgs_) { // 優先順位のみによる割り込み発生
-            for (int i = 0; i < channel; i++) {
-                if ((irff & (0x01 << i)) == 0) {
-                    return;
-                }
+        int bit = 0x01 << channel;
+        if ((pending.getAndAccumulate(bit, (p, b) -> p | b) & bit) == 0) {
+            updateLine();
+        }
+    }
+
+    /**
+     * chooses the channel to be accepted and removes it from the requests.
+     * @return false if no request is accepted, masked or withdrawn after the
+     *         line is asserted, the cpu must not take the interrupt
+     */
+    public boolean acknowledgeInterrupt() {
+        int requests;
+        int channel;
+        do {
+            requests = pending.get();
+            channel = resolve(requests);
+            if (channel < 0) {
+                break;
             }
+        } while (!pending.compareAndSet(requests, requests & ~(0x01 << channel)));
+        this.channel = channel;
+
+        updateLine();
+        return channel >= 0;
+    }
+
+    /**
+     * @param requests bit n for the channel n
+     * @return the channel of the highest priority, -1 if none is accepted
+     */
+    private int resolve(int requests) {
+        requests &= mask;
+        if (requests == 0) {
+            return -1;
+        }
+        int channel = Integer.numberOfTrailingZeros(requests);
+        if (sgs_) { // 優先順位のみによる割り込み発生
+            return channel;
         } else { // インタラプトレベルと比較し割り込み発生
-            if (channel > level) {
-                return;
-            }
+            return channel > level ? -1 : channel;
         }
+    }
 
-        if ((irff & (0x01 << channel)) != 0) {
-            this.channel = channel & 0x07;
-            irff &= ~(0x01 << channel);
+    /** asserts the line of the cpu if a request is accepted, withdraws if not */
+    private void updateLine() {
+        if (z80 == null) {
+            return;
+        }
+        if (resolve(pending.get()) >= 0) {
             z80.requestInterrupt();
+        } else {
+            z80.cancelInterrupt();
         }
     }
 
-    /** */
-    public void acknowledgeInterrupt() {
-        irff |= (0x01 << channel);
-    }
-
-    /** */
+    /** valid after {@link #acknowledgeInterrupt()} returns true */
     public int getOffsetAddress() {
         return channel * 2;
     }
@@ -120,40 +169,46 @@ class INTC implements Device {
     // ----
 
     /** */
-    private volatile boolean vrtc;
+    private boolean vrtc;
 
-    /** */
+    /** the start of the first frame [T-states] */
+    private long origin;
+
+    /** {@link #catchUp(long)} before */
     public boolean getVrtc() {
         return vrtc;
     }
 
-    /** */
-    private Timer[] timers = new Timer[8];
+    /** vrtc is computed from the time, not by events */
+    public long catchUp(long time) {
+        long phase = (time - origin) % FRAME;
+        vrtc = phase >= FRAME - RETRACE;
+        return time - phase + (vrtc ? FRAME : FRAME - RETRACE);
+    }
 
-    /** */
-    private class VrtcTimerTask extends TimerTask {
+    /** [T-states] */
+    static final long FRAME = Z80.CLOCK / 60;
+
+    /** vertical retrace of a frame, 62 lines of 262 [T-states] */
+    static final long RETRACE = FRAME * 62 / 262;
+
+    /** vertical retrace starts, an interrupt is requested */
+    private class VrtcTask extends Scheduler.Task {
         public void run() {
-            vrtc = !vrtc;
+            requestInterrupt(1);
         }
     };
 
     /** */
-    private class IntcTimerTask extends TimerTask {
+    private class IntcTask extends Scheduler.Task {
         int channel;
 
-        IntcTimerTask(int channel) {
+        IntcTask(int channel) {
             this.channel = channel;
         }
 
         public void run() {
-
-            // if (channel == 1) { vrtc = true; }
-
             requestInterrupt(channel);
-
-            // Thread.yield();
-
-            // if (channel == 1) { vrtc = false; }
         }
     };
 }
@@ -39,6 +39,10 @@ public final class Keyboard extends KeyAdapter implements Device, Controller {
     /** */
     public void setBus(Bus bus) {
         this.bus = bus;
+
+        for (int port = 0; port < keyPort.length; port++) {
+            bus.setInPort(port, this::getPort);
+        }
     }
 
     //----
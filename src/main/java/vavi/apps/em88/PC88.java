@@ -33,6 +33,7 @@ public class PC88 {
         void set40(boolean _40);
         void set25Line(boolean _25Line);
 
+        /** renders a frame, called once per vsync on the emulation thread */
         void repaint();
         void setBackground(int c); // TODO
     }
@@ -106,6 +107,11 @@ Debug.println("sw1: " + StringUtil.toHex2(sw1));
 Debug.println("sw2: " + StringUtil.toHex2(sw2));
     }
 
+    /** */
+    public void powerOff() {
+        mainBus.powerOff();
+    }
+
     /** */
     private boolean debugMode;
 
@@ -114,19 +120,24 @@ Debug.println("sw2: " + StringUtil.toHex2(sw2));
         this.debugMode = debugMode;
     }
 
+    /** @param throttled false runs faster than real time, for batch runs */
+    public void setThrottled(boolean throttled) {
+        z80.setThrottled(throttled);
+    }
+
     /**
      * @before {@link #setView(View)}
      */
     public void exec(int address) {
         // TODO いまいち
-        Graphic graphic = (Graphic) mainBus.getDevice(Graphic.class.getName());
+        Graphic graphic = mainBus.getDevice(Graphic.class);
         graphic.setView(view);
         // TODO いまいち
-        Keyboard keyboard = (Keyboard) mainBus.getDevice(Keyboard.class.getName());
+        Keyboard keyboard = mainBus.getDevice(Keyboard.class);
         view.setController(keyboard);
 
         if (!debugMode) {
-            z80.execute(address);
+            z80.run(address);
         }
         if (debugMode || z80.isUserBroken()) {
             Debugger debugger = new Debugger();
@@ -294,7 +305,7 @@ Debug.println("sw2: " + StringUtil.toHex2(sw2));
         /** */
         private int tvrame;
 
-        /** */
+        /** page tables are rebuilt by {@link #outp(int, int)} when the layout changes */
         protected final Mapping getMapping(int address, Direction direction) {
             Mapping mapping = new Mapping();
 
@@ -323,7 +334,6 @@ Debug.println("sw2: " + StringUtil.toHex2(sw2));
                         mapping.base = ROM_4TH[rom4th];
                         mapping.pointer = address - 0x6000;
                         if (mapping.base == null) {     // TODO
-Debug.println("use default: rom " + (rom4th + 1) + " does not exists");
                             mapping.base = ROM_N88;
                             mapping.pointer = address;
                         }
@@ -339,7 +349,7 @@ Debug.println("use default: rom " + (rom4th + 1) + " does not exists");
                 }
             } else if (address < 0x8400) {              // 8000 - 8400 : RAM WIN
                 if (mmode == ROM && rmode == N88) {     // mode 1
-                    address = (oar << 8) + (address & 0x03ff);
+                    address = ((oar << 8) + (address & 0x03ff)) & 0xffff;
                 }
                 mapping.base = RAM_64K;
                 mapping.pointer = address;
@@ -374,240 +384,136 @@ Debug.println("use default: rom " + (rom4th + 1) + " does not exists");
             return mapping;
         }
 
-        /** TODO */
-        public void pokeb(int address, int value) {
-            Mapping mapping = getMapping(address, Direction.WRITE);
-            mapping.base[mapping.pointer] = (byte) (value & 0xff);
-
-            if (mapping.base == RAM_64K) {
-                if (address >= tvrams && address <= tvrame) {
-                    graphic.pokeb(address - tvrams, value);
-                    graphic.repaint();
-                }
+        /** mirrors writes to the text vram */
+        private final Watcher tvram = (address, value, access) -> {
+            if (address < 0xc000 || vram == 0) {        // RAM_64K
+                graphic.pokeb(address - tvrams, value);
             }
-        }
+        };
 
-        /** */
-        public int inp(int port) {
-            int data = 0;
+        /** */ {
+            addWatchpoint(tvrams, tvrame, Access.WRITE, tvram);
+        }
 
-            switch (port) {
-            case 0:                     // key board
-            case 1:
-            case 2:
-            case 3:
-            case 4:
-            case 5:
-            case 6:
-            case 7:
-            case 8:
-            case 9:
-            case 0x0a:
-            case 0x0b:
-                data = keyboard.getPort(port);
-                break;
-            case 0x20:                  // USART data port
-                data = usart.getData();
-                break;
-            case 0x21:                  // USART control port
-                data = usart.getControl();
-                break;
-            case 0x30:                  // dip switch 1, uip 2, 3
-                data = (sw1 & 0x3f) | uip1() | uip2();
-                break;
-            case 0x31:                  // dip switch 2
-                data = sw2 & 0x3f;
-                break;
-            case 0x40:                  // BUSY,SHG,DCD,EXTON,CDI,VRTC
-                data = vrtc() | exton() | shg() | busy();
-                break;
-            case 0x50:                  // CRTC read data
-                data = crtc.getData();
-                break;
-            case 0x51:                  // CRTC read status
-                data = crtc.getStatus();
-                break;
-            case 0x5c:                  // GVRAM status
-                data = vram;
-                break;
-            case 0x68:                  // DMAC status port
-                break;
-            case 0x70:                  // TEXT WINDOW offset address
-                data = oar;
-                break;
-            case 0x71:                  // 4th ROM control
-                data = romkill;
-                break;
-            case 0xe2:                  // PC-8012-02 bank status
-                break;
-            case 0xe3:                  // PC-8012-02 bank control
-                break;
-            case 0xe8:                  // KANJI font L
-                break;
-            case 0xe9:                  // KANJI font H
-                break;
-            case 0xf4:                  // DMA 8 inch disk control
-                break;
-            case 0xf6:                  // DMA 8 inch disk control
-                break;
-            case 0xf7:                  // DMA 8 inch disk control
-                break;
-            case 0xf8:                  // DMA 8 inch disk control
-                break;
-            case 0xfa:                  // DMA 8 inch disk control
-                break;
-            case 0xfb:                  // DMA 8 inch disk control
-                break;
-            case 0xfc:                  // mini disk control
-                break;
-            case 0xfe:                  // mini disk control
-                break;
+        /** ports of the system, devices set their own ports when attached */ {
+            setInPort(0x30, port -> (sw1 & 0x3f) | uip1() | uip2()); // dip switch 1, uip 2, 3
+            setInPort(0x31, port -> sw2 & 0x3f);                      // dip switch 2
+            setInPort(0x40, intc, port -> vrtc() | exton() | shg() | busy()); // BUSY,SHG,DCD,EXTON,CDI,VRTC
+            setInPort(0x5c, port -> vram);                            // GVRAM status
+            setInPort(0x70, port -> oar);                             // TEXT WINDOW offset address
+            setInPort(0x71, port -> romkill);                         // 4th ROM control
+
+            setOutPort(0x30, this::outSystemControl1);
+            setOutPort(0x31, this::outSystemControl2);
+            setOutPort(0x40, this::outStrobe);
+            setOutPort(0x52, (port, data) -> {                       // border, background color
+                graphic.setBackground(data & 0x07);                   // select BGC
+                graphic.setBorderColor(data & 0x70);                  // border
+            });
+            setOutPort(0x53, (port, data) -> {                       // screen control
+                graphic.setTextDisplayed((data & 0x01) != 0);         // TVRAM
+            });
+            for (int port = 0x54; port <= 0x5b; port++) {             // control color palette
+                setOutPort(port, (p, data) -> graphic.changePalette(p - 0x54, data));
             }
+            for (int port = 0x5c; port <= 0x5f; port++) {             // select GVRAM (B,R,G,RAM)
+                setOutPort(port, this::outVram);
+            }
+            for (int port = 0x60; port <= 0x67; port++) {             // CH-n DMA address, terminal count
+                setOutPort(port, this::outDma);
+            }
+            setOutPort(0x68, (port, data) -> dma.setMode(data));     // DMAC control port
+            setOutPort(0x70, (port, data) -> {                       // set TEXT WINDOW address
+                oar = data;
+                updateMapping(0x8000, 0x83ff);
+            });
+            setOutPort(0x71, this::outRomKill);
+            setOutPort(0x78, (port, data) -> {                       // inc TEXT WINDOW address
+                oar++;
+                updateMapping(0x8000, 0x83ff);
+            });
+            // not connected: e2h, e3h PC-8012-02 bank, e8h ~ ebh KANJI ROM,
+            // f3h ~ fbh DMA 8 inch disk control, fch ~ ffh mini disk control
+        }
 
-//Debug.println(" pc: " + StringUtil.toHex4(z80.getPC()) + ": " + StringUtil.toHex2(port) + " <- " + StringUtil.toHex2(data) + ", " + inportNames.getProperty(StringUtil.toHex2(port)));
-            return data;
+        /** 30h: system control port 1 */
+        private void outSystemControl1(int port, int data) {
+            graphic.set40((data & 0x01) == 0);
+            graphic.setColorMode((data & 0x02) == 0);   // B&W / color
+            cmt.setCDS((data & 0x04) != 0 ? CMT.MARK : CMT.SPACE);
+            cmt.setMTON((data & 0x08) != 0);
+            usart.setBS1((data & 0x10) != 0);
+            usart.setBS2((data & 0x20) != 0);
         }
 
-        /** */
-        public void outp(int port, int data) {
-//Debug.println("pc: " + StringUtil.toHex4(z80.getPC()) + ": " + StringUtil.toHex2(port) + " -> " + StringUtil.toHex2(data) + ", " + outportNames.getProperty(StringUtil.toHex2(port)));
-            switch (port) {
-            case 0x10:                  //
-                break;
-            case 0x20:                  // USART data port
-                usart.setData(data);
-                break;
-            case 0x21:                  // USART control port
-                usart.setControl(data);
-                break;
-            case 0x30:                  // system control port 1
-                graphic.set40((data & 0x01) == 0);
-                graphic.setColorMode((data & 0x02) == 0);   // B&W / color
-                cmt.setCDS((data & 0x04) != 0 ? CMT.MARK : CMT.SPACE);
-                cmt.setMTON((data & 0x08) != 0);
-                usart.setBS1((data & 0x10) != 0);
-                usart.setBS2((data & 0x20) != 0);
-                break;
-            case 0x31:                  // system control port 2
-                graphic.set200Line((data & 0x01) != 0);
-                graphic.setHColorMode((data & 0x10) != 0);
-                mmode = (data & 0x02) != 0 ? RAM : ROM;
+        /** 31h: system control port 2 */
+        private void outSystemControl2(int port, int data) {
+            graphic.set200Line((data & 0x01) != 0);
+            graphic.setHColorMode((data & 0x10) != 0);
+            mmode = (data & 0x02) != 0 ? RAM : ROM;
 //Debug.println("mmode: " + (mmode == ROM ? "ROM" : "RAM"));
-                rmode = (data & 0x04) != 0 ? N : N88;
+            rmode = (data & 0x04) != 0 ? N : N88;
 //Debug.println("rmode: " + (rmode == N88 ? "N88" : "N"));
-                graphic.setGraphicDisplayed((data & 0x08) != 0);
-                graphic.set25Line((data & 0x20) != 0);
-                break;
-            case 0x40:                  // strobe port
-                printer.setPSTB((data & 0x01) == 0);
-//              beep((data & 0x20) != 0);
-        uiop.setPort1((data & 0x40) != 0);
-        uiop.setPort2((data & 0x80) != 0);                      // CMD SING
-                break;
-            case 0x50:                  // CRTC write data
-                crtc.setData(data);
-                break;
-            case 0x51:                  // CRTC write command
-                crtc.setCommand(data);
-                break;
-            case 0x52:                  // border, background color
-                graphic.setBackground(data & 0x07);             // select BGC
-                graphic.setBorderColor(data & 0x70);            // border
-                break;
-            case 0x53:                  // screen control
-                graphic.setTextDisplayed((data & 0x01) != 0);   // TVRAM
-                break;
-            case 0x54:                  // control color palette
-            case 0x55:
-            case 0x56:
-            case 0x57:
-            case 0x58:
-            case 0x59:
-            case 0x5a:
-            case 0x5b:
-                graphic.changePalette(port - 0x54, data);
-                break;
-            case 0x5c:                  // select GVRAM (B,R,G,RAM)
-                vram = 0x01;
-                break;
-            case 0x5d:
-                vram = 0x02;
-                break;
-            case 0x5e:
-                vram = 0x04;
-                break;
-            case 0x5f:
-                vram = 0;
-                break;
-            case 0x60:                  // CH-n DMA address
-            case 0x62:
-            case 0x64:
-            case 0x66: {
-                int channel = (port - 0x60) / 2;
+            updateMapping(0x0000, 0x83ff);
+            graphic.setGraphicDisplayed((data & 0x08) != 0);
+            graphic.set25Line((data & 0x20) != 0);
+        }
+
+        /** 40h: strobe port */
+        private void outStrobe(int port, int data) {
+            printer.setPSTB((data & 0x01) == 0);
+//          beep((data & 0x20) != 0);
+            uiop.setPort1((data & 0x40) != 0);
+            uiop.setPort2((data & 0x80) != 0);                  // CMD SING
+        }
+
+        /** 5ch ~ 5fh: select GVRAM (B,R,G,RAM) */
+        private void outVram(int port, int data) {
+            vram = port == 0x5f ? 0 : 0x01 << (port - 0x5c);
+            updateMapping(0xc000, 0xffff);
+        }
+
+        /**
+         * 60h ~ 67h: CH-n DMA address, terminal count, the text vram follows CH-2.
+         * the watchpoint is set again only when a whole word changes the
+         * range, that rebuilds the page tables.
+         */
+        private void outDma(int port, int data) {
+            int channel = (port - 0x60) / 2;
+            if ((port & 0x01) == 0) {
                 dma.setAddress(channel, data);
-tvrams = dma.getAddress(2);
-              } break;
-            case 0x61:                  // CH-n DMA terminal count
-            case 0x63:
-            case 0x65:
-            case 0x67: {
-                int channel = (port - 0x61) / 2;
+            } else {
                 dma.setTerminalCount(channel, data);
-tvrame = tvrams + dma.getTerminalCount(2);
-              } break;
-            case 0x68:                  // DMAC control port
-                dma.setMode(data);
-                break;
-            case 0x70:                  // set TEXT WINDOW address
-                oar = data;
-                break;
-            case 0x71:                  // 4th ROM control
-                romkill = data;
-                if ((~romkill & 0xff) != 0) {
-                    rom4th = (int) (Math.log(~romkill & 0xff) / Math.log(2));
+            }
+            if (channel != 2 || !dma.isLowByteNext()) {
+                return;
+            }
+            int start = tvrams;
+            int end = tvrame;
+            if ((port & 0x01) == 0) {
+                start = dma.getAddress(2);
+            } else {
+                end = start + dma.getTerminalCount(2);
+            }
+            if (start != tvrams || end != tvrame) {
+                tvrams = start;
+                tvrame = end;
+                removeWatchpoint(tvram);
+                addWatchpoint(tvrams, tvrame, Access.WRITE, tvram);
+            }
+        }
+
+        /** 71h: 4th ROM control */
+        private void outRomKill(int port, int data) {
+            romkill = data;
+            if ((~romkill & 0xff) != 0) {
+                rom4th = (int) (Math.log(~romkill & 0xff) / Math.log(2));
 Debug.println("4th rom: " + (rom4th + 1));
+                if (ROM_4TH[rom4th] == null) {
+Debug.println("use default: rom " + (rom4th + 1) + " does not exists");
                 }
-                break;
-            case 0x78:                  // inc TEXT WINDOW address
-                oar++;
-                break;
-            case 0xe2:                  // PC-8012-02 bank control
-                break;
-            case 0xe3:                  // PC-8012-02 bank control
-                break;
-            case 0xe4:                  // interrupt controller out
-                intc.setRegister(data);
-                break;
-            case 0xe6:                  // interrupt musk flag
-                intc.setMask(data);
-                break;
-            case 0xe8:                  // KANJI ROM address L
-                break;
-            case 0xe9:                  // KANJI ROM address H
-                break;
-            case 0xea:                  // KANJI ROM read start
-                break;
-            case 0xeb:                  // KANJI ROM read stop
-                break;
-            case 0xf3:                  // DMA 8 inch disk control
-                break;
-            case 0xf4:                  // DMA 8 inch disk control
-                break;
-            case 0xf5:                  // DMA 8 inch disk control
-                break;
-            case 0xf7:                  // DMA 8 inch disk control
-                break;
-            case 0xf8:                  // DMA 8 inch disk control
-                break;
-            case 0xf9:                  // DMA 8 inch disk control
-                break;
-            case 0xfb:                  // DMA 8 inch disk control
-                break;
-            case 0xfd:                  // mini disk control
-                break;
-            case 0xff:                  // mini disk control
-                break;
             }
+            updateMapping(0x6000, 0x7fff);
         }
 
         /** 31h */
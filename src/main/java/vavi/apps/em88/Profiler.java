@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.apps.em88;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import vavi.util.StringUtil;
+
+
+/**
+ * guest profiler.
+ * <p>
+ * counts executions and T-states of each address, separately for each
+ * memory the instruction is read from, so banks mapped at the same address
+ * are not mixed. the report sums those by routines named in
+ * "address.properties", a routine is from its name to the next name.
+ * </p>
+ * <p>
+ * T-states are also counted on a call tree, built from a shadow stack of
+ * calls and interrupts. a frame is removed when sp goes above its return
+ * address, so a routine returning by ret, by hand or by resetting sp
+ * leaves no frame. the tree is written as collapsed stacks for flame graphs.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (nsano)
+ * @version 0.00 261018 nsano initial version <br>
+ */
+class Profiler implements Device {
+
+    /** counters of a memory */
+    private static final class Bank {
+        /** in the order executed first */
+        final int number;
+        /** executions per address */
+        final long[] counts = new long[0x10000];
+        /** T-states per address */
+        final long[] cycles = new long[0x10000];
+
+        Bank(int number) {
+            this.number = number;
+        }
+    }
+
+    /** key is the memory, see {@link Bus#getReadGenerations(int)} */
+    private final Map<Object, Bank> banks = new IdentityHashMap<>();
+
+    /** the memory of {@link #lastBank} */
+    private Object lastMemory = new Object();
+
+    /** */
+    private Bank lastBank;
+
+    /** a routine called through the path from the root */
+    private static final class Node {
+        /** the called address, -1 for the root */
+        final int address;
+        /** entered by an interrupt */
+        final boolean interrupt;
+        /** */
+        final Node parent;
+        /** key is the address, plus 0x10000 if an interrupt */
+        final Map<Integer, Node> children = new HashMap<>();
+        /** */
+        long calls;
+        /** T-states of this routine itself */
+        long cycles;
+
+        Node(int address, boolean interrupt, Node parent) {
+            this.address = address;
+            this.interrupt = interrupt;
+            this.parent = parent;
+        }
+
+        /** @return T-states including callees */
+        long inclusive() {
+            long cycles = this.cycles;
+            for (Node child : children.values()) {
+                cycles += child.inclusive();
+            }
+            return cycles;
+        }
+    }
+
+    /** the max depth of the shadow stack */
+    private static final int DEPTH = 256;
+
+    /** the routine running when the shadow stack is empty */
+    private Node root = new Node(-1, false, null);
+
+    /** the top of the shadow stack */
+    private Node current = root;
+
+    /** the stack address of the return address of each frame */
+    private final int[] slots = new int[DEPTH];
+
+    /** frames of the shadow stack */
+    private int depth;
+
+    /** starts profiling */
+    public void setBus(Bus bus) {
+        Z80 z80 = bus.getDevice(Z80.class);
+        z80.setProfiler(this);
+    }
+
+    /**
+     * called by the cpu after each instruction.
+     * @param memory the memory read at the address
+     * @param cycles T-states of the instruction
+     * @param sp after the instruction
+     */
+    final void add(Object memory, int address, long cycles, int sp) {
+        Bank bank = lastBank;
+        if (memory != lastMemory) {
+            bank = banks.computeIfAbsent(memory, m -> new Bank(banks.size()));
+            lastMemory = memory;
+            lastBank = bank;
+        }
+        bank.counts[address]++;
+        bank.cycles[address] += cycles;
+
+        current.cycles += cycles;
+        int top = (sp - 1) & 0xffff; // the return address at 0xfffe is popped to sp 0
+        if (depth > 0 && top >= slots[depth - 1]) {
+            unwind(top);
+        }
+    }
+
+    /**
+     * called by the cpu after a call, rst or an interrupt is accepted.
+     * @param sp where the return address is pushed
+     * @param address the called
+     * @param cycles T-states of accepting the interrupt
+     */
+    final void call(int sp, int address, boolean interrupt, long cycles) {
+        unwind(sp);
+        if (depth == DEPTH) {
+            return;
+        }
+        Node node = current.children.get(interrupt ? address | 0x10000 : address);
+        if (node == null) {
+            node = new Node(address, interrupt, current);
+            current.children.put(interrupt ? address | 0x10000 : address, node);
+        }
+        node.calls++;
+        node.cycles += cycles;
+        slots[depth++] = sp;
+        current = node;
+    }
+
+    /** removes frames whose return address is at or below the top */
+    private void unwind(int top) {
+        while (depth > 0 && top >= slots[depth - 1]) {
+            depth--;
+            current = current.parent;
+        }
+    }
+
+    /** @return executions at the address of all banks */
+    long getCount(int address) {
+        long count = 0;
+        for (Bank bank : banks.values()) {
+            count += bank.counts[address];
+        }
+        return count;
+    }
+
+    /** @return T-states at the address of all banks */
+    long getCycles(int address) {
+        long cycles = 0;
+        for (Bank bank : banks.values()) {
+            cycles += bank.cycles[address];
+        }
+        return cycles;
+    }
+
+    /** @return T-states of the routine at the address itself */
+    long getExclusive(int address) {
+        return exclusive(root, address);
+    }
+
+    /** */
+    private long exclusive(Node node, int address) {
+        long cycles = node.address == address ? node.cycles : 0;
+        for (Node child : node.children.values()) {
+            cycles += exclusive(child, address);
+        }
+        return cycles;
+    }
+
+    /** @return T-states of the routine at the address including callees, a recursion is counted once */
+    long getInclusive(int address) {
+        return inclusive(root, address);
+    }
+
+    /** */
+    private long inclusive(Node node, int address) {
+        if (node.address == address) {
+            return node.inclusive();
+        }
+        long cycles = 0;
+        for (Node child : node.children.values()) {
+            cycles += inclusive(child, address);
+        }
+        return cycles;
+    }
+
+    /** forgets all counts */
+    public void clear() {
+        banks.clear();
+        lastMemory = new Object();
+        lastBank = null;
+        root = new Node(-1, false, null);
+        current = root;
+        depth = 0;
+    }
+
+    /** a line of the report */
+    private static final class Routine {
+        /** the named address, -1 if before the first name */
+        final int address;
+        /** */
+        final int bank;
+        /** */
+        long count;
+        /** T-states */
+        long cycles;
+
+        Routine(int address, int bank) {
+            this.address = address;
+            this.bank = bank;
+        }
+    }
+
+    /**
+     * prints routines in the descending order of T-states.
+     * @param lines max routines to print
+     */
+    public void report(PrintStream out, int lines) {
+        List<Routine> routines = new ArrayList<>();
+        long total = 0;
+        for (Bank bank : banks.values()) {
+            Map<Integer, Routine> map = new TreeMap<>();
+            for (int address = 0; address < 0x10000; address++) {
+                if (bank.counts[address] == 0) {
+                    continue;
+                }
+                Integer key = names.floorKey(address);
+                int start = key == null ? -1 : key;
+                Routine routine = map.computeIfAbsent(start, k -> new Routine(k, bank.number));
+                routine.count += bank.counts[address];
+                routine.cycles += bank.cycles[address];
+                total += bank.cycles[address];
+            }
+            routines.addAll(map.values());
+        }
+        routines.sort((o1, o2) -> Long.compare(o2.cycles, o1.cycles));
+
+        out.println("    %      T-states      count bank address name");
+        for (int i = 0; i < lines && i < routines.size(); i++) {
+            Routine routine = routines.get(i);
+            out.println(String.format("%5.1f %13d %10d %4d %s    %s",
+                                      100.0 * routine.cycles / total,
+                                      routine.cycles,
+                                      routine.count,
+                                      routine.bank,
+                                      routine.address < 0 ? "----" : StringUtil.toHex4(routine.address),
+                                      routine.address < 0 ? "" : names.get(routine.address)));
+        }
+
+        List<Node> nodes = new ArrayList<>();
+        collect(root, nodes);
+        Map<Integer, long[]> callees = new TreeMap<>();
+        for (Node node : nodes) {
+            long[] callee = callees.computeIfAbsent(node.address, k -> new long[3]);
+            callee[0] += node.calls;
+            callee[2] += node.cycles;
+        }
+        List<Integer> addresses = new ArrayList<>(callees.keySet());
+        for (int address : addresses) {
+            callees.get(address)[1] = getInclusive(address);
+        }
+        addresses.sort((o1, o2) -> Long.compare(callees.get(o2)[1], callees.get(o1)[1]));
+
+        out.println();
+        out.println("    %     inclusive     exclusive      calls address name");
+        for (int i = 0; i < lines && i < addresses.size(); i++) {
+            int address = addresses.get(i);
+            long[] callee = callees.get(address);
+            out.println(String.format("%5.1f %13d %13d %10d %s    %s",
+                                      100.0 * callee[1] / total,
+                                      callee[1],
+                                      callee[2],
+                                      callee[0],
+                                      address < 0 ? "----" : StringUtil.toHex4(address),
+                                      address < 0 ? "" : toName(address)));
+        }
+    }
+
+    /** adds all nodes under the node */
+    private void collect(Node node, List<Node> nodes) {
+        nodes.add(node);
+        for (Node child : node.children.values()) {
+            collect(child, nodes);
+        }
+    }
+
+    /**
+     * prints the call tree as collapsed stacks, a line of frames separated
+     * by ';' and T-states of the last frame itself.
+     */
+    public void collapse(PrintStream out) {
+        collapse(root, "(top)", out);
+    }
+
+    /** */
+    private void collapse(Node node, String path, PrintStream out) {
+        if (node.cycles > 0) {
+            out.println(path + " " + node.cycles);
+        }
+        for (Node child : node.children.values()) {
+            String name = toName(child.address).replace(';', ':');
+            collapse(child, path + ";" + (child.interrupt ? "interrupt " : "") + name, out);
+        }
+    }
+
+    /** @return the name of the address, or hex */
+    private static String toName(int address) {
+        String name = names.get(address);
+        return name != null ? name : StringUtil.toHex4(address);
+    }
+
+    /** routine names by the address */
+    private static final NavigableMap<Integer, String> names = Disassembler.getNames();
+}
+
+/* */
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.apps.em88;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Scheduler.
+ * <p>
+ * runs device events on the emulated time, T-states of the cpu.
+ * tasks are run by the cpu thread between instructions, so devices
+ * need no synchronization and the timing does not depend on the host.
+ * </p>
+ * <p>
+ * the cpu checks interrupts and breaks only at the deadline, so a change
+ * of those is {@link #signal() signaled} as a deadline already passed.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (nsano)
+ * @version 0.00 261018 nsano initial version <br>
+ */
+class Scheduler {
+
+    /** a task, like {@link java.util.TimerTask} on the emulated time */
+    static abstract class Task implements Runnable {
+        /** next time to run [T-states] */
+        private long time;
+        /** [T-states], 0 means one shot */
+        private long period;
+        /** keeps the order of the tasks at the same time */
+        private long sequence;
+        /** null if not scheduled */
+        private Scheduler scheduler;
+
+        /**
+         * removes this task from the scheduler.
+         * @return false if this task is not scheduled
+         */
+        public boolean cancel() {
+            if (scheduler == null) {
+                return false;
+            }
+            Scheduler scheduler = this.scheduler;
+            this.scheduler = null;
+            scheduler.queue.remove(this);
+            scheduler.updateDeadline();
+            return true;
+        }
+    }
+
+    /** */
+    private final PriorityQueue<Task> queue = new PriorityQueue<>(
+        Comparator.comparingLong((Task task) -> task.time).thenComparingLong(task -> task.sequence));
+
+    /** */
+    private long sequence;
+
+    /** the current time [T-states] */
+    private LongSupplier clock = () -> 0;
+
+    /** the time of the earliest task, 0 if signaled */
+    private long deadline = Long.MAX_VALUE;
+
+    /** set by {@link #signal()} until the next {@link #run(long)} */
+    private volatile boolean signaled;
+
+    /** @param clock the current time [T-states] */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /** @return the current time [T-states] */
+    public long getTime() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * the cpu needs to call {@link #run(long)} only when the time reaches this.
+     * @return the time of the earliest task, {@link Long#MAX_VALUE} if none,
+     *         0 if signaled
+     */
+    public final long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * schedules a task once.
+     * @param delay [T-states] from now
+     */
+    public void schedule(Task task, long delay) {
+        schedule(task, delay, 0);
+    }
+
+    /**
+     * schedules a task repeatedly at a fixed rate.
+     * @param delay [T-states] from now
+     * @param period [T-states], 0 means one shot
+     * @throws IllegalStateException task is already scheduled
+     */
+    public void schedule(Task task, long delay, long period) {
+        if (task.scheduler != null) {
+            throw new IllegalStateException("already scheduled");
+        }
+        task.scheduler = this;
+        task.time = getTime() + delay;
+        task.period = period;
+        task.sequence = sequence++;
+        queue.add(task);
+        updateDeadline();
+    }
+
+    /**
+     * makes the cpu call {@link #run(long)} after the current instruction.
+     * this may be called from any thread, the cpu thread sees it at the
+     * next instruction in practice and at the next task at the latest.
+     */
+    public void signal() {
+        signaled = true;
+        deadline = 0;
+    }
+
+    /** runs all tasks due at the time */
+    public void run(long time) {
+        signaled = false;
+        while (!queue.isEmpty() && queue.peek().time <= time) {
+            Task task = queue.poll();
+            if (task.period > 0) {
+                task.time += task.period;
+                task.sequence = sequence++;
+                queue.add(task);
+            } else {
+                task.scheduler = null;
+            }
+            task.run();
+        }
+        updateDeadline();
+    }
+
+    /** removes all tasks */
+    public void clear() {
+        for (Task task : queue) {
+            task.scheduler = null;
+        }
+        queue.clear();
+        updateDeadline();
+    }
+
+    /** */
+    private void updateDeadline() {
+        deadline = queue.isEmpty() ? Long.MAX_VALUE : queue.peek().time;
+        if (signaled) {
+            deadline = 0;
+        }
+    }
+}
+
+/* */
@@ -21,6 +21,11 @@ class USART implements Device {
     /** */
     public void setBus(Bus bus) {
         this.bus = bus;
+
+        bus.setInPort(0x20, port -> getData());
+        bus.setOutPort(0x20, (port, data) -> setData(data));
+        bus.setInPort(0x21, port -> getControl());
+        bus.setOutPort(0x21, (port, data) -> setControl(data));
     }
 
     // ----
@@ -6,19 +6,14 @@
 
 package vavi.apps.em88;
 
-import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.Graphics;
-import java.awt.event.ActionEvent;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
-import javax.swing.AbstractAction;
-import javax.swing.JButton;
-import javax.swing.JDialog;
-import javax.swing.JPanel;
-
 import vavi.util.Debug;
 import vavi.util.StringUtil;
 
@@ -34,13 +29,18 @@ import vavi.util.StringUtil;
  */
 public class Z80 implements Device {
 
+    /** clock [Hz], T-states per second */
+    public static final int CLOCK = 4000000;
+
     // Z80 register emulation
 
     // 8bit registers
-    private int a, f, b, c, h, l, d, e, r, i;
+    private int a, f, r, i;
     private int af2, bc2, hl2, de2;
 
-    // 16bit registers
+    // 16bit registers, b, c, d, e, h and l are kept as pairs
+    // because most of the memory accesses use a pair as the address
+    private int bc, de, hl;
     private int sp;
     private int pc;
     private int ix;
@@ -66,56 +66,75 @@ public class Z80 implements Device {
     private static final int FBIT_Z = 0x40;
     private static final int FBIT_S = 0x80;
 
-    // flags
-    private boolean fc;
-    private boolean fn;
-    private boolean fp; // p/v
-    private boolean f3;
-    private boolean fh;
-    private boolean f5;
-    private boolean fz;
-    private boolean fs;
+    // lazy flags
+    /** f is up to date */
+    private static final int LAZY_NONE = 0;
+    /** add, adc: s, z, h, p/v, c are pending */
+    private static final int LAZY_ARITH = 1;
+    /** inc: s, z, h, p/v are pending */
+    private static final int LAZY_INC = 2;
+    /** dec: s, z, h, p/v are pending */
+    private static final int LAZY_DEC = 3;
+    /** and, or, xor: s, z, p/v are pending */
+    private static final int LAZY_LOGIC = 4;
+    /** sub, sbc, cp, neg: s, z, h, p/v, c are pending */
+    private static final int LAZY_SUB = 5;
+
+    /** pending flag bits for each lazy operation */
+    private static final int[] lazyMask = {
+        0x00, 0xd5, 0xd4, 0xd4, 0xc4, 0xd5
+    };
 
-    /** */
-    private final void assembleFlags() {
-        f = 0;
+    /**
+     * the last flag operation which is not yet reflected to f.
+     * flags of most operations are overwritten before they are tested,
+     * so only operands and the result are recorded here.
+     */
+    private int lazy = LAZY_NONE;
+    /** operands of the last lazy flag operation */
+    private int lazyO1, lazyO2;
+    /** the last lazy flag operation's result (not masked, carry included) */
+    private int lazyW;
 
-        if (fc) {
-            f |= FBIT_C;
-        }
-        if (fn) {
-            f |= FBIT_N;
-        }
-        if (fp) {
-            f |= FBIT_P;
+    /** reflects pending flags to f */
+    private final void evalFlags() {
+        if (lazy == LAZY_NONE) {
+            return;
         }
-        if (f3) {
-            f |= FBIT_3;
-        }
-        if (fh) {
-            f |= FBIT_H;
-        }
-        if (f5) {
-            f |= FBIT_5;
-        }
-        if (fz) {
-            f |= FBIT_Z;
-        }
-        if (fs) {
-            f |= FBIT_S;
+
+        int v = lazyW & 0xff;
+        int flags;
+
+        switch (lazy) {
+        case LAZY_ARITH:
+            flags = sz_tbl[v];
+            flags |= (lazyO1 ^ lazyO2 ^ lazyW) & FBIT_H;
+            flags |= ((lazyO1 ^ ~lazyO2) & (lazyO1 ^ v) & 0x80) >> 5;
+            flags |= (lazyW >> 8) & FBIT_C;
+            break;
+        case LAZY_SUB:
+            flags = sz_tbl[v];
+            flags |= (lazyO1 ^ lazyO2 ^ lazyW) & FBIT_H;
+            flags |= ((lazyO1 ^ lazyO2) & (lazyO1 ^ v) & 0x80) >> 5;
+            flags |= (lazyW >> 8) & FBIT_C;
+            break;
+        case LAZY_INC:
+            flags = sz_tbl[v];
+            flags |= (lazyO1 ^ v) & FBIT_H;
+            flags |= v == 0x80 ? FBIT_P : 0;
+            break;
+        case LAZY_DEC:
+            flags = sz_tbl[v];
+            flags |= (lazyO1 ^ v) & FBIT_H;
+            flags |= v == 0x7f ? FBIT_P : 0;
+            break;
+        default: // LAZY_LOGIC
+            flags = szp_tbl[v];
+            break;
         }
-    }
 
-    /** */
-    private final void extractFlags() {
-        fc = (f & FBIT_C) != 0;
-        fn = (f & FBIT_N) != 0;
-        fp = (f & FBIT_P) != 0;
-        f3 = (f & FBIT_3) != 0;
-        fh = (f & FBIT_H) != 0;
-        f5 = (f & FBIT_5) != 0;
-        fz = (f & FBIT_Z) != 0;
-        fs = (f & FBIT_S) != 0;
+        f = (f & ~lazyMask[lazy]) | flags;
+        lazy = LAZY_NONE;
     }
 
     // 16bit operations
@@ -129,30 +148,27 @@ public class Z80 implements Device {
     }
 
     public final int getHL() {
-        return (h << 8) | l;
+        return hl;
     }
 
     public final void setHL(int hl) {
-        h = (hl >> 8) & 0xff;
-        l = hl & 0xff;
+        this.hl = hl & 0xffff;
     }
 
     public final int getBC() {
-        return (b << 8) | c;
+        return bc;
     }
 
     public final void setBC(int bc) {
-        b = (bc >> 8) & 0xff;
-        c = bc & 0xff;
+        this.bc = bc & 0xffff;
     }
 
     public final int getDE() {
-        return (d << 8) | e;
+        return de;
     }
 
     public final void setDE(int de) {
-        d = (de >> 8) & 0xff;
-        e = de & 0xff;
+        this.de = de & 0xffff;
     }
 
     public final int getIR() {
@@ -185,13 +201,13 @@ public class Z80 implements Device {
 
     // 8bit operations
     public final int getF() {
-        assembleFlags();
+        evalFlags();
         return f;
     }
 
     public final void setF(int f) {
         this.f = f & 0xff;
-        extractFlags();
+        lazy = LAZY_NONE;
     }
 
     public int getA() {
@@ -203,27 +219,51 @@ public class Z80 implements Device {
     }
 
     public int getH() {
-        return h;
+        return hl >> 8;
     }
 
     public int getL() {
-        return l;
+        return hl & 0xff;
     }
 
     public int getB() {
-        return b;
+        return bc >> 8;
     }
 
     public int getC() {
-        return c;
+        return bc & 0xff;
     }
 
     public int getD() {
-        return d;
+        return de >> 8;
     }
 
     public int getE() {
-        return e;
+        return de & 0xff;
+    }
+
+    private final void setH(int h) {
+        hl = (h & 0xff) << 8 | (hl & 0xff);
+    }
+
+    private final void setL(int l) {
+        hl = (hl & 0xff00) | (l & 0xff);
+    }
+
+    private final void setB(int b) {
+        bc = (b & 0xff) << 8 | (bc & 0xff);
+    }
+
+    private final void setC(int c) {
+        bc = (bc & 0xff00) | (c & 0xff);
+    }
+
+    private final void setD(int d) {
+        de = (d & 0xff) << 8 | (de & 0xff);
+    }
+
+    private final void setE(int e) {
+        de = (de & 0xff00) | (e & 0xff);
     }
 
     /** Interrupt modes/register */
@@ -236,108 +276,64 @@ public class Z80 implements Device {
         return r;
     }
 
+    /** interrupt mode */
+    int getIM() {
+        return im;
+    }
+
+    /** */
+    boolean isIff1() {
+        return iff1;
+    }
+
+    /** */
+    boolean isIff2() {
+        return iff2;
+    }
+
+    /** */
+    boolean isInterruptRequested() {
+        return interrupted;
+    }
+
     // flag operations
     boolean isC() {
-        return fc;
+        if (lazy == LAZY_ARITH || lazy == LAZY_SUB) {
+            return (lazyW & 0x100) != 0;
+        }
+        return (f & FBIT_C) != 0;
     }
 
     boolean isN() {
-        return fn;
+        return (f & FBIT_N) != 0;
     }
 
     boolean isP() {
-        return fp;
+        evalFlags();
+        return (f & FBIT_P) != 0;
     }
 
     boolean isV() {
-        return fp;
+        return isP();
     }
 
     boolean isH() {
-        return fh;
+        evalFlags();
+        return (f & FBIT_H) != 0;
     }
 
     boolean isZ() {
-        return fz;
+        if (lazy != LAZY_NONE) {
+            return (lazyW & 0xff) == 0;
+        }
+        return (f & FBIT_Z) != 0;
     }
 
     boolean isS() {
-        return fs;
-    }
-
-    // -------------------------------------------------------------------------
-
-    /** */
-    private JPanel panel;
-
-    /** */ {
-        //
-        panel = new JPanel() {
-            public void paint(Graphics g) {
-
-                super.paint(g);
-
-                int y1 = 10;
-                int y2 = 10;
-                g.setColor(Color.green);
-                g.drawString("PC=" + StringUtil.toHex4(getPC()), 10, y1 += 20);
-                g.drawString(" A=" + StringUtil.toHex2(a), 10, y1 += 20);
-                g.drawString("IM=" + im, 100, y2 += 20);
-                g.drawString("BC=" + StringUtil.toHex4(getBC()), 10, y1 += 20);
-                g.drawString("iff1=" + iff1, 100, y2 += 20);
-                g.drawString("DE=" + StringUtil.toHex4(getDE()), 10, y1 += 20);
-                g.drawString("iff2=" + iff2, 100, y2 += 20);
-                g.drawString("HL=" + StringUtil.toHex4(getHL()), 10, y1 += 20);
-                g.drawString("intr=" + interrupted, 100, y2 += 20);
-                g.drawString("IR=" + StringUtil.toHex4(getIR()), 10, y1 += 20);
-                g.drawString("SP=" + StringUtil.toHex4(sp), 10, y1 += 20);
-                g.drawString("IX=" + StringUtil.toHex4(ix), 10, y1 += 20);
-                g.drawString("IY=" + StringUtil.toHex4(iy), 10, y1 += 20);
-                g.drawString(" C:" + (fc ? 1 : 0), 10, y1 += 20);
-                g.drawString(" N:" + (fn ? 1 : 0), 10, y1 += 20);
-                g.drawString(" P:" + (fp ? 1 : 0), 10, y1 += 20);
-                g.drawString(" H:" + (fh ? 1 : 0), 10, y1 += 20);
-                g.drawString(" Z:" + (fz ? 1 : 0), 10, y1 += 20);
-                g.drawString(" S:" + (fs ? 1 : 0), 10, y1 += 20);
-
-                if (bus == null) {
-                    return;
-                }
-                for (int i = 0; i < 6 && sp + 2 * i < 0x10000; i++) {
-                    g.drawString(StringUtil.toHex4(sp + 2 * i) + ": " + StringUtil.toHex4(bus.peekw(sp + 2 * i)), 100, y2 += 20);
-                }
-                for (int i = 0; i < 12; i++) {
-                    g.drawString(StringUtil.toHex2(i) + ": " + StringUtil.toBits(bus.inp(i)), 10, y1 += 20);
-                }
-            }
-        };
-        panel.setPreferredSize(new Dimension(200, 300));
-        panel.setOpaque(true);
-        panel.setBackground(Color.black);
-
-        JDialog dialog = new JDialog();
-        dialog.getContentPane().add(panel);
-        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
-        dialog.setTitle("Emu88");
-        dialog.setLocation(650, 0);
-        dialog.pack();
-        dialog.setVisible(true);
-
-        //
-        JButton button = new JButton();
-        button.setAction(new AbstractAction("Break") {
-            public void actionPerformed(ActionEvent ev) {
-                broken = true;
-            }
-        });
-        button.setPreferredSize(new Dimension(60, 20));
-
-        JDialog controller = new JDialog();
-        controller.getContentPane().add(button);
-        controller.setTitle("Controller");
-        controller.setLocation(860, 0);
-        controller.pack();
-        controller.setVisible(true);
+        if (lazy != LAZY_NONE) {
+            return (lazyW & 0x80) != 0;
+        }
+        return (f & FBIT_S) != 0;
     }
 
     // -------------------------------------------------------------------------
@@ -348,11 +344,33 @@ public class Z80 implements Device {
     /** bus emulation */
     private Bus bus;
 
+    /** device events */
+    private Scheduler scheduler;
+
+    /** null if not profiled */
+    private Profiler profiler;
+
+    /** @param profiler null stops profiling */
+    void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
     /** emulation connect bus */
     public void setBus(Bus bus) {
         this.bus = bus;
 
-        this.intc = (INTC) bus.getDevice(INTC.class.getName());
+        this.scheduler = bus.getScheduler();
+        scheduler.setClock(this::getCycles);
+    }
+
+    /** finds the interrupt controller, the interrupt line is released */
+    public void reset() {
+        this.intc = bus.getDevice(INTC.class);
+
+        interrupted = false;
+        nmi = false;
+        eiDelayed = false;
+        halted = false;
     }
 
     /** */
@@ -363,7 +381,20 @@ public class Z80 implements Device {
         return broken;
     }
 
-    /** */
+    /** stops {@link #execute(int)} after the current instruction */
+    public void requestBreak() {
+        broken = true;
+        scheduler.signal();
+        wakeUp();
+    }
+
+    /** {@link #broken} seen at the last event boundary */
+    private boolean stopped;
+
+    /** ei was the last instruction, an interrupt waits for the next one */
+    private boolean eiDelayed;
+
+    /** the interrupt line, held until accepted or withdrawn */
     private volatile boolean interrupted = false;
 
     /** */
@@ -373,59 +404,338 @@ public class Z80 implements Device {
     public void requestInterrupt() {
         interrupted = true;
         nmi = false;
+        scheduler.signal();
+        wakeUp();
+    }
+
+    /** withdraws the request not accepted yet, an nmi is not withdrawn */
+    void cancelInterrupt() {
+        if (!nmi) {
+            interrupted = false;
+        }
     }
 
     /** */
     public void requestNonMaskableInterrupt() {
         interrupted = true;
         nmi = true;
+        scheduler.signal();
+        wakeUp();
+    }
+
+    /** halted, executing nops until an interrupt is accepted */
+    private boolean halted;
+
+    /** wakes the cpu thread waiting in {@link #sleep(long)} */
+    private synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    /**
+     * waits until an interrupt the cpu accepts or a break is requested by
+     * another thread, or the time on the wall clock.
+     * @param deadline {@link System#nanoTime()} to wake up, {@link Long#MAX_VALUE} never
+     */
+    private synchronized void sleep(long deadline) {
+        while (!(interrupted && iff1) && !broken) {
+            long delay = deadline - System.nanoTime();
+            if (deadline != Long.MAX_VALUE && delay <= 0) {
+                break;
+            }
+            try {
+                if (deadline == Long.MAX_VALUE) {
+                    wait();
+                } else {
+                    wait(delay / 1000000, (int) (delay % 1000000));
+                }
+            } catch (InterruptedException e) {
+                requestBreak();
+            }
+        }
+    }
+
+    /**
+     * the clock jumps to the next device event or the limit, counting nops.
+     * in {@link #run(int)} the limit is the end of the frame, so a halted
+     * cpu sleeps there until the frame's time, only device events are run.
+     * if no limit and no event, waits for an interrupt from another thread.
+     */
+    private final void idle() {
+        long target = Math.min(scheduler.getDeadline(), limit);
+        if (target == Long.MAX_VALUE) {
+            sleep(Long.MAX_VALUE);
+            target = cycles;
+        }
+
+        long nops = Math.max(1, (target - cycles + 3) / 4);
+        cycles += 4 * nops;
+        r = (int) ((r + nops) & 0xff);
     }
 
+    /** the short backward branch distance checked for an idle loop [bytes] */
+    private static final int IDLE_LOOP_SIZE = 128;
+
+    /** the target of the last short backward branch, -1 if none */
+    private int loopPc = -1;
+
+    /** the time of the last short backward branch [T-states] */
+    private long loopCycles;
+
+    /** r at the last short backward branch */
+    private int loopR;
+
+    /** memory writes until the last short backward branch */
+    private long loopWrites;
+
+    /** port outputs until the last short backward branch */
+    private long loopOutputs;
+
+    /** the next device event at the last short backward branch */
+    private long loopDeadline;
+
+    /** registers at the last short backward branch */
+    private final int[] loopState = new int[21];
+
+    /** port outputs since power on */
+    private long outputs;
+
     /** */
+    private final void outp(int port, int data) {
+        outputs++;
+        bus.outp(port, data);
+    }
+
+    /**
+     * called after a short backward branch is taken, cost is set.
+     * if the loop made a round without writing memory or ports, no event
+     * ran and the registers are the same, the next rounds are the same until
+     * an event changes an input. so the clock jumps whole rounds to just
+     * before the next event or the limit, or the horizon of inputs computed
+     * by time.
+     */
+    private final void idleLoop() {
+        long now = cycles + cost;
+        long writes = bus.getWrites();
+        long deadline = scheduler.getDeadline();
+        if (loopPc == pc && loopWrites == writes && loopOutputs == outputs && loopDeadline == deadline) {
+            if (saveState()) {
+                long horizon = bus.getHorizon();
+                if (horizon <= loopCycles) {
+                    horizon = Long.MAX_VALUE; // changed before the round
+                }
+                long target = Math.min(Math.min(deadline, limit), horizon);
+                long period = now - loopCycles;
+                if (target != Long.MAX_VALUE && period > 0) {
+                    long rounds = (target - now - 1) / period;
+                    if (rounds > 0) {
+                        int refresh = (r - loopR) & 0xff;
+                        cycles += rounds * period;
+                        r = (int) ((r + rounds * refresh) & 0xff);
+                        now += rounds * period;
+                    }
+                }
+            }
+        } else {
+            loopPc = pc;
+            loopWrites = writes;
+            loopOutputs = outputs;
+            loopDeadline = deadline;
+            saveState();
+        }
+        loopCycles = now;
+        loopR = r;
+    }
+
+    /**
+     * stores registers except pc and r for {@link #idleLoop()}.
+     * @return true if those are the same as the last stored
+     */
+    private final boolean saveState() {
+        final int[] state = loopState;
+        int diff = (state[0] ^ a) | (state[1] ^ f) | (state[2] ^ bc) | (state[3] ^ de) | (state[4] ^ hl) |
+                (state[5] ^ sp) | (state[6] ^ ix) | (state[7] ^ iy) | (state[8] ^ i) |
+                (state[9] ^ af2) | (state[10] ^ bc2) | (state[11] ^ de2) | (state[12] ^ hl2) |
+                (state[13] ^ lazy) | (state[14] ^ lazyO1) | (state[15] ^ lazyO2) | (state[16] ^ lazyW) |
+                (state[17] ^ im) | (state[18] ^ r7) | (state[19] ^ (iff1 ? 1 : 0)) | (state[20] ^ (iff2 ? 1 : 0));
+        state[0] = a; state[1] = f; state[2] = bc; state[3] = de; state[4] = hl;
+        state[5] = sp; state[6] = ix; state[7] = iy; state[8] = i;
+        state[9] = af2; state[10] = bc2; state[11] = de2; state[12] = hl2;
+        state[13] = lazy; state[14] = lazyO1; state[15] = lazyO2; state[16] = lazyW;
+        state[17] = im; state[18] = r7; state[19] = iff1 ? 1 : 0; state[20] = iff2 ? 1 : 0;
+        return diff == 0;
+    }
+
+    /** T-states of the last instruction or interrupt acknowledge */
     private int cost;
 
+    /** T-states elapsed since power on, never wraps */
+    private long cycles;
+
+    /** T-states executed beyond the budget of the last cycle run */
+    private long overrun;
+
+    /** the time halt and idle loops may skip to [T-states] */
+    private long limit;
+
+    /** @return T-states elapsed since power on */
+    public long getCycles() {
+        return cycles;
+    }
+
     /** emulation z80 fetch, decode, execute */
     public void execute(int address) {
         execute(address, 0);
     }
 
+    /** a slice of {@link #run(int)}, a frame [ns] */
+    private static final long FRAME_NANOS = 1000000000L / 60;
+
+    /** false runs {@link #run(int)} as fast as the host allows */
+    private boolean throttled = true;
+
+    /** @param throttled false for batch runs, faster than real time */
+    public void setThrottled(boolean throttled) {
+        this.throttled = throttled;
+    }
+
+    /**
+     * emulation z80 fetch, decode, execute in real time until a break.
+     * the cpu runs a frame of T-states, then sleeps until the end of the
+     * frame on the wall clock, or an interrupt or a break from another
+     * thread. a delay of the host more than a frame is not caught up.
+     * if not {@link #setThrottled(boolean) throttled}, the same as
+     * {@link #execute(int)}.
+     */
+    public void run(int address) {
+        if (!throttled) {
+            execute(address);
+            return;
+        }
+
+        pc = address;
+
+        broken = false;
+        stopped = false;
+
+        restart();
+
+        long deadline = System.nanoTime();
+        while (!stopped) {
+            runCycles(INTC.FRAME);
+
+            deadline += FRAME_NANOS;
+            long now = System.nanoTime();
+            if (now - deadline > FRAME_NANOS) {
+                deadline = now;
+            }
+            sleep(deadline);
+            stopped = broken;
+        }
+    }
+
+    /**
+     * emulation z80 fetch, decode, execute until the T-states are used up.
+     * an instruction is not split, T-states exceeding the budget are
+     * subtracted from the next call's budget.
+     * @param cycles T-states to run
+     * @return next pc
+     */
+    public int execute(int address, long cycles) {
+
+        pc = address;
+
+        broken = false;
+        stopped = false;
+
+        restart();
+
+        runCycles(cycles);
+
+        return pc;
+    }
+
+    /** runs the T-states, the overrun is carried */
+    private final void runCycles(long cycles) {
+        long end = this.cycles + cycles - overrun;
+        limit = end;
+        while (this.cycles < end && !stopped) {
+            step();
+        }
+        overrun = stopped ? 0 : this.cycles - end;
+    }
+
     /** emulation z80 fetch, decode, execute, debug mode */
     public int execute(int address, int steps) {
 
         pc = address;
 
         broken = false;
+        stopped = false;
+
+        restart();
 
         if (steps > 0) {
-            for (int c = 0; c < steps && !broken; c++) {
-                exec();
-                processInterrupt();
-panel.repaint();
+            limit = cycles;
+            for (int c = 0; c < steps && !stopped; c++) {
+                step();
             }
         } else {
-            while (!broken) {
-                exec();
-                processInterrupt();
-panel.repaint();
+            limit = Long.MAX_VALUE;
+            while (!stopped) {
+                step();
             }
         }
 
         return pc;
     }
 
+    /**
+     * an instruction, then device events due, an interrupt and a break.
+     * those are changed only by events or {@link Scheduler#signal()}, so
+     * the cpu checks them only at the deadline.
+     */
+    private final void step() {
+        if (profiler != null) {
+            profile();
+        } else if (halted) {
+            idle();
+        } else {
+            exec();
+        }
+
+        if (cycles >= scheduler.getDeadline()) {
+            scheduler.run(cycles);
+            processInterrupt();
+            stopped = broken;
+        }
+    }
+
     /** */
     private void processInterrupt() {
-        if (interrupted) {
-            intc.acknowledgeInterrupt();
-            if (iff1 == true) {
-                if (nmi) {
-                    interruptNonMaskable();
-                } else {
-                    interrupt();
-                }
+        if (eiDelayed) {
+            eiDelayed = false;
+            if (interrupted) {
+                scheduler.signal();
             }
+            return;
+        }
+        if (interrupted && iff1) {
+            boolean nmi = this.nmi;
             interrupted = false;
-            nmi = false;
+            this.nmi = false;
+            if (!nmi && !intc.acknowledgeInterrupt()) {
+                return; // withdrawn before accepted
+            }
+            halted = false;
+            if (nmi) {
+                interruptNonMaskable();
+            } else {
+                interrupt();
+            }
+            cycles += cost;
+            if (profiler != null) {
+                profiler.call(sp, pc, true, cost);
+            }
         }
     }
 
@@ -451,36 +761,8 @@ panel.repaint();
 
     // -------------------------------------------------------------------------
 
-    private final boolean isZero(int v) {
-        return v == 0;
-    }
-
-    private final boolean isSign(int v) {
-        return (v & 0x80) != 0;
-    }
-
-    private final boolean isSign16(int v) {
-        return (v & 0x8000) != 0;
-    }
-
-    private final boolean isCarry(int v) {
-        return (v & 0x100) != 0;
-    }
-
-    private final boolean isHalfC(int v) {
-        return (v & 0x10) != 0;
-    }
-
-    private final boolean isCarry16(int v) {
-        return (v & 0x10000) != 0;
-    }
-
-    private final boolean isParity(int v) {
-        return parity_tbl[v];
-    }
-
-    /** */
-    private static final boolean[] parity_tbl = {
+    /** package private for the benchmark */
+    static final boolean[] parity_tbl = {
         true, false, false, true, false, true, true, false, false, true, true, false, true, false, false, true,
         false, true, true, false, true, false, false, true, true, false, false, true, false, true, true, false,
         false, true, true, false, true, false, false, true, true, false, false, true, false, true, true, false,
@@ -499,6 +781,42 @@ panel.repaint();
         true, false, false, true, false, true, true, false, false, true, true, false, true, false, false, true
     };
 
+    /** s, z flag bits for each result byte */
+    static final int[] sz_tbl = new int[0x100];
+
+    /** s, z, p/v flag bits for each result byte */
+    static final int[] szp_tbl = new int[0x100];
+
+    /**
+     * daa results, (a &lt;&lt; 8) | s, z, p/v, h, c flag bits.
+     * indexed by a | (c &lt;&lt; 8) | (h &lt;&lt; 9)
+     */
+    static final int[] daa_tbl = new int[0x400];
+
+    /** builds flag tables */
+    static {
+        for (int v = 0; v < 0x100; v++) {
+            sz_tbl[v] = (v & FBIT_S) | (v == 0 ? FBIT_Z : 0);
+            szp_tbl[v] = sz_tbl[v] | (parity_tbl[v] ? FBIT_P : 0);
+        }
+
+        for (int i = 0; i < 0x400; i++) {
+            int a = i & 0xff;
+            boolean fc = (i & 0x100) != 0;
+            boolean fh = (i & 0x200) != 0;
+            if (((a & 0x0f) > 9) || fh) {
+                a = (a + 6) & 0xff;
+                fc = fh || fc;
+                fh = true;
+            }
+            if ((a > 0x9f) || fc) {
+                a = (a + 0x60) & 0xff;
+                fc = true;
+            }
+            daa_tbl[i] = (a << 8) | szp_tbl[a] | (fh ? FBIT_H : 0) | (fc ? FBIT_C : 0);
+        }
+    }
+
     /** */
     private final int add16bitInternal(int v, int o) {
         return (v + o) & 0xffff;
@@ -609,63 +927,55 @@ private void debug1() {
     /** 8 bit add */
     private final int add8bit(int o1, int o2) {
         int w = o1 + o2;
-        int v = w & 0xff;
 
-        fp = ((o1 ^ ~o2) & (o1 ^ v) & 0x80) != 0;
-        fh = isHalfC((o1 & 0x0f) + (o2 & 0x0f));
-        fc = isCarry(w);
-        fz = isZero(v);
-        fs = isSign(v);
-        fn = false;
+        f &= ~FBIT_N;
+        lazy = LAZY_ARITH;
+        lazyO1 = o1;
+        lazyO2 = o2;
+        lazyW = w;
 
-        return v;
+        return w & 0xff;
     }
 
     /** 8 bit adc */
     private final int adc8bit(int o1, int o2) {
-        int cy = fc ? 1 : 0;
+        int cy = isC() ? 1 : 0;
         int w = o1 + o2 + cy;
-        int v = w & 0xff;
 
-        fp = ((o1 ^ ~o2) & (o1 ^ v) & 0x80) != 0;
-        fh = isHalfC((o1 & 0x0f) + (o2 & 0x0f) + cy);
-        fc = isCarry(w);
-        fz = isZero(v);
-        fs = isSign(v);
-        fn = false;
+        f &= ~FBIT_N;
+        lazy = LAZY_ARITH;
+        lazyO1 = o1;
+        lazyO2 = o2;
+        lazyW = w;
 
-        return v;
+        return w & 0xff;
     }
 
     /** 8 bit sub */
     private final int sub8bit(int o1, int o2) {
         int w = o1 - o2;
-        int v = w & 0xff;
 
-        fp = ((o1 ^ ~o2) & (o1 ^ v) & 0x80) != 0;
-        fh = isHalfC((o1 & 0x0f) - (o2 & 0x0f));
-        fc = isCarry(w);
-        fz = isZero(v);
-        fs = isSign(v);
-        fn = true;
+        f |= FBIT_N;
+        lazy = LAZY_SUB;
+        lazyO1 = o1;
+        lazyO2 = o2;
+        lazyW = w;
 
-        return v;
+        return w & 0xff;
     }
 
     /** 8 bit sbc */
     private final int sbc8bit(int o1, int o2) {
-        int cy = fc ? 1 : 0;
+        int cy = isC() ? 1 : 0;
         int w = o1 - o2 - cy;
-        int v = w & 0xff;
 
-        fp = ((o1 ^ ~o2) & (o1 ^ v) & 0x80) != 0;
-        fh = isHalfC((o1 & 0x0f) - (o2 & 0x0f) - cy);
-        fc = isCarry(w);
-        fz = isZero(v);
-        fs = isSign(v);
-        fn = true;
+        f |= FBIT_N;
+        lazy = LAZY_SUB;
+        lazyO1 = o1;
+        lazyO2 = o2;
+        lazyW = w;
 
-        return v;
+        return w & 0xff;
     }
 
     /** */
@@ -677,11 +987,13 @@ private void debug1() {
     private final int inc8bit(int o) {
         int v = (o + 1) & 0xff;
 
-        fh = isHalfC((o & 0x0f) + 1);
-        fp = o == 0x7f;
-        fz = isZero(v);
-        fs = isSign(v);
-        fn = false;
+        if (lazy == LAZY_ARITH || lazy == LAZY_SUB) { // c is not changed
+            f = (f & ~FBIT_C) | ((lazyW >> 8) & FBIT_C);
+        }
+        f &= ~FBIT_N;
+        lazy = LAZY_INC;
+        lazyO1 = o;
+        lazyW = v;
 
         return v;
     }
@@ -690,11 +1002,13 @@ private void debug1() {
     private final int dec8bit(int o) {
         int v = (o - 1) & 0xff;
 
-        fh = isHalfC((o & 0x0f) - 1);
-        fp = o == 0x80;
-        fz = isZero(v);
-        fs = isSign(v);
-        fn = true;
+        if (lazy == LAZY_ARITH || lazy == LAZY_SUB) { // c is not changed
+            f = (f & ~FBIT_C) | ((lazyW >> 8) & FBIT_C);
+        }
+        f |= FBIT_N;
+        lazy = LAZY_DEC;
+        lazyO1 = o;
+        lazyW = v;
 
         return v;
     }
@@ -703,12 +1017,9 @@ private void debug1() {
     private final int and8bit(int o1, int o2) {
         int v = o1 & o2;
 
-        fp = isParity(v);
-        fc = false;
-        fh = true;
-        fz = isZero(v);
-        fs = isSign(v);
-        fn = false;
+        f = (f & ~(FBIT_H | FBIT_N | FBIT_C)) | FBIT_H;
+        lazy = LAZY_LOGIC;
+        lazyW = v;
 
         return v;
     }
@@ -717,12 +1028,9 @@ private void debug1() {
     private final int or8bit(int o1, int o2) {
         int v = o1 | o2;
 
-        fp = isParity(v);
-        fc = false;
-        fh = false;
-        fz = isZero(v);
-        fs = isSign(v);
-        fn = false;
+        f = (f & ~(FBIT_H | FBIT_N | FBIT_C));
+        lazy = LAZY_LOGIC;
+        lazyW = v;
 
         return v;
     }
@@ -731,12 +1039,9 @@ private void debug1() {
     private final int xor8bit(int o1, int o2) {
         int v = (o1 ^ o2) & 0xff;
 
-        fp = isParity(v);
-        fc = false;
-        fh = false;
-        fz = isZero(v);
-        fs = isSign(v);
-        fn = false;
+        f = (f & ~(FBIT_H | FBIT_N | FBIT_C));
+        lazy = LAZY_LOGIC;
+        lazyW = v;
 
         return v;
     }
@@ -746,41 +1051,45 @@ private void debug1() {
         int w = o1 + o2;
         int v = w & 0xffff;
 
-        fc = isCarry16(w);
-        fh = (((o1 & 0x0fff) + (o2 & 0x0fff)) & 0x1000) != 0;
-        fn = false;
+        evalFlags();
+        f &= ~(FBIT_H | FBIT_N | FBIT_C);
+        f |= (((o1 & 0x0fff) + (o2 & 0x0fff)) >> 8) & FBIT_H;
+        f |= (w >> 16) & FBIT_C;
 
         return v;
     }
 
     /** 16 bit adc */
     private final int adc16bit(int o1, int o2) {
-        int cy = fc ? 1 : 0;
+        int cy = isC() ? 1 : 0;
         int w = o1 + o2 + cy;
         int v = w & 0xffff;
 
-        fp = ((o1 ^ ~o2) & (o1 ^ v) & 0x8000) != 0;
-        fh = (((o1 & 0x0fff) + (o2 & 0x0fff)) & 0x1000) != 0;
-        fc = isCarry16(w);
-        fz = isZero(v);
-        fs = isSign16(v);
-        fn = false;
+        evalFlags();
+        f &= FBIT_3 | FBIT_5;
+        f |= ((o1 ^ ~o2) & (o1 ^ v) & 0x8000) >> 13;
+        f |= (((o1 & 0x0fff) + (o2 & 0x0fff)) >> 8) & FBIT_H;
+        f |= (w >> 16) & FBIT_C;
+        f |= v == 0 ? FBIT_Z : 0;
+        f |= (v >> 8) & FBIT_S;
 
         return v;
     }
 
     /** 16 bit sbc */
     private final int sbc16bit(int o1, int o2) {
-        int cy = fc ? 1 : 0;
+        int cy = isC() ? 1 : 0;
         int w = o1 - o2 - cy;
         int v = w & 0xffff;
 
-        fp = ((o1 ^ ~o2) & (o1 ^ v) & 0x8000) != 0;
-        fh = (((o1 & 0x0fff) + (o2 & 0x0fff)) & 0x1000) != 0;
-        fc = isCarry16(w);
-        fz = isZero(v);
-        fs = isSign16(v);
-        fn = true;
+        evalFlags();
+        f &= FBIT_3 | FBIT_5;
+        f |= ((o1 ^ o2) & (o1 ^ v) & 0x8000) >> 13;
+        f |= (((o1 & 0x0fff) + (o2 & 0x0fff)) >> 8) & FBIT_H;
+        f |= (w >> 16) & FBIT_C;
+        f |= v == 0 ? FBIT_Z : 0;
+        f |= (v >> 8) & FBIT_S;
+        f |= FBIT_N;
 
         return v;
     }
@@ -788,16 +1097,14 @@ private void debug1() {
     /** rotate left circler */
     private final int rlc(int o, boolean na) {
 
-        fh = false;
-        fn = false;
-        fc = (o & 0x80) != 0;
-
-        int v = ((o << 1) | (fc ? 0x01 : 0x00)) & 0xff;
+        evalFlags();
+        int cy = (o >> 7) & FBIT_C;
+        int v = ((o << 1) | cy) & 0xff;
 
         if (na) {
-            fp = isParity(v);
-            fz = isZero(v);
-            fs = isSign(v);
+            f = (f & (FBIT_3 | FBIT_5)) | szp_tbl[v] | cy;
+        } else {
+            f = (f & ~(FBIT_H | FBIT_N | FBIT_C)) | cy;
         }
 
         return v;
@@ -806,16 +1113,14 @@ private void debug1() {
     /** rotate right circler */
     private final int rrc(int o, boolean na) {
 
-        fh = false;
-        fn = false;
-        fc = (o & 0x01) != 0;
-
-        int v = (o >> 1) | (fc ? 0x80 : 0x00);
+        evalFlags();
+        int cy = o & FBIT_C;
+        int v = (o >> 1) | (cy << 7);
 
         if (na) {
-            fp = isParity(v);
-            fz = isZero(v);
-            fs = isSign(v);
+            f = (f & (FBIT_3 | FBIT_5)) | szp_tbl[v] | cy;
+        } else {
+            f = (f & ~(FBIT_H | FBIT_N | FBIT_C)) | cy;
         }
 
         return v;
@@ -824,18 +1129,14 @@ private void debug1() {
     /** rotate left */
     private final int rl(int o, boolean na) {
 
-        int cy = fc ? 0x01 : 0x00;
-
-        fh = false;
-        fn = false;
-        fc = (o & 0x80) != 0;
-
-        int v = ((o << 1) | cy) & 0xff;
+        evalFlags();
+        int cy = (o >> 7) & FBIT_C;
+        int v = ((o << 1) | (f & FBIT_C)) & 0xff;
 
         if (na) {
-            fp = isParity(v);
-            fz = isZero(v);
-            fs = isSign(v);
+            f = (f & (FBIT_3 | FBIT_5)) | szp_tbl[v] | cy;
+        } else {
+            f = (f & ~(FBIT_H | FBIT_N | FBIT_C)) | cy;
         }
 
         return v;
@@ -844,18 +1145,14 @@ private void debug1() {
     /** rotate right */
     private final int rr(int o, boolean na) {
 
-        int cy = fc ? 0x80 : 0x00;
-
-        fh = false;
-        fn = false;
-        fc = (o & 0x01) != 0;
-
-        int v = (o >> 1) | cy;
+        evalFlags();
+        int cy = o & FBIT_C;
+        int v = (o >> 1) | ((f & FBIT_C) << 7);
 
         if (na) {
-            fp = isParity(v);
-            fz = isZero(v);
-            fs = isSign(v);
+            f = (f & (FBIT_3 | FBIT_5)) | szp_tbl[v] | cy;
+        } else {
+            f = (f & ~(FBIT_H | FBIT_N | FBIT_C)) | cy;
         }
 
         return v;
@@ -864,15 +1161,11 @@ private void debug1() {
     /** shift left arithmetic */
     private final int sla(int o) {
 
-        fh = false;
-        fn = false;
-        fc = (o & 0x80) != 0;
-
+        evalFlags();
+        int cy = (o >> 7) & FBIT_C;
         int v = (o << 1) & 0xff;
 
-        fp = isParity(v);
-        fz = isZero(v);
-        fs = isSign(v);
+        f = (f & (FBIT_3 | FBIT_5)) | szp_tbl[v] | cy;
 
         return v;
     }
@@ -880,17 +1173,11 @@ private void debug1() {
     /** shift right arithmetic */
     private final int sra(int o) {
 
-        int cy = o & 0x80;
-
-        fh = false;
-        fn = false;
-        fc = (o & 0x01) != 0;
+        evalFlags();
+        int cy = o & FBIT_C;
+        int v = (o >> 1) | (o & 0x80);
 
-        int v = (o >> 1) | cy;
-
-        fp = isParity(v);
-        fz = isZero(v);
-        fs = isSign(v);
+        f = (f & (FBIT_3 | FBIT_5)) | szp_tbl[v] | cy;
 
         return v;
     }
@@ -898,15 +1185,11 @@ private void debug1() {
     /** shift right logical */
     private final int srl(int o) {
 
-        fh = false;
-        fn = false;
-        fc = (o & 0x01) != 0;
-
+        evalFlags();
+        int cy = o & FBIT_C;
         int v = o >> 1;
 
-        fp = isParity(v);
-        fz = isZero(v);
-        fs = isSign(v);
+        f = (f & (FBIT_3 | FBIT_5)) | szp_tbl[v] | cy;
 
         return v;
     }
@@ -921,10 +1204,8 @@ private void debug1() {
      * z,h,n flags will be changed
      */
     private final void bit(int n, int o) {
-        fz = ((o & bit_tbl[n]) != 0) ? false : true;
-
-        fh = true;
-        fn = false;
+        evalFlags();
+        f = (f & ~(FBIT_Z | FBIT_N)) | FBIT_H | ((o & bit_tbl[n]) == 0 ? FBIT_Z : 0);
     }
 
     /** set bit */
@@ -941,3666 +1222,5997 @@ private void debug1() {
     private final int inpc() {
         int v = bus.inp(getBC());
 
-        fn = false;
-        fp = isParity(v);
-        fs = isSign(v);
-        fz = isZero(v);
-        fh = isHalfC(v);
+        evalFlags();
+        f = (f & (FBIT_C | FBIT_3 | FBIT_5)) | szp_tbl[v] | (v & FBIT_H);
 
         return r;
     }
 
     // ----
 
-    /** for im 0 */
-    private final void exec(int o) {
+    /** an instruction */
+    private interface Op {
+        void exec();
+    }
 
-        switch (o) {
-        case 0x00: // nop
-            cost = 4;
-            break;
-        case 0x02: // ld (bc),a
-            bus.pokeb(getBC(), a);
-            cost = 7;
-            break;
-        case 0x04: // inc b
-            b = inc8bit(b);
-            cost = 4;
-            break;
-        case 0x06: // ld b,n
-            b = fetchb();
-            cost = 7;
-            break;
-        case 0x08: { // ex af,af'
-            int t = getAF();
-            setAF(af2);
-            af2 = t;
-            cost = 4;
-        }
-            break;
-        case 0x0a: // ld a,(bc)
-            a = bus.peekb(getBC());
-            cost = 7;
-            break;
-        case 0x0c: // inc c
-            c = inc8bit(c);
-            cost = 4;
-            break;
-        case 0x0e: // ld c,n
-            c = fetchb();
-            cost = 7;
-            break;
+    /** xx */
+    private final Op[] ops = new Op[256];
 
-        default:
-            Debug.println("Unknown instruction: " + StringUtil.toHex2(o));
-            break;
+    /** cb xx */
+    private final Op[] ops_cb = new Op[256];
+
+    /** dd xx */
+    private final Op[] ops_dd = new Op[256];
+
+    /** dd cb d xx */
+    private final Op[] ops_ddcb = new Op[256];
+
+    /** ed xx */
+    private final Op[] ops_ed = new Op[256];
+
+    /** fd xx */
+    private final Op[] ops_fd = new Op[256];
+
+    /** fd cb d xx */
+    private final Op[] ops_fdcb = new Op[256];
+
+    /** builds instruction tables */ {
+        ops[0x00] = this::op_00;
+        ops[0x01] = this::op_01;
+        ops[0x02] = this::op_02;
+        ops[0x03] = this::op_03;
+        ops[0x04] = this::op_04;
+        ops[0x05] = this::op_05;
+        ops[0x06] = this::op_06;
+        ops[0x07] = this::op_07;
+        ops[0x08] = this::op_08;
+        ops[0x09] = this::op_09;
+        ops[0x0a] = this::op_0a;
+        ops[0x0b] = this::op_0b;
+        ops[0x0c] = this::op_0c;
+        ops[0x0d] = this::op_0d;
+        ops[0x0e] = this::op_0e;
+        ops[0x0f] = this::op_0f;
+        ops[0x10] = this::op_10;
+        ops[0x11] = this::op_11;
+        ops[0x12] = this::op_12;
+        ops[0x13] = this::op_13;
+        ops[0x14] = this::op_14;
+        ops[0x15] = this::op_15;
+        ops[0x16] = this::op_16;
+        ops[0x17] = this::op_17;
+        ops[0x18] = this::op_18;
+        ops[0x19] = this::op_19;
+        ops[0x1a] = this::op_1a;
+        ops[0x1b] = this::op_1b;
+        ops[0x1c] = this::op_1c;
+        ops[0x1d] = this::op_1d;
+        ops[0x1e] = this::op_1e;
+        ops[0x1f] = this::op_1f;
+        ops[0x20] = this::op_20;
+        ops[0x21] = this::op_21;
+        ops[0x22] = this::op_22;
+        ops[0x23] = this::op_23;
+        ops[0x24] = this::op_24;
+        ops[0x25] = this::op_25;
+        ops[0x26] = this::op_26;
+        ops[0x27] = this::op_27;
+        ops[0x28] = this::op_28;
+        ops[0x29] = this::op_29;
+        ops[0x2a] = this::op_2a;
+        ops[0x2b] = this::op_2b;
+        ops[0x2c] = this::op_2c;
+        ops[0x2d] = this::op_2d;
+        ops[0x2e] = this::op_2e;
+        ops[0x2f] = this::op_2f;
+        ops[0x30] = this::op_30;
+        ops[0x31] = this::op_31;
+        ops[0x32] = this::op_32;
+        ops[0x33] = this::op_33;
+        ops[0x34] = this::op_34;
+        ops[0x35] = this::op_35;
+        ops[0x36] = this::op_36;
+        ops[0x37] = this::op_37;
+        ops[0x38] = this::op_38;
+        ops[0x39] = this::op_39;
+        ops[0x3a] = this::op_3a;
+        ops[0x3b] = this::op_3b;
+        ops[0x3c] = this::op_3c;
+        ops[0x3d] = this::op_3d;
+        ops[0x3e] = this::op_3e;
+        ops[0x3f] = this::op_3f;
+        ops[0x40] = this::op_40;
+        ops[0x41] = this::op_41;
+        ops[0x42] = this::op_42;
+        ops[0x43] = this::op_43;
+        ops[0x44] = this::op_44;
+        ops[0x45] = this::op_45;
+        ops[0x46] = this::op_46;
+        ops[0x47] = this::op_47;
+        ops[0x48] = this::op_48;
+        ops[0x49] = this::op_49;
+        ops[0x4a] = this::op_4a;
+        ops[0x4b] = this::op_4b;
+        ops[0x4c] = this::op_4c;
+        ops[0x4d] = this::op_4d;
+        ops[0x4e] = this::op_4e;
+        ops[0x4f] = this::op_4f;
+        ops[0x50] = this::op_50;
+        ops[0x51] = this::op_51;
+        ops[0x52] = this::op_52;
+        ops[0x53] = this::op_53;
+        ops[0x54] = this::op_54;
+        ops[0x55] = this::op_55;
+        ops[0x56] = this::op_56;
+        ops[0x57] = this::op_57;
+        ops[0x58] = this::op_58;
+        ops[0x59] = this::op_59;
+        ops[0x5a] = this::op_5a;
+        ops[0x5b] = this::op_5b;
+        ops[0x5c] = this::op_5c;
+        ops[0x5d] = this::op_5d;
+        ops[0x5e] = this::op_5e;
+        ops[0x5f] = this::op_5f;
+        ops[0x60] = this::op_60;
+        ops[0x61] = this::op_61;
+        ops[0x62] = this::op_62;
+        ops[0x63] = this::op_63;
+        ops[0x64] = this::op_64;
+        ops[0x65] = this::op_65;
+        ops[0x66] = this::op_66;
+        ops[0x67] = this::op_67;
+        ops[0x68] = this::op_68;
+        ops[0x69] = this::op_69;
+        ops[0x6a] = this::op_6a;
+        ops[0x6b] = this::op_6b;
+        ops[0x6c] = this::op_6c;
+        ops[0x6d] = this::op_6d;
+        ops[0x6e] = this::op_6e;
+        ops[0x6f] = this::op_6f;
+        ops[0x70] = this::op_70;
+        ops[0x71] = this::op_71;
+        ops[0x72] = this::op_72;
+        ops[0x73] = this::op_73;
+        ops[0x74] = this::op_74;
+        ops[0x75] = this::op_75;
+        ops[0x76] = this::op_76;
+        ops[0x77] = this::op_77;
+        ops[0x78] = this::op_78;
+        ops[0x79] = this::op_79;
+        ops[0x7a] = this::op_7a;
+        ops[0x7b] = this::op_7b;
+        ops[0x7c] = this::op_7c;
+        ops[0x7d] = this::op_7d;
+        ops[0x7e] = this::op_7e;
+        ops[0x7f] = this::op_7f;
+        ops[0x80] = this::op_80;
+        ops[0x81] = this::op_81;
+        ops[0x82] = this::op_82;
+        ops[0x83] = this::op_83;
+        ops[0x84] = this::op_84;
+        ops[0x85] = this::op_85;
+        ops[0x86] = this::op_86;
+        ops[0x87] = this::op_87;
+        ops[0x88] = this::op_88;
+        ops[0x89] = this::op_89;
+        ops[0x8a] = this::op_8a;
+        ops[0x8b] = this::op_8b;
+        ops[0x8c] = this::op_8c;
+        ops[0x8d] = this::op_8d;
+        ops[0x8e] = this::op_8e;
+        ops[0x8f] = this::op_8f;
+        ops[0x90] = this::op_90;
+        ops[0x91] = this::op_91;
+        ops[0x92] = this::op_92;
+        ops[0x93] = this::op_93;
+        ops[0x94] = this::op_94;
+        ops[0x95] = this::op_95;
+        ops[0x96] = this::op_96;
+        ops[0x97] = this::op_97;
+        ops[0x98] = this::op_98;
+        ops[0x99] = this::op_99;
+        ops[0x9a] = this::op_9a;
+        ops[0x9b] = this::op_9b;
+        ops[0x9c] = this::op_9c;
+        ops[0x9d] = this::op_9d;
+        ops[0x9e] = this::op_9e;
+        ops[0x9f] = this::op_9f;
+        ops[0xa0] = this::op_a0;
+        ops[0xa1] = this::op_a1;
+        ops[0xa2] = this::op_a2;
+        ops[0xa3] = this::op_a3;
+        ops[0xa4] = this::op_a4;
+        ops[0xa5] = this::op_a5;
+        ops[0xa6] = this::op_a6;
+        ops[0xa7] = this::op_a7;
+        ops[0xa8] = this::op_a8;
+        ops[0xa9] = this::op_a9;
+        ops[0xaa] = this::op_aa;
+        ops[0xab] = this::op_ab;
+        ops[0xac] = this::op_ac;
+        ops[0xad] = this::op_ad;
+        ops[0xae] = this::op_ae;
+        ops[0xaf] = this::op_af;
+        ops[0xb0] = this::op_b0;
+        ops[0xb1] = this::op_b1;
+        ops[0xb2] = this::op_b2;
+        ops[0xb3] = this::op_b3;
+        ops[0xb4] = this::op_b4;
+        ops[0xb5] = this::op_b5;
+        ops[0xb6] = this::op_b6;
+        ops[0xb7] = this::op_b7;
+        ops[0xb8] = this::op_b8;
+        ops[0xb9] = this::op_b9;
+        ops[0xba] = this::op_ba;
+        ops[0xbb] = this::op_bb;
+        ops[0xbc] = this::op_bc;
+        ops[0xbd] = this::op_bd;
+        ops[0xbe] = this::op_be;
+        ops[0xbf] = this::op_bf;
+        ops[0xc0] = this::op_c0;
+        ops[0xc1] = this::op_c1;
+        ops[0xc2] = this::op_c2;
+        ops[0xc3] = this::op_c3;
+        ops[0xc4] = this::op_c4;
+        ops[0xc5] = this::op_c5;
+        ops[0xc6] = this::op_c6;
+        ops[0xc7] = this::op_c7;
+        ops[0xc8] = this::op_c8;
+        ops[0xc9] = this::op_c9;
+        ops[0xca] = this::op_ca;
+        ops[0xcb] = this::exec_cb;
+        ops[0xcc] = this::op_cc;
+        ops[0xcd] = this::op_cd;
+        ops[0xce] = this::op_ce;
+        ops[0xcf] = this::op_cf;
+        ops[0xd0] = this::op_d0;
+        ops[0xd1] = this::op_d1;
+        ops[0xd2] = this::op_d2;
+        ops[0xd3] = this::op_d3;
+        ops[0xd4] = this::op_d4;
+        ops[0xd5] = this::op_d5;
+        ops[0xd6] = this::op_d6;
+        ops[0xd7] = this::op_d7;
+        ops[0xd8] = this::op_d8;
+        ops[0xd9] = this::op_d9;
+        ops[0xda] = this::op_da;
+        ops[0xdb] = this::op_db;
+        ops[0xdc] = this::op_dc;
+        ops[0xdd] = this::exec_dd;
+        ops[0xde] = this::op_de;
+        ops[0xdf] = this::op_df;
+        ops[0xe0] = this::op_e0;
+        ops[0xe1] = this::op_e1;
+        ops[0xe2] = this::op_e2;
+        ops[0xe3] = this::op_e3;
+        ops[0xe4] = this::op_e4;
+        ops[0xe5] = this::op_e5;
+        ops[0xe6] = this::op_e6;
+        ops[0xe7] = this::op_e7;
+        ops[0xe8] = this::op_e8;
+        ops[0xe9] = this::op_e9;
+        ops[0xea] = this::op_ea;
+        ops[0xeb] = this::op_eb;
+        ops[0xec] = this::op_ec;
+        ops[0xed] = this::exec_ed;
+        ops[0xee] = this::op_ee;
+        ops[0xef] = this::op_ef;
+        ops[0xf0] = this::op_f0;
+        ops[0xf1] = this::op_f1;
+        ops[0xf2] = this::op_f2;
+        ops[0xf3] = this::op_f3;
+        ops[0xf4] = this::op_f4;
+        ops[0xf5] = this::op_f5;
+        ops[0xf6] = this::op_f6;
+        ops[0xf7] = this::op_f7;
+        ops[0xf8] = this::op_f8;
+        ops[0xf9] = this::op_f9;
+        ops[0xfa] = this::op_fa;
+        ops[0xfb] = this::op_fb;
+        ops[0xfc] = this::op_fc;
+        ops[0xfd] = this::exec_fd;
+        ops[0xfe] = this::op_fe;
+        ops[0xff] = this::op_ff;
+
+        ops_cb[0x00] = this::op_cb00;
+        ops_cb[0x01] = this::op_cb01;
+        ops_cb[0x02] = this::op_cb02;
+        ops_cb[0x03] = this::op_cb03;
+        ops_cb[0x04] = this::op_cb04;
+        ops_cb[0x05] = this::op_cb05;
+        ops_cb[0x06] = this::op_cb06;
+        ops_cb[0x07] = this::op_cb07;
+        ops_cb[0x08] = this::op_cb08;
+        ops_cb[0x09] = this::op_cb09;
+        ops_cb[0x0a] = this::op_cb0a;
+        ops_cb[0x0b] = this::op_cb0b;
+        ops_cb[0x0c] = this::op_cb0c;
+        ops_cb[0x0d] = this::op_cb0d;
+        ops_cb[0x0e] = this::op_cb0e;
+        ops_cb[0x0f] = this::op_cb0f;
+        ops_cb[0x10] = this::op_cb10;
+        ops_cb[0x11] = this::op_cb11;
+        ops_cb[0x12] = this::op_cb12;
+        ops_cb[0x13] = this::op_cb13;
+        ops_cb[0x14] = this::op_cb14;
+        ops_cb[0x15] = this::op_cb15;
+        ops_cb[0x16] = this::op_cb16;
+        ops_cb[0x17] = this::op_cb17;
+        ops_cb[0x18] = this::op_cb18;
+        ops_cb[0x19] = this::op_cb19;
+        ops_cb[0x1a] = this::op_cb1a;
+        ops_cb[0x1b] = this::op_cb1b;
+        ops_cb[0x1c] = this::op_cb1c;
+        ops_cb[0x1d] = this::op_cb1d;
+        ops_cb[0x1e] = this::op_cb1e;
+        ops_cb[0x1f] = this::op_cb1f;
+        ops_cb[0x20] = this::op_cb20;
+        ops_cb[0x21] = this::op_cb21;
+        ops_cb[0x22] = this::op_cb22;
+        ops_cb[0x23] = this::op_cb23;
+        ops_cb[0x24] = this::op_cb24;
+        ops_cb[0x25] = this::op_cb25;
+        ops_cb[0x26] = this::op_cb26;
+        ops_cb[0x27] = this::op_cb27;
+        ops_cb[0x28] = this::op_cb28;
+        ops_cb[0x29] = this::op_cb29;
+        ops_cb[0x2a] = this::op_cb2a;
+        ops_cb[0x2b] = this::op_cb2b;
+        ops_cb[0x2c] = this::op_cb2c;
+        ops_cb[0x2d] = this::op_cb2d;
+        ops_cb[0x2e] = this::op_cb2e;
+        ops_cb[0x2f] = this::op_cb2f;
+        ops_cb[0x38] = this::op_cb38;
+        ops_cb[0x39] = this::op_cb39;
+        ops_cb[0x3a] = this::op_cb3a;
+        ops_cb[0x3b] = this::op_cb3b;
+        ops_cb[0x3c] = this::op_cb3c;
+        ops_cb[0x3d] = this::op_cb3d;
+        ops_cb[0x3e] = this::op_cb3e;
+        ops_cb[0x3f] = this::op_cb3f;
+        ops_cb[0x40] = this::op_cb40;
+        ops_cb[0x41] = this::op_cb41;
+        ops_cb[0x42] = this::op_cb42;
+        ops_cb[0x43] = this::op_cb43;
+        ops_cb[0x44] = this::op_cb44;
+        ops_cb[0x45] = this::op_cb45;
+        ops_cb[0x46] = this::op_cb46;
+        ops_cb[0x47] = this::op_cb47;
+        ops_cb[0x48] = this::op_cb48;
+        ops_cb[0x49] = this::op_cb49;
+        ops_cb[0x4a] = this::op_cb4a;
+        ops_cb[0x4b] = this::op_cb4b;
+        ops_cb[0x4c] = this::op_cb4c;
+        ops_cb[0x4d] = this::op_cb4d;
+        ops_cb[0x4e] = this::op_cb4e;
+        ops_cb[0x4f] = this::op_cb4f;
+        ops_cb[0x50] = this::op_cb50;
+        ops_cb[0x51] = this::op_cb51;
+        ops_cb[0x52] = this::op_cb52;
+        ops_cb[0x53] = this::op_cb53;
+        ops_cb[0x54] = this::op_cb54;
+        ops_cb[0x55] = this::op_cb55;
+        ops_cb[0x56] = this::op_cb56;
+        ops_cb[0x57] = this::op_cb57;
+        ops_cb[0x58] = this::op_cb58;
+        ops_cb[0x59] = this::op_cb59;
+        ops_cb[0x5a] = this::op_cb5a;
+        ops_cb[0x5b] = this::op_cb5b;
+        ops_cb[0x5c] = this::op_cb5c;
+        ops_cb[0x5d] = this::op_cb5d;
+        ops_cb[0x5e] = this::op_cb5e;
+        ops_cb[0x5f] = this::op_cb5f;
+        ops_cb[0x60] = this::op_cb60;
+        ops_cb[0x61] = this::op_cb61;
+        ops_cb[0x62] = this::op_cb62;
+        ops_cb[0x63] = this::op_cb63;
+        ops_cb[0x64] = this::op_cb64;
+        ops_cb[0x65] = this::op_cb65;
+        ops_cb[0x66] = this::op_cb66;
+        ops_cb[0x67] = this::op_cb67;
+        ops_cb[0x68] = this::op_cb68;
+        ops_cb[0x69] = this::op_cb69;
+        ops_cb[0x6a] = this::op_cb6a;
+        ops_cb[0x6b] = this::op_cb6b;
+        ops_cb[0x6c] = this::op_cb6c;
+        ops_cb[0x6d] = this::op_cb6d;
+        ops_cb[0x6e] = this::op_cb6e;
+        ops_cb[0x6f] = this::op_cb6f;
+        ops_cb[0x70] = this::op_cb70;
+        ops_cb[0x71] = this::op_cb71;
+        ops_cb[0x72] = this::op_cb72;
+        ops_cb[0x73] = this::op_cb73;
+        ops_cb[0x74] = this::op_cb74;
+        ops_cb[0x75] = this::op_cb75;
+        ops_cb[0x76] = this::op_cb76;
+        ops_cb[0x77] = this::op_cb77;
+        ops_cb[0x78] = this::op_cb78;
+        ops_cb[0x79] = this::op_cb79;
+        ops_cb[0x7a] = this::op_cb7a;
+        ops_cb[0x7b] = this::op_cb7b;
+        ops_cb[0x7c] = this::op_cb7c;
+        ops_cb[0x7d] = this::op_cb7d;
+        ops_cb[0x7e] = this::op_cb7e;
+        ops_cb[0x7f] = this::op_cb7f;
+        ops_cb[0x80] = this::op_cb80;
+        ops_cb[0x81] = this::op_cb81;
+        ops_cb[0x82] = this::op_cb82;
+        ops_cb[0x83] = this::op_cb83;
+        ops_cb[0x84] = this::op_cb84;
+        ops_cb[0x85] = this::op_cb85;
+        ops_cb[0x86] = this::op_cb86;
+        ops_cb[0x87] = this::op_cb87;
+        ops_cb[0x88] = this::op_cb88;
+        ops_cb[0x89] = this::op_cb89;
+        ops_cb[0x8a] = this::op_cb8a;
+        ops_cb[0x8b] = this::op_cb8b;
+        ops_cb[0x8c] = this::op_cb8c;
+        ops_cb[0x8d] = this::op_cb8d;
+        ops_cb[0x8e] = this::op_cb8e;
+        ops_cb[0x8f] = this::op_cb8f;
+        ops_cb[0x90] = this::op_cb90;
+        ops_cb[0x91] = this::op_cb91;
+        ops_cb[0x92] = this::op_cb92;
+        ops_cb[0x93] = this::op_cb93;
+        ops_cb[0x94] = this::op_cb94;
+        ops_cb[0x95] = this::op_cb95;
+        ops_cb[0x96] = this::op_cb96;
+        ops_cb[0x97] = this::op_cb97;
+        ops_cb[0x98] = this::op_cb98;
+        ops_cb[0x99] = this::op_cb99;
+        ops_cb[0x9a] = this::op_cb9a;
+        ops_cb[0x9b] = this::op_cb9b;
+        ops_cb[0x9c] = this::op_cb9c;
+        ops_cb[0x9d] = this::op_cb9d;
+        ops_cb[0x9e] = this::op_cb9e;
+        ops_cb[0x9f] = this::op_cb9f;
+        ops_cb[0xa0] = this::op_cba0;
+        ops_cb[0xa1] = this::op_cba1;
+        ops_cb[0xa2] = this::op_cba2;
+        ops_cb[0xa3] = this::op_cba3;
+        ops_cb[0xa4] = this::op_cba4;
+        ops_cb[0xa5] = this::op_cba5;
+        ops_cb[0xa6] = this::op_cba6;
+        ops_cb[0xa7] = this::op_cba7;
+        ops_cb[0xa8] = this::op_cba8;
+        ops_cb[0xa9] = this::op_cba9;
+        ops_cb[0xaa] = this::op_cbaa;
+        ops_cb[0xab] = this::op_cbab;
+        ops_cb[0xac] = this::op_cbac;
+        ops_cb[0xad] = this::op_cbad;
+        ops_cb[0xae] = this::op_cbae;
+        ops_cb[0xaf] = this::op_cbaf;
+        ops_cb[0xb0] = this::op_cbb0;
+        ops_cb[0xb1] = this::op_cbb1;
+        ops_cb[0xb2] = this::op_cbb2;
+        ops_cb[0xb3] = this::op_cbb3;
+        ops_cb[0xb4] = this::op_cbb4;
+        ops_cb[0xb5] = this::op_cbb5;
+        ops_cb[0xb6] = this::op_cbb6;
+        ops_cb[0xb7] = this::op_cbb7;
+        ops_cb[0xb8] = this::op_cbb8;
+        ops_cb[0xb9] = this::op_cbb9;
+        ops_cb[0xba] = this::op_cbba;
+        ops_cb[0xbb] = this::op_cbbb;
+        ops_cb[0xbc] = this::op_cbbc;
+        ops_cb[0xbd] = this::op_cbbd;
+        ops_cb[0xbe] = this::op_cbbe;
+        ops_cb[0xbf] = this::op_cbbf;
+        ops_cb[0xc0] = this::op_cbc0;
+        ops_cb[0xc1] = this::op_cbc1;
+        ops_cb[0xc2] = this::op_cbc2;
+        ops_cb[0xc3] = this::op_cbc3;
+        ops_cb[0xc4] = this::op_cbc4;
+        ops_cb[0xc5] = this::op_cbc5;
+        ops_cb[0xc6] = this::op_cbc6;
+        ops_cb[0xc7] = this::op_cbc7;
+        ops_cb[0xc8] = this::op_cbc8;
+        ops_cb[0xc9] = this::op_cbc9;
+        ops_cb[0xca] = this::op_cbca;
+        ops_cb[0xcb] = this::op_cbcb;
+        ops_cb[0xcc] = this::op_cbcc;
+        ops_cb[0xcd] = this::op_cbcd;
+        ops_cb[0xce] = this::op_cbce;
+        ops_cb[0xcf] = this::op_cbcf;
+        ops_cb[0xd0] = this::op_cbd0;
+        ops_cb[0xd1] = this::op_cbd1;
+        ops_cb[0xd2] = this::op_cbd2;
+        ops_cb[0xd3] = this::op_cbd3;
+        ops_cb[0xd4] = this::op_cbd4;
+        ops_cb[0xd5] = this::op_cbd5;
+        ops_cb[0xd6] = this::op_cbd6;
+        ops_cb[0xd7] = this::op_cbd7;
+        ops_cb[0xd8] = this::op_cbd8;
+        ops_cb[0xd9] = this::op_cbd9;
+        ops_cb[0xda] = this::op_cbda;
+        ops_cb[0xdb] = this::op_cbdb;
+        ops_cb[0xdc] = this::op_cbdc;
+        ops_cb[0xdd] = this::op_cbdd;
+        ops_cb[0xde] = this::op_cbde;
+        ops_cb[0xdf] = this::op_cbdf;
+        ops_cb[0xe0] = this::op_cbe0;
+        ops_cb[0xe1] = this::op_cbe1;
+        ops_cb[0xe2] = this::op_cbe2;
+        ops_cb[0xe3] = this::op_cbe3;
+        ops_cb[0xe4] = this::op_cbe4;
+        ops_cb[0xe5] = this::op_cbe5;
+        ops_cb[0xe6] = this::op_cbe6;
+        ops_cb[0xe7] = this::op_cbe7;
+        ops_cb[0xe8] = this::op_cbe8;
+        ops_cb[0xe9] = this::op_cbe9;
+        ops_cb[0xea] = this::op_cbea;
+        ops_cb[0xeb] = this::op_cbeb;
+        ops_cb[0xec] = this::op_cbec;
+        ops_cb[0xed] = this::op_cbed;
+        ops_cb[0xee] = this::op_cbee;
+        ops_cb[0xef] = this::op_cbef;
+        ops_cb[0xf0] = this::op_cbf0;
+        ops_cb[0xf1] = this::op_cbf1;
+        ops_cb[0xf2] = this::op_cbf2;
+        ops_cb[0xf3] = this::op_cbf3;
+        ops_cb[0xf4] = this::op_cbf4;
+        ops_cb[0xf5] = this::op_cbf5;
+        ops_cb[0xf6] = this::op_cbf6;
+        ops_cb[0xf7] = this::op_cbf7;
+        ops_cb[0xf8] = this::op_cbf8;
+        ops_cb[0xf9] = this::op_cbf9;
+        ops_cb[0xfa] = this::op_cbfa;
+        ops_cb[0xfb] = this::op_cbfb;
+        ops_cb[0xfc] = this::op_cbfc;
+        ops_cb[0xfd] = this::op_cbfd;
+        ops_cb[0xfe] = this::op_cbfe;
+        ops_cb[0xff] = this::op_cbff;
+
+        ops_dd[0x09] = this::op_dd09;
+        ops_dd[0x19] = this::op_dd19;
+        ops_dd[0x21] = this::op_dd21;
+        ops_dd[0x22] = this::op_dd22;
+        ops_dd[0x23] = this::op_dd23;
+        ops_dd[0x29] = this::op_dd29;
+        ops_dd[0x2a] = this::op_dd2a;
+        ops_dd[0x2b] = this::op_dd2b;
+        ops_dd[0x34] = this::op_dd34;
+        ops_dd[0x35] = this::op_dd35;
+        ops_dd[0x36] = this::op_dd36;
+        ops_dd[0x39] = this::op_dd39;
+        ops_dd[0x46] = this::op_dd46;
+        ops_dd[0x4e] = this::op_dd4e;
+        ops_dd[0x56] = this::op_dd56;
+        ops_dd[0x5e] = this::op_dd5e;
+        ops_dd[0x66] = this::op_dd66;
+        ops_dd[0x6e] = this::op_dd6e;
+        ops_dd[0x70] = this::op_dd70;
+        ops_dd[0x71] = this::op_dd71;
+        ops_dd[0x72] = this::op_dd72;
+        ops_dd[0x73] = this::op_dd73;
+        ops_dd[0x74] = this::op_dd74;
+        ops_dd[0x75] = this::op_dd75;
+        ops_dd[0x77] = this::op_dd77;
+        ops_dd[0x7e] = this::op_dd7e;
+        ops_dd[0x86] = this::op_dd86;
+        ops_dd[0x8e] = this::op_dd8e;
+        ops_dd[0x96] = this::op_dd96;
+        ops_dd[0x9e] = this::op_dd9e;
+        ops_dd[0xa6] = this::op_dda6;
+        ops_dd[0xae] = this::op_ddae;
+        ops_dd[0xb6] = this::op_ddb6;
+        ops_dd[0xbe] = this::op_ddbe;
+        ops_dd[0xcb] = this::exec_ddcb;
+        ops_dd[0xe1] = this::op_dde1;
+        ops_dd[0xe3] = this::op_dde3;
+        ops_dd[0xe5] = this::op_dde5;
+        ops_dd[0xe9] = this::op_dde9;
+        ops_dd[0xf9] = this::op_ddf9;
+
+        ops_ddcb[0x06] = this::op_ddcb06;
+        ops_ddcb[0x0e] = this::op_ddcb0e;
+        ops_ddcb[0x16] = this::op_ddcb16;
+        ops_ddcb[0x1e] = this::op_ddcb1e;
+        ops_ddcb[0x26] = this::op_ddcb26;
+        ops_ddcb[0x2e] = this::op_ddcb2e;
+        ops_ddcb[0x3e] = this::op_ddcb3e;
+        ops_ddcb[0x46] = this::op_ddcb46;
+        ops_ddcb[0x4e] = this::op_ddcb4e;
+        ops_ddcb[0x56] = this::op_ddcb56;
+        ops_ddcb[0x5e] = this::op_ddcb5e;
+        ops_ddcb[0x66] = this::op_ddcb66;
+        ops_ddcb[0x6e] = this::op_ddcb6e;
+        ops_ddcb[0x76] = this::op_ddcb76;
+        ops_ddcb[0x7e] = this::op_ddcb7e;
+        ops_ddcb[0x86] = this::op_ddcb86;
+        ops_ddcb[0x8e] = this::op_ddcb8e;
+        ops_ddcb[0x96] = this::op_ddcb96;
+        ops_ddcb[0x9e] = this::op_ddcb9e;
+        ops_ddcb[0xa6] = this::op_ddcba6;
+        ops_ddcb[0xae] = this::op_ddcbae;
+        ops_ddcb[0xb6] = this::op_ddcbb6;
+        ops_ddcb[0xbe] = this::op_ddcbbe;
+        ops_ddcb[0xc6] = this::op_ddcbc6;
+        ops_ddcb[0xce] = this::op_ddcbce;
+        ops_ddcb[0xd6] = this::op_ddcbd6;
+        ops_ddcb[0xde] = this::op_ddcbde;
+        ops_ddcb[0xe6] = this::op_ddcbe6;
+        ops_ddcb[0xee] = this::op_ddcbee;
+        ops_ddcb[0xf6] = this::op_ddcbf6;
+        ops_ddcb[0xfe] = this::op_ddcbfe;
+
+        ops_ed[0x40] = this::op_ed40;
+        ops_ed[0x41] = this::op_ed41;
+        ops_ed[0x42] = this::op_ed42;
+        ops_ed[0x43] = this::op_ed43;
+        ops_ed[0x44] = this::op_ed44;
+        ops_ed[0x45] = this::op_ed45;
+        ops_ed[0x46] = this::op_ed46;
+        ops_ed[0x47] = this::op_ed47;
+        ops_ed[0x48] = this::op_ed48;
+        ops_ed[0x49] = this::op_ed49;
+        ops_ed[0x4a] = this::op_ed4a;
+        ops_ed[0x4b] = this::op_ed4b;
+        ops_ed[0x4d] = this::op_ed4d;
+        ops_ed[0x4f] = this::op_ed4f;
+        ops_ed[0x50] = this::op_ed50;
+        ops_ed[0x51] = this::op_ed51;
+        ops_ed[0x52] = this::op_ed52;
+        ops_ed[0x53] = this::op_ed53;
+        ops_ed[0x56] = this::op_ed56;
+        ops_ed[0x57] = this::op_ed57;
+        ops_ed[0x58] = this::op_ed58;
+        ops_ed[0x59] = this::op_ed59;
+        ops_ed[0x5a] = this::op_ed5a;
+        ops_ed[0x5b] = this::op_ed5b;
+        ops_ed[0x5e] = this::op_ed5e;
+        ops_ed[0x5f] = this::op_ed5f;
+        ops_ed[0x60] = this::op_ed60;
+        ops_ed[0x61] = this::op_ed61;
+        ops_ed[0x62] = this::op_ed62;
+        ops_ed[0x67] = this::op_ed67;
+        ops_ed[0x68] = this::op_ed68;
+        ops_ed[0x69] = this::op_ed69;
+        ops_ed[0x6a] = this::op_ed6a;
+        ops_ed[0x6f] = this::op_ed6f;
+        ops_ed[0x72] = this::op_ed72;
+        ops_ed[0x73] = this::op_ed73;
+        ops_ed[0x78] = this::op_ed78;
+        ops_ed[0x79] = this::op_ed79;
+        ops_ed[0x7a] = this::op_ed7a;
+        ops_ed[0x7b] = this::op_ed7b;
+        ops_ed[0xa0] = this::op_eda0;
+        ops_ed[0xa1] = this::op_eda1;
+        ops_ed[0xa2] = this::op_eda2;
+        ops_ed[0xa3] = this::op_eda3;
+        ops_ed[0xa8] = this::op_eda8;
+        ops_ed[0xa9] = this::op_eda9;
+        ops_ed[0xaa] = this::op_edaa;
+        ops_ed[0xab] = this::op_edab;
+        ops_ed[0xb0] = this::op_edb0;
+        ops_ed[0xb1] = this::op_edb1;
+        ops_ed[0xb2] = this::op_edb2;
+        ops_ed[0xb3] = this::op_edb3;
+        ops_ed[0xb8] = this::op_edb8;
+        ops_ed[0xb9] = this::op_edb9;
+        ops_ed[0xba] = this::op_edba;
+        ops_ed[0xbb] = this::op_edbb;
+
+        ops_fd[0x09] = this::op_fd09;
+        ops_fd[0x19] = this::op_fd19;
+        ops_fd[0x21] = this::op_fd21;
+        ops_fd[0x22] = this::op_fd22;
+        ops_fd[0x23] = this::op_fd23;
+        ops_fd[0x29] = this::op_fd29;
+        ops_fd[0x2a] = this::op_fd2a;
+        ops_fd[0x2b] = this::op_fd2b;
+        ops_fd[0x34] = this::op_fd34;
+        ops_fd[0x35] = this::op_fd35;
+        ops_fd[0x36] = this::op_fd36;
+        ops_fd[0x39] = this::op_fd39;
+        ops_fd[0x46] = this::op_fd46;
+        ops_fd[0x4e] = this::op_fd4e;
+        ops_fd[0x56] = this::op_fd56;
+        ops_fd[0x5e] = this::op_fd5e;
+        ops_fd[0x66] = this::op_fd66;
+        ops_fd[0x6e] = this::op_fd6e;
+        ops_fd[0x70] = this::op_fd70;
+        ops_fd[0x71] = this::op_fd71;
+        ops_fd[0x72] = this::op_fd72;
+        ops_fd[0x73] = this::op_fd73;
+        ops_fd[0x74] = this::op_fd74;
+        ops_fd[0x75] = this::op_fd75;
+        ops_fd[0x77] = this::op_fd77;
+        ops_fd[0x7e] = this::op_fd7e;
+        ops_fd[0x86] = this::op_fd86;
+        ops_fd[0x8e] = this::op_fd8e;
+        ops_fd[0x96] = this::op_fd96;
+        ops_fd[0x9e] = this::op_fd9e;
+        ops_fd[0xa6] = this::op_fda6;
+        ops_fd[0xae] = this::op_fdae;
+        ops_fd[0xb6] = this::op_fdb6;
+        ops_fd[0xbe] = this::op_fdbe;
+        ops_fd[0xcb] = this::exec_fdcb;
+        ops_fd[0xe1] = this::op_fde1;
+        ops_fd[0xe3] = this::op_fde3;
+        ops_fd[0xe5] = this::op_fde5;
+        ops_fd[0xe9] = this::op_fde9;
+        ops_fd[0xf9] = this::op_fdf9;
+
+        ops_fdcb[0x06] = this::op_fdcb06;
+        ops_fdcb[0x0e] = this::op_fdcb0e;
+        ops_fdcb[0x16] = this::op_fdcb16;
+        ops_fdcb[0x1e] = this::op_fdcb1e;
+        ops_fdcb[0x26] = this::op_fdcb26;
+        ops_fdcb[0x2e] = this::op_fdcb2e;
+        ops_fdcb[0x3e] = this::op_fdcb3e;
+        ops_fdcb[0x46] = this::op_fdcb46;
+        ops_fdcb[0x4e] = this::op_fdcb4e;
+        ops_fdcb[0x56] = this::op_fdcb56;
+        ops_fdcb[0x5e] = this::op_fdcb5e;
+        ops_fdcb[0x66] = this::op_fdcb66;
+        ops_fdcb[0x6e] = this::op_fdcb6e;
+        ops_fdcb[0x76] = this::op_fdcb76;
+        ops_fdcb[0x7e] = this::op_fdcb7e;
+        ops_fdcb[0x86] = this::op_fdcb86;
+        ops_fdcb[0x8e] = this::op_fdcb8e;
+        ops_fdcb[0x96] = this::op_fdcb96;
+        ops_fdcb[0x9e] = this::op_fdcb9e;
+        ops_fdcb[0xa6] = this::op_fdcba6;
+        ops_fdcb[0xae] = this::op_fdcbae;
+        ops_fdcb[0xb6] = this::op_fdcbb6;
+        ops_fdcb[0xbe] = this::op_fdcbbe;
+        ops_fdcb[0xc6] = this::op_fdcbc6;
+        ops_fdcb[0xce] = this::op_fdcbce;
+        ops_fdcb[0xd6] = this::op_fdcbd6;
+        ops_fdcb[0xde] = this::op_fdcbde;
+        ops_fdcb[0xe6] = this::op_fdcbe6;
+        ops_fdcb[0xee] = this::op_fdcbee;
+        ops_fdcb[0xf6] = this::op_fdcbf6;
+        ops_fdcb[0xfe] = this::op_fdcbfe;
+
+        fillUnknown(ops, "");
+        fillUnknown(ops_cb, "cb ");
+        fillUnknown(ops_dd, "dd ");
+        fillUnknown(ops_ddcb, "dd cb d ");
+        fillUnknown(ops_ed, "ed ");
+        fillUnknown(ops_fd, "fd ");
+        fillUnknown(ops_fdcb, "fd cb d ");
+    }
+
+    /** unassigned instructions only tell they are unknown */
+    private static void fillUnknown(Op[] ops, String prefix) {
+        for (int o = 0; o < ops.length; o++) {
+            if (ops[o] == null) {
+                final int v = o;
+                ops[o] = () -> Debug.println("Unknown instruction : " + prefix + StringUtil.toHex2(v));
+            }
         }
     }
 
+    /** for im 0 */
+    private final void exec(int o) {
+        ops[o].exec();
+    }
+
     /** */
     private final void exec() {
 
-        int o = fetchb();
+        Decoded d = next();
 
-        r = inc8bitInternal(r);
+        Trace t = d.trace;
+        if (t != null && cycles < limit) {
+            run(t);
+            return;
+        }
+        if (++d.hits == HOT && decodedPage != null) {
+            d.trace = compile(d);
+        }
+        decoded = d;
 
-        switch (o) {
-        case 0x40: // ld b,b
-//          b = b;
-            cost = 4;
-            break;
-        case 0x41: // ld b,c
-            b = c;
-            cost = 4;
-            break;
-        case 0x42: // ld b,d
-            b = d;
-            cost = 4;
-            break;
-        case 0x43: // ld b,e
-            b = e;
-            cost = 4;
-            break;
-        case 0x44: // ld b,h
-            b = h;
-            cost = 4;
-            break;
-        case 0x45: // ld b,l
-            b = l;
-            cost = 4;
-            break;
-        case 0x47: // ld b,a
-            b = a;
-            cost = 4;
-            break;
-        case 0x48: // ld c,b
-            c = b;
-            cost = 4;
-            break;
-        case 0x49: // ld c,c
-//          c = c;
-            cost = 4;
-            break;
-        case 0x4a: // ld c,d
-            c = d;
-            cost = 4;
-            break;
-        case 0x4b: // ld c,e
-            c = e;
-            cost = 4;
-            break;
-        case 0x4c: // ld c,h
-            c = h;
-            cost = 4;
-            break;
-        case 0x4d: // ld c,l
-            c = l;
-            cost = 4;
-            break;
-        case 0x4f: // ld c,a
-            c = a;
-            cost = 4;
-            break;
-        case 0x50: // ld d,b
-            d = b;
-            cost = 4;
-            break;
-        case 0x51: // ld d,c
-            d = c;
-            cost = 4;
-            break;
-        case 0x52: // ld d,d
-//          d = d;
-            cost = 4;
-            break;
-        case 0x53: // ld d,e
-            d = e;
-            cost = 4;
-            break;
-        case 0x54: // ld d,h
-            d = h;
-            cost = 4;
-            break;
-        case 0x55: // ld d,l
-            d = l;
-            cost = 4;
-            break;
-        case 0x57: // ld d,a
-            d = a;
-            cost = 4;
-            break;
-        case 0x58: // ld e,b
-            e = b;
-            cost = 4;
-            break;
-        case 0x59: // ld e,c
-            e = c;
-            cost = 4;
-            break;
-        case 0x5a: // ld e,d
-            e = d;
-            cost = 4;
-            break;
-        case 0x5b: // ld e,e
-//          e = e;
-            cost = 4;
-            break;
-        case 0x5c: // ld e,h
-            e = h;
-            cost = 4;
-            break;
-        case 0x5d: // ld e,l
-            e = l;
-            cost = 4;
-            break;
-        case 0x5f: // ld e,a
-            e = a;
-            cost = 4;
-            break;
-        case 0x60: // ld h,b
-            h = b;
-            cost = 4;
-            break;
-        case 0x61: // ld h,c
-            h = c;
-            cost = 4;
-            break;
-        case 0x62: // ld h,d
-            h = d;
-            cost = 4;
-            break;
-        case 0x63: // ld h,e
-            h = e;
-            cost = 4;
-            break;
-        case 0x64: // ld h,h
-//          h = h;
-            cost = 4;
-            break;
-        case 0x65: // ld h,l
-            h = l;
-            cost = 4;
-            break;
-        case 0x67: // ld h,a
-            h = a;
-            cost = 4;
-            break;
-        case 0x68: // ld l,b
-            l = b;
-            cost = 4;
-            break;
-        case 0x69: // ld l,c
-            l = c;
-            cost = 4;
-            break;
-        case 0x6a: // ld l,d
-            l = d;
-            cost = 4;
-            break;
-        case 0x6b: // ld l,e
-            l = e;
-            cost = 4;
-            break;
-        case 0x6c: // ld l,h
-            l = h;
-            cost = 4;
-            break;
-        case 0x6d: // ld l,l
-//          l = l;
-            cost = 4;
-            break;
-        case 0x6f: // ld l,a
-            l = a;
-            cost = 4;
-            break;
-        case 0x78: // ld a,b
-            a = b;
-            cost = 4;
-            break;
-        case 0x79: // ld a,c
-            a = c;
-            cost = 4;
-            break;
-        case 0x7a: // ld a,d
-            a = d;
-            cost = 4;
-            break;
-        case 0x7b: // ld a,e
-            a = e;
-            cost = 4;
-            break;
-        case 0x7c: // ld a,h
-            a = h;
-            cost = 4;
-            break;
-        case 0x7d: // ld a,l
-            a = l;
-            cost = 4;
-            break;
-        case 0x7f: // ld a,a
-//          a = a;
-            cost = 4;
-            break;
+        pc = add16bitInternal(pc, d.length);
 
-        case 0x77: // ld (hl),a
-            bus.pokeb(getHL(), a);
-            cost = 7;
-            break;
-        case 0x70: // ld (hl),b
-            bus.pokeb(getHL(), b);
-            cost = 7;
-            break;
-        case 0x71: // ld (hl),c
-            bus.pokeb(getHL(), c);
-            cost = 7;
-            break;
-        case 0x72: // ld (hl),d
-            bus.pokeb(getHL(), d);
-            cost = 7;
-            break;
-        case 0x73: // ld (hl),e
-            bus.pokeb(getHL(), e);
-            cost = 7;
-            break;
-        case 0x74: // ld (hl),h
-            bus.pokeb(getHL(), h);
-            cost = 7;
-            break;
-        case 0x75: // ld (hl),l
-            bus.pokeb(getHL(), l);
-            cost = 7;
-            break;
+        r = add8bitInternal(r, d.refresh);
 
-        case 0x7e: // ld a,(hl)
-            a = bus.peekb(getHL());
-            cost = 7;
-            break;
-        case 0x46: // ld b,(hl)
-            b = bus.peekb(getHL());
-            cost = 7;
-            break;
-        case 0x4e: // ld c,(hl)
-            c = bus.peekb(getHL());
-            cost = 7;
-            break;
-        case 0x56: // ld d,(hl)
-            d = bus.peekb(getHL());
-            cost = 7;
-            break;
-        case 0x5e: // ld e,(hl)
-            e = bus.peekb(getHL());
-            cost = 7;
-            break;
-        case 0x66: // ld h,(hl)
-            h = bus.peekb(getHL());
-            cost = 7;
-            break;
-        case 0x6e: // ld l,(hl)
-            l = bus.peekb(getHL());
-            cost = 7;
-            break;
+        d.op.exec();
 
-        case 0x3e: // ld a,n
-            a = fetchb();
-            cost = 7;
-            break;
-        case 0x06: // ld b,n
-            b = fetchb();
-            cost = 7;
-            break;
-        case 0x0e: // ld c,n
-            c = fetchb();
-            cost = 7;
-            break;
-        case 0x16: // ld d,n
-            d = fetchb();
-            cost = 7;
-            break;
-        case 0x1e: // ld e,n
-            e = fetchb();
-            cost = 7;
-            break;
-        case 0x26: // ld h,n
-            h = fetchb();
-            cost = 7;
-            break;
-        case 0x2e: // ld l,n
-            l = fetchb();
-            cost = 7;
-            break;
+        cycles += cost;
+    }
 
-        case 0x36: // ld (hl),n
-            bus.pokeb(getHL(), fetchb());
-            cost = 10;
-            break;
-        case 0x01: // ld bc,nn
-            setBC(fetchw());
-            cost = 10;
-            break;
-        case 0x11: // ld de,nn
-            setDE(fetchw());
-            cost = 10;
-            break;
-        case 0x21: // ld hl,nn
-            setHL(fetchw());
-            cost = 10;
-            break;
-        case 0x31: // ld sp,nn
-            sp = fetchw();
-            cost = 10;
-            break;
+    /** @return the instruction at pc, the last one's following if valid */
+    private final Decoded next() {
+        Decoded d = decoded.following;
+        Page p = decodedPage;
+        if (d.pc != pc || p.generations[p.physical] != p.generation || bus.getMappings() != decodedMappings) {
+            d = lookup();
+        }
+        return d;
+    }
 
-        case 0x02: // ld (bc),a
-            bus.pokeb(getBC(), a);
-            cost = 7;
-            break;
-        case 0x12: // ld (de),a
-            bus.pokeb(getDE(), a);
-            cost = 7;
-            break;
-        case 0x0a: // ld a,(bc)
-            a = bus.peekb(getBC());
-            cost = 7;
-            break;
-        case 0x1a: // ld a,(de)
-            a = bus.peekb(getDE());
-            cost = 7;
-            break;
+    /**
+     * an instruction, or nops of halt, counted by the profiler.
+     * traces are not run so that each address gets its own T-states.
+     * a call or rst is told by the opcode and the return address pushed,
+     * a return is noticed by the profiler from sp. the opcode is taken from
+     * the decode cache, so profiling adds no guest memory reads.
+     */
+    private final void profile() {
+        int pc = this.pc;
+        int sp = this.sp;
+        int o = -1;
+        long cycles = this.cycles;
+        if (halted) {
+            pc = sub16bitInternal(pc, 1);
+            idle();
+        } else {
+            Decoded d = next();
+            decoded = d;
+            o = d != uncached ? d.code & 0xff : bus.peekbUntrapped(pc);
 
-        case 0x22: // ld (nn),hl
-            bus.pokew(fetchw(), getHL());
-            cost = 16;
-            break;
-        case 0x2a: // ld hl,(nn)
-            setHL(bus.peekw(fetchw()));
-            cost = 16;
-            break;
+            this.pc = add16bitInternal(pc, d.length);
 
-        case 0x32: // ld (nn),a
-            bus.pokeb(fetchw(), a);
-            cost = 13;
-            break;
-        case 0x3a: // ld a,(nn)
-            a = bus.peekb(fetchw());
-            cost = 13;
-            break;
+            r = add8bitInternal(r, d.refresh);
+
+            d.op.exec();
 
-        case 0xe3: { // ex (sp),hl
-            int t = bus.peekw(sp);
-            bus.pokew(sp, getHL());
-            setHL(t);
+            this.cycles += cost;
         }
-            break;
-        case 0xeb: { // ex de,hl
-            int t = getDE();
-            setDE(getHL());
-            setHL(t);
+        profiler.add(bus.getReadGenerations(pc >> Bus.PAGE_BITS), pc, this.cycles - cycles, this.sp);
+        if ((o == 0xcd || (o & 0xc7) == 0xc4 || (o & 0xc7) == 0xc7) && this.sp == sub16bitInternal(sp, 2)) {
+            profiler.call(this.sp, this.pc, false, 0);
         }
-            break;
+    }
 
-        case 0xf9: // ld sp,hl
-            sp = getHL();
-            break;
-        case 0xe9: // jp (hl)
-            pc = getHL();
-            break;
+    /** executions of an instruction to compile the trace from it */
+    private static final int HOT = 64;
 
-        case 0x3c: // inc a
-            a = inc8bit(a);
-            cost = 4;
-            break;
-        case 0x04: // inc b
-            b = inc8bit(b);
-            cost = 4;
-            break;
-        case 0x0c: // inc c
-            c = inc8bit(c);
-            cost = 4;
-            break;
-        case 0x14: // inc d
-            d = inc8bit(d);
-            cost = 4;
-            break;
-        case 0x1c: // inc e
-            e = inc8bit(e);
-            cost = 4;
-            break;
-        case 0x24: // inc h
-            h = inc8bit(h);
-            cost = 4;
-            break;
-        case 0x2c: // inc l
-            l = inc8bit(l);
-            cost = 4;
-            break;
-        case 0x34: // inc (hl)
-            bus.pokeb(getHL(), inc8bit(bus.peekb(getHL())));
-            cost = 11;
-            break;
+    /** the max instructions of a trace */
+    private static final int TRACE_SIZE = 64;
 
-        case 0x3d: // dec a
-            a = dec8bit(a);
-            cost = 4;
-            break;
-        case 0x05: // dec b
-            b = dec8bit(b);
-            cost = 4;
-            break;
-        case 0x0d: // dec c
-            c = dec8bit(c);
-            cost = 4;
-            break;
-        case 0x15: // dec d
-            d = dec8bit(d);
-            cost = 4;
-            break;
-        case 0x1d: // dec e
-            e = dec8bit(e);
-            cost = 4;
-            break;
-        case 0x25: // dec h
-            h = dec8bit(h);
-            cost = 4;
-            break;
-        case 0x2d: // dec l
-            l = dec8bit(l);
-            cost = 4;
-            break;
-        case 0x35: // dec (hl)
-            bus.pokeb(getHL(), dec8bit(bus.peekb(getHL())));
-            cost = 11;
-            break;
+    /**
+     * instructions compiled from a hot chain of {@link Decoded#following},
+     * run in a loop without stepping while nothing happens between them.
+     */
+    private static final class Trace {
+        /** instructions in the same page */
+        final Decoded[] decoded;
+        /** the address of each instruction */
+        final int[] pcs;
+        /** the last instruction is followed by the first */
+        final boolean loop;
+        /** */
+        Trace(List<Decoded> decoded, boolean loop) {
+            this.decoded = decoded.toArray(new Decoded[decoded.size()]);
+            this.pcs = new int[this.decoded.length];
+            for (int i = 0; i < pcs.length; i++) {
+                pcs[i] = this.decoded[i].pc;
+            }
+            this.loop = loop;
+        }
+    }
 
-        case 0x03: // inc bc
-            setBC(getBC() + 1);
-            cost = 6;
-            break;
-        case 0x13: // inc de
-            setDE(getDE() + 1);
-            cost = 6;
-            break;
-        case 0x23: // inc hl
-            setHL(getHL() + 1);
-            cost = 6;
-            break;
-        case 0x33: // inc sp
-            sp = inc8bitInternal(sp);
-            cost = 6;
-            break;
-        case 0x0b: // dec bc
-            setBC(getBC() - 1);
-            cost = 6;
-            break;
-        case 0x1b: // dec de
-            setDE(getDE() - 1);
-            cost = 6;
-            break;
-        case 0x2b: // dec hl
-            setHL(getHL() - 1);
-            cost = 6;
-            break;
-        case 0x3b: // dec sp
-            sp = sub16bitInternal(sp, 1);
-            cost = 6;
-            break;
+    /**
+     * follows the chain from the instruction, until halt, a loop, the end of
+     * the chain or the size.
+     * @return null if too short to be worth
+     */
+    private final Trace compile(Decoded head) {
+        List<Decoded> decoded = new ArrayList<>();
+        Decoded d = head;
+        boolean loop = false;
+        while (decoded.size() < TRACE_SIZE) {
+            decoded.add(d);
+            if (d.op == ops[0x76]) { // halt
+                break;
+            }
+            d = d.following;
+            if (d == Decoded.NONE || decoded.contains(d)) {
+                loop = d == head;
+                break;
+            }
+        }
+        return decoded.size() > 1 ? new Trace(decoded, loop) : null;
+    }
 
-        case 0x87: // add a,a
-            a = add8bit(a, a);
-            cost = 4;
-            break;
-        case 0x80: // add a,b
-            a = add8bit(a, b);
-            cost = 4;
-            break;
-        case 0x81: // add a,c
-            a = add8bit(a, c);
-            cost = 4;
-            break;
-        case 0x82: // add a,d
-            a = add8bit(a, d);
-            cost = 4;
-            break;
-        case 0x83: // add a,e
-            a = add8bit(a, e);
-            cost = 4;
-            break;
-        case 0x84: // add a,h
-            a = add8bit(a, h);
-            cost = 4;
-            break;
-        case 0x85: // add a,l
-            a = add8bit(a, l);
-            cost = 4;
-            break;
-        case 0x86: // add a,(hl)
-            a = add8bit(a, bus.peekb(getHL()));
-            cost = 7;
-            break;
+    /**
+     * runs a trace from its first instruction. it leaves to {@link #step()}
+     * at the instruction boundary where a step would do something else than
+     * the next instruction of the trace: a branch to elsewhere, a device
+     * event due, an interrupt, the limit, a break, or the page is written
+     * or remapped.
+     */
+    private final void run(Trace t) {
+        Decoded[] ds = t.decoded;
+        int[] pcs = t.pcs;
+        Page p = decodedPage;
+        Decoded d = ds[0];
+        int i = 0;
+        while (true) {
+            pc = add16bitInternal(pc, d.length);
 
-        case 0x8f: // adc a,a
-            a = adc8bit(a, a);
-            cost = 4;
-            break;
-        case 0x88: // adc a,b
-            a = adc8bit(a, b);
-            cost = 4;
-            break;
-        case 0x89: // adc a,c
-            a = adc8bit(a, c);
-            cost = 4;
-            break;
-        case 0x8a: // adc a,d
-            a = adc8bit(a, d);
-            cost = 4;
-            break;
-        case 0x8b: // adc a,e
-            a = adc8bit(a, e);
-            cost = 4;
-            break;
-        case 0x8c: // adc a,h
-            a = adc8bit(a, h);
-            cost = 4;
-            break;
-        case 0x8d: // adc a,l
-            a = adc8bit(a, l);
-            cost = 4;
-            break;
-        case 0x8e: // adc a,(hl)
-            a = adc8bit(a, bus.peekb(getHL()));
-            cost = 7;
-            break;
+            r = add8bitInternal(r, d.refresh);
 
-        case 0x97: // sub a
-            a = sub8bit(a, a);
-            cost = 4;
-            break;
-        case 0x90: // sub b
-            a = sub8bit(a, b);
-            cost = 4;
-            break;
-        case 0x91: // sub c
-            a = sub8bit(a, c);
-            cost = 4;
-            break;
-        case 0x92: // sub d
-            a = sub8bit(a, d);
-            cost = 4;
-            break;
-        case 0x93: // sub e
-            a = sub8bit(a, e);
-            cost = 4;
-            break;
-        case 0x94: // sub h
-            a = sub8bit(a, h);
-            cost = 4;
-            break;
-        case 0x95: // sub l
-            a = sub8bit(a, l);
-            cost = 4;
-            break;
-        case 0x96: // sub (hl)
-            a = sub8bit(a, bus.peekb(getHL()));
-            cost = 7;
-            break;
+            d.op.exec();
 
-        case 0x9f: // sbc a,a
-            a = sbc8bit(a, a);
-            cost = 4;
-            break;
-        case 0x98: // sbc a,b
-            a = sbc8bit(a, b);
-            cost = 4;
-            break;
-        case 0x99: // sbc a,c
-            a = sbc8bit(a, c);
-            cost = 4;
-            break;
-        case 0x9a: // sbc a,d
-            a = sbc8bit(a, d);
-            cost = 4;
-            break;
-        case 0x9b: // sbc a,e
-            a = sbc8bit(a, e);
-            cost = 4;
-            break;
-        case 0x9c: // sbc a,h
-            a = sbc8bit(a, h);
-            cost = 4;
-            break;
-        case 0x9d: // sbc a,l
-            a = sbc8bit(a, l);
-            cost = 4;
-            break;
-        case 0x9e: // sbc a,(hl)
-            a = sbc8bit(a, bus.peekb(getHL()));
-            cost = 7;
-            break;
+            cycles += cost;
 
-        case 0xbf: // cp a
-            cmp8bit(a, a);
-            cost = 4;
-            break;
-        case 0xb8: // cp b
-            cmp8bit(a, b);
-            cost = 4;
-            break;
-        case 0xb9: // cp c
-            cmp8bit(a, c);
-            cost = 4;
-            break;
-        case 0xba: // cp d
-            cmp8bit(a, d);
-            cost = 4;
-            break;
-        case 0xbb: // cp e
-            cmp8bit(a, e);
-            cost = 4;
-            break;
-        case 0xbc: // cp h
-            cmp8bit(a, h);
-            cost = 4;
-            break;
-        case 0xbd: // cp l
-            cmp8bit(a, l);
-            cost = 4;
-            break;
-        case 0xbe: // cp (hl)
-            cmp8bit(a, bus.peekb(getHL()));
-            cost = 4;
-            break;
+            if (++i == ds.length) {
+                if (!t.loop) {
+                    break;
+                }
+                i = 0;
+            }
+            if (pc != pcs[i] || cycles >= scheduler.getDeadline() || cycles >= limit ||
+                p.generations[p.physical] != p.generation || bus.getMappings() != decodedMappings) {
+                break;
+            }
+            d = ds[i];
+        }
+        decoded = d;
+    }
 
-        case 0xa7: // and a
-            a = and8bit(a, a);
-            cost = 4;
-            break;
-        case 0xa0: // and b
-            a = and8bit(a, b);
-            cost = 4;
-            break;
-        case 0xa1: // and c
-            a = and8bit(a, c);
-            cost = 4;
-            break;
-        case 0xa2: // and d
-            a = and8bit(a, d);
-            cost = 4;
-            break;
-        case 0xa3: // and e
-            a = and8bit(a, e);
-            cost = 4;
-            break;
-        case 0xa4: // and h
-            a = and8bit(a, h);
-            cost = 4;
-            break;
-        case 0xa5: // and l
-            a = and8bit(a, l);
-            cost = 4;
-            break;
-        case 0xa6: // and (hl)
-            a = and8bit(a, bus.peekb(getHL()));
-            cost = 7;
-            break;
+    /**
+     * an instruction whose opcode and prefixes are resolved to the handler,
+     * the handler fetches operands by itself.
+     */
+    private static final class Decoded {
+        /** the address executed at last */
+        int pc = -1;
+        /** */
+        Op op;
+        /** bytes of the opcode and prefixes */
+        int length;
+        /** r increments of the opcode and prefixes */
+        int refresh;
+        /** the opcode and prefixes, little endian */
+        int code;
+        /** the instruction executed after this last time, in the same page */
+        Decoded following = NONE;
+        /** executions until {@link #HOT} */
+        int hits;
+        /** compiled from this when hot */
+        Trace trace;
+        /** the end of chains */
+        static final Decoded NONE = new Decoded();
+        static {
+            NONE.following = NONE;
+        }
+    }
 
-        case 0xaf: // xor a
-            a = xor8bit(a, a);
-            cost = 4;
-            break;
-        case 0xa8: // xor b
-            a = xor8bit(a, b);
-            cost = 4;
-            break;
-        case 0xa9: // xor c
-            a = xor8bit(a, c);
-            cost = 4;
-            break;
-        case 0xaa: // xor d
-            a = xor8bit(a, d);
-            cost = 4;
-            break;
-        case 0xab: // xor e
-            a = xor8bit(a, e);
-            cost = 4;
-            break;
-        case 0xac: // xor h
-            a = xor8bit(a, h);
-            cost = 4;
-            break;
-        case 0xad: // xor l
-            a = xor8bit(a, l);
-            cost = 4;
-            break;
-        case 0xae: // xor (hl)
-            a = xor8bit(a, bus.peekb(getHL()));
-            cost = 7;
-            break;
+    /** decoded instructions of a physical page */
+    private static final class Page {
+        /** write generations of the memory */
+        final int[] generations;
+        /** the physical page */
+        final int physical;
+        /** the write generation the instructions are decoded at */
+        final int generation;
+        /** indexed by the address in the page */
+        final Decoded[] decoded = new Decoded[Bus.PAGE_SIZE];
+        /** */
+        Page(int[] generations, int physical) {
+            this.generations = generations;
+            this.physical = physical;
+            this.generation = generations[physical];
+        }
+    }
 
-        case 0xb7: // or a
-            a = or8bit(a, a);
-            cost = 4;
-            break;
-        case 0xb0: // or b
-            a = or8bit(a, b);
-            cost = 4;
-            break;
-        case 0xb1: // or c
-            a = or8bit(a, c);
-            cost = 4;
-            break;
-        case 0xb2: // or d
-            a = or8bit(a, d);
-            cost = 4;
-            break;
-        case 0xb3: // or e
-            a = or8bit(a, e);
-            cost = 4;
-            break;
-        case 0xb4: // or h
-            a = or8bit(a, h);
-            cost = 4;
-            break;
-        case 0xb5: // or l
-            a = or8bit(a, l);
-            cost = 4;
-            break;
-        case 0xb6: // or (hl)
-            a = or8bit(a, bus.peekb(getHL()));
-            cost = 7;
-            break;
+    /** decoded pages of each memory, keyed by write generations of the memory */
+    private final Map<int[], Page[]> decodedPages = new IdentityHashMap<>();
 
-        case 0xc6: // add a,n
-            a = add8bit(a, fetchb());
-            cost = 7;
-            break;
-        case 0xce: // adc a,n
-            a = adc8bit(a, fetchb());
-            cost = 7;
-            break;
-        case 0xd6: // sub n
-            a = sub8bit(a, fetchb());
-            cost = 7;
-            break;
-        case 0xde: // sbc a,n
-            a = sbc8bit(a, fetchb());
-            cost = 7;
-            break;
-        case 0xe6: // and n
-            a = and8bit(a, fetchb());
-            cost = 7;
-            break;
-        case 0xee: // xor n
-            a = xor8bit(a, fetchb());
-            cost = 7;
-            break;
-        case 0xf6: // or a,n
-            a = or8bit(a, fetchb());
-            cost = 7;
-            break;
-        case 0xfe: // cp a,n
-            cmp8bit(a, fetchb());
-            cost = 7;
-            break;
+    /** decoded pages of each 16bit page, the last seen */
+    private final Page[] pages = new Page[Bus.PAGES];
 
-        case 0x09: // add hl,bc
-            setHL(add16bit(getHL(), getBC()));
-            cost = 11;
-            break;
-        case 0x19: // add hl,de
-            setHL(add16bit(getHL(), getDE()));
-            cost = 11;
-            break;
-        case 0x29: // add hl,hl
-            setHL(add16bit(getHL(), getHL()));
-            cost = 11;
-            break;
-        case 0x39: // add hl,sp
-            setHL(add16bit(getHL(), sp));
-            cost = 11;
-            break;
+    /** the last executed instruction */
+    private Decoded decoded = Decoded.NONE;
 
-        case 0x27: // daa
-            if (((a & 0x0f) > 9) || fh) {
-                a = add8bitInternal(a, 6);
-                fc = (fh || fc);
-                fh = true;
-            }
-            if ((a > 0x9f) || fc) {
-                a = add8bitInternal(a, 0x60);
-                fc = true;
-            }
+    /** the page of {@link #decoded} */
+    private Page decodedPage;
 
-            fp = isParity(a);
-            fz = isZero(a);
-            fs = isSign(a);
+    /** page table rebuilds when {@link #decoded} is looked up */
+    private long decodedMappings;
 
-            cost = 4;
-            break;
-        case 0x2f: // cpl
-            fh = true;
-            fn = true;
-            a ^= 0xff;
-            cost = 4;
-            break;
-        case 0x3f: // ccf
-            fn = false;
-            fc = !fc;
-            cost = 4;
-            break;
-        case 0x37: // scf
-            fh = false;
-            fn = false;
-            fc = true;
-            cost = 4;
-            break;
+    /** an instruction not to be cached, fetched and decoded every time */
+    private final Decoded uncached = new Decoded();
 
-        case 0x07: // rlca
-            a = rlc(a, false);
-            cost = 4;
-            break;
-        case 0x0f: // rrca
-            a = rrc(a, false);
-            cost = 4;
-            break;
-        case 0x17: // rla
-            a = rl(a, false);
-            cost = 4;
-            break;
-        case 0x1f: // rra
-            a = rr(a, false);
-            cost = 4;
-            break;
+    /** */ {
+        uncached.op = () -> {
+            bus.execute(pc);
 
-        case 0xc3: // jp
-            pc = bus.peekw(pc);
-            cost = 10;
-            break;
-        case 0xda: { // jp c,nn
-            if (fc) {
-                pc = fetchw();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
-        }
-            break;
-        case 0xd2: { // jp nc,nn
-            if (!fc) {
-                pc = fetchw();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
-        }
-            break;
-        case 0xca: { // jp z,nn
-            if (fz) {
-                pc = fetchw();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
-        }
-            break;
-        case 0xc2: { // jp nz,nn
-            if (!fz) {
-                pc = fetchw();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
-        }
-            break;
-        case 0xea: { // jp pe,nn
-            if (fp) {
-                pc = fetchw();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
-        }
-            break;
-        case 0xe2: { // jp po,nn
-            if (!fp) {
-                pc = fetchw();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
-        }
-            break;
-        case 0xfa: { // jp m,nn
-            if (fs) {
-                pc = fetchw();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
-        }
-            break;
-        case 0xf2: { // jp p,nn
-            if (!fs) {
-                pc = fetchw();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
-        }
-            break;
+            int o = fetchb();
 
-        case 0xcd: { // call
-            call();
-            cost = 10;
-        }
-            break;
-        case 0xdc: { // call c,nn
-            if (fc) {
-                call();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
-        }
-            break;
-        case 0xd4: { // call nc,nn
-            if (!fc) {
-                call();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
-        }
-            break;
-        case 0xcc: { // call z,nn
-            if (fz) {
-                call();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
-        }
-            break;
-        case 0xc4: { // call nz,nn
-            if (!fz) {
-                call();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
-        }
-            break;
-        case 0xec: { // call pe,nn
-            if (fp) {
-                call();
-            } else {
-                pc = add16bitInternal(pc, 2);
+            r = inc8bitInternal(r);
+
+            ops[o].exec();
+        };
+    }
+
+    /** the next instruction is looked up, memory may be written not through the bus */
+    private final void restart() {
+        decoded = Decoded.NONE;
+        decodedPage = null;
+    }
+
+    /**
+     * finds the decoded instruction at pc, decodes it if not yet.
+     * instructions are cached per physical page, and a page is discarded
+     * when it is written, so rom pages are never decoded twice. the chain
+     * of {@link Decoded#following} lets straight code and loops skip this.
+     * <p>
+     * memory written not through the bus is noticed here by comparing the
+     * opcode, so each execute call starts with this.
+     * </p>
+     * <p>
+     * a page watched for reads or executions is not cached, so that every
+     * fetch goes through the bus. watchpoints are changed with the page
+     * tables, so chains and traces into the page are not followed.
+     * </p>
+     */
+    private final Decoded lookup() {
+        int page = pc >> Bus.PAGE_BITS;
+        int[] generations = bus.getReadGenerations(page);
+        Decoded d = uncached;
+        Page p = null;
+        if (generations != null && (bus.getTraps(page) & (Bus.Access.READ.bit | Bus.Access.EXECUTE.bit)) == 0) {
+            int index = pc + bus.getReadOffset(page);
+            int physical = index >> Bus.PAGE_BITS;
+            p = pages[page];
+            if (p == null || p.generations != generations || p.physical != physical || p.generation != generations[physical]) {
+                Page[] ps = decodedPages.computeIfAbsent(generations, g -> new Page[g.length]);
+                p = ps[physical];
+                if (p == null || p.generation != generations[physical]) {
+                    p = new Page(generations, physical);
+                    ps[physical] = p;
+                }
+                pages[page] = p;
             }
-            cost = 10;
-        }
-            break;
-        case 0xe4: { // call po,nn
-            if (!fp) {
-                call();
-            } else {
-                pc = add16bitInternal(pc, 2);
+
+            int offset = index & (Bus.PAGE_SIZE - 1);
+            d = p.decoded[offset];
+            if (d != null && d.code != code(d.length)) {
+                p = new Page(generations, physical);
+                decodedPages.get(generations)[physical] = p;
+                pages[page] = p;
+                d = null;
             }
-            cost = 10;
-        }
-            break;
-        case 0xfc: { // call m,nn
-            if (fs) {
-                call();
-            } else {
-                pc = add16bitInternal(pc, 2);
+            if (d == null) {
+                d = decode(offset);
+                if (d != null) {
+                    p.decoded[offset] = d;
+                } else {
+                    d = uncached;
+                    p = null;
+                }
             }
-            cost = 10;
+            d.pc = pc;
         }
-            break;
-        case 0xf4: { // call p,nn
-            if (!fs) {
-                call();
-            } else {
-                pc = add16bitInternal(pc, 2);
-            }
-            cost = 10;
+
+        if (p != null && p == decodedPage) {
+            decoded.following = d;
         }
-            break;
+        decoded = d;
+        decodedPage = p;
+        decodedMappings = bus.getMappings();
+        return d;
+    }
 
-        case 0xc7: // rst 00h
-            push(pc);
-            pc = 0 * 8;
-            cost = 4;
-            break;
-        case 0xcf: // rst 08h
-            push(pc);
-            pc = 1 * 8;
-            cost = 4;
-            break;
-        case 0xd7: // rst 10h
-            push(pc);
-            pc = 2 * 8;
-            cost = 4;
-            break;
-        case 0xdf: // rst 18h
-            push(pc);
-            pc = 3 * 8;
-            cost = 4;
-            break;
-        case 0xe7: // rst 20h
-            push(pc);
-            pc = 4 * 8;
-            cost = 4;
-            break;
-        case 0xef: // rst 28h
-            push(pc);
-            pc = 5 * 8;
-            cost = 4;
-            break;
-        case 0xf7: // rst 30h
-            push(pc);
-            pc = 6 * 8;
-            cost = 4;
-            break;
-        case 0xff: // rst 38h
-            push(pc);
-            pc = 7 * 8;
-            cost = 4;
-            break;
+    /** @return bytes at pc, little endian */
+    private final int code(int length) {
+        return length == 1 ? bus.peekb(pc) : bus.peekw(pc);
+    }
 
-        case 0xc9: // ret
-            pc = pop();
-            cost = 4;
-            break;
-        case 0xd8: // ret c
-            if (fc) {
-                pc = pop();
-            }
-            cost = 4;
-            break;
-        case 0xd0: // ret nc
-            if (!fc) {
-                pc = pop();
-            }
-            cost = 4;
-            break;
-        case 0xc8: // ret z
-            if (fz) {
-                pc = pop();
-            }
-            cost = 4;
-            break;
-        case 0xc0: // ret nz
-            if (!fz) {
-                pc = pop();
-            }
-            cost = 4;
-            break;
-        case 0xe8: // ret pe
-            if (fp) {
-                pc = pop();
-            }
-            cost = 4;
-            break;
-        case 0xe0: // ret po
-            if (!fp) {
-                pc = pop();
-            }
-            cost = 4;
-            break;
-        case 0xf8: // ret m
-            if (fs) {
-                pc = pop();
+    /**
+     * decodes the opcode and prefixes at pc.
+     * @param offset pc in the page
+     * @return null if the prefixed opcode is in the next page
+     */
+    private final Decoded decode(int offset) {
+        Decoded d = new Decoded();
+        int o = bus.peekb(pc);
+        d.op = ops[o];
+        d.length = 1;
+        d.refresh = 1;
+        switch (o) {
+        case 0xcb:
+        case 0xdd:
+        case 0xed:
+        case 0xfd:
+            if (offset == Bus.PAGE_SIZE - 1) {
+                return null;
             }
-            cost = 4;
-            break;
-        case 0xf0: // ret p
-            if (!fs) {
-                pc = pop();
+            int v = bus.peekb(pc + 1);
+            d.length = 2;
+            switch (o) {
+            case 0xcb:
+                d.op = ops_cb[v];
+                d.refresh = 2;
+                break;
+            case 0xdd:
+                d.op = ops_dd[v];
+                break;
+            case 0xed:
+                d.op = ops_ed[v];
+                d.refresh = 2;
+                break;
+            case 0xfd:
+                d.op = ops_fd[v];
+                break;
             }
-            cost = 4;
             break;
+        }
+        d.code = code(d.length);
+        return d;
+    }
 
-        case 0xc5: // push bc
-            push(getBC());
-            cost = 11;
-            break;
-        case 0xd5: // push de
-            push(getDE());
-            cost = 11;
-            break;
-        case 0xe5: // push hl
-            push(getHL());
-            cost = 11;
-            break;
-        case 0xf5: // push af
-            push(getAF());
-            cost = 11;
-            break;
+    /** ld b,b */
+    private final void op_40() {
+//          b = b;
+        cost = 4;
+    }
 
-        case 0xc1: // pop bc
-            setBC(pop());
-            cost = 10;
-            break;
-        case 0xd1: // pop de
-            setDE(pop());
-            cost = 10;
-            break;
-        case 0xe1: // pop hl
-            setHL(pop());
-            cost = 10;
-            break;
-        case 0xf1: // pop af
-            setAF(pop());
-            cost = 10;
-            break;
+    /** ld b,c */
+    private final void op_41() {
+        setB(bc & 0xff);
+        cost = 4;
+    }
 
-        case 0xdb: // in a,n
-            a = bus.inp(fetchb());
-            cost = 11;
-            break;
-        case 0xd3: // out n,a
-            bus.outp(fetchb(), a);
-            cost = 11;
-            break;
+    /** ld b,d */
+    private final void op_42() {
+        setB(de >> 8);
+        cost = 4;
+    }
 
-        case 0xf3: // di
-            iff1 = false;
-            iff2 = false;
-// Debug.println("DI");
-            cost = 4;
-            break;
-        case 0xfb: // ei
-            iff1 = true;
-            iff2 = true;
-// Debug.println("EI");
-            cost = 4;
-            break;
-        case 0x00: // nop
-            cost = 4;
-            break;
-        case 0x76: // halt
-Debug.println("halt: " + StringUtil.toHex4(pc - 1));
-            while (!broken) {
-//              r = add8bitInternal(xxx); // TODO check
-                Thread.yield();
-            }
-            break;
+    /** ld b,e */
+    private final void op_43() {
+        setB(de & 0xff);
+        cost = 4;
+    }
 
-        /*
-         * Z80 instruction set
-         */
+    /** ld b,h */
+    private final void op_44() {
+        setB(hl >> 8);
+        cost = 4;
+    }
 
-        case 0x08: { // ex af,af'
-            int t = getAF();
-            setAF(af2);
-            af2 = t;
-            cost = 4;
-        }
-            break;
+    /** ld b,l */
+    private final void op_45() {
+        setB(hl & 0xff);
+        cost = 4;
+    }
 
-        case 0x10: { // djnz e
-            b = dec8bitInternal(b);
-            if (b != 0) {
-                byte v = (byte) fetchb();
-                pc = add16bitInternal(pc, v);
-                cost = 13;
-            } else {
-                pc = add16bitInternal(pc, 1);
-                cost = 8;
-            }
-        }
-            break;
+    /** ld b,a */
+    private final void op_47() {
+        setB(a);
+        cost = 4;
+    }
 
-        case 0x18: { // jr e
-            byte v = (byte) fetchb();
-            pc = add16bitInternal(pc, v);
-            cost = 12;
-        }
-            break;
-        case 0x20: { // jr nz,e
-            if (!fz) {
-                byte v = (byte) fetchb();
-                pc = add16bitInternal(pc, v);
-                cost = 12;
-            } else {
-                pc = add16bitInternal(pc, 1);
-                cost = 7;
-            }
-        }
-            break;
-        case 0x28: { // jr z,e
-            if (fz) {
-                byte v = (byte) fetchb();
-                pc = add16bitInternal(pc, v);
-                cost = 12;
-            } else {
-                pc = add16bitInternal(pc, 1);
-                cost = 7;
-            }
-        }
-            break;
-        case 0x30: { // jr nc,e
-            if (!fc) {
-                byte v = (byte) fetchb();
-                pc = add16bitInternal(pc, v);
-                cost = 12;
-            } else {
-                pc = add16bitInternal(pc, 1);
-                cost = 7;
-            }
-        }
-            break;
-        case 0x38: { // jr c,e
-            if (fc) {
-                byte v = (byte) fetchb();
-                pc = add16bitInternal(pc, v);
-            } else {
-                pc = add16bitInternal(pc, 1);
-                cost = 7;
-            }
-        }
-            break;
+    /** ld c,b */
+    private final void op_48() {
+        setC(bc >> 8);
+        cost = 4;
+    }
 
-        case 0xcb: // cb xx
-            exec_cb();
-            break;
+    /** ld c,c */
+    private final void op_49() {
+//          c = c;
+        cost = 4;
+    }
 
-        case 0xd9: { // exx
-            int t = getBC();
-            setBC(bc2);
-            bc2 = t;
+    /** ld c,d */
+    private final void op_4a() {
+        setC(de >> 8);
+        cost = 4;
+    }
 
-            t = getDE();
-            setDE(de2);
-            de2 = t;
+    /** ld c,e */
+    private final void op_4b() {
+        setC(de & 0xff);
+        cost = 4;
+    }
 
-            t = getHL();
-            setHL(hl2);
-            hl2 = t;
+    /** ld c,h */
+    private final void op_4c() {
+        setC(hl >> 8);
+        cost = 4;
+    }
 
-            cost = 4;
-        }
-            break;
+    /** ld c,l */
+    private final void op_4d() {
+        setC(hl & 0xff);
+        cost = 4;
+    }
 
-        case 0xdd: // dd xx
-            exec_dd();
-            break;
+    /** ld c,a */
+    private final void op_4f() {
+        setC(a);
+        cost = 4;
+    }
 
-        case 0xed: // ed xx
-            exec_ed();
-            break;
+    /** ld d,b */
+    private final void op_50() {
+        setD(bc >> 8);
+        cost = 4;
+    }
 
-        case 0xfd: // fd xx
-            exec_fd();
-            break;
+    /** ld d,c */
+    private final void op_51() {
+        setD(bc & 0xff);
+        cost = 4;
+    }
 
-        default:
-            Debug.println("Unknown instruction: " + StringUtil.toHex2(o));
-            break;
-        }
+    /** ld d,d */
+    private final void op_52() {
+//          d = d;
+        cost = 4;
     }
 
-    /** cb xx */
-    private final void exec_cb() {
+    /** ld d,e */
+    private final void op_53() {
+        setD(de & 0xff);
+        cost = 4;
+    }
 
-        int v = fetchb();
+    /** ld d,h */
+    private final void op_54() {
+        setD(hl >> 8);
+        cost = 4;
+    }
 
-        r = inc8bitInternal(r);
+    /** ld d,l */
+    private final void op_55() {
+        setD(hl & 0xff);
+        cost = 4;
+    }
 
-        switch (v) {
-        case 0x00: // rlc b
-            b = rlc(b, true);
-            cost = 8;
-            break;
-        case 0x01: // rlc c
-            c = rlc(c, true);
-            cost = 8;
-            break;
-        case 0x02: // rlc d
-            d = rlc(d, true);
-            cost = 8;
-            break;
-        case 0x03: // rlc e
-            e = rlc(e, true);
-            cost = 8;
-            break;
-        case 0x04: // rlc h
-            h = rlc(h, true);
-            cost = 8;
-            break;
-        case 0x05: // rlc l
-            l = rlc(l, true);
-            cost = 8;
-            break;
-        case 0x06: // rlc (hl)
-            bus.pokeb(getHL(), rlc(bus.peekb(getHL()), true));
-            cost = 15;
-            break;
-        case 0x07: // rlc a
-            a = rlc(a, true);
-            cost = 8;
-            break;
+    /** ld d,a */
+    private final void op_57() {
+        setD(a);
+        cost = 4;
+    }
 
-        case 0x08: // rrc b
-            b = rrc(b, true);
-            cost = 8;
-            break;
-        case 0x09: // rrc c
-            c = rrc(c, true);
-            cost = 8;
-            break;
-        case 0x0a: // rrc d
-            d = rrc(d, true);
-            cost = 8;
-            break;
-        case 0x0b: // rrc e
-            e = rrc(e, true);
-            cost = 8;
-            break;
-        case 0x0c: // rrc h
-            h = rrc(h, true);
-            cost = 8;
-            break;
-        case 0x0d: // rrc l
-            l = rrc(l, true);
-            cost = 8;
-            break;
-        case 0x0e: // rrc (hl)
-            bus.pokeb(getHL(), rrc(bus.peekb(getHL()), true));
-            cost = 15;
-            break;
-        case 0x0f: // rrc a
-            a = rrc(a, true);
-            cost = 8;
-            break;
+    /** ld e,b */
+    private final void op_58() {
+        setE(bc >> 8);
+        cost = 4;
+    }
 
-        case 0x10: // rl b
-            b = rl(b, true);
-            cost = 8;
-            break;
-        case 0x11: // rl c
-            c = rl(c, true);
-            cost = 8;
-            break;
-        case 0x12: // rl d
-            d = rl(d, true);
-            cost = 8;
-            break;
-        case 0x13: // rl e
-            e = rl(e, true);
-            cost = 8;
-            break;
-        case 0x14: // rl h
-            h = rl(h, true);
-            cost = 8;
-            break;
-        case 0x15: // rl l
-            l = rl(l, true);
-            cost = 8;
-            break;
-        case 0x16: // rl (hl)
-            bus.pokeb(getHL(), rl(bus.peekb(getHL()), true));
-            cost = 15;
-            break;
-        case 0x17: // rl a
-            a = rl(a, true);
-            cost = 8;
-            break;
+    /** ld e,c */
+    private final void op_59() {
+        setE(bc & 0xff);
+        cost = 4;
+    }
 
-        case 0x18: // rr b
-            b = rr(b, true);
-            cost = 8;
-            break;
-        case 0x19: // rr c
-            c = rr(c, true);
-            cost = 8;
-            break;
-        case 0x1a: // rr d
-            d = rr(d, true);
-            cost = 8;
-            break;
-        case 0x1b: // rr e
-            e = rr(e, true);
-            cost = 8;
-            break;
-        case 0x1c: // rr h
-            h = rr(h, true);
-            cost = 8;
-            break;
-        case 0x1d: // rr l
-            l = rr(l, true);
-            cost = 8;
-            break;
-        case 0x1e: // rr (hl)
-            bus.pokeb(getHL(), rr(bus.peekb(getHL()), true));
-            cost = 15;
-            break;
-        case 0x1f: // rr a
-            a = rr(a, true);
-            cost = 8;
-            break;
+    /** ld e,d */
+    private final void op_5a() {
+        setE(de >> 8);
+        cost = 4;
+    }
 
-        case 0x20: // sla b
-            b = sla(b);
-            cost = 8;
-            break;
-        case 0x21: // sla c
-            c = sla(c);
-            cost = 8;
-            break;
-        case 0x22: // sla d
-            d = sla(d);
-            cost = 8;
-            break;
-        case 0x23: // sla e
-            e = sla(e);
-            cost = 8;
-            break;
-        case 0x24: // sla h
-            h = sla(h);
-            cost = 8;
-            break;
-        case 0x25: // sla l
-            l = sla(l);
-            cost = 8;
-            break;
-        case 0x26: // sla (hl)
-            bus.pokeb(getHL(), sla(bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0x27: // sla a
-            a = sla(a);
-            cost = 8;
-            break;
+    /** ld e,e */
+    private final void op_5b() {
+//          e = e;
+        cost = 4;
+    }
 
-        case 0x28: // sra b
-            b = sra(b);
-            cost = 8;
-            break;
-        case 0x29: // sra c
-            c = sra(c);
-            cost = 8;
-            break;
-        case 0x2a: // sra d
-            d = sra(d);
-            cost = 8;
-            break;
-        case 0x2b: // sra e
-            e = sra(e);
-            cost = 8;
-            break;
-        case 0x2c: // sra h
-            h = sra(h);
-            cost = 8;
-            break;
-        case 0x2d: // sra l
-            l = sra(l);
-            cost = 8;
-            break;
-        case 0x2e: // sra (hl)
-            bus.pokeb(getHL(), sra(bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0x2f: // sra a
-            a = sra(a);
-            cost = 8;
-            break;
+    /** ld e,h */
+    private final void op_5c() {
+        setE(hl >> 8);
+        cost = 4;
+    }
 
-        case 0x38: // srl b
-            b = srl(b);
-            cost = 8;
-            break;
-        case 0x39: // srl c
-            c = srl(c);
-            cost = 8;
-            break;
-        case 0x3a: // srl d
-            d = srl(d);
-            cost = 8;
-            break;
-        case 0x3b: // srl e
-            e = srl(e);
-            cost = 8;
-            break;
-        case 0x3c: // srl h
-            h = srl(h);
-            cost = 8;
-            break;
-        case 0x3d: // srl l
-            l = srl(l);
-            cost = 8;
-            break;
-        case 0x3e: // srl (hl)
-            bus.pokeb(getHL(), srl(bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0x3f: // srl a
-            a = srl(a);
-            cost = 8;
-            break;
+    /** ld e,l */
+    private final void op_5d() {
+        setE(hl & 0xff);
+        cost = 4;
+    }
 
-        case 0x40: // bit 0,b
-            bit(0, b);
-            cost = 8;
-            break;
-        case 0x41: // bit 0,c
-            bit(0, c);
-            cost = 8;
-            break;
-        case 0x42: // bit 0,d
-            bit(0, d);
-            cost = 8;
-            break;
-        case 0x43: // bit 0,e
-            bit(0, e);
-            cost = 8;
-            break;
-        case 0x44: // bit 0,h
-            bit(0, h);
-            cost = 8;
-            break;
-        case 0x45: // bit 0,l
-            bit(0, l);
-            cost = 8;
-            break;
-        case 0x46: // bit 0,(hl)
-            bit(0, bus.peekb(getHL()));
-            cost = 12;
-            break;
-        case 0x47: // bit 0,a
-            bit(0, a);
-            cost = 8;
-            break;
+    /** ld e,a */
+    private final void op_5f() {
+        setE(a);
+        cost = 4;
+    }
 
-        case 0x48: // bit 1,b
-            bit(1, b);
-            cost = 8;
-            break;
-        case 0x49: // bit 1,c
-            bit(1, c);
-            cost = 8;
-            break;
-        case 0x4a: // bit 1,d
-            bit(1, d);
-            cost = 8;
-            break;
-        case 0x4b: // bit 1,e
-            bit(1, e);
-            cost = 8;
-            break;
-        case 0x4c: // bit 1,h
-            bit(1, h);
-            cost = 8;
-            break;
-        case 0x4d: // bit 1,l
-            bit(1, l);
-            cost = 8;
-            break;
-        case 0x4e: // bit 1,(hl)
-            bit(1, bus.peekb(getHL()));
-            cost = 12;
-            break;
-        case 0x4f: // bit 1,a
-            bit(1, a);
-            cost = 8;
-            break;
+    /** ld h,b */
+    private final void op_60() {
+        setH(bc >> 8);
+        cost = 4;
+    }
 
-        case 0x50: // bit 2,b
-            bit(2, b);
-            cost = 8;
-            break;
-        case 0x51: // bit 2,c
-            bit(2, c);
-            cost = 8;
-            break;
-        case 0x52: // bit 2,d
-            bit(2, d);
-            cost = 8;
-            break;
-        case 0x53: // bit 2,e
-            bit(2, e);
-            cost = 8;
-            break;
-        case 0x54: // bit 2,h
-            bit(2, h);
-            cost = 8;
-            break;
-        case 0x55: // bit 2,l
-            bit(2, l);
-            cost = 8;
-            break;
-        case 0x56: // bit 2,(hl)
-            bit(2, bus.peekb(getHL()));
-            cost = 12;
-            break;
-        case 0x57: // bit 2,a
-            bit(2, a);
-            cost = 8;
-            break;
+    /** ld h,c */
+    private final void op_61() {
+        setH(bc & 0xff);
+        cost = 4;
+    }
 
-        case 0x58: // bit 3,b
-            bit(3, b);
-            cost = 8;
-            break;
-        case 0x59: // bit 3,c
-            bit(3, c);
-            cost = 8;
-            break;
-        case 0x5a: // bit 3,d
-            bit(3, d);
-            cost = 8;
-            break;
-        case 0x5b: // bit 3,e
-            bit(3, e);
-            cost = 8;
-            break;
-        case 0x5c: // bit 3,h
-            bit(3, h);
-            cost = 8;
-            break;
-        case 0x5d: // bit 3,l
-            bit(3, l);
-            cost = 8;
-            break;
-        case 0x5e: // bit 3,(hl)
-            bit(3, bus.peekb(getHL()));
-            cost = 12;
-            break;
-        case 0x5f: // bit 3,a
-            bit(3, a);
-            cost = 8;
-            break;
+    /** ld h,d */
+    private final void op_62() {
+        setH(de >> 8);
+        cost = 4;
+    }
 
-        case 0x60: // bit 4,b
-            bit(4, b);
-            cost = 8;
-            break;
-        case 0x61: // bit 4,c
-            bit(4, c);
-            cost = 8;
-            break;
-        case 0x62: // bit 4,d
-            bit(4, d);
-            cost = 8;
-            break;
-        case 0x63: // bit 4,e
-            bit(4, e);
-            cost = 8;
-            break;
-        case 0x64: // bit 4,h
-            bit(4, h);
-            cost = 8;
-            break;
-        case 0x65: // bit 4,l
-            bit(4, l);
-            cost = 8;
-            break;
-        case 0x66: // bit 4,(hl)
-            bit(4, bus.peekb(getHL()));
-            cost = 12;
-            break;
-        case 0x67: // bit 4,a
-            bit(4, a);
-            cost = 8;
-            break;
+    /** ld h,e */
+    private final void op_63() {
+        setH(de & 0xff);
+        cost = 4;
+    }
 
-        case 0x68: // bit 5,b
-            bit(5, b);
-            cost = 8;
-            break;
-        case 0x69: // bit 5,c
-            bit(5, c);
-            cost = 8;
-            break;
-        case 0x6a: // bit 5,d
-            bit(5, d);
-            cost = 8;
-            break;
-        case 0x6b: // bit 5,e
-            bit(5, e);
-            cost = 8;
-            break;
-        case 0x6c: // bit 5,h
-            bit(5, h);
-            cost = 8;
-            break;
-        case 0x6d: // bit 5,l
-            bit(5, l);
-            cost = 8;
-            break;
-        case 0x6e: // bit 5,(hl)
-            bit(5, bus.peekb(getHL()));
-            cost = 12;
-            break;
-        case 0x6f: // bit 5,a
-            bit(5, a);
-            cost = 8;
-            break;
+    /** ld h,h */
+    private final void op_64() {
+//          h = h;
+        cost = 4;
+    }
 
-        case 0x70: // bit 6,b
-            bit(6, b);
-            cost = 8;
-            break;
-        case 0x71: // bit 6,c
-            bit(6, c);
-            cost = 8;
-            break;
-        case 0x72: // bit 6,d
-            bit(6, d);
-            cost = 8;
-            break;
-        case 0x73: // bit 6,e
-            bit(6, e);
-            cost = 8;
-            break;
-        case 0x74: // bit 6,h
-            bit(6, h);
-            cost = 8;
-            break;
-        case 0x75: // bit 6,l
-            bit(6, l);
-            cost = 8;
-            break;
-        case 0x76: // bit 6,(hl)
-            bit(6, bus.peekb(getHL()));
-            cost = 12;
-            break;
-        case 0x77: // bit 6,a
-            bit(6, a);
-            cost = 8;
-            break;
+    /** ld h,l */
+    private final void op_65() {
+        setH(hl & 0xff);
+        cost = 4;
+    }
 
-        case 0x78: // bit 7,b
-            bit(7, b);
-            cost = 8;
-            break;
-        case 0x79: // bit 7,c
-            bit(7, c);
-            cost = 8;
-            break;
-        case 0x7a: // bit 7,d
-            bit(7, d);
-            cost = 8;
-            break;
-        case 0x7b: // bit 7,e
-            bit(7, e);
-            cost = 8;
-            break;
-        case 0x7c: // bit 7,h
-            bit(7, h);
-            cost = 8;
-            break;
-        case 0x7d: // bit 7,l
-            bit(7, l);
+    /** ld h,a */
+    private final void op_67() {
+        setH(a);
+        cost = 4;
+    }
+
+    /** ld l,b */
+    private final void op_68() {
+        setL(bc >> 8);
+        cost = 4;
+    }
+
+    /** ld l,c */
+    private final void op_69() {
+        setL(bc & 0xff);
+        cost = 4;
+    }
+
+    /** ld l,d */
+    private final void op_6a() {
+        setL(de >> 8);
+        cost = 4;
+    }
+
+    /** ld l,e */
+    private final void op_6b() {
+        setL(de & 0xff);
+        cost = 4;
+    }
+
+    /** ld l,h */
+    private final void op_6c() {
+        setL(hl >> 8);
+        cost = 4;
+    }
+
+    /** ld l,l */
+    private final void op_6d() {
+//          l = l;
+        cost = 4;
+    }
+
+    /** ld l,a */
+    private final void op_6f() {
+        setL(a);
+        cost = 4;
+    }
+
+    /** ld a,b */
+    private final void op_78() {
+        a = bc >> 8;
+        cost = 4;
+    }
+
+    /** ld a,c */
+    private final void op_79() {
+        a = bc & 0xff;
+        cost = 4;
+    }
+
+    /** ld a,d */
+    private final void op_7a() {
+        a = de >> 8;
+        cost = 4;
+    }
+
+    /** ld a,e */
+    private final void op_7b() {
+        a = de & 0xff;
+        cost = 4;
+    }
+
+    /** ld a,h */
+    private final void op_7c() {
+        a = hl >> 8;
+        cost = 4;
+    }
+
+    /** ld a,l */
+    private final void op_7d() {
+        a = hl & 0xff;
+        cost = 4;
+    }
+
+    /** ld a,a */
+    private final void op_7f() {
+//          a = a;
+        cost = 4;
+    }
+
+    /** ld (hl),a */
+    private final void op_77() {
+        bus.pokeb(getHL(), a);
+        cost = 7;
+    }
+
+    /** ld (hl),b */
+    private final void op_70() {
+        bus.pokeb(getHL(), bc >> 8);
+        cost = 7;
+    }
+
+    /** ld (hl),c */
+    private final void op_71() {
+        bus.pokeb(getHL(), bc & 0xff);
+        cost = 7;
+    }
+
+    /** ld (hl),d */
+    private final void op_72() {
+        bus.pokeb(getHL(), de >> 8);
+        cost = 7;
+    }
+
+    /** ld (hl),e */
+    private final void op_73() {
+        bus.pokeb(getHL(), de & 0xff);
+        cost = 7;
+    }
+
+    /** ld (hl),h */
+    private final void op_74() {
+        bus.pokeb(getHL(), hl >> 8);
+        cost = 7;
+    }
+
+    /** ld (hl),l */
+    private final void op_75() {
+        bus.pokeb(getHL(), hl & 0xff);
+        cost = 7;
+    }
+
+    /** ld a,(hl) */
+    private final void op_7e() {
+        a = bus.peekb(getHL());
+        cost = 7;
+    }
+
+    /** ld b,(hl) */
+    private final void op_46() {
+        setB(bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** ld c,(hl) */
+    private final void op_4e() {
+        setC(bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** ld d,(hl) */
+    private final void op_56() {
+        setD(bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** ld e,(hl) */
+    private final void op_5e() {
+        setE(bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** ld h,(hl) */
+    private final void op_66() {
+        setH(bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** ld l,(hl) */
+    private final void op_6e() {
+        setL(bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** ld a,n */
+    private final void op_3e() {
+        a = fetchb();
+        cost = 7;
+    }
+
+    /** ld b,n */
+    private final void op_06() {
+        setB(fetchb());
+        cost = 7;
+    }
+
+    /** ld c,n */
+    private final void op_0e() {
+        setC(fetchb());
+        cost = 7;
+    }
+
+    /** ld d,n */
+    private final void op_16() {
+        setD(fetchb());
+        cost = 7;
+    }
+
+    /** ld e,n */
+    private final void op_1e() {
+        setE(fetchb());
+        cost = 7;
+    }
+
+    /** ld h,n */
+    private final void op_26() {
+        setH(fetchb());
+        cost = 7;
+    }
+
+    /** ld l,n */
+    private final void op_2e() {
+        setL(fetchb());
+        cost = 7;
+    }
+
+    /** ld (hl),n */
+    private final void op_36() {
+        bus.pokeb(getHL(), fetchb());
+        cost = 10;
+    }
+
+    /** ld bc,nn */
+    private final void op_01() {
+        setBC(fetchw());
+        cost = 10;
+    }
+
+    /** ld de,nn */
+    private final void op_11() {
+        setDE(fetchw());
+        cost = 10;
+    }
+
+    /** ld hl,nn */
+    private final void op_21() {
+        setHL(fetchw());
+        cost = 10;
+    }
+
+    /** ld sp,nn */
+    private final void op_31() {
+        sp = fetchw();
+        cost = 10;
+    }
+
+    /** ld (bc),a */
+    private final void op_02() {
+        bus.pokeb(getBC(), a);
+        cost = 7;
+    }
+
+    /** ld (de),a */
+    private final void op_12() {
+        bus.pokeb(getDE(), a);
+        cost = 7;
+    }
+
+    /** ld a,(bc) */
+    private final void op_0a() {
+        a = bus.peekb(getBC());
+        cost = 7;
+    }
+
+    /** ld a,(de) */
+    private final void op_1a() {
+        a = bus.peekb(getDE());
+        cost = 7;
+    }
+
+    /** ld (nn),hl */
+    private final void op_22() {
+        bus.pokew(fetchw(), getHL());
+        cost = 16;
+    }
+
+    /** ld hl,(nn) */
+    private final void op_2a() {
+        setHL(bus.peekw(fetchw()));
+        cost = 16;
+    }
+
+    /** ld (nn),a */
+    private final void op_32() {
+        bus.pokeb(fetchw(), a);
+        cost = 13;
+    }
+
+    /** ld a,(nn) */
+    private final void op_3a() {
+        a = bus.peekb(fetchw());
+        cost = 13;
+    }
+
+    /** ex (sp),hl */
+    private final void op_e3() {
+        int t = bus.peekw(sp);
+        bus.pokew(sp, getHL());
+        setHL(t);
+        cost = 19;
+    }
+
+    /** ex de,hl */
+    private final void op_eb() {
+        int t = getDE();
+        setDE(getHL());
+        setHL(t);
+        cost = 4;
+    }
+
+    /** ld sp,hl */
+    private final void op_f9() {
+        sp = getHL();
+        cost = 6;
+    }
+
+    /** jp (hl) */
+    private final void op_e9() {
+        pc = getHL();
+        cost = 4;
+    }
+
+    /** inc a */
+    private final void op_3c() {
+        a = inc8bit(a);
+        cost = 4;
+    }
+
+    /** inc b */
+    private final void op_04() {
+        setB(inc8bit(bc >> 8));
+        cost = 4;
+    }
+
+    /** inc c */
+    private final void op_0c() {
+        setC(inc8bit(bc & 0xff));
+        cost = 4;
+    }
+
+    /** inc d */
+    private final void op_14() {
+        setD(inc8bit(de >> 8));
+        cost = 4;
+    }
+
+    /** inc e */
+    private final void op_1c() {
+        setE(inc8bit(de & 0xff));
+        cost = 4;
+    }
+
+    /** inc h */
+    private final void op_24() {
+        setH(inc8bit(hl >> 8));
+        cost = 4;
+    }
+
+    /** inc l */
+    private final void op_2c() {
+        setL(inc8bit(hl & 0xff));
+        cost = 4;
+    }
+
+    /** inc (hl) */
+    private final void op_34() {
+        bus.pokeb(getHL(), inc8bit(bus.peekb(getHL())));
+        cost = 11;
+    }
+
+    /** dec a */
+    private final void op_3d() {
+        a = dec8bit(a);
+        cost = 4;
+    }
+
+    /** dec b */
+    private final void op_05() {
+        setB(dec8bit(bc >> 8));
+        cost = 4;
+    }
+
+    /** dec c */
+    private final void op_0d() {
+        setC(dec8bit(bc & 0xff));
+        cost = 4;
+    }
+
+    /** dec d */
+    private final void op_15() {
+        setD(dec8bit(de >> 8));
+        cost = 4;
+    }
+
+    /** dec e */
+    private final void op_1d() {
+        setE(dec8bit(de & 0xff));
+        cost = 4;
+    }
+
+    /** dec h */
+    private final void op_25() {
+        setH(dec8bit(hl >> 8));
+        cost = 4;
+    }
+
+    /** dec l */
+    private final void op_2d() {
+        setL(dec8bit(hl & 0xff));
+        cost = 4;
+    }
+
+    /** dec (hl) */
+    private final void op_35() {
+        bus.pokeb(getHL(), dec8bit(bus.peekb(getHL())));
+        cost = 11;
+    }
+
+    /** inc bc */
+    private final void op_03() {
+        setBC(getBC() + 1);
+        cost = 6;
+    }
+
+    /** inc de */
+    private final void op_13() {
+        setDE(getDE() + 1);
+        cost = 6;
+    }
+
+    /** inc hl */
+    private final void op_23() {
+        setHL(getHL() + 1);
+        cost = 6;
+    }
+
+    /** inc sp */
+    private final void op_33() {
+        sp = inc8bitInternal(sp);
+        cost = 6;
+    }
+
+    /** dec bc */
+    private final void op_0b() {
+        setBC(getBC() - 1);
+        cost = 6;
+    }
+
+    /** dec de */
+    private final void op_1b() {
+        setDE(getDE() - 1);
+        cost = 6;
+    }
+
+    /** dec hl */
+    private final void op_2b() {
+        setHL(getHL() - 1);
+        cost = 6;
+    }
+
+    /** dec sp */
+    private final void op_3b() {
+        sp = sub16bitInternal(sp, 1);
+        cost = 6;
+    }
+
+    /** add a,a */
+    private final void op_87() {
+        a = add8bit(a, a);
+        cost = 4;
+    }
+
+    /** add a,b */
+    private final void op_80() {
+        a = add8bit(a, bc >> 8);
+        cost = 4;
+    }
+
+    /** add a,c */
+    private final void op_81() {
+        a = add8bit(a, bc & 0xff);
+        cost = 4;
+    }
+
+    /** add a,d */
+    private final void op_82() {
+        a = add8bit(a, de >> 8);
+        cost = 4;
+    }
+
+    /** add a,e */
+    private final void op_83() {
+        a = add8bit(a, de & 0xff);
+        cost = 4;
+    }
+
+    /** add a,h */
+    private final void op_84() {
+        a = add8bit(a, hl >> 8);
+        cost = 4;
+    }
+
+    /** add a,l */
+    private final void op_85() {
+        a = add8bit(a, hl & 0xff);
+        cost = 4;
+    }
+
+    /** add a,(hl) */
+    private final void op_86() {
+        a = add8bit(a, bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** adc a,a */
+    private final void op_8f() {
+        a = adc8bit(a, a);
+        cost = 4;
+    }
+
+    /** adc a,b */
+    private final void op_88() {
+        a = adc8bit(a, bc >> 8);
+        cost = 4;
+    }
+
+    /** adc a,c */
+    private final void op_89() {
+        a = adc8bit(a, bc & 0xff);
+        cost = 4;
+    }
+
+    /** adc a,d */
+    private final void op_8a() {
+        a = adc8bit(a, de >> 8);
+        cost = 4;
+    }
+
+    /** adc a,e */
+    private final void op_8b() {
+        a = adc8bit(a, de & 0xff);
+        cost = 4;
+    }
+
+    /** adc a,h */
+    private final void op_8c() {
+        a = adc8bit(a, hl >> 8);
+        cost = 4;
+    }
+
+    /** adc a,l */
+    private final void op_8d() {
+        a = adc8bit(a, hl & 0xff);
+        cost = 4;
+    }
+
+    /** adc a,(hl) */
+    private final void op_8e() {
+        a = adc8bit(a, bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** sub a */
+    private final void op_97() {
+        a = sub8bit(a, a);
+        cost = 4;
+    }
+
+    /** sub b */
+    private final void op_90() {
+        a = sub8bit(a, bc >> 8);
+        cost = 4;
+    }
+
+    /** sub c */
+    private final void op_91() {
+        a = sub8bit(a, bc & 0xff);
+        cost = 4;
+    }
+
+    /** sub d */
+    private final void op_92() {
+        a = sub8bit(a, de >> 8);
+        cost = 4;
+    }
+
+    /** sub e */
+    private final void op_93() {
+        a = sub8bit(a, de & 0xff);
+        cost = 4;
+    }
+
+    /** sub h */
+    private final void op_94() {
+        a = sub8bit(a, hl >> 8);
+        cost = 4;
+    }
+
+    /** sub l */
+    private final void op_95() {
+        a = sub8bit(a, hl & 0xff);
+        cost = 4;
+    }
+
+    /** sub (hl) */
+    private final void op_96() {
+        a = sub8bit(a, bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** sbc a,a */
+    private final void op_9f() {
+        a = sbc8bit(a, a);
+        cost = 4;
+    }
+
+    /** sbc a,b */
+    private final void op_98() {
+        a = sbc8bit(a, bc >> 8);
+        cost = 4;
+    }
+
+    /** sbc a,c */
+    private final void op_99() {
+        a = sbc8bit(a, bc & 0xff);
+        cost = 4;
+    }
+
+    /** sbc a,d */
+    private final void op_9a() {
+        a = sbc8bit(a, de >> 8);
+        cost = 4;
+    }
+
+    /** sbc a,e */
+    private final void op_9b() {
+        a = sbc8bit(a, de & 0xff);
+        cost = 4;
+    }
+
+    /** sbc a,h */
+    private final void op_9c() {
+        a = sbc8bit(a, hl >> 8);
+        cost = 4;
+    }
+
+    /** sbc a,l */
+    private final void op_9d() {
+        a = sbc8bit(a, hl & 0xff);
+        cost = 4;
+    }
+
+    /** sbc a,(hl) */
+    private final void op_9e() {
+        a = sbc8bit(a, bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** cp a */
+    private final void op_bf() {
+        cmp8bit(a, a);
+        cost = 4;
+    }
+
+    /** cp b */
+    private final void op_b8() {
+        cmp8bit(a, bc >> 8);
+        cost = 4;
+    }
+
+    /** cp c */
+    private final void op_b9() {
+        cmp8bit(a, bc & 0xff);
+        cost = 4;
+    }
+
+    /** cp d */
+    private final void op_ba() {
+        cmp8bit(a, de >> 8);
+        cost = 4;
+    }
+
+    /** cp e */
+    private final void op_bb() {
+        cmp8bit(a, de & 0xff);
+        cost = 4;
+    }
+
+    /** cp h */
+    private final void op_bc() {
+        cmp8bit(a, hl >> 8);
+        cost = 4;
+    }
+
+    /** cp l */
+    private final void op_bd() {
+        cmp8bit(a, hl & 0xff);
+        cost = 4;
+    }
+
+    /** cp (hl) */
+    private final void op_be() {
+        cmp8bit(a, bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** and a */
+    private final void op_a7() {
+        a = and8bit(a, a);
+        cost = 4;
+    }
+
+    /** and b */
+    private final void op_a0() {
+        a = and8bit(a, bc >> 8);
+        cost = 4;
+    }
+
+    /** and c */
+    private final void op_a1() {
+        a = and8bit(a, bc & 0xff);
+        cost = 4;
+    }
+
+    /** and d */
+    private final void op_a2() {
+        a = and8bit(a, de >> 8);
+        cost = 4;
+    }
+
+    /** and e */
+    private final void op_a3() {
+        a = and8bit(a, de & 0xff);
+        cost = 4;
+    }
+
+    /** and h */
+    private final void op_a4() {
+        a = and8bit(a, hl >> 8);
+        cost = 4;
+    }
+
+    /** and l */
+    private final void op_a5() {
+        a = and8bit(a, hl & 0xff);
+        cost = 4;
+    }
+
+    /** and (hl) */
+    private final void op_a6() {
+        a = and8bit(a, bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** xor a */
+    private final void op_af() {
+        a = xor8bit(a, a);
+        cost = 4;
+    }
+
+    /** xor b */
+    private final void op_a8() {
+        a = xor8bit(a, bc >> 8);
+        cost = 4;
+    }
+
+    /** xor c */
+    private final void op_a9() {
+        a = xor8bit(a, bc & 0xff);
+        cost = 4;
+    }
+
+    /** xor d */
+    private final void op_aa() {
+        a = xor8bit(a, de >> 8);
+        cost = 4;
+    }
+
+    /** xor e */
+    private final void op_ab() {
+        a = xor8bit(a, de & 0xff);
+        cost = 4;
+    }
+
+    /** xor h */
+    private final void op_ac() {
+        a = xor8bit(a, hl >> 8);
+        cost = 4;
+    }
+
+    /** xor l */
+    private final void op_ad() {
+        a = xor8bit(a, hl & 0xff);
+        cost = 4;
+    }
+
+    /** xor (hl) */
+    private final void op_ae() {
+        a = xor8bit(a, bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** or a */
+    private final void op_b7() {
+        a = or8bit(a, a);
+        cost = 4;
+    }
+
+    /** or b */
+    private final void op_b0() {
+        a = or8bit(a, bc >> 8);
+        cost = 4;
+    }
+
+    /** or c */
+    private final void op_b1() {
+        a = or8bit(a, bc & 0xff);
+        cost = 4;
+    }
+
+    /** or d */
+    private final void op_b2() {
+        a = or8bit(a, de >> 8);
+        cost = 4;
+    }
+
+    /** or e */
+    private final void op_b3() {
+        a = or8bit(a, de & 0xff);
+        cost = 4;
+    }
+
+    /** or h */
+    private final void op_b4() {
+        a = or8bit(a, hl >> 8);
+        cost = 4;
+    }
+
+    /** or l */
+    private final void op_b5() {
+        a = or8bit(a, hl & 0xff);
+        cost = 4;
+    }
+
+    /** or (hl) */
+    private final void op_b6() {
+        a = or8bit(a, bus.peekb(getHL()));
+        cost = 7;
+    }
+
+    /** add a,n */
+    private final void op_c6() {
+        a = add8bit(a, fetchb());
+        cost = 7;
+    }
+
+    /** adc a,n */
+    private final void op_ce() {
+        a = adc8bit(a, fetchb());
+        cost = 7;
+    }
+
+    /** sub n */
+    private final void op_d6() {
+        a = sub8bit(a, fetchb());
+        cost = 7;
+    }
+
+    /** sbc a,n */
+    private final void op_de() {
+        a = sbc8bit(a, fetchb());
+        cost = 7;
+    }
+
+    /** and n */
+    private final void op_e6() {
+        a = and8bit(a, fetchb());
+        cost = 7;
+    }
+
+    /** xor n */
+    private final void op_ee() {
+        a = xor8bit(a, fetchb());
+        cost = 7;
+    }
+
+    /** or a,n */
+    private final void op_f6() {
+        a = or8bit(a, fetchb());
+        cost = 7;
+    }
+
+    /** cp a,n */
+    private final void op_fe() {
+        cmp8bit(a, fetchb());
+        cost = 7;
+    }
+
+    /** add hl,bc */
+    private final void op_09() {
+        setHL(add16bit(getHL(), getBC()));
+        cost = 11;
+    }
+
+    /** add hl,de */
+    private final void op_19() {
+        setHL(add16bit(getHL(), getDE()));
+        cost = 11;
+    }
+
+    /** add hl,hl */
+    private final void op_29() {
+        setHL(add16bit(getHL(), getHL()));
+        cost = 11;
+    }
+
+    /** add hl,sp */
+    private final void op_39() {
+        setHL(add16bit(getHL(), sp));
+        cost = 11;
+    }
+
+    /** daa */
+    private final void op_27() {
+        evalFlags();
+        int v = daa_tbl[a | ((f & FBIT_C) << 8) | ((f & FBIT_H) << 5)];
+        a = v >> 8;
+        f = (f & ~(FBIT_S | FBIT_Z | FBIT_P | FBIT_H | FBIT_C)) | (v & 0xff);
+
+        cost = 4;
+    }
+
+    /** cpl */
+    private final void op_2f() {
+        evalFlags();
+        f |= FBIT_H | FBIT_N;
+        a ^= 0xff;
+        cost = 4;
+    }
+
+    /** ccf */
+    private final void op_3f() {
+        evalFlags();
+        f = (f & ~FBIT_N) ^ FBIT_C;
+        cost = 4;
+    }
+
+    /** scf */
+    private final void op_37() {
+        evalFlags();
+        f = (f & ~(FBIT_H | FBIT_N)) | FBIT_C;
+        cost = 4;
+    }
+
+    /** rlca */
+    private final void op_07() {
+        a = rlc(a, false);
+        cost = 4;
+    }
+
+    /** rrca */
+    private final void op_0f() {
+        a = rrc(a, false);
+        cost = 4;
+    }
+
+    /** rla */
+    private final void op_17() {
+        a = rl(a, false);
+        cost = 4;
+    }
+
+    /** rra */
+    private final void op_1f() {
+        a = rr(a, false);
+        cost = 4;
+    }
+
+    /** jp */
+    private final void op_c3() {
+        int from = pc;
+        pc = bus.peekw(pc);
+        cost = 10;
+        if (pc < from && from - pc <= IDLE_LOOP_SIZE) {
+            idleLoop();
+        }
+    }
+
+    /** jp c,nn */
+    private final void op_da() {
+        cost = 10;
+        if (isC()) {
+            int from = pc;
+            pc = fetchw();
+            if (pc < from && from - pc <= IDLE_LOOP_SIZE) {
+                idleLoop();
+            }
+        } else {
+            pc = add16bitInternal(pc, 2);
+        }
+    }
+
+    /** jp nc,nn */
+    private final void op_d2() {
+        cost = 10;
+        if (!isC()) {
+            int from = pc;
+            pc = fetchw();
+            if (pc < from && from - pc <= IDLE_LOOP_SIZE) {
+                idleLoop();
+            }
+        } else {
+            pc = add16bitInternal(pc, 2);
+        }
+    }
+
+    /** jp z,nn */
+    private final void op_ca() {
+        cost = 10;
+        if (isZ()) {
+            int from = pc;
+            pc = fetchw();
+            if (pc < from && from - pc <= IDLE_LOOP_SIZE) {
+                idleLoop();
+            }
+        } else {
+            pc = add16bitInternal(pc, 2);
+        }
+    }
+
+    /** jp nz,nn */
+    private final void op_c2() {
+        cost = 10;
+        if (!isZ()) {
+            int from = pc;
+            pc = fetchw();
+            if (pc < from && from - pc <= IDLE_LOOP_SIZE) {
+                idleLoop();
+            }
+        } else {
+            pc = add16bitInternal(pc, 2);
+        }
+    }
+
+    /** jp pe,nn */
+    private final void op_ea() {
+        cost = 10;
+        if (isP()) {
+            int from = pc;
+            pc = fetchw();
+            if (pc < from && from - pc <= IDLE_LOOP_SIZE) {
+                idleLoop();
+            }
+        } else {
+            pc = add16bitInternal(pc, 2);
+        }
+    }
+
+    /** jp po,nn */
+    private final void op_e2() {
+        cost = 10;
+        if (!isP()) {
+            int from = pc;
+            pc = fetchw();
+            if (pc < from && from - pc <= IDLE_LOOP_SIZE) {
+                idleLoop();
+            }
+        } else {
+            pc = add16bitInternal(pc, 2);
+        }
+    }
+
+    /** jp m,nn */
+    private final void op_fa() {
+        cost = 10;
+        if (isS()) {
+            int from = pc;
+            pc = fetchw();
+            if (pc < from && from - pc <= IDLE_LOOP_SIZE) {
+                idleLoop();
+            }
+        } else {
+            pc = add16bitInternal(pc, 2);
+        }
+    }
+
+    /** jp p,nn */
+    private final void op_f2() {
+        cost = 10;
+        if (!isS()) {
+            int from = pc;
+            pc = fetchw();
+            if (pc < from && from - pc <= IDLE_LOOP_SIZE) {
+                idleLoop();
+            }
+        } else {
+            pc = add16bitInternal(pc, 2);
+        }
+    }
+
+    /** call */
+    private final void op_cd() {
+        call();
+        cost = 17;
+    }
+
+    /** call c,nn */
+    private final void op_dc() {
+        if (isC()) {
+            call();
+            cost = 17;
+        } else {
+            pc = add16bitInternal(pc, 2);
+            cost = 10;
+        }
+    }
+
+    /** call nc,nn */
+    private final void op_d4() {
+        if (!isC()) {
+            call();
+            cost = 17;
+        } else {
+            pc = add16bitInternal(pc, 2);
+            cost = 10;
+        }
+    }
+
+    /** call z,nn */
+    private final void op_cc() {
+        if (isZ()) {
+            call();
+            cost = 17;
+        } else {
+            pc = add16bitInternal(pc, 2);
+            cost = 10;
+        }
+    }
+
+    /** call nz,nn */
+    private final void op_c4() {
+        if (!isZ()) {
+            call();
+            cost = 17;
+        } else {
+            pc = add16bitInternal(pc, 2);
+            cost = 10;
+        }
+    }
+
+    /** call pe,nn */
+    private final void op_ec() {
+        if (isP()) {
+            call();
+            cost = 17;
+        } else {
+            pc = add16bitInternal(pc, 2);
+            cost = 10;
+        }
+    }
+
+    /** call po,nn */
+    private final void op_e4() {
+        if (!isP()) {
+            call();
+            cost = 17;
+        } else {
+            pc = add16bitInternal(pc, 2);
+            cost = 10;
+        }
+    }
+
+    /** call m,nn */
+    private final void op_fc() {
+        if (isS()) {
+            call();
+            cost = 17;
+        } else {
+            pc = add16bitInternal(pc, 2);
+            cost = 10;
+        }
+    }
+
+    /** call p,nn */
+    private final void op_f4() {
+        if (!isS()) {
+            call();
+            cost = 17;
+        } else {
+            pc = add16bitInternal(pc, 2);
+            cost = 10;
+        }
+    }
+
+    /** rst 00h */
+    private final void op_c7() {
+        push(pc);
+        pc = 0 * 8;
+        cost = 11;
+    }
+
+    /** rst 08h */
+    private final void op_cf() {
+        push(pc);
+        pc = 1 * 8;
+        cost = 11;
+    }
+
+    /** rst 10h */
+    private final void op_d7() {
+        push(pc);
+        pc = 2 * 8;
+        cost = 11;
+    }
+
+    /** rst 18h */
+    private final void op_df() {
+        push(pc);
+        pc = 3 * 8;
+        cost = 11;
+    }
+
+    /** rst 20h */
+    private final void op_e7() {
+        push(pc);
+        pc = 4 * 8;
+        cost = 11;
+    }
+
+    /** rst 28h */
+    private final void op_ef() {
+        push(pc);
+        pc = 5 * 8;
+        cost = 11;
+    }
+
+    /** rst 30h */
+    private final void op_f7() {
+        push(pc);
+        pc = 6 * 8;
+        cost = 11;
+    }
+
+    /** rst 38h */
+    private final void op_ff() {
+        push(pc);
+        pc = 7 * 8;
+        cost = 11;
+    }
+
+    /** ret */
+    private final void op_c9() {
+        pc = pop();
+        cost = 10;
+    }
+
+    /** ret c */
+    private final void op_d8() {
+        if (isC()) {
+            pc = pop();
+            cost = 11;
+        } else {
+            cost = 5;
+        }
+    }
+
+    /** ret nc */
+    private final void op_d0() {
+        if (!isC()) {
+            pc = pop();
+            cost = 11;
+        } else {
+            cost = 5;
+        }
+    }
+
+    /** ret z */
+    private final void op_c8() {
+        if (isZ()) {
+            pc = pop();
+            cost = 11;
+        } else {
+            cost = 5;
+        }
+    }
+
+    /** ret nz */
+    private final void op_c0() {
+        if (!isZ()) {
+            pc = pop();
+            cost = 11;
+        } else {
+            cost = 5;
+        }
+    }
+
+    /** ret pe */
+    private final void op_e8() {
+        if (isP()) {
+            pc = pop();
+            cost = 11;
+        } else {
+            cost = 5;
+        }
+    }
+
+    /** ret po */
+    private final void op_e0() {
+        if (!isP()) {
+            pc = pop();
+            cost = 11;
+        } else {
+            cost = 5;
+        }
+    }
+
+    /** ret m */
+    private final void op_f8() {
+        if (isS()) {
+            pc = pop();
+            cost = 11;
+        } else {
+            cost = 5;
+        }
+    }
+
+    /** ret p */
+    private final void op_f0() {
+        if (!isS()) {
+            pc = pop();
+            cost = 11;
+        } else {
+            cost = 5;
+        }
+    }
+
+    /** push bc */
+    private final void op_c5() {
+        push(getBC());
+        cost = 11;
+    }
+
+    /** push de */
+    private final void op_d5() {
+        push(getDE());
+        cost = 11;
+    }
+
+    /** push hl */
+    private final void op_e5() {
+        push(getHL());
+        cost = 11;
+    }
+
+    /** push af */
+    private final void op_f5() {
+        push(getAF());
+        cost = 11;
+    }
+
+    /** pop bc */
+    private final void op_c1() {
+        setBC(pop());
+        cost = 10;
+    }
+
+    /** pop de */
+    private final void op_d1() {
+        setDE(pop());
+        cost = 10;
+    }
+
+    /** pop hl */
+    private final void op_e1() {
+        setHL(pop());
+        cost = 10;
+    }
+
+    /** pop af */
+    private final void op_f1() {
+        setAF(pop());
+        cost = 10;
+    }
+
+    /** in a,n */
+    private final void op_db() {
+        a = bus.inp(fetchb());
+        cost = 11;
+    }
+
+    /** out n,a */
+    private final void op_d3() {
+        outp(fetchb(), a);
+        cost = 11;
+    }
+
+    /** di */
+    private final void op_f3() {
+        iff1 = false;
+        iff2 = false;
+// Debug.println("DI");
+        cost = 4;
+    }
+
+    /** ei */
+    private final void op_fb() {
+        iff1 = true;
+        iff2 = true;
+        eiDelayed = true;
+        scheduler.signal();
+// Debug.println("EI");
+        cost = 4;
+    }
+
+    /** nop */
+    private final void op_00() {
+        cost = 4;
+    }
+
+    /** halt */
+    private final void op_76() {
+// Debug.println("halt: " + StringUtil.toHex4(pc - 1));
+        halted = true;
+        cost = 4;
+    }
+
+    /*
+     * Z80 instruction set
+     */
+
+    /** ex af,af' */
+    private final void op_08() {
+        int t = getAF();
+        setAF(af2);
+        af2 = t;
+        cost = 4;
+    }
+
+    /** djnz e */
+    private final void op_10() {
+        setB(dec8bitInternal(bc >> 8));
+        if ((bc >> 8) != 0) {
+            byte v = (byte) fetchb();
+            pc = add16bitInternal(pc, v);
+            cost = 13;
+        } else {
+            pc = add16bitInternal(pc, 1);
             cost = 8;
-            break;
-        case 0x7e: // bit 7,(hl)
-            bit(7, bus.peekb(getHL()));
+        }
+    }
+
+    /** jr e */
+    private final void op_18() {
+        byte v = (byte) fetchb();
+        pc = add16bitInternal(pc, v);
+        cost = 12;
+        if (v < 0) {
+            idleLoop();
+        }
+    }
+
+    /** jr nz,e */
+    private final void op_20() {
+        if (!isZ()) {
+            byte v = (byte) fetchb();
+            pc = add16bitInternal(pc, v);
             cost = 12;
-            break;
-        case 0x7f: // bit 7,a
-            bit(7, a);
-            cost = 8;
-            break;
+            if (v < 0) {
+                idleLoop();
+            }
+        } else {
+            pc = add16bitInternal(pc, 1);
+            cost = 7;
+        }
+    }
+
+    /** jr z,e */
+    private final void op_28() {
+        if (isZ()) {
+            byte v = (byte) fetchb();
+            pc = add16bitInternal(pc, v);
+            cost = 12;
+            if (v < 0) {
+                idleLoop();
+            }
+        } else {
+            pc = add16bitInternal(pc, 1);
+            cost = 7;
+        }
+    }
+
+    /** jr nc,e */
+    private final void op_30() {
+        if (!isC()) {
+            byte v = (byte) fetchb();
+            pc = add16bitInternal(pc, v);
+            cost = 12;
+            if (v < 0) {
+                idleLoop();
+            }
+        } else {
+            pc = add16bitInternal(pc, 1);
+            cost = 7;
+        }
+    }
+
+    /** jr c,e */
+    private final void op_38() {
+        if (isC()) {
+            byte v = (byte) fetchb();
+            pc = add16bitInternal(pc, v);
+            cost = 12;
+            if (v < 0) {
+                idleLoop();
+            }
+        } else {
+            pc = add16bitInternal(pc, 1);
+            cost = 7;
+        }
+    }
+
+    /** exx */
+    private final void op_d9() {
+        int t = getBC();
+        setBC(bc2);
+        bc2 = t;
+
+        t = getDE();
+        setDE(de2);
+        de2 = t;
+
+        t = getHL();
+        setHL(hl2);
+        hl2 = t;
+
+        cost = 4;
+    }
+
+    /** cb xx */
+    private final void exec_cb() {
+
+        int v = fetchb();
+
+        r = inc8bitInternal(r);
+
+        ops_cb[v].exec();
+    }
+
+    /** rlc b */
+    private final void op_cb00() {
+        setB(rlc(bc >> 8, true));
+        cost = 8;
+    }
+
+    /** rlc c */
+    private final void op_cb01() {
+        setC(rlc(bc & 0xff, true));
+        cost = 8;
+    }
+
+    /** rlc d */
+    private final void op_cb02() {
+        setD(rlc(de >> 8, true));
+        cost = 8;
+    }
+
+    /** rlc e */
+    private final void op_cb03() {
+        setE(rlc(de & 0xff, true));
+        cost = 8;
+    }
+
+    /** rlc h */
+    private final void op_cb04() {
+        setH(rlc(hl >> 8, true));
+        cost = 8;
+    }
+
+    /** rlc l */
+    private final void op_cb05() {
+        setL(rlc(hl & 0xff, true));
+        cost = 8;
+    }
+
+    /** rlc (hl) */
+    private final void op_cb06() {
+        bus.pokeb(getHL(), rlc(bus.peekb(getHL()), true));
+        cost = 15;
+    }
+
+    /** rlc a */
+    private final void op_cb07() {
+        a = rlc(a, true);
+        cost = 8;
+    }
+
+    /** rrc b */
+    private final void op_cb08() {
+        setB(rrc(bc >> 8, true));
+        cost = 8;
+    }
+
+    /** rrc c */
+    private final void op_cb09() {
+        setC(rrc(bc & 0xff, true));
+        cost = 8;
+    }
+
+    /** rrc d */
+    private final void op_cb0a() {
+        setD(rrc(de >> 8, true));
+        cost = 8;
+    }
+
+    /** rrc e */
+    private final void op_cb0b() {
+        setE(rrc(de & 0xff, true));
+        cost = 8;
+    }
+
+    /** rrc h */
+    private final void op_cb0c() {
+        setH(rrc(hl >> 8, true));
+        cost = 8;
+    }
+
+    /** rrc l */
+    private final void op_cb0d() {
+        setL(rrc(hl & 0xff, true));
+        cost = 8;
+    }
+
+    /** rrc (hl) */
+    private final void op_cb0e() {
+        bus.pokeb(getHL(), rrc(bus.peekb(getHL()), true));
+        cost = 15;
+    }
+
+    /** rrc a */
+    private final void op_cb0f() {
+        a = rrc(a, true);
+        cost = 8;
+    }
+
+    /** rl b */
+    private final void op_cb10() {
+        setB(rl(bc >> 8, true));
+        cost = 8;
+    }
+
+    /** rl c */
+    private final void op_cb11() {
+        setC(rl(bc & 0xff, true));
+        cost = 8;
+    }
+
+    /** rl d */
+    private final void op_cb12() {
+        setD(rl(de >> 8, true));
+        cost = 8;
+    }
+
+    /** rl e */
+    private final void op_cb13() {
+        setE(rl(de & 0xff, true));
+        cost = 8;
+    }
+
+    /** rl h */
+    private final void op_cb14() {
+        setH(rl(hl >> 8, true));
+        cost = 8;
+    }
+
+    /** rl l */
+    private final void op_cb15() {
+        setL(rl(hl & 0xff, true));
+        cost = 8;
+    }
+
+    /** rl (hl) */
+    private final void op_cb16() {
+        bus.pokeb(getHL(), rl(bus.peekb(getHL()), true));
+        cost = 15;
+    }
+
+    /** rl a */
+    private final void op_cb17() {
+        a = rl(a, true);
+        cost = 8;
+    }
+
+    /** rr b */
+    private final void op_cb18() {
+        setB(rr(bc >> 8, true));
+        cost = 8;
+    }
+
+    /** rr c */
+    private final void op_cb19() {
+        setC(rr(bc & 0xff, true));
+        cost = 8;
+    }
+
+    /** rr d */
+    private final void op_cb1a() {
+        setD(rr(de >> 8, true));
+        cost = 8;
+    }
+
+    /** rr e */
+    private final void op_cb1b() {
+        setE(rr(de & 0xff, true));
+        cost = 8;
+    }
+
+    /** rr h */
+    private final void op_cb1c() {
+        setH(rr(hl >> 8, true));
+        cost = 8;
+    }
+
+    /** rr l */
+    private final void op_cb1d() {
+        setL(rr(hl & 0xff, true));
+        cost = 8;
+    }
+
+    /** rr (hl) */
+    private final void op_cb1e() {
+        bus.pokeb(getHL(), rr(bus.peekb(getHL()), true));
+        cost = 15;
+    }
+
+    /** rr a */
+    private final void op_cb1f() {
+        a = rr(a, true);
+        cost = 8;
+    }
+
+    /** sla b */
+    private final void op_cb20() {
+        setB(sla(bc >> 8));
+        cost = 8;
+    }
+
+    /** sla c */
+    private final void op_cb21() {
+        setC(sla(bc & 0xff));
+        cost = 8;
+    }
+
+    /** sla d */
+    private final void op_cb22() {
+        setD(sla(de >> 8));
+        cost = 8;
+    }
+
+    /** sla e */
+    private final void op_cb23() {
+        setE(sla(de & 0xff));
+        cost = 8;
+    }
+
+    /** sla h */
+    private final void op_cb24() {
+        setH(sla(hl >> 8));
+        cost = 8;
+    }
+
+    /** sla l */
+    private final void op_cb25() {
+        setL(sla(hl & 0xff));
+        cost = 8;
+    }
+
+    /** sla (hl) */
+    private final void op_cb26() {
+        bus.pokeb(getHL(), sla(bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** sla a */
+    private final void op_cb27() {
+        a = sla(a);
+        cost = 8;
+    }
+
+    /** sra b */
+    private final void op_cb28() {
+        setB(sra(bc >> 8));
+        cost = 8;
+    }
+
+    /** sra c */
+    private final void op_cb29() {
+        setC(sra(bc & 0xff));
+        cost = 8;
+    }
+
+    /** sra d */
+    private final void op_cb2a() {
+        setD(sra(de >> 8));
+        cost = 8;
+    }
+
+    /** sra e */
+    private final void op_cb2b() {
+        setE(sra(de & 0xff));
+        cost = 8;
+    }
+
+    /** sra h */
+    private final void op_cb2c() {
+        setH(sra(hl >> 8));
+        cost = 8;
+    }
+
+    /** sra l */
+    private final void op_cb2d() {
+        setL(sra(hl & 0xff));
+        cost = 8;
+    }
+
+    /** sra (hl) */
+    private final void op_cb2e() {
+        bus.pokeb(getHL(), sra(bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** sra a */
+    private final void op_cb2f() {
+        a = sra(a);
+        cost = 8;
+    }
+
+    /** srl b */
+    private final void op_cb38() {
+        setB(srl(bc >> 8));
+        cost = 8;
+    }
+
+    /** srl c */
+    private final void op_cb39() {
+        setC(srl(bc & 0xff));
+        cost = 8;
+    }
+
+    /** srl d */
+    private final void op_cb3a() {
+        setD(srl(de >> 8));
+        cost = 8;
+    }
+
+    /** srl e */
+    private final void op_cb3b() {
+        setE(srl(de & 0xff));
+        cost = 8;
+    }
+
+    /** srl h */
+    private final void op_cb3c() {
+        setH(srl(hl >> 8));
+        cost = 8;
+    }
+
+    /** srl l */
+    private final void op_cb3d() {
+        setL(srl(hl & 0xff));
+        cost = 8;
+    }
+
+    /** srl (hl) */
+    private final void op_cb3e() {
+        bus.pokeb(getHL(), srl(bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** srl a */
+    private final void op_cb3f() {
+        a = srl(a);
+        cost = 8;
+    }
+
+    /** bit 0,b */
+    private final void op_cb40() {
+        bit(0, bc >> 8);
+        cost = 8;
+    }
+
+    /** bit 0,c */
+    private final void op_cb41() {
+        bit(0, bc & 0xff);
+        cost = 8;
+    }
+
+    /** bit 0,d */
+    private final void op_cb42() {
+        bit(0, de >> 8);
+        cost = 8;
+    }
+
+    /** bit 0,e */
+    private final void op_cb43() {
+        bit(0, de & 0xff);
+        cost = 8;
+    }
+
+    /** bit 0,h */
+    private final void op_cb44() {
+        bit(0, hl >> 8);
+        cost = 8;
+    }
+
+    /** bit 0,l */
+    private final void op_cb45() {
+        bit(0, hl & 0xff);
+        cost = 8;
+    }
+
+    /** bit 0,(hl) */
+    private final void op_cb46() {
+        bit(0, bus.peekb(getHL()));
+        cost = 12;
+    }
+
+    /** bit 0,a */
+    private final void op_cb47() {
+        bit(0, a);
+        cost = 8;
+    }
+
+    /** bit 1,b */
+    private final void op_cb48() {
+        bit(1, bc >> 8);
+        cost = 8;
+    }
+
+    /** bit 1,c */
+    private final void op_cb49() {
+        bit(1, bc & 0xff);
+        cost = 8;
+    }
+
+    /** bit 1,d */
+    private final void op_cb4a() {
+        bit(1, de >> 8);
+        cost = 8;
+    }
+
+    /** bit 1,e */
+    private final void op_cb4b() {
+        bit(1, de & 0xff);
+        cost = 8;
+    }
+
+    /** bit 1,h */
+    private final void op_cb4c() {
+        bit(1, hl >> 8);
+        cost = 8;
+    }
+
+    /** bit 1,l */
+    private final void op_cb4d() {
+        bit(1, hl & 0xff);
+        cost = 8;
+    }
+
+    /** bit 1,(hl) */
+    private final void op_cb4e() {
+        bit(1, bus.peekb(getHL()));
+        cost = 12;
+    }
+
+    /** bit 1,a */
+    private final void op_cb4f() {
+        bit(1, a);
+        cost = 8;
+    }
+
+    /** bit 2,b */
+    private final void op_cb50() {
+        bit(2, bc >> 8);
+        cost = 8;
+    }
+
+    /** bit 2,c */
+    private final void op_cb51() {
+        bit(2, bc & 0xff);
+        cost = 8;
+    }
+
+    /** bit 2,d */
+    private final void op_cb52() {
+        bit(2, de >> 8);
+        cost = 8;
+    }
+
+    /** bit 2,e */
+    private final void op_cb53() {
+        bit(2, de & 0xff);
+        cost = 8;
+    }
+
+    /** bit 2,h */
+    private final void op_cb54() {
+        bit(2, hl >> 8);
+        cost = 8;
+    }
+
+    /** bit 2,l */
+    private final void op_cb55() {
+        bit(2, hl & 0xff);
+        cost = 8;
+    }
+
+    /** bit 2,(hl) */
+    private final void op_cb56() {
+        bit(2, bus.peekb(getHL()));
+        cost = 12;
+    }
+
+    /** bit 2,a */
+    private final void op_cb57() {
+        bit(2, a);
+        cost = 8;
+    }
+
+    /** bit 3,b */
+    private final void op_cb58() {
+        bit(3, bc >> 8);
+        cost = 8;
+    }
+
+    /** bit 3,c */
+    private final void op_cb59() {
+        bit(3, bc & 0xff);
+        cost = 8;
+    }
+
+    /** bit 3,d */
+    private final void op_cb5a() {
+        bit(3, de >> 8);
+        cost = 8;
+    }
+
+    /** bit 3,e */
+    private final void op_cb5b() {
+        bit(3, de & 0xff);
+        cost = 8;
+    }
+
+    /** bit 3,h */
+    private final void op_cb5c() {
+        bit(3, hl >> 8);
+        cost = 8;
+    }
+
+    /** bit 3,l */
+    private final void op_cb5d() {
+        bit(3, hl & 0xff);
+        cost = 8;
+    }
+
+    /** bit 3,(hl) */
+    private final void op_cb5e() {
+        bit(3, bus.peekb(getHL()));
+        cost = 12;
+    }
+
+    /** bit 3,a */
+    private final void op_cb5f() {
+        bit(3, a);
+        cost = 8;
+    }
+
+    /** bit 4,b */
+    private final void op_cb60() {
+        bit(4, bc >> 8);
+        cost = 8;
+    }
+
+    /** bit 4,c */
+    private final void op_cb61() {
+        bit(4, bc & 0xff);
+        cost = 8;
+    }
+
+    /** bit 4,d */
+    private final void op_cb62() {
+        bit(4, de >> 8);
+        cost = 8;
+    }
+
+    /** bit 4,e */
+    private final void op_cb63() {
+        bit(4, de & 0xff);
+        cost = 8;
+    }
+
+    /** bit 4,h */
+    private final void op_cb64() {
+        bit(4, hl >> 8);
+        cost = 8;
+    }
+
+    /** bit 4,l */
+    private final void op_cb65() {
+        bit(4, hl & 0xff);
+        cost = 8;
+    }
+
+    /** bit 4,(hl) */
+    private final void op_cb66() {
+        bit(4, bus.peekb(getHL()));
+        cost = 12;
+    }
+
+    /** bit 4,a */
+    private final void op_cb67() {
+        bit(4, a);
+        cost = 8;
+    }
+
+    /** bit 5,b */
+    private final void op_cb68() {
+        bit(5, bc >> 8);
+        cost = 8;
+    }
+
+    /** bit 5,c */
+    private final void op_cb69() {
+        bit(5, bc & 0xff);
+        cost = 8;
+    }
+
+    /** bit 5,d */
+    private final void op_cb6a() {
+        bit(5, de >> 8);
+        cost = 8;
+    }
+
+    /** bit 5,e */
+    private final void op_cb6b() {
+        bit(5, de & 0xff);
+        cost = 8;
+    }
+
+    /** bit 5,h */
+    private final void op_cb6c() {
+        bit(5, hl >> 8);
+        cost = 8;
+    }
+
+    /** bit 5,l */
+    private final void op_cb6d() {
+        bit(5, hl & 0xff);
+        cost = 8;
+    }
+
+    /** bit 5,(hl) */
+    private final void op_cb6e() {
+        bit(5, bus.peekb(getHL()));
+        cost = 12;
+    }
+
+    /** bit 5,a */
+    private final void op_cb6f() {
+        bit(5, a);
+        cost = 8;
+    }
+
+    /** bit 6,b */
+    private final void op_cb70() {
+        bit(6, bc >> 8);
+        cost = 8;
+    }
+
+    /** bit 6,c */
+    private final void op_cb71() {
+        bit(6, bc & 0xff);
+        cost = 8;
+    }
+
+    /** bit 6,d */
+    private final void op_cb72() {
+        bit(6, de >> 8);
+        cost = 8;
+    }
+
+    /** bit 6,e */
+    private final void op_cb73() {
+        bit(6, de & 0xff);
+        cost = 8;
+    }
+
+    /** bit 6,h */
+    private final void op_cb74() {
+        bit(6, hl >> 8);
+        cost = 8;
+    }
+
+    /** bit 6,l */
+    private final void op_cb75() {
+        bit(6, hl & 0xff);
+        cost = 8;
+    }
+
+    /** bit 6,(hl) */
+    private final void op_cb76() {
+        bit(6, bus.peekb(getHL()));
+        cost = 12;
+    }
+
+    /** bit 6,a */
+    private final void op_cb77() {
+        bit(6, a);
+        cost = 8;
+    }
+
+    /** bit 7,b */
+    private final void op_cb78() {
+        bit(7, bc >> 8);
+        cost = 8;
+    }
+
+    /** bit 7,c */
+    private final void op_cb79() {
+        bit(7, bc & 0xff);
+        cost = 8;
+    }
+
+    /** bit 7,d */
+    private final void op_cb7a() {
+        bit(7, de >> 8);
+        cost = 8;
+    }
+
+    /** bit 7,e */
+    private final void op_cb7b() {
+        bit(7, de & 0xff);
+        cost = 8;
+    }
+
+    /** bit 7,h */
+    private final void op_cb7c() {
+        bit(7, hl >> 8);
+        cost = 8;
+    }
+
+    /** bit 7,l */
+    private final void op_cb7d() {
+        bit(7, hl & 0xff);
+        cost = 8;
+    }
+
+    /** bit 7,(hl) */
+    private final void op_cb7e() {
+        bit(7, bus.peekb(getHL()));
+        cost = 12;
+    }
+
+    /** bit 7,a */
+    private final void op_cb7f() {
+        bit(7, a);
+        cost = 8;
+    }
+
+    /** res 0,b */
+    private final void op_cb80() {
+        setB(resetbit(0, bc >> 8));
+        cost = 8;
+    }
+
+    /** res 0,c */
+    private final void op_cb81() {
+        setC(resetbit(0, bc & 0xff));
+        cost = 8;
+    }
+
+    /** res 0,d */
+    private final void op_cb82() {
+        setD(resetbit(0, de >> 8));
+        cost = 8;
+    }
+
+    /** res 0,e */
+    private final void op_cb83() {
+        setE(resetbit(0, de & 0xff));
+        cost = 8;
+    }
+
+    /** res 0,h */
+    private final void op_cb84() {
+        setH(resetbit(0, hl >> 8));
+        cost = 8;
+    }
+
+    /** res 0,l */
+    private final void op_cb85() {
+        setL(resetbit(0, hl & 0xff));
+        cost = 8;
+    }
+
+    /** res 0,(hl) */
+    private final void op_cb86() {
+        bus.pokeb(getHL(), resetbit(0, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** res 0,a */
+    private final void op_cb87() {
+        a = resetbit(0, a);
+        cost = 8;
+    }
+
+    /** res 1,b */
+    private final void op_cb88() {
+        setB(resetbit(1, bc >> 8));
+        cost = 8;
+    }
+
+    /** res 1,c */
+    private final void op_cb89() {
+        setC(resetbit(1, bc & 0xff));
+        cost = 8;
+    }
+
+    /** res 1,d */
+    private final void op_cb8a() {
+        setD(resetbit(1, de >> 8));
+        cost = 8;
+    }
+
+    /** res 1,e */
+    private final void op_cb8b() {
+        setE(resetbit(1, de & 0xff));
+        cost = 8;
+    }
+
+    /** res 1,h */
+    private final void op_cb8c() {
+        setH(resetbit(1, hl >> 8));
+        cost = 8;
+    }
+
+    /** res 1,l */
+    private final void op_cb8d() {
+        setL(resetbit(1, hl & 0xff));
+        cost = 8;
+    }
+
+    /** res 1,(hl) */
+    private final void op_cb8e() {
+        bus.pokeb(getHL(), resetbit(1, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** res 1,a */
+    private final void op_cb8f() {
+        a = resetbit(1, a);
+        cost = 8;
+    }
+
+    /** res 2,b */
+    private final void op_cb90() {
+        setB(resetbit(2, bc >> 8));
+        cost = 8;
+    }
+
+    /** res 2,c */
+    private final void op_cb91() {
+        setC(resetbit(2, bc & 0xff));
+        cost = 8;
+    }
+
+    /** res 2,d */
+    private final void op_cb92() {
+        setD(resetbit(2, de >> 8));
+        cost = 8;
+    }
+
+    /** res 2,e */
+    private final void op_cb93() {
+        setE(resetbit(2, de & 0xff));
+        cost = 8;
+    }
+
+    /** res 2,h */
+    private final void op_cb94() {
+        setH(resetbit(2, hl >> 8));
+        cost = 8;
+    }
+
+    /** res 2,l */
+    private final void op_cb95() {
+        setL(resetbit(2, hl & 0xff));
+        cost = 8;
+    }
+
+    /** res 2,(hl) */
+    private final void op_cb96() {
+        bus.pokeb(getHL(), resetbit(2, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** res 2,a */
+    private final void op_cb97() {
+        a = resetbit(2, a);
+        cost = 8;
+    }
+
+    /** res 3,b */
+    private final void op_cb98() {
+        setB(resetbit(3, bc >> 8));
+        cost = 8;
+    }
+
+    /** res 3,c */
+    private final void op_cb99() {
+        setC(resetbit(3, bc & 0xff));
+        cost = 8;
+    }
+
+    /** res 3,d */
+    private final void op_cb9a() {
+        setD(resetbit(3, de >> 8));
+        cost = 8;
+    }
+
+    /** res 3,e */
+    private final void op_cb9b() {
+        setE(resetbit(3, de & 0xff));
+        cost = 8;
+    }
+
+    /** res 3,h */
+    private final void op_cb9c() {
+        setH(resetbit(3, hl >> 8));
+        cost = 8;
+    }
+
+    /** res 3,l */
+    private final void op_cb9d() {
+        setL(resetbit(3, hl & 0xff));
+        cost = 8;
+    }
+
+    /** res 3,(hl) */
+    private final void op_cb9e() {
+        bus.pokeb(getHL(), resetbit(3, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** res 3,a */
+    private final void op_cb9f() {
+        a = resetbit(3, a);
+        cost = 8;
+    }
+
+    /** res 4,b */
+    private final void op_cba0() {
+        setB(resetbit(4, bc >> 8));
+        cost = 8;
+    }
+
+    /** res 4,c */
+    private final void op_cba1() {
+        setC(resetbit(4, bc & 0xff));
+        cost = 8;
+    }
+
+    /** res 4,d */
+    private final void op_cba2() {
+        setD(resetbit(4, de >> 8));
+        cost = 8;
+    }
+
+    /** res 4,e */
+    private final void op_cba3() {
+        setE(resetbit(4, de & 0xff));
+        cost = 8;
+    }
+
+    /** res 4,h */
+    private final void op_cba4() {
+        setH(resetbit(4, hl >> 8));
+        cost = 8;
+    }
+
+    /** res 4,l */
+    private final void op_cba5() {
+        setL(resetbit(4, hl & 0xff));
+        cost = 8;
+    }
+
+    /** res 4,(hl) */
+    private final void op_cba6() {
+        bus.pokeb(getHL(), resetbit(4, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** res 4,a */
+    private final void op_cba7() {
+        a = resetbit(4, a);
+        cost = 8;
+    }
+
+    /** res 5,b */
+    private final void op_cba8() {
+        setB(resetbit(5, bc >> 8));
+        cost = 8;
+    }
+
+    /** res 5,c */
+    private final void op_cba9() {
+        setC(resetbit(5, bc & 0xff));
+        cost = 8;
+    }
+
+    /** res 5,d */
+    private final void op_cbaa() {
+        setD(resetbit(5, de >> 8));
+        cost = 8;
+    }
+
+    /** res 5,e */
+    private final void op_cbab() {
+        setE(resetbit(5, de & 0xff));
+        cost = 8;
+    }
+
+    /** res 5,h */
+    private final void op_cbac() {
+        setH(resetbit(5, hl >> 8));
+        cost = 8;
+    }
+
+    /** res 5,l */
+    private final void op_cbad() {
+        setL(resetbit(5, hl & 0xff));
+        cost = 8;
+    }
+
+    /** res 5,(hl) */
+    private final void op_cbae() {
+        bus.pokeb(getHL(), resetbit(5, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** res 5,a */
+    private final void op_cbaf() {
+        a = resetbit(5, a);
+        cost = 8;
+    }
+
+    /** res 6,b */
+    private final void op_cbb0() {
+        setB(resetbit(6, bc >> 8));
+        cost = 8;
+    }
+
+    /** res 6,c */
+    private final void op_cbb1() {
+        setC(resetbit(6, bc & 0xff));
+        cost = 8;
+    }
+
+    /** res 6,d */
+    private final void op_cbb2() {
+        setD(resetbit(6, de >> 8));
+        cost = 8;
+    }
+
+    /** res 6,e */
+    private final void op_cbb3() {
+        setE(resetbit(6, de & 0xff));
+        cost = 8;
+    }
+
+    /** res 6,h */
+    private final void op_cbb4() {
+        setH(resetbit(6, hl >> 8));
+        cost = 8;
+    }
+
+    /** res 6,l */
+    private final void op_cbb5() {
+        setL(resetbit(6, hl & 0xff));
+        cost = 8;
+    }
+
+    /** res 6,(hl) */
+    private final void op_cbb6() {
+        bus.pokeb(getHL(), resetbit(6, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** res 6,a */
+    private final void op_cbb7() {
+        a = resetbit(6, a);
+        cost = 8;
+    }
+
+    /** res 7,b */
+    private final void op_cbb8() {
+        setB(resetbit(7, bc >> 8));
+        cost = 8;
+    }
+
+    /** res 7,c */
+    private final void op_cbb9() {
+        setC(resetbit(7, bc & 0xff));
+        cost = 8;
+    }
+
+    /** res 7,d */
+    private final void op_cbba() {
+        setD(resetbit(7, de >> 8));
+        cost = 8;
+    }
+
+    /** res 7,e */
+    private final void op_cbbb() {
+        setE(resetbit(7, de & 0xff));
+        cost = 8;
+    }
+
+    /** res 7,h */
+    private final void op_cbbc() {
+        setH(resetbit(7, hl >> 8));
+        cost = 8;
+    }
+
+    /** res 7,l */
+    private final void op_cbbd() {
+        setL(resetbit(7, hl & 0xff));
+        cost = 8;
+    }
+
+    /** res 7,(hl) */
+    private final void op_cbbe() {
+        bus.pokeb(getHL(), resetbit(7, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** res 7,a */
+    private final void op_cbbf() {
+        a = resetbit(7, a);
+        cost = 8;
+    }
+
+    /** set 0,b */
+    private final void op_cbc0() {
+        setB(setbit(0, bc >> 8));
+        cost = 8;
+    }
+
+    /** set 0,c */
+    private final void op_cbc1() {
+        setC(setbit(0, bc & 0xff));
+        cost = 8;
+    }
+
+    /** set 0,d */
+    private final void op_cbc2() {
+        setD(setbit(0, de >> 8));
+        cost = 8;
+    }
+
+    /** set 0,e */
+    private final void op_cbc3() {
+        setE(setbit(0, de & 0xff));
+        cost = 8;
+    }
+
+    /** set 0,h */
+    private final void op_cbc4() {
+        setH(setbit(0, hl >> 8));
+        cost = 8;
+    }
+
+    /** set 0,l */
+    private final void op_cbc5() {
+        setL(setbit(0, hl & 0xff));
+        cost = 8;
+    }
+
+    /** set 0,(hl) */
+    private final void op_cbc6() {
+        bus.pokeb(getHL(), setbit(0, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** set 0,a */
+    private final void op_cbc7() {
+        a = setbit(0, a);
+        cost = 8;
+    }
+
+    /** set 1,b */
+    private final void op_cbc8() {
+        setB(setbit(1, bc >> 8));
+        cost = 8;
+    }
+
+    /** set 1,c */
+    private final void op_cbc9() {
+        setC(setbit(1, bc & 0xff));
+        cost = 8;
+    }
+
+    /** set 1,d */
+    private final void op_cbca() {
+        setD(setbit(1, de >> 8));
+        cost = 8;
+    }
+
+    /** set 1,e */
+    private final void op_cbcb() {
+        setE(setbit(1, de & 0xff));
+        cost = 8;
+    }
+
+    /** set 1,h */
+    private final void op_cbcc() {
+        setH(setbit(1, hl >> 8));
+        cost = 8;
+    }
+
+    /** set 1,l */
+    private final void op_cbcd() {
+        setL(setbit(1, hl & 0xff));
+        cost = 8;
+    }
+
+    /** set 1,(hl) */
+    private final void op_cbce() {
+        bus.pokeb(getHL(), setbit(1, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** set 1,a */
+    private final void op_cbcf() {
+        a = setbit(1, a);
+        cost = 8;
+    }
+
+    /** set 2,b */
+    private final void op_cbd0() {
+        setB(setbit(2, bc >> 8));
+        cost = 8;
+    }
+
+    /** set 2,c */
+    private final void op_cbd1() {
+        setC(setbit(2, bc & 0xff));
+        cost = 8;
+    }
+
+    /** set 2,d */
+    private final void op_cbd2() {
+        setD(setbit(2, de >> 8));
+        cost = 8;
+    }
+
+    /** set 2,e */
+    private final void op_cbd3() {
+        setE(setbit(2, de & 0xff));
+        cost = 8;
+    }
+
+    /** set 2,h */
+    private final void op_cbd4() {
+        setH(setbit(2, hl >> 8));
+        cost = 8;
+    }
+
+    /** set 2,l */
+    private final void op_cbd5() {
+        setL(setbit(2, hl & 0xff));
+        cost = 8;
+    }
+
+    /** set 2,(hl) */
+    private final void op_cbd6() {
+        bus.pokeb(getHL(), setbit(2, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** set 2,a */
+    private final void op_cbd7() {
+        a = setbit(2, a);
+        cost = 8;
+    }
+
+    /** set 3,b */
+    private final void op_cbd8() {
+        setB(setbit(3, bc >> 8));
+        cost = 8;
+    }
+
+    /** set 3,c */
+    private final void op_cbd9() {
+        setC(setbit(3, bc & 0xff));
+        cost = 8;
+    }
+
+    /** set 3,d */
+    private final void op_cbda() {
+        setD(setbit(3, de >> 8));
+        cost = 8;
+    }
+
+    /** set 3,e */
+    private final void op_cbdb() {
+        setE(setbit(3, de & 0xff));
+        cost = 8;
+    }
+
+    /** set 3,h */
+    private final void op_cbdc() {
+        setH(setbit(3, hl >> 8));
+        cost = 8;
+    }
+
+    /** set 3,l */
+    private final void op_cbdd() {
+        setL(setbit(3, hl & 0xff));
+        cost = 8;
+    }
+
+    /** set 3,(hl) */
+    private final void op_cbde() {
+        bus.pokeb(getHL(), setbit(3, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** set 3,a */
+    private final void op_cbdf() {
+        a = setbit(3, a);
+        cost = 8;
+    }
+
+    /** set 4,b */
+    private final void op_cbe0() {
+        setB(setbit(4, bc >> 8));
+        cost = 8;
+    }
+
+    /** set 4,c */
+    private final void op_cbe1() {
+        setC(setbit(4, bc & 0xff));
+        cost = 8;
+    }
+
+    /** set 4,d */
+    private final void op_cbe2() {
+        setD(setbit(4, de >> 8));
+        cost = 8;
+    }
+
+    /** set 4,e */
+    private final void op_cbe3() {
+        setE(setbit(4, de & 0xff));
+        cost = 8;
+    }
+
+    /** set 4,h */
+    private final void op_cbe4() {
+        setH(setbit(4, hl >> 8));
+        cost = 8;
+    }
+
+    /** set 4,l */
+    private final void op_cbe5() {
+        setL(setbit(4, hl & 0xff));
+        cost = 8;
+    }
+
+    /** set 4,(hl) */
+    private final void op_cbe6() {
+        bus.pokeb(getHL(), setbit(4, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** set 4,a */
+    private final void op_cbe7() {
+        a = setbit(4, a);
+        cost = 8;
+    }
+
+    /** set 5,b */
+    private final void op_cbe8() {
+        setB(setbit(5, bc >> 8));
+        cost = 8;
+    }
+
+    /** set 5,c */
+    private final void op_cbe9() {
+        setC(setbit(5, bc & 0xff));
+        cost = 8;
+    }
+
+    /** set 5,d */
+    private final void op_cbea() {
+        setD(setbit(5, de >> 8));
+        cost = 8;
+    }
+
+    /** set 5,e */
+    private final void op_cbeb() {
+        setE(setbit(5, de & 0xff));
+        cost = 8;
+    }
+
+    /** set 5,h */
+    private final void op_cbec() {
+        setH(setbit(5, hl >> 8));
+        cost = 8;
+    }
+
+    /** set 5,l */
+    private final void op_cbed() {
+        setL(setbit(5, hl & 0xff));
+        cost = 8;
+    }
+
+    /** set 5,(hl) */
+    private final void op_cbee() {
+        bus.pokeb(getHL(), setbit(5, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** set 5,a */
+    private final void op_cbef() {
+        a = setbit(5, a);
+        cost = 8;
+    }
+
+    /** set 6,b */
+    private final void op_cbf0() {
+        setB(setbit(6, bc >> 8));
+        cost = 8;
+    }
+
+    /** set 6,c */
+    private final void op_cbf1() {
+        setC(setbit(6, bc & 0xff));
+        cost = 8;
+    }
+
+    /** set 6,d */
+    private final void op_cbf2() {
+        setD(setbit(6, de >> 8));
+        cost = 8;
+    }
+
+    /** set 6,e */
+    private final void op_cbf3() {
+        setE(setbit(6, de & 0xff));
+        cost = 8;
+    }
+
+    /** set 6,h */
+    private final void op_cbf4() {
+        setH(setbit(6, hl >> 8));
+        cost = 8;
+    }
+
+    /** set 6,l */
+    private final void op_cbf5() {
+        setL(setbit(6, hl & 0xff));
+        cost = 8;
+    }
+
+    /** set 6,(hl) */
+    private final void op_cbf6() {
+        bus.pokeb(getHL(), setbit(6, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** set 6,a */
+    private final void op_cbf7() {
+        a = setbit(6, a);
+        cost = 8;
+    }
+
+    /** set 7,b */
+    private final void op_cbf8() {
+        setB(setbit(7, bc >> 8));
+        cost = 8;
+    }
+
+    /** set 7,c */
+    private final void op_cbf9() {
+        setC(setbit(7, bc & 0xff));
+        cost = 8;
+    }
+
+    /** set 7,d */
+    private final void op_cbfa() {
+        setD(setbit(7, de >> 8));
+        cost = 8;
+    }
+
+    /** set 7,e */
+    private final void op_cbfb() {
+        setE(setbit(7, de & 0xff));
+        cost = 8;
+    }
+
+    /** set 7,h */
+    private final void op_cbfc() {
+        setH(setbit(7, hl >> 8));
+        cost = 8;
+    }
+
+    /** set 7,l */
+    private final void op_cbfd() {
+        setL(setbit(7, hl & 0xff));
+        cost = 8;
+    }
+
+    /** set 7,(hl) */
+    private final void op_cbfe() {
+        bus.pokeb(getHL(), setbit(7, bus.peekb(getHL())));
+        cost = 15;
+    }
+
+    /** set 7,a */
+    private final void op_cbff() {
+        a = setbit(7, a);
+        cost = 8;
+    }
+
+    /** dd xx [b|ww] */
+    private final void exec_dd() {
+        int v = fetchb();
+
+        ops_dd[v].exec();
+    }
+
+    /** add ix,bc */
+    private final void op_dd09() {
+        ix = add16bit(ix, getBC());
+        cost = 15;
+    }
+
+    /** add ix,de */
+    private final void op_dd19() {
+        ix = add16bit(ix, getDE());
+        cost = 15;
+    }
+
+    /** ld ix,nn */
+    private final void op_dd21() {
+        ix = fetchw();
+        cost = 14;
+    }
+
+    /** ld (nn),ix */
+    private final void op_dd22() {
+        bus.pokew(fetchw(), ix);
+        cost = 20;
+    }
+
+    /** inc ix */
+    private final void op_dd23() {
+        ix = add16bitInternal(ix, 1);
+        cost = 10;
+    }
+
+    /** add ix,ix */
+    private final void op_dd29() {
+        ix = add16bit(ix, ix);
+        cost = 15;
+    }
+
+    /** ld ix,(nn) */
+    private final void op_dd2a() {
+        ix = bus.peekw(fetchw());
+        cost = 20;
+    }
+
+    /** dec ix */
+    private final void op_dd2b() {
+        ix = sub16bitInternal(ix, 1);
+        cost = 10;
+    }
+
+    /** inc (ix+d) */
+    private final void op_dd34() {
+        int i = index(ix, fetchb());
+        int w = bus.peekb(i);
+        bus.pokeb(i, inc8bit(w));
+        cost = 23;
+    }
+
+    /** dec (ix+d) */
+    private final void op_dd35() {
+        int i = index(ix, fetchb());
+        int w = bus.peekb(i);
+        bus.pokeb(i, dec8bit(w));
+        cost = 23;
+    }
+
+    /** ld (ix+d),n */
+    private final void op_dd36() {
+        int i = index(ix, fetchb());
+        bus.pokeb(i, fetchb());
+        cost = 19;
+    }
+
+    /** add ix,sp */
+    private final void op_dd39() {
+        ix = add16bit(ix, sp);
+        cost = 15;
+    }
+
+    /** ld b,(ix+d) */
+    private final void op_dd46() {
+        int i = index(ix, fetchb());
+        setB(bus.peekb(i));
+        cost = 19;
+    }
+
+    /** ld c,(ix+d) */
+    private final void op_dd4e() {
+        int i = index(ix, fetchb());
+        setC(bus.peekb(i));
+        cost = 19;
+    }
+
+    /** ld d,(ix+d) */
+    private final void op_dd56() {
+        int i = index(ix, fetchb());
+        setD(bus.peekb(i));
+        cost = 19;
+    }
+
+    /** ld e,(ix+d) */
+    private final void op_dd5e() {
+        int i = index(ix, fetchb());
+        setE(bus.peekb(i));
+        cost = 19;
+    }
+
+    /** ld h,(ix+d) */
+    private final void op_dd66() {
+        int i = index(ix, fetchb());
+        setH(bus.peekb(i));
+        cost = 19;
+    }
+
+    /** ld l,(ix+d) */
+    private final void op_dd6e() {
+        int i = index(ix, fetchb());
+        setL(bus.peekb(i));
+        cost = 19;
+    }
+
+    /** ld (ix+d),b */
+    private final void op_dd70() {
+        int i = index(ix, fetchb());
+        bus.pokeb(i, bc >> 8);
+        cost = 19;
+    }
+
+    /** ld (ix+d),c */
+    private final void op_dd71() {
+        int i = index(ix, fetchb());
+        bus.pokeb(i, bc & 0xff);
+        cost = 19;
+    }
+
+    /** ld (ix+d),d */
+    private final void op_dd72() {
+        int i = index(ix, fetchb());
+        bus.pokeb(i, de >> 8);
+        cost = 19;
+    }
+
+    /** ld (ix+d),e */
+    private final void op_dd73() {
+        int i = index(ix, fetchb());
+        bus.pokeb(i, de & 0xff);
+        cost = 19;
+    }
+
+    /** ld (ix+d),h */
+    private final void op_dd74() {
+        int i = index(ix, fetchb());
+        bus.pokeb(i, hl >> 8);
+        cost = 19;
+    }
+
+    /** ld (ix+d),l */
+    private final void op_dd75() {
+        int i = index(ix, fetchb());
+        bus.pokeb(i, hl & 0xff);
+        cost = 19;
+    }
+
+    /** ld (ix+d),a */
+    private final void op_dd77() {
+        int i = index(ix, fetchb());
+        bus.pokeb(i, a);
+        cost = 19;
+    }
+
+    /** ld a,(ix+d) */
+    private final void op_dd7e() {
+        int i = index(ix, fetchb());
+        a = bus.peekb(i);
+        cost = 19;
+    }
+
+    /** add a,(ix+d) */
+    private final void op_dd86() {
+        int i = index(ix, fetchb());
+        int w = bus.peekb(i);
+        a = add8bit(a, w);
+        cost = 19;
+    }
+
+    /** adc a,(ix+d) */
+    private final void op_dd8e() {
+        int i = index(ix, fetchb());
+        int w = bus.peekb(i);
+        a = adc8bit(a, w);
+        cost = 19;
+    }
+
+    /** sub a,(ix+d) */
+    private final void op_dd96() {
+        int i = index(ix, fetchb());
+        int w = bus.peekb(i);
+        a = sub8bit(a, w);
+        cost = 19;
+    }
+
+    /** sbc a,(ix+d) */
+    private final void op_dd9e() {
+        int i = index(ix, fetchb());
+        int w = bus.peekb(i);
+        a = sbc8bit(a, w);
+        cost = 19;
+    }
+
+    /** and (ix+d) */
+    private final void op_dda6() {
+        int i = index(ix, fetchb());
+        int w = bus.peekb(i);
+        a = and8bit(a, w);
+        cost = 19;
+    }
+
+    /** xor (ix+d) */
+    private final void op_ddae() {
+        int i = index(ix, fetchb());
+        int w = bus.peekb(i);
+        a = xor8bit(a, w);
+        cost = 19;
+    }
+
+    /** or (ix+d) */
+    private final void op_ddb6() {
+        int i = index(ix, fetchb());
+        int w = bus.peekb(i);
+        a = or8bit(a, w);
+        cost = 19;
+    }
+
+    /** cp (ix+d) */
+    private final void op_ddbe() {
+        int i = index(ix, fetchb());
+        int w = bus.peekb(i);
+        cmp8bit(a, w);
+        cost = 19;
+    }
+
+    /** pop ix */
+    private final void op_dde1() {
+        ix = pop();
+        cost = 14;
+    }
+
+    /** ex (sp),ix */
+    private final void op_dde3() {
+        int t = bus.peekw(sp);
+        bus.pokew(sp, ix);
+        ix = t;
+        cost = 23;
+    }
+
+    /** push ix */
+    private final void op_dde5() {
+        push(ix);
+        cost = 15;
+    }
+
+    /** jp (ix) */
+    private final void op_dde9() {
+        pc = ix;
+        cost = 8;
+    }
+
+    /** ld sp,ix */
+    private final void op_ddf9() {
+        sp = ix;
+        cost = 10;
+    }
+
+    /**
+     * dd cb b xx
+     * <p>
+     * 最後に pc += 2 するので fetch 用いない (以下同様)
+     * </p>
+     */
+    private final void exec_ddcb() {
+        int v = bus.peekb(pc + 1);
+
+        ops_ddcb[v].exec();
+
+        pc = add16bitInternal(pc, 2);
+    }
+
+    /** rlc (ix+d) */
+    private final void op_ddcb06() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, rlc(w, true));
+        cost = 23;
+    }
+
+    /** rrc (ix+d) */
+    private final void op_ddcb0e() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, rrc(w, true));
+        cost = 23;
+    }
+
+    /** rl (ix+d) */
+    private final void op_ddcb16() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, rl(w, true));
+        cost = 23;
+    }
+
+    /** rr (ix+d) */
+    private final void op_ddcb1e() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, rr(w, true));
+        cost = 23;
+    }
+
+    /** sla (ix+d) */
+    private final void op_ddcb26() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, sla(w));
+        cost = 23;
+    }
+
+    /** sra (ix+d) */
+    private final void op_ddcb2e() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, sra(w));
+        cost = 23;
+    }
+
+    /** srl (ix+d) */
+    private final void op_ddcb3e() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, srl(w));
+        cost = 23;
+    }
+
+    /** bit 0,(ix+d) */
+    private final void op_ddcb46() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(0, w);
+        cost = 20;
+    }
+
+    /** bit 1,(ix+d) */
+    private final void op_ddcb4e() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(1, w);
+        cost = 20;
+    }
+
+    /** bit 2,(ix+d) */
+    private final void op_ddcb56() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(2, w);
+        cost = 20;
+    }
+
+    /** bit 3,(ix+d) */
+    private final void op_ddcb5e() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(3, w);
+        cost = 20;
+    }
+
+    /** bit 4,(ix+d) */
+    private final void op_ddcb66() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(4, w);
+        cost = 20;
+    }
 
-        case 0x80: // res 0,b
-            b = resetbit(0, b);
-            cost = 8;
-            break;
-        case 0x81: // res 0,c
-            c = resetbit(0, c);
-            cost = 8;
-            break;
-        case 0x82: // res 0,d
-            d = resetbit(0, d);
-            cost = 8;
-            break;
-        case 0x83: // res 0,e
-            e = resetbit(0, e);
-            cost = 8;
-            break;
-        case 0x84: // res 0,h
-            h = resetbit(0, h);
-            cost = 8;
-            break;
-        case 0x85: // res 0,l
-            l = resetbit(0, l);
-            cost = 8;
-            break;
-        case 0x86: // res 0,(hl)
-            bus.pokeb(getHL(), resetbit(0, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0x87: // res 0,a
-            a = resetbit(0, a);
-            cost = 8;
-            break;
+    /** bit 5,(ix+d) */
+    private final void op_ddcb6e() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(5, w);
+        cost = 20;
+    }
 
-        case 0x88: // res 1,b
-            b = resetbit(1, b);
-            cost = 8;
-            break;
-        case 0x89: // res 1,c
-            c = resetbit(1, c);
-            cost = 8;
-            break;
-        case 0x8a: // res 1,d
-            d = resetbit(1, d);
-            cost = 8;
-            break;
-        case 0x8b: // res 1,e
-            e = resetbit(1, e);
-            cost = 8;
-            break;
-        case 0x8c: // res 1,h
-            h = resetbit(1, h);
-            cost = 8;
-            break;
-        case 0x8d: // res 1,l
-            l = resetbit(1, l);
-            cost = 8;
-            break;
-        case 0x8e: // res 1,(hl)
-            bus.pokeb(getHL(), resetbit(1, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0x8f: // res 1,a
-            a = resetbit(1, a);
-            cost = 8;
-            break;
+    /** bit 6,(ix+d) */
+    private final void op_ddcb76() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(6, w);
+        cost = 20;
+    }
 
-        case 0x90: // res 2,b
-            b = resetbit(2, b);
-            cost = 8;
-            break;
-        case 0x91: // res 2,c
-            c = resetbit(2, c);
-            cost = 8;
-            break;
-        case 0x92: // res 2,d
-            d = resetbit(2, d);
-            cost = 8;
-            break;
-        case 0x93: // res 2,e
-            e = resetbit(2, e);
-            cost = 8;
-            break;
-        case 0x94: // res 2,h
-            h = resetbit(2, h);
-            cost = 8;
-            break;
-        case 0x95: // res 2,l
-            l = resetbit(2, l);
-            cost = 8;
-            break;
-        case 0x96: // res 2,(hl)
-            bus.pokeb(getHL(), resetbit(2, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0x97: // res 2,a
-            a = resetbit(2, a);
-            cost = 8;
-            break;
+    /** bit 7,(ix+d) */
+    private final void op_ddcb7e() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(7, w);
+        cost = 20;
+    }
 
-        case 0x98: // res 3,b
-            b = resetbit(3, b);
-            cost = 8;
-            break;
-        case 0x99: // res 3,c
-            c = resetbit(3, c);
-            cost = 8;
-            break;
-        case 0x9a: // res 3,d
-            d = resetbit(3, d);
-            cost = 8;
-            break;
-        case 0x9b: // res 3,e
-            e = resetbit(3, e);
-            cost = 8;
-            break;
-        case 0x9c: // res 3,h
-            h = resetbit(3, h);
-            cost = 8;
-            break;
-        case 0x9d: // res 3,l
-            l = resetbit(3, l);
-            cost = 8;
-            break;
-        case 0x9e: // res 3,(hl)
-            bus.pokeb(getHL(), resetbit(3, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0x9f: // res 3,a
-            a = resetbit(3, a);
-            cost = 8;
-            break;
+    /** res 0,(ix+d) */
+    private final void op_ddcb86() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(0, w));
+        cost = 23;
+    }
+
+    /** res 1,(ix+d) */
+    private final void op_ddcb8e() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(1, w));
+        cost = 23;
+    }
+
+    /** res 2,(ix+d) */
+    private final void op_ddcb96() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(2, w));
+        cost = 23;
+    }
+
+    /** res 3,(ix+d) */
+    private final void op_ddcb9e() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(3, w));
+        cost = 23;
+    }
+
+    /** res 4,(ix+d) */
+    private final void op_ddcba6() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(4, w));
+        cost = 23;
+    }
+
+    /** res 5,(ix+d) */
+    private final void op_ddcbae() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(5, w));
+        cost = 23;
+    }
+
+    /** res 6,(ix+d) */
+    private final void op_ddcbb6() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(6, w));
+        cost = 23;
+    }
+
+    /** res 7,(ix+d) */
+    private final void op_ddcbbe() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(7, w));
+        cost = 23;
+    }
+
+    /** set 0,(ix+d) */
+    private final void op_ddcbc6() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(0, w));
+        cost = 23;
+    }
+
+    /** set 1,(ix+d) */
+    private final void op_ddcbce() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(1, w));
+        cost = 23;
+    }
+
+    /** set 2,(ix+d) */
+    private final void op_ddcbd6() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(2, w));
+        cost = 23;
+    }
+
+    /** set 3,(ix+d) */
+    private final void op_ddcbde() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(3, w));
+        cost = 23;
+    }
+
+    /** set 4,(ix+d) */
+    private final void op_ddcbe6() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(4, w));
+        cost = 23;
+    }
+
+    /** set 5,(ix+d) */
+    private final void op_ddcbee() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(5, w));
+        cost = 23;
+    }
+
+    /** set 6,(ix+d) */
+    private final void op_ddcbf6() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(6, w));
+        cost = 23;
+    }
+
+    /** set 7,(ix+d) */
+    private final void op_ddcbfe() {
+        int i = index(ix, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(7, w));
+        cost = 23;
+    }
+
+    /** ed xx [w] */
+    private final void exec_ed() {
+
+        int o = fetchb();
+
+        r = inc8bitInternal(r);
+
+        ops_ed[o].exec();
+    }
+
+    /** in b,(c) */
+    private final void op_ed40() {
+        setB(inpc());
+        cost = 12;
+    }
+
+    /** in c,(c) */
+    private final void op_ed48() {
+        setC(inpc());
+        cost = 12;
+    }
+
+    /** in d,(c) */
+    private final void op_ed50() {
+        setD(inpc());
+        cost = 12;
+    }
+
+    /** in e,(c) */
+    private final void op_ed58() {
+        setE(inpc());
+        cost = 12;
+    }
+
+    /** in h,(c) */
+    private final void op_ed60() {
+        setH(inpc());
+        cost = 12;
+    }
+
+    /** in l,(c) */
+    private final void op_ed68() {
+        setL(inpc());
+        cost = 12;
+    }
+
+    /** in a,(c) */
+    private final void op_ed78() {
+        a = inpc();
+        cost = 12;
+    }
+
+    /** out (c),b */
+    private final void op_ed41() {
+        outp(getBC(), bc >> 8);
+        cost = 12;
+    }
+
+    /** out (c),c */
+    private final void op_ed49() {
+        outp(getBC(), bc & 0xff);
+        cost = 12;
+    }
+
+    /** out (c),d */
+    private final void op_ed51() {
+        outp(getBC(), de >> 8);
+        cost = 12;
+    }
+
+    /** out (c),e */
+    private final void op_ed59() {
+        outp(getBC(), de & 0xff);
+        cost = 12;
+    }
+
+    /** out (c),h */
+    private final void op_ed61() {
+        outp(getBC(), hl >> 8);
+        cost = 12;
+    }
+
+    /** out (c),l */
+    private final void op_ed69() {
+        outp(getBC(), hl & 0xff);
+        cost = 12;
+    }
+
+    /** out (c),a */
+    private final void op_ed79() {
+        outp(getBC(), a);
+        cost = 12;
+    }
+
+    /** sbc hl,bc */
+    private final void op_ed42() {
+        setHL(sbc16bit(getHL(), getBC()));
+        cost = 15;
+    }
+
+    /** sbc hl,de */
+    private final void op_ed52() {
+        setHL(sbc16bit(getHL(), getDE()));
+        cost = 15;
+    }
+
+    /** sbc hl,hl */
+    private final void op_ed62() {
+        setHL(sbc16bit(getHL(), getHL()));
+        cost = 15;
+    }
+
+    /** sbc hl,sp */
+    private final void op_ed72() {
+        setHL(sbc16bit(getHL(), sp));
+        cost = 15;
+    }
+
+    /** adc hl,bc */
+    private final void op_ed4a() {
+        setHL(adc16bit(getHL(), getBC()));
+        cost = 15;
+    }
+
+    /** adc hl,de */
+    private final void op_ed5a() {
+        setHL(adc16bit(getHL(), getDE()));
+        cost = 15;
+    }
+
+    /** adc hl,hl */
+    private final void op_ed6a() {
+        setHL(adc16bit(getHL(), getHL()));
+        cost = 15;
+    }
+
+    /** adc hl,sp */
+    private final void op_ed7a() {
+        setHL(adc16bit(getHL(), sp));
+        cost = 15;
+    }
+
+    /** ld (nn),bc */
+    private final void op_ed43() {
+        bus.pokew(fetchw(), getBC());
+        cost = 20;
+    }
+
+    /** ld (nn),de */
+    private final void op_ed53() {
+        bus.pokew(fetchw(), getDE());
+        cost = 20;
+    }
+
+    /** ld (nn),sp */
+    private final void op_ed73() {
+        bus.pokew(fetchw(), sp);
+        cost = 20;
+    }
+
+    /** ld bc,(nn) */
+    private final void op_ed4b() {
+        setBC(bus.peekw(fetchw()));
+        cost = 20;
+    }
+
+    /** ld de,(nn) */
+    private final void op_ed5b() {
+        setDE(bus.peekw(fetchw()));
+        cost = 20;
+    }
+
+    /** ld sp,(nn) */
+    private final void op_ed7b() {
+        sp = bus.peekw(fetchw());
+        cost = 20;
+    }
+
+    /** neg */
+    private final void op_ed44() {
+        a = sub8bit(0, a);
+
+        cost = 8;
+    }
+
+    /** retn */
+    private final void op_ed45() {
+        iff1 = iff2;
+        pc = pop();
+        cost = 14;
+    }
+
+    /** reti */
+    private final void op_ed4d() {
+        iff1 = iff2;
+        pc = pop();
+        cost = 14;
+    }
+
+    /** im 0 */
+    private final void op_ed46() {
+        im = 0;
+Debug.println("im 0");
+        cost = 8;
+    }
+
+    /** im 1 */
+    private final void op_ed56() {
+        im = 1;
+Debug.println("im 1");
+        cost = 8;
+    }
+
+    /** im 2 */
+    private final void op_ed5e() {
+        im = 2;
+Debug.println("im 2");
+        cost = 8;
+    }
+
+    /** ld i,a */
+    private final void op_ed47() {
+        i = a;
+        cost = 9;
+    }
+
+    /** ld r,a */
+    private final void op_ed4f() {
+        r = a;
+        r7 = r;
+        cost = 9;
+    }
+
+    /** ld a,i */
+    private final void op_ed57() {
+        a = i;
+
+        evalFlags();
+        f = (f & (FBIT_C | FBIT_3 | FBIT_5)) | (a & FBIT_S) | (a == 0 ? FBIT_Z : 0) | (iff2 ? FBIT_P : 0);
+
+        cost = 9;
+    }
+
+    /** ld a,r */
+    private final void op_ed5f() {
+        a = (r & 0x7f) | (r7 & 0x80);
+
+        evalFlags();
+        f = (f & (FBIT_C | FBIT_3 | FBIT_5)) | (a & FBIT_S) | (a == 0 ? FBIT_Z : 0) | (iff2 ? FBIT_P : 0);
+
+        cost = 9;
+    }
+
+    /** rrd */
+    private final void op_ed67() {
+        int v = bus.peekb(getHL());
+
+        a = (a & 0xf0) | (v & 0x0f);
+        bus.pokeb(getHL(), ((v & 0xf0) >> 4) | ((v & 0x0f) << 4));
+
+        evalFlags();
+        f = (f & (FBIT_C | FBIT_3 | FBIT_5)) | szp_tbl[a];
+
+        cost = 18;
+    }
+
+    /** rld */
+    private final void op_ed6f() {
+        int v = bus.peekb(getHL());
+
+        a = (a & 0xf0) | ((v & 0xf0) >> 4);
+        bus.pokeb(getHL(), ((v & 0x0f) << 4) | ((v & 0xf0) >> 4));
+
+        evalFlags();
+        f = (f & (FBIT_C | FBIT_3 | FBIT_5)) | szp_tbl[a];
+
+        cost = 18;
+    }
+
+    /** ldi */
+    private final void op_eda0() {
+        ldi();
+        cost = 16;
+    }
+
+    /** cpi */
+    private final void op_eda1() {
+        cpi();
+        cost = 16;
+    }
+
+    /** ini */
+    private final void op_eda2() {
+        ini();
+        cost = 16;
+    }
+
+    /** outi */
+    private final void op_eda3() {
+        outi();
+        cost = 16;
+    }
+
+    /** ldd */
+    private final void op_eda8() {
+        ldd();
+        cost = 16;
+    }
+
+    /** cpd */
+    private final void op_eda9() {
+        cpd();
+        cost = 16;
+    }
+
+    /** ind */
+    private final void op_edaa() {
+        ind();
+        cost = 16;
+    }
+
+    /** outd */
+    private final void op_edab() {
+        outd();
+        cost = 16;
+    }
+
+    /** ldir */
+    private final void op_edb0() {
+        ldr(1);
+    }
+
+    /** cpir */
+    private final void op_edb1() {
+        cpr(1);
+    }
+
+    /** inir */
+    private final void op_edb2() {
+        cost = 0;
+        do {
+            ini();
+            cost += 21;
+        } while (!isZ() && !isSplit());
+        repeat(!isZ());
+    }
+
+    /** otir */
+    private final void op_edb3() {
+        cost = 0;
+        do {
+            outi();
+            cost += 21;
+        } while (!isZ() && !isSplit());
+        repeat(!isZ());
+    }
+
+    /** lddr */
+    private final void op_edb8() {
+        ldr(-1);
+    }
+
+    /** cpdr */
+    private final void op_edb9() {
+        cpr(-1);
+    }
+
+    /** indr */
+    private final void op_edba() {
+        cost = 0;
+        do {
+            ind();
+            cost += 21;
+        } while (!isZ() && !isSplit());
+        repeat(!isZ());
+    }
+
+    /** otdr */
+    private final void op_edbb() {
+        cost = 0;
+        do {
+            outd();
+            cost += 21;
+        } while (!isZ() && !isSplit());
+        repeat(!isZ());
+    }
+
+    /**
+     * a block instruction is split at the instruction boundary where a step
+     * would run device events or an interrupt. it is executed again from
+     * the next step, as the real cpu does.
+     */
+    private final boolean isSplit() {
+        return cycles + cost >= scheduler.getDeadline();
+    }
+
+    /**
+     * @param bc repeat counter, 0 means 65536
+     * @return repeats of 21 T-states until {@link #isSplit()}, 1 at least
+     */
+    private final int repeats(int bc) {
+        int count = bc == 0 ? 0x10000 : bc;
+        long repeats = (scheduler.getDeadline() - cycles - cost + 20) / 21;
+        return (int) Math.max(1, Math.min(count, repeats));
+    }
+
+    /** ends a block instruction, repeats it from the next step if not finished */
+    private final void repeat(boolean repeating) {
+        if (repeating) {
+            pc = sub16bitInternal(pc, 2);
+        } else {
+            cost -= 5;
+        }
+    }
 
-        case 0xa0: // res 4,b
-            b = resetbit(4, b);
-            cost = 8;
-            break;
-        case 0xa1: // res 4,c
-            c = resetbit(4, c);
-            cost = 8;
-            break;
-        case 0xa2: // res 4,d
-            d = resetbit(4, d);
-            cost = 8;
-            break;
-        case 0xa3: // res 4,e
-            e = resetbit(4, e);
-            cost = 8;
-            break;
-        case 0xa4: // res 4,h
-            h = resetbit(4, h);
-            cost = 8;
-            break;
-        case 0xa5: // res 4,l
-            l = resetbit(4, l);
-            cost = 8;
-            break;
-        case 0xa6: // res 4,(hl)
-            bus.pokeb(getHL(), resetbit(4, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0xa7: // res 4,a
-            a = resetbit(4, a);
-            cost = 8;
-            break;
+    /** ldir, lddr, plain memory is copied in bulk */
+    private final void ldr(int step) {
+        int bc = getBC();
+        int hl = getHL();
+        int de = getDE();
+        cost = 0;
+        do {
+            int n = bus.copy(hl, de, repeats(bc), step);
+            if (n == 0) {
+                bus.pokeb(de, bus.peekb(hl));
+                n = 1;
+            }
+            hl = (hl + step * n) & 0xffff;
+            de = (de + step * n) & 0xffff;
+            bc = (bc - n) & 0xffff;
+            cost += 21 * n;
+        } while (bc != 0 && !isSplit());
+        setHL(hl);
+        setDE(de);
+        setBC(bc);
+
+        evalFlags();
+        f = (f & ~(FBIT_P | FBIT_H | FBIT_N)) | (bc != 0 ? FBIT_P : 0);
+        repeat(bc != 0);
+    }
 
-        case 0xa8: // res 5,b
-            b = resetbit(5, b);
-            cost = 8;
-            break;
-        case 0xa9: // res 5,c
-            c = resetbit(5, c);
-            cost = 8;
-            break;
-        case 0xaa: // res 5,d
-            d = resetbit(5, d);
-            cost = 8;
-            break;
-        case 0xab: // res 5,e
-            e = resetbit(5, e);
-            cost = 8;
-            break;
-        case 0xac: // res 5,h
-            h = resetbit(5, h);
-            cost = 8;
-            break;
-        case 0xad: // res 5,l
-            l = resetbit(5, l);
-            cost = 8;
-            break;
-        case 0xae: // res 5,(hl)
-            bus.pokeb(getHL(), resetbit(5, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0xaf: // res 5,a
-            a = resetbit(5, a);
-            cost = 8;
-            break;
+    /** cpir, cpdr, memory is searched in bulk */
+    private final void cpr(int step) {
+        int bc = getBC();
+        int hl = getHL();
+        int v;
+        cost = 0;
+        do {
+            int n = bus.find(hl, a, repeats(bc), step);
+            if (n == 0) {
+                n = 1;
+            }
+            v = bus.peekb(hl + step * (n - 1));
+            hl = (hl + step * n) & 0xffff;
+            bc = (bc - n) & 0xffff;
+            cost += 21 * n;
+        } while (bc != 0 && v != a && !isSplit());
+        setHL(hl);
+        setBC(bc);
+
+        cmp8bit(a, v);
+        evalFlags();
+        f = (f & ~FBIT_P) | (bc != 0 ? FBIT_P : 0);
+        repeat(bc != 0 && v != a);
+    }
 
-        case 0xb0: // res 6,b
-            b = resetbit(6, b);
-            cost = 8;
-            break;
-        case 0xb1: // res 6,c
-            c = resetbit(6, c);
-            cost = 8;
-            break;
-        case 0xb2: // res 6,d
-            d = resetbit(6, d);
-            cost = 8;
-            break;
-        case 0xb3: // res 6,e
-            e = resetbit(6, e);
-            cost = 8;
-            break;
-        case 0xb4: // res 6,h
-            h = resetbit(6, h);
-            cost = 8;
-            break;
-        case 0xb5: // res 6,l
-            l = resetbit(6, l);
-            cost = 8;
-            break;
-        case 0xb6: // res 6,(hl)
-            bus.pokeb(getHL(), resetbit(6, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0xb7: // res 6,a
-            a = resetbit(6, a);
-            cost = 8;
-            break;
+    /** ldi */
+    private final void ldi() {
+        bus.pokeb(getDE(), bus.peekb(getHL()));
 
-        case 0xb8: // res 7,b
-            b = resetbit(7, b);
-            cost = 8;
-            break;
-        case 0xb9: // res 7,c
-            c = resetbit(7, c);
-            cost = 8;
-            break;
-        case 0xba: // res 7,d
-            d = resetbit(7, d);
-            cost = 8;
-            break;
-        case 0xbb: // res 7,e
-            e = resetbit(7, e);
-            cost = 8;
-            break;
-        case 0xbc: // res 7,h
-            h = resetbit(7, h);
-            cost = 8;
-            break;
-        case 0xbd: // res 7,l
-            l = resetbit(7, l);
-            cost = 8;
-            break;
-        case 0xbe: // res 7,(hl)
-            bus.pokeb(getHL(), resetbit(7, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0xbf: // res 7,a
-            a = resetbit(7, a);
-            cost = 8;
-            break;
+        setDE(getDE() + 1);
+        setHL(getHL() + 1);
+        setBC(getBC() - 1);
 
-        case 0xc0: // set 0,b
-            b = setbit(0, b);
-            cost = 8;
-            break;
-        case 0xc1: // set 0,c
-            c = setbit(0, c);
-            cost = 8;
-            break;
-        case 0xc2: // set 0,d
-            d = setbit(0, d);
-            cost = 8;
-            break;
-        case 0xc3: // set 0,e
-            e = setbit(0, e);
-            cost = 8;
-            break;
-        case 0xc4: // set 0,h
-            h = setbit(0, h);
-            cost = 8;
-            break;
-        case 0xc5: // set 0,l
-            l = setbit(0, l);
-            cost = 8;
-            break;
-        case 0xc6: // set 0,(hl)
-            bus.pokeb(getHL(), setbit(0, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0xc7: // set 0,a
-            a = setbit(0, a);
-            cost = 8;
-            break;
+        evalFlags();
+        f = (f & ~(FBIT_P | FBIT_H | FBIT_N)) | (getBC() != 0 ? FBIT_P : 0);
+    }
 
-        case 0xc8: // set 1,b
-            b = setbit(1, b);
-            cost = 8;
-            break;
-        case 0xc9: // set 1,c
-            c = setbit(1, c);
-            cost = 8;
-            break;
-        case 0xca: // set 1,d
-            d = setbit(1, d);
-            cost = 8;
-            break;
-        case 0xcb: // set 1,e
-            e = setbit(1, e);
-            cost = 8;
-            break;
-        case 0xcc: // set 1,h
-            h = setbit(1, h);
-            cost = 8;
-            break;
-        case 0xcd: // set 1,l
-            l = setbit(1, l);
-            cost = 8;
-            break;
-        case 0xce: // set 1,(hl)
-            bus.pokeb(getHL(), setbit(1, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0xcf: // set 1,a
-            a = setbit(1, a);
-            cost = 8;
-            break;
+    /** cpi */
+    private final void cpi() {
+        cmp8bit(a, bus.peekb(getHL()));
 
-        case 0xd0: // set 2,b
-            b = setbit(2, b);
-            cost = 8;
-            break;
-        case 0xd1: // set 2,c
-            c = setbit(2, c);
-            cost = 8;
-            break;
-        case 0xd2: // set 2,d
-            d = setbit(2, d);
-            cost = 8;
-            break;
-        case 0xd3: // set 2,e
-            e = setbit(2, e);
-            cost = 8;
-            break;
-        case 0xd4: // set 2,h
-            h = setbit(2, h);
-            cost = 8;
-            break;
-        case 0xd5: // set 2,l
-            l = setbit(2, l);
-            cost = 8;
-            break;
-        case 0xd6: // set 2,(hl)
-            bus.pokeb(getHL(), setbit(2, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0xd7: // set 2,a
-            a = setbit(2, a);
-            cost = 8;
-            break;
+        setHL(getHL() + 1);
+        setBC(getBC() - 1);
 
-        case 0xd8: // set 3,b
-            b = setbit(3, b);
-            cost = 8;
-            break;
-        case 0xd9: // set 3,c
-            c = setbit(3, c);
-            cost = 8;
-            break;
-        case 0xda: // set 3,d
-            d = setbit(3, d);
-            cost = 8;
-            break;
-        case 0xdb: // set 3,e
-            e = setbit(3, e);
-            cost = 8;
-            break;
-        case 0xdc: // set 3,h
-            h = setbit(3, h);
-            cost = 8;
-            break;
-        case 0xdd: // set 3,l
-            l = setbit(3, l);
-            cost = 8;
-            break;
-        case 0xde: // set 3,(hl)
-            bus.pokeb(getHL(), setbit(3, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0xdf: // set 3,a
-            a = setbit(3, a);
-            cost = 8;
-            break;
+        evalFlags();
+        f = (f & ~FBIT_P) | (getBC() != 0 ? FBIT_P : 0);
+    }
 
-        case 0xe0: // set 4,b
-            b = setbit(4, b);
-            cost = 8;
-            break;
-        case 0xe1: // set 4,c
-            c = setbit(4, c);
-            cost = 8;
-            break;
-        case 0xe2: // set 4,d
-            d = setbit(4, d);
-            cost = 8;
-            break;
-        case 0xe3: // set 4,e
-            e = setbit(4, e);
-            cost = 8;
-            break;
-        case 0xe4: // set 4,h
-            h = setbit(4, h);
-            cost = 8;
-            break;
-        case 0xe5: // set 4,l
-            l = setbit(4, l);
-            cost = 8;
-            break;
-        case 0xe6: // set 4,(hl)
-            bus.pokeb(getHL(), setbit(4, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0xe7: // set 4,a
-            a = setbit(4, a);
-            cost = 8;
-            break;
+    /** ini */
+    private final void ini() {
+        bus.pokeb(getHL(), inpc());
 
-        case 0xe8: // set 5,b
-            b = setbit(5, b);
-            cost = 8;
-            break;
-        case 0xe9: // set 5,c
-            c = setbit(5, c);
-            cost = 8;
-            break;
-        case 0xea: // set 5,d
-            d = setbit(5, d);
-            cost = 8;
-            break;
-        case 0xeb: // set 5,e
-            e = setbit(5, e);
-            cost = 8;
-            break;
-        case 0xec: // set 5,h
-            h = setbit(5, h);
-            cost = 8;
-            break;
-        case 0xed: // set 5,l
-            l = setbit(5, l);
-            cost = 8;
-            break;
-        case 0xee: // set 5,(hl)
-            bus.pokeb(getHL(), setbit(5, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0xef: // set 5,a
-            a = setbit(5, a);
-            cost = 8;
-            break;
+        setHL(getHL() + 1);
+        setB(dec8bitInternal(bc >> 8));
 
-        case 0xf0: // set 6,b
-            b = setbit(6, b);
-            cost = 8;
-            break;
-        case 0xf1: // set 6,c
-            c = setbit(6, c);
-            cost = 8;
-            break;
-        case 0xf2: // set 6,d
-            d = setbit(6, d);
-            cost = 8;
-            break;
-        case 0xf3: // set 6,e
-            e = setbit(6, e);
-            cost = 8;
-            break;
-        case 0xf4: // set 6,h
-            h = setbit(6, h);
-            cost = 8;
-            break;
-        case 0xf5: // set 6,l
-            l = setbit(6, l);
-            cost = 8;
-            break;
-        case 0xf6: // set 6,(hl)
-            bus.pokeb(getHL(), setbit(6, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0xf7: // set 6,a
-            a = setbit(6, a);
-            cost = 8;
-            break;
+        evalFlags();
+        f = (f & ~FBIT_Z) | ((bc >> 8) == 0 ? FBIT_Z : 0) | FBIT_N;
+    }
 
-        case 0xf8: // set 7,b
-            b = setbit(7, b);
-            cost = 8;
-            break;
-        case 0xf9: // set 7,c
-            c = setbit(7, c);
-            cost = 8;
-            break;
-        case 0xfa: // set 7,d
-            d = setbit(7, d);
-            cost = 8;
-            break;
-        case 0xfb: // set 7,e
-            e = setbit(7, e);
-            cost = 8;
-            break;
-        case 0xfc: // set 7,h
-            h = setbit(7, h);
-            cost = 8;
-            break;
-        case 0xfd: // set 7,l
-            l = setbit(7, l);
-            cost = 8;
-            break;
-        case 0xfe: // set 7,(hl)
-            bus.pokeb(getHL(), setbit(7, bus.peekb(getHL())));
-            cost = 15;
-            break;
-        case 0xff: // set 7,a
-            a = setbit(7, a);
-            cost = 8;
-            break;
+    /** outi */
+    private final void outi() {
+        outp(bc & 0xff, bus.peekb(getHL()));
 
-        default:
-            Debug.println("Unknown instruction : " + StringUtil.toHex2(v));
-            break;
-        }
+        setHL(getHL() + 1);
+        setB(dec8bitInternal(bc >> 8));
+
+        evalFlags();
+        f = (f & ~FBIT_Z) | ((bc >> 8) == 0 ? FBIT_Z : 0) | FBIT_N;
     }
 
-    /** dd xx [b|ww] */
-    private final void exec_dd() {
-        int v = fetchb();
+    /** ldd */
+    private final void ldd() {
+        bus.pokeb(getDE(), bus.peekb(getHL()));
 
-        switch (v) {
-        case 0x09: // add ix,bc
-            ix = add16bit(ix, getBC());
-            cost = 15;
-            break;
-        case 0x19: // add ix,de
-            ix = add16bit(ix, getDE());
-            cost = 15;
-            break;
-        case 0x21: // ld ix,nn
-            ix = fetchw();
-            cost = 14;
-            break;
-        case 0x22: // ld (nn),ix
-            bus.pokew(fetchw(), ix);
-            cost = 20;
-            break;
-        case 0x23: // inc ix
-            ix = add16bitInternal(ix, 1);
-            cost = 10;
-            break;
-        case 0x29: // add ix,ix
-            ix = add16bit(ix, ix);
-            cost = 15;
-            break;
-        case 0x2a: // ld ix,(nn)
-            ix = bus.peekw(fetchw());
-            cost = 20;
-            break;
-        case 0x2b: // dec ix
-            ix = sub16bitInternal(ix, 1);
-            cost = 10;
-            break;
-        case 0x34: { // inc (ix+d)
-            int i = index(ix, fetchb());
-            int w = bus.peekb(i);
-            bus.pokeb(i, inc8bit(w));
-            cost = 23;
-        }
-            break;
-        case 0x35: { // dec (ix+d)
-            int i = index(ix, fetchb());
-            int w = bus.peekb(i);
-            bus.pokeb(i, dec8bit(w));
-            cost = 23;
-        }
-            break;
-        case 0x36: { // ld (ix+d),n
-            int i = index(ix, fetchb());
-            bus.pokeb(i, fetchb());
-            cost = 19;
-        }
-            break;
-        case 0x39: // add ix,sp
-            ix = add16bit(ix, sp);
-            cost = 15;
-            break;
+        setDE(getDE() - 1);
+        setHL(getHL() - 1);
+        setBC(getBC() - 1);
 
-        case 0x46: { // ld b,(ix+d)
-            int i = index(ix, fetchb());
-            b = bus.peekb(i);
-            cost = 19;
-        }
-            break;
-        case 0x4e: { // ld c,(ix+d)
-            int i = index(ix, fetchb());
-            c = bus.peekb(i);
-            cost = 19;
-        }
-            break;
-        case 0x56: { // ld d,(ix+d)
-            int i = index(ix, fetchb());
-            d = bus.peekb(i);
-            cost = 19;
-        }
-            break;
-        case 0x5e: { // ld e,(ix+d)
-            int i = index(ix, fetchb());
-            e = bus.peekb(i);
-            cost = 19;
-        }
-            break;
-        case 0x66: { // ld h,(ix+d)
-            int i = index(ix, fetchb());
-            h = bus.peekb(i);
-            cost = 19;
-        }
-            break;
-        case 0x6e: { // ld l,(ix+d)
-            int i = index(ix, fetchb());
-            l = bus.peekb(i);
-            cost = 19;
-        }
-            break;
+        evalFlags();
+        f = (f & ~(FBIT_P | FBIT_H | FBIT_N)) | (getBC() != 0 ? FBIT_P : 0);
+    }
+
+    /** cpd */
+    private final void cpd() {
+        cmp8bit(a, bus.peekb(getHL()));
+
+        setHL(getHL() - 1);
+        setBC(getBC() - 1);
 
-        case 0x70: { // ld (ix+d),b
-            int i = index(ix, fetchb());
-            bus.pokeb(i, b);
-            cost = 19;
-        }
-            break;
-        case 0x71: { // ld (ix+d),c
-            int i = index(ix, fetchb());
-            bus.pokeb(i, c);
-            cost = 19;
-        }
-            break;
-        case 0x72: { // ld (ix+d),d
-            int i = index(ix, fetchb());
-            bus.pokeb(i, d);
-            cost = 19;
-        }
-            break;
-        case 0x73: { // ld (ix+d),e
-            int i = index(ix, fetchb());
-            bus.pokeb(i, e);
-            cost = 19;
-        }
-            break;
-        case 0x74: { // ld (ix+d),h
-            int i = index(ix, fetchb());
-            bus.pokeb(i, h);
-            cost = 19;
-        }
-            break;
-        case 0x75: { // ld (ix+d),l
-            int i = index(ix, fetchb());
-            bus.pokeb(i, l);
-            cost = 19;
-        }
-            break;
-        case 0x77: { // ld (ix+d),a
-            int i = index(ix, fetchb());
-            bus.pokeb(i, a);
-            cost = 19;
-        }
-            break;
+        evalFlags();
+        f = (f & ~FBIT_P) | (getBC() != 0 ? FBIT_P : 0);
+    }
 
-        case 0x7e: { // ld a,(ix+d)
-            int i = index(ix, fetchb());
-            a = bus.peekb(i);
-            cost = 19;
-        }
-            break;
-        case 0x86: { // add a,(ix+d)
-            int i = index(ix, fetchb());
-            int w = bus.peekb(i);
-            a = add8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0x8e: { // adc a,(ix+d)
-            int i = index(ix, fetchb());
-            int w = bus.peekb(i);
-            a = adc8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0x96: { // sub a,(ix+d)
-            int i = index(ix, fetchb());
-            int w = bus.peekb(i);
-            a = sub8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0x9e: { // sbc a,(ix+d)
-            int i = index(ix, fetchb());
-            int w = bus.peekb(i);
-            a = sbc8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0xa6: { // and (ix+d)
-            int i = index(ix, fetchb());
-            int w = bus.peekb(i);
-            a = and8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0xae: { // xor (ix+d)
-            int i = index(ix, fetchb());
-            int w = bus.peekb(i);
-            a = xor8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0xb6: { // or (ix+d)
-            int i = index(ix, fetchb());
-            int w = bus.peekb(i);
-            a = or8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0xbe: { // cp (ix+d)
-            int i = index(ix, fetchb());
-            int w = bus.peekb(i);
-            cmp8bit(a, w);
-            cost = 19;
-        }
-            break;
+    /** ind */
+    private final void ind() {
+        bus.pokeb(getHL(), inpc());
 
-        case 0xcb: // dd cb xx
-            exec_ddcb();
-            break;
+        setHL(getHL() - 1);
+        setB(dec8bitInternal(bc >> 8));
 
-        case 0xe1: // pop ix
-            ix = pop();
-            cost = 14;
-            break;
-        case 0xe3: { // ex (sp),ix
-            int t = bus.peekw(sp);
-            bus.pokew(sp, ix);
-            ix = t;
-            cost = 23;
-        }
-            break;
-        case 0xe5: // push ix
-            push(ix);
-            cost = 15;
-            break;
-        case 0xe9: // jp (ix)
-            pc = ix;
-            cost = 8;
-            break;
-        case 0xf9: // ld sp,ix
-            sp = ix;
-            cost = 10;
-            break;
+        evalFlags();
+        f = (f & ~FBIT_Z) | ((bc >> 8) == 0 ? FBIT_Z : 0) | FBIT_N;
+    }
 
-        default:
-            Debug.println("Unknown instruction : " + StringUtil.toHex2(v));
-            break;
-        }
+    /** outd */
+    private final void outd() {
+        outp(bc & 0xff, bus.peekb(getHL()));
+
+        setHL(getHL() - 1);
+        setB(dec8bitInternal(bc >> 8));
+
+        evalFlags();
+        f = (f & ~FBIT_Z) | ((bc >> 8) == 0 ? FBIT_Z : 0) | FBIT_N;
     }
 
-    /**
-     * dd cb b xx
-     * <p>
-     * 最後に pc += 2 するので fetch 用いない (以下同様)
-     * </p>
-     */
-    private final void exec_ddcb() {
-        int v = bus.peekb(pc + 1);
+    /** fd xx [b|ww] */
+    private final void exec_fd() {
+        int v = fetchb();
 
-        switch (v) {
-        case 0x06: { // rlc (ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, rlc(w, true));
-        }
-            break;
-        case 0x0e: { // rrc (ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, rrc(w, true));
-        }
-            break;
-        case 0x16: { // rl (ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, rl(w, true));
-        }
-            break;
-        case 0x1e: { // rr (ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, rr(w, true));
-        }
-            break;
-        case 0x26: { // sla (ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, sla(w));
-        }
-            break;
-        case 0x2e: { // sra (ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, sra(w));
-        }
-            break;
-        case 0x3e: { // srl (ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, srl(w));
-        }
-            break;
-        case 0x46: { // bit 0,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(0, w);
-        }
-            break;
-        case 0x4e: { // bit 1,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(1, w);
-        }
-            break;
-        case 0x56: { // bit 2,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(2, w);
-        }
-            break;
-        case 0x5e: { // bit 3,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(3, w);
-        }
-            break;
-        case 0x66: { // bit 4,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(4, w);
-        }
-            break;
-        case 0x6e: { // bit 5,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(5, w);
-        }
-            break;
-        case 0x76: { // bit 6,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(6, w);
-        }
-            break;
-        case 0x7e: { // bit 7,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(7, w);
-        }
-            break;
-        case 0x86: { // res 0,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(0, w));
-        }
-            break;
-        case 0x8e: { // res 1,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(1, w));
-        }
-            break;
-        case 0x96: { // res 2,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(2, w));
-        }
-            break;
-        case 0x9e: { // res 3,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(3, w));
-        }
-            break;
-        case 0xa6: { // res 4,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(4, w));
-        }
-            break;
-        case 0xae: { // res 5,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(5, w));
-        }
-            break;
-        case 0xb6: { // res 6,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(6, w));
-        }
-            break;
-        case 0xbe: { // res 7,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(7, w));
-        }
-            break;
-        case 0xc6: { // set 0,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(0, w));
-        }
-            break;
-        case 0xce: { // set 1,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(1, w));
-        }
-            break;
-        case 0xd6: { // set 2,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(2, w));
-        }
-            break;
-        case 0xde: { // set 3,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(3, w));
-        }
-            break;
-        case 0xe6: { // set 4,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(4, w));
-        }
-            break;
-        case 0xee: { // set 5,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(5, w));
-        }
-            break;
-        case 0xf6: { // set 6,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(6, w));
-        }
-            break;
-        case 0xfe: { // set 7,(ix+d)
-            int i = index(ix, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(7, w));
-        }
-            break;
+        ops_fd[v].exec();
+    }
 
-        default:
-            Debug.println("Unknown instruction : " + StringUtil.toHex2(v));
-            break;
-        }
+    /** add iy,bc */
+    private final void op_fd09() {
+        iy = add16bit(iy, getBC());
+        cost = 15;
+    }
 
-        pc = add16bitInternal(pc, 2);
+    /** add iy,de */
+    private final void op_fd19() {
+        iy = add16bit(iy, getDE());
+        cost = 15;
     }
 
-    /** ed xx [w] */
-    private final void exec_ed() {
+    /** ld iy,nn */
+    private final void op_fd21() {
+        iy = fetchw();
+        cost = 14;
+    }
 
-        int o = fetchb();
+    /** ld (nn),iy */
+    private final void op_fd22() {
+        bus.pokew(fetchw(), iy);
+        cost = 20;
+    }
 
-        r = inc8bitInternal(r);
+    /** inc iy */
+    private final void op_fd23() {
+        iy = add16bitInternal(iy, 1);
+        cost = 10;
+    }
 
-        switch (o) {
-        case 0x40: // in b,(c)
-            b = inpc();
-            cost = 12;
-            break;
-        case 0x48: // in c,(c)
-            c = inpc();
-            cost = 12;
-            break;
-        case 0x50: // in d,(c)
-            d = inpc();
-            cost = 12;
-            break;
-        case 0x58: // in e,(c)
-            e = inpc();
-            cost = 12;
-            break;
-        case 0x60: // in h,(c)
-            h = inpc();
-            cost = 12;
-            break;
-        case 0x68: // in l,(c)
-            l = inpc();
-            cost = 12;
-            break;
-        case 0x78: // in a,(c)
-            a = inpc();
-            cost = 12;
-            break;
+    /** add iy,iy */
+    private final void op_fd29() {
+        iy = add16bit(iy, iy);
+        cost = 15;
+    }
 
-        case 0x41: // out (c),b
-            bus.outp(getBC(), b);
-            cost = 12;
-            break;
-        case 0x49: // out (c),c
-            bus.outp(getBC(), c);
-            cost = 12;
-            break;
-        case 0x51: // out (c),d
-            bus.outp(getBC(), d);
-            cost = 12;
-            break;
-        case 0x59: // out (c),e
-            bus.outp(getBC(), e);
-            cost = 12;
-            break;
-        case 0x61: // out (c),h
-            bus.outp(getBC(), h);
-            cost = 12;
-            break;
-        case 0x69: // out (c),l
-            bus.outp(getBC(), l);
-            cost = 12;
-            break;
-        case 0x79: // out (c),a
-            bus.outp(getBC(), a);
-            cost = 12;
-            break;
+    /** ld iy,(nn) */
+    private final void op_fd2a() {
+        iy = bus.peekw(fetchw());
+        cost = 20;
+    }
 
-        case 0x42: // sbc hl,bc
-            setHL(sbc16bit(getHL(), getBC()));
-            cost = 15;
-            break;
-        case 0x52: // sbc hl,de
-            setHL(sbc16bit(getHL(), getDE()));
-            cost = 15;
-            break;
-        case 0x62: // sbc hl,hl
-            setHL(sbc16bit(getHL(), getHL()));
-            cost = 15;
-            break;
-        case 0x72: // sbc hl,sp
-            setHL(sbc16bit(getHL(), sp));
-            cost = 15;
-            break;
+    /** dec iy */
+    private final void op_fd2b() {
+        iy = sub16bitInternal(iy, 1);
+        cost = 10;
+    }
 
-        case 0x4a: // adc hl,bc
-            setHL(adc16bit(getHL(), getBC()));
-            cost = 15;
-            break;
-        case 0x5a: // adc hl,de
-            setHL(adc16bit(getHL(), getDE()));
-            cost = 15;
-            break;
-        case 0x6a: // adc hl,hl
-            setHL(adc16bit(getHL(), getHL()));
-            cost = 15;
-            break;
-        case 0x7a: // adc hl,sp
-            setHL(adc16bit(getHL(), sp));
-            cost = 15;
-            break;
+    /** inc (iy+d) */
+    private final void op_fd34() {
+        int i = index(iy, fetchb());
+        int w = bus.peekb(i);
+        bus.pokeb(i, inc8bit(w));
+        cost = 23;
+    }
 
-        case 0x43: // ld (nn),bc
-            bus.pokew(fetchw(), getBC());
-            cost = 20;
-            break;
-        case 0x53: // ld (nn),de
-            bus.pokew(fetchw(), getDE());
-            cost = 20;
-            break;
-        case 0x73: // ld (nn),sp
-            bus.pokew(fetchw(), sp);
-            cost = 20;
-            break;
+    /** dec (iy+d) */
+    private final void op_fd35() {
+        int i = index(iy, fetchb());
+        int w = bus.peekb(i);
+        bus.pokeb(i, dec8bit(w));
+        cost = 23;
+    }
 
-        case 0x4b: // ld bc,(nn)
-            setBC(bus.peekw(fetchw()));
-            cost = 20;
-            break;
-        case 0x5b: // ld de,(nn)
-            setDE(bus.peekw(fetchw()));
-            cost = 20;
-            break;
-        case 0x7b: // ld sp,(nn)
-            sp = bus.peekw(fetchw());
-            cost = 20;
-            break;
+    /** ld (iy+d),n */
+    private final void op_fd36() {
+        int i = index(iy, fetchb());
+        bus.pokeb(i, fetchb());
+        cost = 19;
+    }
 
-        case 0x44: // neg
-            fn = true;
-            fh = isHalfC(0 - (a & 0x0f));
+    /** add iy,sp */
+    private final void op_fd39() {
+        iy = add16bit(iy, sp);
+        cost = 15;
+    }
 
-            a = -a;
+    /** ld b,(iy+d) */
+    private final void op_fd46() {
+        int i = index(iy, fetchb());
+        setB(bus.peekb(i));
+        cost = 19;
+    }
 
-            fp = isParity(a);
-            fs = isSign(a);
-            fz = isZero(a);
+    /** ld c,(iy+d) */
+    private final void op_fd4e() {
+        int i = index(iy, fetchb());
+        setC(bus.peekb(i));
+        cost = 19;
+    }
 
-            cost = 8;
-            break;
+    /** ld d,(iy+d) */
+    private final void op_fd56() {
+        int i = index(iy, fetchb());
+        setD(bus.peekb(i));
+        cost = 19;
+    }
 
-        case 0x45: // retn
-            iff1 = iff2;
-            pc = pop();
-            cost = 14;
-            break;
-        case 0x4d: // reti
-            iff1 = iff2;
-            pc = pop();
-            cost = 14;
-            break;
+    /** ld e,(iy+d) */
+    private final void op_fd5e() {
+        int i = index(iy, fetchb());
+        setE(bus.peekb(i));
+        cost = 19;
+    }
 
-        case 0x46: // im 0
-            im = 0;
-Debug.println("im 0");
-            cost = 8;
-            break;
-        case 0x56: // im 1
-            im = 1;
-Debug.println("im 1");
-            cost = 8;
-            break;
-        case 0x5e: // im 2
-            im = 2;
-Debug.println("im 2");
-            cost = 8;
-            break;
+    /** ld h,(iy+d) */
+    private final void op_fd66() {
+        int i = index(iy, fetchb());
+        setH(bus.peekb(i));
+        cost = 19;
+    }
 
-        case 0x47: // ld i,a
-            i = a;
-            cost = 9;
-            break;
-        case 0x4f: // ld r,a
-            r = a;
-            r7 = r;
-            cost = 9;
-            break;
+    /** ld l,(iy+d) */
+    private final void op_fd6e() {
+        int i = index(iy, fetchb());
+        setL(bus.peekb(i));
+        cost = 19;
+    }
 
-        case 0x57: // ld a,i
-            a = i;
+    /** ld (iy+d),b */
+    private final void op_fd70() {
+        int i = index(iy, fetchb());
+        bus.pokeb(i, bc >> 8);
+        cost = 19;
+    }
 
-            fn = false;
-            fp = iff2;
-            fs = isSign(a);
-            fz = isZero(a);
-            fh = false;
+    /** ld (iy+d),c */
+    private final void op_fd71() {
+        int i = index(iy, fetchb());
+        bus.pokeb(i, bc & 0xff);
+        cost = 19;
+    }
 
-            cost = 9;
-            break;
-        case 0x5f: // ld a,r
-            a = (r & 0x7f) | (r7 & 0x80);
+    /** ld (iy+d),d */
+    private final void op_fd72() {
+        int i = index(iy, fetchb());
+        bus.pokeb(i, de >> 8);
+        cost = 19;
+    }
 
-            fn = false;
-            fp = iff2;
-            fs = isSign(a);
-            fz = isZero(a);
-            fh = false;
+    /** ld (iy+d),e */
+    private final void op_fd73() {
+        int i = index(iy, fetchb());
+        bus.pokeb(i, de & 0xff);
+        cost = 19;
+    }
 
-            cost = 9;
-            break;
+    /** ld (iy+d),h */
+    private final void op_fd74() {
+        int i = index(iy, fetchb());
+        bus.pokeb(i, hl >> 8);
+        cost = 19;
+    }
 
-        case 0x67: { // rrd
-            int v = bus.peekb(getHL());
+    /** ld (iy+d),l */
+    private final void op_fd75() {
+        int i = index(iy, fetchb());
+        bus.pokeb(i, hl & 0xff);
+        cost = 19;
+    }
 
-            a = (a & 0xf0) | (v & 0x0f);
-            bus.pokeb(getHL(), ((v & 0xf0) >> 4) | ((v & 0x0f) << 4));
+    /** ld (iy+d),a */
+    private final void op_fd77() {
+        int i = index(iy, fetchb());
+        bus.pokeb(i, a);
+        cost = 19;
+    }
 
-            fp = isParity(a);
-            fs = isSign(a);
-            fz = isZero(a);
-            fh = false;
-            fn = false;
+    /** ld a,(iy+d) */
+    private final void op_fd7e() {
+        int i = index(iy, fetchb());
+        a = bus.peekb(i);
+        cost = 19;
+    }
 
-            cost = 18;
-        }
-            break;
-        case 0x6f: { // rld
-            int v = bus.peekb(getHL());
+    /** add a,(iy+d) */
+    private final void op_fd86() {
+        int i = index(iy, fetchb());
+        int w = bus.peekb(i);
+        a = add8bit(a, w);
+        cost = 19;
+    }
 
-            a = (a & 0xf0) | ((v & 0xf0) >> 4);
-            bus.pokeb(getHL(), ((v & 0x0f) << 4) | ((v & 0xf0) >> 4));
+    /** adc a,(iy+d) */
+    private final void op_fd8e() {
+        int i = index(iy, fetchb());
+        int w = bus.peekb(i);
+        a = adc8bit(a, w);
+        cost = 19;
+    }
 
-            fp = isParity(a);
-            fs = isSign(a);
-            fz = isZero(a);
-            fh = false;
-            fn = false;
+    /** sub (iy+d) */
+    private final void op_fd96() {
+        int i = index(iy, fetchb());
+        int w = bus.peekb(i);
+        a = sub8bit(a, w);
+        cost = 19;
+    }
 
-            cost = 18;
-        }
-            break;
+    /** sbc a,(iy+d) */
+    private final void op_fd9e() {
+        int i = index(iy, fetchb());
+        int w = bus.peekb(i);
+        a = sbc8bit(a, w);
+        cost = 19;
+    }
 
-        case 0xa0: // ldi
-            op_eda0();
-            cost = 16;
-            break;
-        case 0xa1: // cpi
-            op_eda1();
-            cost = 16;
-            break;
-        case 0xa2: // ini
-            op_eda2();
-            cost = 16;
-            break;
-        case 0xa3: // outi
-            op_eda3();
-            cost = 16;
-            break;
+    /** and (iy+d) */
+    private final void op_fda6() {
+        int i = index(iy, fetchb());
+        int w = bus.peekb(i);
+        a = and8bit(a, w);
+        cost = 19;
+    }
 
-        case 0xa8: // ldd
-            op_eda8();
-            cost = 16;
-            break;
-        case 0xa9: // cpd
-            op_eda9();
-            cost = 16;
-            break;
-        case 0xaa: // ind
-            op_edaa();
-            cost = 16;
-            break;
-        case 0xab: // outd
-            op_edab();
-            cost = 16;
-            break;
+    /** xor (iy+d) */
+    private final void op_fdae() {
+        int i = index(iy, fetchb());
+        int w = bus.peekb(i);
+        a = xor8bit(a, w);
+        cost = 19;
+    }
+
+    /** or (iy+d) */
+    private final void op_fdb6() {
+        int i = index(iy, fetchb());
+        int w = bus.peekb(i);
+        a = or8bit(a, w);
+        cost = 19;
+    }
 
-        case 0xb0: // ldir
-            do {
-                op_eda0();
-                cost += 20;
-            } while (fp);
-            cost -= (cost == 0) ? 4 : -16;
-            break;
-        case 0xb1: // cpir
-            do {
-                op_eda1();
-                cost = +20;
-            } while (fp && !fz);
-            cost -= (cost == 0) ? 4 : -16;
-            break;
-        case 0xb2: // inir
-            do {
-                op_eda2();
-                cost = +20;
-            } while (!fz);
-            cost -= (cost == 0) ? 4 : -16;
-            break;
-        case 0xb3: // otir
-            do {
-                op_eda3();
-                cost = +20;
-            } while (!fz);
-            cost -= (cost == 0) ? 4 : -16;
-            break;
+    /** cp (iy+d) */
+    private final void op_fdbe() {
+        int i = index(iy, fetchb());
+        int w = bus.peekb(i);
+        cmp8bit(a, w);
+        cost = 19;
+    }
 
-        case 0xb8: // lddr
-            do {
-                op_eda8();
-                cost = +20;
-            } while (fp);
-            cost -= (cost == 0) ? 4 : -16;
-            break;
-        case 0xb9: // cpdr
-            do {
-                op_eda9();
-                cost = +20;
-            } while (fp && !fz);
-            cost -= (cost == 0) ? 4 : -16;
-            break;
-        case 0xba: // indr
-            do {
-                op_edaa();
-                cost = +20;
-            } while (!fz);
-            cost -= (cost == 0) ? 4 : -16;
-            break;
-        case 0xbb: // otdr
-            do {
-                op_edab();
-                cost = +20;
-            } while (!fz);
-            cost -= (cost == 0) ? 4 : -16;
-            break;
+    /** pop iy */
+    private final void op_fde1() {
+        iy = pop();
+        cost = 14;
+    }
 
-        default:
-            Debug.println("Unknown instruction : " + StringUtil.toHex2(o));
-            break;
-        }
+    /** ex (sp),iy */
+    private final void op_fde3() {
+        int t = bus.peekw(sp);
+        bus.pokew(sp, iy);
+        iy = t;
+        cost = 23;
     }
 
-    /** ldi */
-    private final void op_eda0() {
-        bus.pokeb(getDE(), bus.peekb(getHL()));
+    /** push iy */
+    private final void op_fde5() {
+        push(iy);
+        cost = 15;
+    }
 
-        setDE(getDE() + 1);
-        setHL(getHL() + 1);
-        setBC(getBC() - 1);
+    /** jp (iy) */
+    private final void op_fde9() {
+        pc = iy;
+        cost = 8;
+    }
 
-        fp = getBC() != 0;
-        fh = false;
-        fn = false;
+    /** ld sp,iy */
+    private final void op_fdf9() {
+        sp = iy;
+        cost = 10;
     }
 
-    /** cpi */
-    private final void op_eda1() {
-        cmp8bit(a, bus.peekb(getHL()));
+    /**
+     * fd cb b xx
+     * <p>
+     * 最後に pc += 2 するので fetch 用いない (以下同様)
+     * </p>
+     */
+    private final void exec_fdcb() {
+        int v = bus.peekb(pc + 1);
 
-        setHL(getHL() + 1);
-        setBC(getBC() - 1);
+        ops_fdcb[v].exec();
 
-        fp = getBC() != 0;
+        pc = add16bitInternal(pc, 2);
     }
 
-    /** ini */
-    private final void op_eda2() {
-        bus.pokeb(getHL(), inpc());
+    /** rlc (iy+d) */
+    private final void op_fdcb06() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, rlc(w, true));
+        cost = 23;
+    }
 
-        setHL(getHL() + 1);
-        b = dec8bitInternal(b);
+    /** rrc (iy+d) */
+    private final void op_fdcb0e() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, rrc(w, true));
+        cost = 23;
+    }
 
-        fz = isZero(b);
-        fn = true;
+    /** rl (iy+d) */
+    private final void op_fdcb16() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, rl(w, true));
+        cost = 23;
     }
 
-    /** outi */
-    private final void op_eda3() {
-        bus.outp(c, bus.peekb(getHL()));
+    /** rr (iy+d) */
+    private final void op_fdcb1e() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, rr(w, true));
+        cost = 23;
+    }
 
-        setHL(getHL() + 1);
-        b = dec8bitInternal(b);
+    /** sla (iy+d) */
+    private final void op_fdcb26() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, sla(w));
+        cost = 23;
+    }
 
-        fz = isZero(b);
-        fn = true;
+    /** sra (iy+d) */
+    private final void op_fdcb2e() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, sra(w));
+        cost = 23;
     }
 
-    /** ldd */
-    private final void op_eda8() {
-        bus.pokeb(getDE(), bus.peekb(getHL()));
+    /** srl (iy+d) */
+    private final void op_fdcb3e() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, srl(w));
+        cost = 23;
+    }
 
-        setDE(getDE() - 1);
-        setHL(getHL() - 1);
-        setBC(getBC() - 1);
+    /** bit 0,(iy+d) */
+    private final void op_fdcb46() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(0, w);
+        cost = 20;
+    }
 
-        fp = getBC() != 0;
-        fh = false;
-        fn = false;
+    /** bit 1,(iy+d) */
+    private final void op_fdcb4e() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(1, w);
+        cost = 20;
     }
 
-    /** cpd */
-    private final void op_eda9() {
-        cmp8bit(a, bus.peekb(getHL()));
+    /** bit 2,(iy+d) */
+    private final void op_fdcb56() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(2, w);
+        cost = 20;
+    }
 
-        setHL(getHL() - 1);
-        setBC(getBC() - 1);
+    /** bit 3,(iy+d) */
+    private final void op_fdcb5e() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(3, w);
+        cost = 20;
+    }
 
-        fp = getBC() != 0;
+    /** bit 4,(iy+d) */
+    private final void op_fdcb66() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(4, w);
+        cost = 20;
     }
 
-    /** ind */
-    private final void op_edaa() {
-        bus.pokeb(getHL(), inpc());
+    /** bit 5,(iy+d) */
+    private final void op_fdcb6e() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(5, w);
+        cost = 20;
+    }
 
-        setHL(getHL() - 1);
-        b = dec8bitInternal(b);
+    /** bit 6,(iy+d) */
+    private final void op_fdcb76() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(6, w);
+        cost = 20;
+    }
 
-        fz = isZero(b);
-        fn = true;
+    /** bit 7,(iy+d) */
+    private final void op_fdcb7e() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bit(7, w);
+        cost = 20;
     }
 
-    /** outd */
-    private final void op_edab() {
-        bus.outp(c, bus.peekb(getHL()));
+    /** res 0,(iy+d) */
+    private final void op_fdcb86() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(0, w));
+        cost = 23;
+    }
 
-        setHL(getHL() - 1);
-        b = dec8bitInternal(b);
+    /** res 1,(iy+d) */
+    private final void op_fdcb8e() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(1, w));
+        cost = 23;
+    }
 
-        fz = isZero(b);
-        fn = true;
+    /** res 2,(iy+d) */
+    private final void op_fdcb96() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(2, w));
+        cost = 23;
     }
 
-    /** fd xx [b|ww] */
-    private final void exec_fd() {
-        int v = fetchb();
+    /** res 3,(iy+d) */
+    private final void op_fdcb9e() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(3, w));
+        cost = 23;
+    }
 
-        switch (v) {
-        case 0x09: // add iy,bc
-            iy = add16bit(iy, getBC());
-            cost = 15;
-            break;
-        case 0x19: // add iy,de
-            iy = add16bit(iy, getDE());
-            cost = 15;
-            break;
-        case 0x21: // ld iy,nn
-            iy = fetchw();
-            cost = 14;
-            break;
-        case 0x22: // ld (nn),iy
-            bus.pokew(fetchw(), iy);
-            cost = 20;
-            break;
-        case 0x23: // inc iy
-            iy = add16bitInternal(iy, 1);
-            cost = 10;
-            break;
-        case 0x29: // add iy,iy
-            iy = add16bit(iy, iy);
-            cost = 15;
-            break;
-        case 0x2a: // ld iy,(nn)
-            iy = bus.peekw(fetchw());
-            cost = 20;
-            break;
-        case 0x2b: // dec iy
-            iy = sub16bitInternal(iy, 1);
-            cost = 10;
-            break;
-        case 0x34: { // inc (iy+d)
-            int i = index(iy, fetchb());
-            int w = bus.peekb(i);
-            bus.pokeb(i, inc8bit(w));
-            cost = 23;
-        }
-            break;
-        case 0x35: { // dec (iy+d)
-            int i = index(iy, fetchb());
-            int w = bus.peekb(i);
-            bus.pokeb(i, dec8bit(w));
-            cost = 23;
-        }
-            break;
-        case 0x36: { // ld (iy+d),n
-            int i = index(iy, fetchb());
-            bus.pokeb(i, fetchb());
-            cost = 19;
-        }
-            break;
-        case 0x39: { // add iy,sp
-            iy = add16bit(iy, sp);
-            cost = 15;
-        }
-            break;
+    /** res 4,(iy+d) */
+    private final void op_fdcba6() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(4, w));
+        cost = 23;
+    }
 
-        case 0x46: { // ld b,(iy+d)
-            int i = index(iy, fetchb());
-            b = bus.peekb(i);
-            cost = 19;
-        }
-            break;
-        case 0x4e: { // ld c,(iy+d)
-            int i = index(iy, fetchb());
-            c = bus.peekb(i);
-            cost = 19;
-        }
-            break;
-        case 0x56: { // ld d,(iy+d)
-            int i = index(iy, fetchb());
-            d = bus.peekb(i);
-            cost = 19;
-        }
-            break;
-        case 0x5e: { // ld e,(iy+d)
-            int i = index(iy, fetchb());
-            e = bus.peekb(i);
-            cost = 19;
-        }
-            break;
-        case 0x66: { // ld h,(iy+d)
-            int i = index(iy, fetchb());
-            h = bus.peekb(i);
-            cost = 19;
-        }
-            break;
-        case 0x6e: { // ld l,(iy+d)
-            int i = index(iy, fetchb());
-            l = bus.peekb(i);
-            cost = 19;
-        }
-            break;
+    /** res 5,(iy+d) */
+    private final void op_fdcbae() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(5, w));
+        cost = 23;
+    }
 
-        case 0x70: { // ld (iy+d),b
-            int i = index(iy, fetchb());
-            bus.pokeb(i, b);
-            cost = 19;
-        }
-            break;
-        case 0x71: { // ld (iy+d),c
-            int i = index(iy, fetchb());
-            bus.pokeb(i, c);
-            cost = 19;
-        }
-            break;
-        case 0x72: { // ld (iy+d),d
-            int i = index(iy, fetchb());
-            bus.pokeb(i, d);
-            cost = 19;
-        }
-            break;
-        case 0x73: { // ld (iy+d),e
-            int i = index(iy, fetchb());
-            bus.pokeb(i, e);
-            cost = 19;
-        }
-            break;
-        case 0x74: { // ld (iy+d),h
-            int i = index(iy, fetchb());
-            bus.pokeb(i, h);
-            cost = 19;
-        }
-            break;
-        case 0x75: { // ld (iy+d),l
-            int i = index(iy, fetchb());
-            bus.pokeb(i, l);
-            cost = 19;
-        }
-            break;
-        case 0x77: { // ld (iy+d),a
-            int i = index(iy, fetchb());
-            bus.pokeb(i, a);
-            cost = 19;
-        }
-            break;
+    /** res 6,(iy+d) */
+    private final void op_fdcbb6() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(6, w));
+        cost = 23;
+    }
 
-        case 0x7e: { // ld a,(iy+d)
-            int i = index(iy, fetchb());
-            a = bus.peekb(i);
-            cost = 19;
-        }
-            break;
-        case 0x86: { // add a,(iy+d)
-            int i = index(iy, fetchb());
-            int w = bus.peekb(i);
-            a = add8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0x8e: { // adc a,(iy+d)
-            int i = index(iy, fetchb());
-            int w = bus.peekb(i);
-            a = adc8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0x96: { // sub (iy+d)
-            int i = index(iy, fetchb());
-            int w = bus.peekb(i);
-            a = sub8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0x9e: { // sbc a,(iy+d)
-            int i = index(iy, fetchb());
-            int w = bus.peekb(i);
-            a = sbc8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0xa6: { // and (iy+d)
-            int i = index(iy, fetchb());
-            int w = bus.peekb(i);
-            a = and8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0xae: { // xor (iy+d)
-            int i = index(iy, fetchb());
-            int w = bus.peekb(i);
-            a = xor8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0xb6: { // or (iy+d)
-            int i = index(iy, fetchb());
-            int w = bus.peekb(i);
-            a = or8bit(a, w);
-            cost = 19;
-        }
-            break;
-        case 0xbe: { // cp (iy+d)
-            int i = index(iy, fetchb());
-            int w = bus.peekb(i);
-            cmp8bit(a, w);
-            cost = 19;
-        }
-            break;
+    /** res 7,(iy+d) */
+    private final void op_fdcbbe() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, resetbit(7, w));
+        cost = 23;
+    }
 
-        case 0xcb: // fd cb d xx
-            exec_fdcb();
-            break;
+    /** set 0,(iy+d) */
+    private final void op_fdcbc6() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(0, w));
+        cost = 23;
+    }
 
-        case 0xe1: // pop iy
-            iy = pop();
-            cost = 14;
-            break;
-        case 0xe3: { // ex (sp),iy
-            int t = bus.peekw(sp);
-            bus.pokew(sp, iy);
-            iy = t;
-            cost = 23;
-        }
-            break;
-        case 0xe5: // push iy
-            push(iy);
-            cost = 15;
-            break;
-        case 0xe9: // jp (iy)
-            pc = iy;
-            cost = 8;
-            break;
-        case 0xf9: // ld sp,iy
-            sp = iy;
-            cost = 10;
-            break;
+    /** set 1,(iy+d) */
+    private final void op_fdcbce() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(1, w));
+        cost = 23;
+    }
 
-        default:
-            Debug.println("Unknown instruction : " + StringUtil.toHex2(v));
-            break;
-        }
+    /** set 2,(iy+d) */
+    private final void op_fdcbd6() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(2, w));
+        cost = 23;
     }
 
-    /**
-     * fd cb b xx
-     * <p>
-     * 最後に pc += 2 するので fetch 用いない (以下同様)
-     * </p>
-     */
-    private final void exec_fdcb() {
-        int v = bus.peekb(pc + 1);
+    /** set 3,(iy+d) */
+    private final void op_fdcbde() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(3, w));
+        cost = 23;
+    }
 
-        switch (v) {
-        case 0x06: { // rlc (iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, rlc(w, true));
-        }
-            break;
-        case 0x0e: { // rrc (iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, rrc(w, true));
-        }
-            break;
-        case 0x16: { // rl (iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, rl(w, true));
-        }
-            break;
-        case 0x1e: { // rr (iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, rr(w, true));
-        }
-            break;
-        case 0x26: { // sla (iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, sla(w));
-        }
-            break;
-        case 0x2e: { // sra (iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, sra(w));
-        }
-            break;
-        case 0x3e: { // srl (iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, srl(w));
-        }
-            break;
-        case 0x46: { // bit 0,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(0, w);
-        }
-            break;
-        case 0x4e: { // bit 1,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(1, w);
-        }
-            break;
-        case 0x56: { // bit 2,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(2, w);
-        }
-            break;
-        case 0x5e: { // bit 3,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(3, w);
-        }
-            break;
-        case 0x66: { // bit 4,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(4, w);
-        }
-            break;
-        case 0x6e: { // bit 5,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(5, w);
-        }
-            break;
-        case 0x76: { // bit 6,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(6, w);
-        }
-            break;
-        case 0x7e: { // bit 7,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bit(7, w);
-        }
-            break;
-        case 0x86: { // res 0,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(0, w));
-        }
-            break;
-        case 0x8e: { // res 1,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(1, w));
-        }
-            break;
-        case 0x96: { // res 2,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(2, w));
-        }
-            break;
-        case 0x9e: { // res 3,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(3, w));
-        }
-            break;
-        case 0xa6: { // res 4,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(4, w));
-        }
-            break;
-        case 0xae: { // res 5,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(5, w));
-        }
-            break;
-        case 0xb6: { // res 6,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(6, w));
-        }
-            break;
-        case 0xbe: { // res 7,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, resetbit(7, w));
-        }
-            break;
-        case 0xc6: { // set 0,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(0, w));
-        }
-            break;
-        case 0xce: { // set 1,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(1, w));
-        }
-            break;
-        case 0xd6: { // set 2,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(2, w));
-        }
-            break;
-        case 0xde: { // set 3,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(3, w));
-        }
-            break;
-        case 0xe6: { // set 4,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(4, w));
-        }
-            break;
-        case 0xee: { // set 5,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(5, w));
-        }
-            break;
-        case 0xf6: { // set 6,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(6, w));
-        }
-            break;
-        case 0xfe: { // set 7,(iy+d)
-            int i = index(iy, bus.peekb(pc));
-            int w = bus.peekb(i);
-            bus.pokeb(i, setbit(7, w));
-        }
-            break;
+    /** set 4,(iy+d) */
+    private final void op_fdcbe6() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(4, w));
+        cost = 23;
+    }
 
-        default:
-            Debug.println("Unknown instruction : " + StringUtil.toHex2(v));
-            break;
-        }
+    /** set 5,(iy+d) */
+    private final void op_fdcbee() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(5, w));
+        cost = 23;
+    }
 
-        pc = add16bitInternal(pc, 2);
+    /** set 6,(iy+d) */
+    private final void op_fdcbf6() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(6, w));
+        cost = 23;
+    }
+
+    /** set 7,(iy+d) */
+    private final void op_fdcbfe() {
+        int i = index(iy, bus.peekb(pc));
+        int w = bus.peekb(i);
+        bus.pokeb(i, setbit(7, w));
+        cost = 23;
     }
 
     // -------------------------------------------------------------------------
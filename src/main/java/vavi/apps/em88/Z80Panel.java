@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.apps.em88;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JPanel;
+
+import vavi.util.StringUtil;
+
+
+/**
+ * Z80 register view.
+ * <p>
+ * an optional observer, the cpu state is sampled once per frame on the
+ * emulated time, so the cpu itself has no ui cost.
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (nsano)
+ * @version 0.00 261018 nsano initial version <br>
+ */
+class Z80Panel implements Device {
+
+    /** [T-states] */
+    private static final long PERIOD = Z80.CLOCK / 60;
+
+    /** */
+    private Z80 z80;
+
+    /** */
+    private Bus bus;
+
+    /** null if none */
+    private Keyboard keyboard;
+
+    /** the last sample, left column */
+    private volatile String[] registers = new String[0];
+
+    /** the last sample, right column */
+    private volatile String[] status = new String[0];
+
+    /** */
+    private JPanel panel;
+
+    /** */
+    private JDialog dialog;
+
+    /** */
+    private JDialog controller;
+
+    /** */ {
+        //
+        panel = new JPanel() {
+            public void paint(Graphics g) {
+
+                super.paint(g);
+
+                g.setColor(Color.green);
+                String[] registers = Z80Panel.this.registers;
+                for (int i = 0; i < registers.length; i++) {
+                    g.drawString(registers[i], 10, 30 + i * 20);
+                }
+                String[] status = Z80Panel.this.status;
+                for (int i = 0; i < status.length; i++) {
+                    g.drawString(status[i], 100, 30 + i * 20);
+                }
+            }
+        };
+        panel.setPreferredSize(new Dimension(200, 300));
+        panel.setOpaque(true);
+        panel.setBackground(Color.black);
+
+        dialog = new JDialog();
+        dialog.getContentPane().add(panel);
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dialog.setTitle("Emu88");
+        dialog.setLocation(650, 0);
+        dialog.pack();
+        dialog.setVisible(true);
+
+        //
+        JButton button = new JButton();
+        button.setAction(new AbstractAction("Break") {
+            public void actionPerformed(ActionEvent ev) {
+                z80.requestBreak();
+            }
+        });
+        button.setPreferredSize(new Dimension(60, 20));
+
+        controller = new JDialog();
+        controller.getContentPane().add(button);
+        controller.setTitle("Controller");
+        controller.setLocation(860, 0);
+        controller.pack();
+        controller.setVisible(true);
+    }
+
+    /** */
+    public void setBus(Bus bus) {
+        this.bus = bus;
+
+        this.z80 = bus.getDevice(Z80.class);
+        this.keyboard = bus.getDevice(Keyboard.class);
+    }
+
+    /** */
+    public void reset() {
+        bus.getScheduler().schedule(new SampleTask(), PERIOD, PERIOD);
+    }
+
+    /** */
+    public void powerOff() {
+        dialog.dispose();
+        controller.dispose();
+    }
+
+    /**
+     * runs on the cpu thread. devices and memory are read directly, so
+     * port counters, device catch up and watchpoints see the guest only.
+     */
+    private class SampleTask extends Scheduler.Task {
+        public void run() {
+            int sp = z80.getSP();
+
+            List<String> registers = new ArrayList<>();
+            registers.add("PC=" + StringUtil.toHex4(z80.getPC()));
+            registers.add(" A=" + StringUtil.toHex2(z80.getA()));
+            registers.add("BC=" + StringUtil.toHex4(z80.getBC()));
+            registers.add("DE=" + StringUtil.toHex4(z80.getDE()));
+            registers.add("HL=" + StringUtil.toHex4(z80.getHL()));
+            registers.add("IR=" + StringUtil.toHex4(z80.getIR()));
+            registers.add("SP=" + StringUtil.toHex4(sp));
+            registers.add("IX=" + StringUtil.toHex4(z80.getIX()));
+            registers.add("IY=" + StringUtil.toHex4(z80.getIY()));
+            registers.add(" C:" + (z80.isC() ? 1 : 0));
+            registers.add(" N:" + (z80.isN() ? 1 : 0));
+            registers.add(" P:" + (z80.isP() ? 1 : 0));
+            registers.add(" H:" + (z80.isH() ? 1 : 0));
+            registers.add(" Z:" + (z80.isZ() ? 1 : 0));
+            registers.add(" S:" + (z80.isS() ? 1 : 0));
+            for (int i = 0; i < 12 && keyboard != null; i++) {
+                registers.add(StringUtil.toHex2(i) + ": " + StringUtil.toBits(keyboard.getPort(i)));
+            }
+
+            List<String> status = new ArrayList<>();
+            status.add("IM=" + z80.getIM());
+            status.add("iff1=" + z80.isIff1());
+            status.add("iff2=" + z80.isIff2());
+            status.add("intr=" + z80.isInterruptRequested());
+            for (int i = 0; i < 6 && sp + 2 * i < 0x10000; i++) {
+                status.add(StringUtil.toHex4(sp + 2 * i) + ": " + StringUtil.toHex4(bus.peekwUntrapped(sp + 2 * i)));
+            }
+
+            Z80Panel.this.registers = registers.toArray(new String[registers.size()]);
+            Z80Panel.this.status = status.toArray(new String[status.size()]);
+
+            panel.repaint();
+        }
+    }
+}
+
+/* */
@@ -0,0 +1,497 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.apps.em88;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Z80Benchmark.
+ * <p>
+ * guest loops run for a fixed budget of T-states, so a score is emulated
+ * time per real time. run by "mvn -P benchmark test-compile exec:exec".
+ * </p>
+ *
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (nsano)
+ * @version 0.00 261018 nsano initial version <br>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Z80Benchmark {
+
+    /** [T-states] */
+    private static final long BUDGET = 100000;
+
+    /** a cpu and 64KB ram */
+    private static final class Machine {
+        final byte[] ram = new byte[0x10000];
+        final Bus bus = new Bus() {
+            protected Mapping getMapping(int address, Direction direction) {
+                Mapping mapping = new Mapping();
+                mapping.base = ram;
+                mapping.pointer = address;
+                return mapping;
+            }
+        };
+        final Z80 z80 = new Z80();
+        int pc;
+
+        Machine(int... code) {
+            for (int i = 0; i < code.length; i++) {
+                ram[i] = (byte) code[i];
+            }
+            bus.addDevice(z80);
+            bus.reset();
+        }
+
+        int run() {
+            pc = z80.execute(pc, BUDGET);
+            return pc;
+        }
+    }
+
+    /** alu ops whose flags are read by the next ones, daa and conditional jumps */
+    private Machine flags;
+
+    /** a copy loop through register pairs, reading their halves */
+    private Machine registers;
+
+    /** "asm.out" without 10 bytes header */
+    private byte[] program;
+
+    /** */
+    private Machine instructions;
+
+    /** random a | (c &lt;&lt; 8) | (h &lt;&lt; 9) for the per operation pairs */
+    private final int[] operands = new int[1024];
+
+    /** opcodes of the instruction test, 100h | the second byte for cb */
+    private int[] trace;
+
+    @Setup
+    public void setup() throws IOException {
+        flags = new Machine(
+            0xf3, // di
+            0x31, 0x00, 0xf0, // ld sp,0f000h
+            0x21, 0x00, 0x80, // ld hl,8000h
+            0x85, // 0007 add a,l
+            0x27, // daa
+            0x8c, // adc a,h
+            0xd6, 0x07, // sub 07h
+            0x28, 0x01, // jr z,000fh
+            0x3c, // inc a
+            0xfe, 0x03, // 000f cp 03h
+            0x38, 0x00, // jr c,0013h
+            0xe6, 0xfe, // 0013 and 0feh
+            0xb5, // or l
+            0xac, // xor h
+            0x77, // ld (hl),a
+            0x2c, // inc l
+            0x17, // rla
+            0xc3, 0x07, 0x00 // jp 0007h
+        );
+
+        registers = new Machine(
+            0xf3, // di
+            0x31, 0x00, 0xf0, // ld sp,0f000h
+            0x21, 0x00, 0x80, // 0004 ld hl,8000h
+            0x11, 0x00, 0x90, // ld de,9000h
+            0x01, 0x00, 0x01, // ld bc,0100h
+            0x7e, // 000d ld a,(hl)
+            0x81, // add a,c
+            0x12, // ld (de),a
+            0x23, // inc hl
+            0x13, // inc de
+            0x0b, // dec bc
+            0x78, // ld a,b
+            0xb1, // or c
+            0x20, 0xf6, // jr nz,000dh
+            0xc3, 0x04, 0x00 // jp 0004h
+        );
+
+        InputStream is = Z80Benchmark.class.getResourceAsStream("/asm.out");
+        is.skip(10);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int l;
+        while ((l = is.read(buf)) > 0) {
+            baos.write(buf, 0, l);
+        }
+        is.close();
+        program = baos.toByteArray();
+
+        instructions = new Machine();
+
+        trace = record(program);
+
+        Random random = new Random(1);
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = random.nextInt(0x400);
+        }
+    }
+
+    /** lazy flags and the s/z/p, daa tables */
+    @Benchmark
+    public int flags() {
+        return flags.run();
+    }
+
+    /** b, c, d, e, h and l kept as pairs */
+    @Benchmark
+    public int registers() {
+        return registers.run();
+    }
+
+    /**
+     * steps the instruction test to its halt, recording the opcodes.
+     * dd, ed and fd prefixed ones are not recorded.
+     */
+    private static int[] record(byte[] program) {
+        Machine machine = new Machine();
+        System.arraycopy(program, 0, machine.ram, 0, program.length);
+        int[] trace = new int[0x10000];
+        int length = 0;
+        int pc = 0;
+        while (machine.bus.peekb(pc) != 0x76) { // halt
+            int op = machine.bus.peekb(pc);
+            if (op == 0xcb) {
+                trace[length++] = 0x100 | machine.bus.peekb(pc + 1);
+            } else if (op != 0xdd && op != 0xed && op != 0xfd) {
+                trace[length++] = op;
+            }
+            pc = machine.z80.execute(pc, 1);
+        }
+        return Arrays.copyOf(trace, length);
+    }
+
+    /** b, c, d, e, h and l, as the instructions of a trace access them */
+    static abstract class Registers {
+        int a;
+        int sp;
+        final int[] stack = new int[0x100];
+        final byte[] memory = new byte[0x10000];
+
+        abstract int getB();
+        abstract int getC();
+        abstract int getD();
+        abstract int getE();
+        abstract int getH();
+        abstract int getL();
+        abstract void setB(int b);
+        abstract void setC(int c);
+        abstract void setD(int d);
+        abstract void setE(int e);
+        abstract void setH(int h);
+        abstract void setL(int l);
+        abstract int getBC();
+        abstract int getDE();
+        abstract int getHL();
+        abstract void setBC(int bc);
+        abstract void setDE(int de);
+        abstract void setHL(int hl);
+
+        /** @param r b, c, d, e, h, l, (hl), a */
+        private int get8(int r) {
+            switch (r) {
+            case 0: return getB();
+            case 1: return getC();
+            case 2: return getD();
+            case 3: return getE();
+            case 4: return getH();
+            case 5: return getL();
+            case 6: return memory[getHL()] & 0xff;
+            default: return a;
+            }
+        }
+
+        /** @param r b, c, d, e, h, l, (hl), a */
+        private void set8(int r, int v) {
+            switch (r) {
+            case 0: setB(v); break;
+            case 1: setC(v); break;
+            case 2: setD(v); break;
+            case 3: setE(v); break;
+            case 4: setH(v); break;
+            case 5: setL(v); break;
+            case 6: memory[getHL()] = (byte) v; break;
+            default: a = v & 0xff; break;
+            }
+        }
+
+        /** @param p bc, de, hl, sp */
+        private int get16(int p) {
+            switch (p) {
+            case 0: return getBC();
+            case 1: return getDE();
+            case 2: return getHL();
+            default: return sp;
+            }
+        }
+
+        /** @param p bc, de, hl, sp */
+        private void set16(int p, int v) {
+            switch (p) {
+            case 0: setBC(v); break;
+            case 1: setDE(v); break;
+            case 2: setHL(v); break;
+            default: sp = v & 0xffff; break;
+            }
+        }
+
+        /** the register accesses of each opcode, the values are made up */
+        final int replay(int[] trace) {
+            for (int op : trace) {
+                int r = (op >> 3) & 0x07;
+                int p = (op >> 4) & 0x03;
+                if (op >= 0x100) { // cb
+                    set8(op & 0x07, (get8(op & 0x07) << 1) | r);
+                    continue;
+                }
+                switch (op >> 6) {
+                case 0:
+                    switch (op & 0x07) {
+                    case 1: // ld rr,nn, add hl,rr
+                        if ((op & 0x08) == 0) {
+                            set16(p, op);
+                        } else {
+                            setHL(getHL() + get16(p));
+                        }
+                        break;
+                    case 2: // ld (bc),a .. ld a,(nn)
+                        if (p < 2) {
+                            memory[get16(p)] = (byte) a;
+                        } else if (op == 0x22) {
+                            memory[op] = (byte) getHL();
+                        } else if (op == 0x2a) {
+                            setHL(memory[op]);
+                        }
+                        break;
+                    case 3: // inc rr, dec rr
+                        set16(p, get16(p) + ((op & 0x08) == 0 ? 1 : -1));
+                        break;
+                    case 4: // inc r
+                        set8(r, get8(r) + 1);
+                        break;
+                    case 5: // dec r
+                        set8(r, get8(r) - 1);
+                        break;
+                    case 6: // ld r,n
+                        set8(r, op);
+                        break;
+                    default:
+                        if (op == 0x10) { // djnz
+                            setB(getB() - 1);
+                        }
+                        break;
+                    }
+                    break;
+                case 1: // ld r,r'
+                    set8(r, get8(op & 0x07));
+                    break;
+                case 2: // alu a,r
+                    a = (a + get8(op & 0x07)) & 0xff;
+                    break;
+                default:
+                    if ((op & 0x0b) == 0x01) { // pop rr, push rr
+                        if ((op & 0x04) == 0) {
+                            set16(p, stack[sp & 0xff]);
+                            sp++;
+                        } else {
+                            sp--;
+                            stack[sp & 0xff] = get16(p);
+                        }
+                    } else if (op == 0xeb) { // ex de,hl
+                        int v = getDE();
+                        setDE(getHL());
+                        setHL(v);
+                    } else if (op == 0xe3) { // ex (sp),hl
+                        int v = stack[sp & 0xff];
+                        stack[sp & 0xff] = getHL();
+                        setHL(v);
+                    } else if (op == 0xe9 || op == 0xf9) { // jp (hl), ld sp,hl
+                        sp = getHL();
+                    }
+                    break;
+                }
+            }
+            return a ^ getBC() ^ getDE() ^ getHL();
+        }
+    }
+
+    /** the layout before, 8 bit fields */
+    @State(Scope.Thread)
+    public static class Separate extends Registers {
+        private int b, c, d, e, h, l;
+
+        final int getB() { return b; }
+        final int getC() { return c; }
+        final int getD() { return d; }
+        final int getE() { return e; }
+        final int getH() { return h; }
+        final int getL() { return l; }
+        final void setB(int b) { this.b = b & 0xff; }
+        final void setC(int c) { this.c = c & 0xff; }
+        final void setD(int d) { this.d = d & 0xff; }
+        final void setE(int e) { this.e = e & 0xff; }
+        final void setH(int h) { this.h = h & 0xff; }
+        final void setL(int l) { this.l = l & 0xff; }
+        final int getBC() { return (b << 8) | c; }
+        final int getDE() { return (d << 8) | e; }
+        final int getHL() { return (h << 8) | l; }
+        final void setBC(int bc) { b = (bc >> 8) & 0xff; c = bc & 0xff; }
+        final void setDE(int de) { d = (de >> 8) & 0xff; e = de & 0xff; }
+        final void setHL(int hl) { h = (hl >> 8) & 0xff; l = hl & 0xff; }
+    }
+
+    /** the layout of {@link Z80}, 16 bit pairs */
+    @State(Scope.Thread)
+    public static class Paired extends Registers {
+        private int bc, de, hl;
+
+        final int getB() { return bc >> 8; }
+        final int getC() { return bc & 0xff; }
+        final int getD() { return de >> 8; }
+        final int getE() { return de & 0xff; }
+        final int getH() { return hl >> 8; }
+        final int getL() { return hl & 0xff; }
+        final void setB(int b) { bc = (b & 0xff) << 8 | (bc & 0xff); }
+        final void setC(int c) { bc = (bc & 0xff00) | (c & 0xff); }
+        final void setD(int d) { de = (d & 0xff) << 8 | (de & 0xff); }
+        final void setE(int e) { de = (de & 0xff00) | (e & 0xff); }
+        final void setH(int h) { hl = (h & 0xff) << 8 | (hl & 0xff); }
+        final void setL(int l) { hl = (hl & 0xff00) | (l & 0xff); }
+        final int getBC() { return bc; }
+        final int getDE() { return de; }
+        final int getHL() { return hl; }
+        final void setBC(int bc) { this.bc = bc & 0xffff; }
+        final void setDE(int de) { this.de = de & 0xffff; }
+        final void setHL(int hl) { this.hl = hl & 0xffff; }
+    }
+
+    /** register accesses of the instruction test on 8 bit fields */
+    @Benchmark
+    public int separateRegisters(Separate registers) {
+        return registers.replay(trace);
+    }
+
+    /** register accesses of the instruction test on 16 bit pairs */
+    @Benchmark
+    public int pairedRegisters(Paired registers) {
+        return registers.replay(trace);
+    }
+
+    /** s, z as computed before the tables */
+    @Benchmark
+    public int szCompute() {
+        int r = 0;
+        for (int o : operands) {
+            int v = o & 0xff;
+            r ^= (v & 0x80) | (v == 0 ? 0x40 : 0);
+        }
+        return r;
+    }
+
+    /** s, z by {@link Z80#sz_tbl} */
+    @Benchmark
+    public int szTable() {
+        int r = 0;
+        for (int o : operands) {
+            r ^= Z80.sz_tbl[o & 0xff];
+        }
+        return r;
+    }
+
+    /** s, z, p/v as computed before the tables, and, or, xor */
+    @Benchmark
+    public int szpCompute() {
+        int r = 0;
+        for (int o : operands) {
+            int v = o & 0xff;
+            r ^= (v & 0x80) | (v == 0 ? 0x40 : 0) | (Z80.parity_tbl[v] ? 0x04 : 0);
+        }
+        return r;
+    }
+
+    /** s, z, p/v by {@link Z80#szp_tbl} */
+    @Benchmark
+    public int szpTable() {
+        int r = 0;
+        for (int o : operands) {
+            r ^= Z80.szp_tbl[o & 0xff];
+        }
+        return r;
+    }
+
+    /** daa as computed before the tables, (a &lt;&lt; 8) | f */
+    @Benchmark
+    public int daaCompute() {
+        int r = 0;
+        for (int o : operands) {
+            int a = o & 0xff;
+            int f = ((o >> 8) & 0x01) | ((o >> 5) & 0x10);
+            if (((a & 0x0f) > 9) || (f & 0x10) != 0) {
+                a = (a + 6) & 0xff;
+                if ((f & 0x10) != 0) {
+                    f |= 0x01;
+                }
+                f |= 0x10;
+            }
+            if ((a > 0x9f) || (f & 0x01) != 0) {
+                a = (a + 0x60) & 0xff;
+                f |= 0x01;
+            }
+            f = (f & ~0xc4) | (a & 0x80) | (a == 0 ? 0x40 : 0) | (Z80.parity_tbl[a] ? 0x04 : 0);
+            r ^= (a << 8) | f;
+        }
+        return r;
+    }
+
+    /** daa by {@link Z80#daa_tbl}, (a &lt;&lt; 8) | f */
+    @Benchmark
+    public int daaTable() {
+        int r = 0;
+        for (int o : operands) {
+            int f = ((o >> 8) & 0x01) | ((o >> 5) & 0x10);
+            int v = Z80.daa_tbl[o];
+            r ^= (v & 0xff00) | (f & ~0xd5) | (v & 0xff);
+        }
+        return r;
+    }
+
+    /** the instruction test, stepped to its halt as {@link Z80Test} does */
+    @Benchmark
+    public int instructionTest() {
+        System.arraycopy(program, 0, instructions.ram, 0, program.length);
+        int pc = 0;
+        while (instructions.bus.peekb(pc) != 0x76) { // halt
+            pc = instructions.z80.execute(pc, 1);
+        }
+        return pc;
+    }
+}
+
+/* */
@@ -0,0 +1,1138 @@
+/*
+ * Copyright (c) 2026 by Naohide Sano, All rights reserved.
+ *
+ * Programmed by Naohide Sano
+ */
+
+package vavi.apps.em88;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+
+/**
+ * Z80Test.
+ * <p>
+ * runs "asm.out" (Z80 instruction test, prints the result to any port and halts on error).
+ * </p>
+ * @author <a href="mailto:umjammer@gmail.com">Naohide Sano</a> (nsano)
+ * @version 0.00 261018 nsano initial version <br>
+ */
+public class Z80Test {
+
+    /** "asm.out" without 10 bytes header */
+    private static byte[] program;
+
+    /** */
+    private byte[] ram = new byte[0x10000];
+
+    /** */
+    private StringBuilder output = new StringBuilder();
+
+    /** the value of all input ports */
+    private int input;
+
+    /** */
+    private int inputs;
+
+    /** */
+    private Bus bus = new Bus() {
+        /** */
+        protected Mapping getMapping(int address, Direction direction) {
+            Mapping mapping = new Mapping();
+            mapping.base = ram;
+            mapping.pointer = address;
+            return mapping;
+        }
+
+        /** */
+        public int inp(int port) {
+            inputs++;
+            return input;
+        }
+
+        /** */
+        public void outp(int port, int data) {
+            output.append((char) data);
+        }
+    };
+
+    /** */
+    private Z80 z80;
+
+    @Before
+    public void before() throws IOException {
+        if (program == null) {
+            program = load("/asm.out");
+        }
+
+        z80 = new Z80();
+        bus.addDevice(z80);
+        bus.reset();
+    }
+
+    /** */
+    private static byte[] load(String name) throws IOException {
+        InputStream is = Z80Test.class.getResourceAsStream(name);
+        is.skip(10);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int l;
+        while ((l = is.read(buf)) > 0) {
+            baos.write(buf, 0, l);
+        }
+        is.close();
+        return baos.toByteArray();
+    }
+
+    /**
+     * @return number of executed instructions
+     */
+    private int run() {
+        System.arraycopy(program, 0, ram, 0, program.length);
+        output.setLength(0);
+
+        int pc = 0;
+        int steps = 0;
+        while (bus.peekb(pc) != 0x76) { // halt
+            pc = z80.execute(pc, 1);
+            steps++;
+        }
+        return steps;
+    }
+
+    @Test
+    public void test1() throws Exception {
+        run();
+        assertEquals("Testprogramm erfolgreich beendet\n", output.toString());
+    }
+
+    /** executes one instruction at address 0 and returns af */
+    private int step(int af, int bc, int... code) {
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+        z80.setAF(af);
+        z80.setBC(bc);
+        z80.execute(0, 1);
+        return z80.getAF();
+    }
+
+    /** */
+    private static boolean parity(int v) {
+        return Integer.bitCount(v) % 2 == 0;
+    }
+
+    /** s, z, p/v for v, plain boolean version */
+    private static int szp(int v) {
+        return ((v & 0x80) != 0 ? 0x80 : 0) | (v == 0 ? 0x40 : 0) | (parity(v) ? 0x04 : 0);
+    }
+
+    /**
+     * 8 bit add, adc, sub, sbc, cp: (a &lt;&lt; 8) | f, f3 and f5 are kept.
+     * flags are by plain unsigned and signed arithmetic.
+     */
+    private static int arith(int f, int o1, int o2, int cy, boolean sub) {
+        int u = sub ? o1 - o2 - cy : o1 + o2 + cy;
+        int s = sub ? (byte) o1 - (byte) o2 - cy : (byte) o1 + (byte) o2 + cy;
+        int half = sub ? o1 % 16 - o2 % 16 - cy : o1 % 16 + o2 % 16 + cy;
+        int v = (u + 256) % 256;
+        int r = f & 0x28;
+        r |= v >= 128 ? 0x80 : 0;
+        r |= v == 0 ? 0x40 : 0;
+        r |= half < 0 || half > 15 ? 0x10 : 0;
+        r |= s < -128 || s > 127 ? 0x04 : 0;
+        r |= sub ? 0x02 : 0;
+        r |= u < 0 || u > 255 ? 0x01 : 0;
+        return (v << 8) | r;
+    }
+
+    /** 8 bit and, or, xor */
+    private static int logic(int f, int v, boolean and) {
+        return (v << 8) | (f & 0x28) | szp(v) | (and ? 0x10 : 0);
+    }
+
+    /** all 64K operand pairs for add, adc, sub, sbc, cp, and, xor, or a,b */
+    @Test
+    public void testArithmeticFlags() throws Exception {
+        for (int f : new int[] { 0x00, 0xff }) {
+            int cy = f & 0x01;
+            for (int a = 0; a < 0x100; a++) {
+                for (int b = 0; b < 0x100; b++) {
+                    int af = (a << 8) | f;
+                    int bc = b << 8;
+                    String m = String.format("a=%02x, b=%02x, f=%02x", a, b, f);
+                    assertEquals("add " + m, arith(f, a, b, 0, false), step(af, bc, 0x80));
+                    assertEquals("adc " + m, arith(f, a, b, cy, false), step(af, bc, 0x88));
+                    assertEquals("sub " + m, arith(f, a, b, 0, true), step(af, bc, 0x90));
+                    assertEquals("sbc " + m, arith(f, a, b, cy, true), step(af, bc, 0x98));
+                    assertEquals("cp " + m, (a << 8) | (arith(f, a, b, 0, true) & 0xff), step(af, bc, 0xb8));
+                    assertEquals("and " + m, logic(f, a & b, true), step(af, bc, 0xa0));
+                    assertEquals("xor " + m, logic(f, a ^ b, false), step(af, bc, 0xa8));
+                    assertEquals("or " + m, logic(f, a | b, false), step(af, bc, 0xb0));
+                }
+            }
+        }
+
+        // overflow of subtraction, as a real z80
+        assertEquals("neg 80h", 0x8087, step(0x8000, 0, 0xed, 0x44));
+        assertEquals("sub 80h,01h", 0x7f16, step(0x8000, 0x0100, 0x90));
+        assertEquals("sub 00h,01h", 0xff93, step(0x0000, 0x0100, 0x90));
+        z80.setHL(0x8000);
+        z80.setDE(0x0001);
+        assertEquals("sbc hl 8000h,0001h", 0x04, step(0, 0, 0xed, 0x52) & 0x04);
+        assertEquals(0x7fff, z80.getHL());
+        z80.setHL(0x0000);
+        assertEquals("sbc hl 0000h,0001h", 0x00, step(0, 0, 0xed, 0x52) & 0x04);
+    }
+
+    /** inc, dec, neg, daa and rotate/shift a for all values and flags */
+    @Test
+    public void testUnaryFlags() throws Exception {
+        for (int f = 0; f < 0x100; f++) {
+            boolean fc = (f & 0x01) != 0;
+            boolean fh = (f & 0x10) != 0;
+            for (int a = 0; a < 0x100; a++) {
+                int af = (a << 8) | f;
+                String m = String.format("a=%02x, f=%02x", a, f);
+
+                int v = (a + 1) & 0xff;
+                int e = (f & 0x29) | (szp(v) & 0xc0) | (((a & 0x0f) + 1) & 0x10) | (a == 0x7f ? 0x04 : 0);
+                assertEquals("inc " + m, (v << 8) | e, step(af, 0, 0x3c));
+
+                v = (a - 1) & 0xff;
+                e = (f & 0x29) | (szp(v) & 0xc0) | (((a & 0x0f) - 1) & 0x10) | (a == 0x80 ? 0x04 : 0) | 0x02;
+                assertEquals("dec " + m, (v << 8) | e, step(af, 0, 0x3d));
+
+                assertEquals("neg " + m, arith(f, 0, a, 0, true), step(af, 0, 0xed, 0x44));
+
+                v = a;
+                boolean c = fc;
+                boolean h = fh;
+                if (((v & 0x0f) > 9) || h) {
+                    v = (v + 6) & 0xff;
+                    c = h || c;
+                    h = true;
+                }
+                if ((v > 0x9f) || c) {
+                    v = (v + 0x60) & 0xff;
+                    c = true;
+                }
+                e = (f & 0x2a) | szp(v) | (h ? 0x10 : 0) | (c ? 0x01 : 0);
+                assertEquals("daa " + m, (v << 8) | e, step(af, 0, 0x27));
+
+                int[] ops = { 0x07, 0x0f, 0x17, 0x1f, 0x27, 0x2f, 0x3f };
+                int[] rs = {
+                    ((a << 1) | (a >> 7)) & 0xff, // rlc
+                    (a >> 1) | ((a & 0x01) << 7), // rrc
+                    ((a << 1) | (fc ? 1 : 0)) & 0xff, // rl
+                    (a >> 1) | (fc ? 0x80 : 0), // rr
+                    (a << 1) & 0xff, // sla
+                    (a >> 1) | (a & 0x80), // sra
+                    a >> 1, // srl
+                };
+                for (int i = 0; i < rs.length; i++) {
+                    int cy = i % 2 == 0 && i != 6 ? a >> 7 : a & 0x01;
+                    e = (f & 0x28) | szp(rs[i]) | cy;
+                    assertEquals(String.format("cb %02x ", ops[i]) + m, (rs[i] << 8) | e, step(af, 0, 0xcb, ops[i]));
+                    if (i < 4) { // rlca, rrca, rla, rra
+                        e = (f & 0xec) | cy;
+                        assertEquals(String.format("%02x ", ops[i]) + m, (rs[i] << 8) | e, step(af, 0, ops[i]));
+                    }
+                }
+            }
+        }
+    }
+
+    /** T-states of single and block instructions */
+    @Test
+    public void testCycles() throws Exception {
+        ram[0x100] = 0x11; // a, b, c
+        ram[0x101] = 0x22;
+        ram[0x102] = 0x33;
+        int[] code = {
+            0x00, // nop
+            0x21, 0x00, 0x01, // ld hl,0100h
+            0x11, 0x00, 0x02, // ld de,0200h
+            0x01, 0x03, 0x00, // ld bc,3
+            0xed, 0xb0, // ldir
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+
+        long start = z80.getCycles();
+        int pc = z80.execute(0, 1);
+        assertEquals(4, z80.getCycles() - start);
+        pc = z80.execute(pc, 3);
+        assertEquals(4 + 10 * 3, z80.getCycles() - start);
+        pc = z80.execute(pc, 1);
+        assertEquals(4 + 10 * 3 + 21 * 2 + 16, z80.getCycles() - start);
+        assertEquals(0x0c, pc);
+        assertEquals(0x33, bus.peekb(0x202));
+    }
+
+    /** @return T-states of an instruction at address 0 */
+    private long cycles(int af, int... code) {
+        long start = z80.getCycles();
+        z80.setSP(0x8000);
+        z80.setHL(0x8100);
+        step(af, 0, code);
+        return z80.getCycles() - start;
+    }
+
+    /** T-states of instructions not by the table, and of both ways of conditionals */
+    @Test
+    public void testInstructionCycles() throws Exception {
+        assertEquals("ex (sp),hl", 19, cycles(0, 0xe3));
+        assertEquals("ex de,hl", 4, cycles(0, 0xeb));
+        assertEquals("ld sp,hl", 6, cycles(0, 0xf9));
+        assertEquals("jp (hl)", 4, cycles(0, 0xe9));
+        assertEquals("jr c taken", 12, cycles(0x01, 0x38, 0x02));
+        assertEquals("jr c", 7, cycles(0x00, 0x38, 0x02));
+        assertEquals("cp (hl)", 7, cycles(0, 0xbe));
+        assertEquals("call", 17, cycles(0, 0xcd, 0x00, 0x01));
+        assertEquals("call z taken", 17, cycles(0x40, 0xcc, 0x00, 0x01));
+        assertEquals("call z", 10, cycles(0x00, 0xcc, 0x00, 0x01));
+        assertEquals("ret", 10, cycles(0, 0xc9));
+        assertEquals("ret z taken", 11, cycles(0x40, 0xc8));
+        assertEquals("ret z", 5, cycles(0x00, 0xc8));
+        assertEquals("rst 38h", 11, cycles(0, 0xff));
+        assertEquals("rlc (ix+d)", 23, cycles(0, 0xdd, 0xcb, 0x40, 0x06));
+        assertEquals("bit 0,(ix+d)", 20, cycles(0, 0xdd, 0xcb, 0x40, 0x46));
+        assertEquals("res 0,(ix+d)", 23, cycles(0, 0xdd, 0xcb, 0x40, 0x86));
+        assertEquals("set 0,(iy+d)", 23, cycles(0, 0xfd, 0xcb, 0x40, 0xc6));
+        assertEquals("bit 7,(iy+d)", 20, cycles(0, 0xfd, 0xcb, 0x40, 0x7e));
+        assertEquals("srl (iy+d)", 23, cycles(0, 0xfd, 0xcb, 0x40, 0x3e));
+    }
+
+    /** block transfers are split at device events, overlapped copies fill */
+    @Test
+    public void testBlockTransfer() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            ram[0x1000 + i] = (byte) (i * 7);
+        }
+        ram[0x3000] = 0x5a;
+        int[] code = {
+            0x21, 0x00, 0x10, // ld hl,1000h
+            0x11, 0x00, 0x20, // ld de,2000h
+            0x01, 0xe8, 0x03, // ld bc,1000
+            0xed, 0xb0, // ldir
+            0x21, 0x00, 0x30, // ld hl,3000h
+            0x11, 0x01, 0x30, // ld de,3001h
+            0x01, 0xff, 0x01, // ld bc,511
+            0xed, 0xb0, // ldir
+            0x3e, 0x5a, // ld a,5ah
+            0x21, 0xff, 0x31, // ld hl,31ffh
+            0x01, 0x00, 0x00, // ld bc,0
+            0xed, 0xb9, // cpdr
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+
+        List<String> events = new ArrayList<>();
+        long start = z80.getCycles();
+        bus.getScheduler().schedule(new Scheduler.Task() {
+            public void run() {
+                events.add((z80.getCycles() - start) + ":" + z80.getBC());
+            }
+        }, 1000);
+
+        int pc = z80.execute(0, 1 + 3);
+        // 30 + 21 * 47 >= 1000
+        assertEquals(Arrays.asList("1017:953"), events);
+        assertEquals(9, pc);
+        pc = z80.execute(pc, 1);
+        assertEquals(0x0b, pc);
+        assertEquals(30 + 21 * 999 + 16, z80.getCycles() - start);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals((byte) (i * 7), ram[0x2000 + i]);
+        }
+
+        pc = z80.execute(pc, 4);
+        assertEquals(0x16, pc);
+        for (int i = 0; i < 512; i++) {
+            assertEquals(0x5a, ram[0x3000 + i]);
+        }
+        assertEquals(0, ram[0x3200]);
+
+        pc = z80.execute(pc, 4);
+        assertEquals(0x20, pc);
+        assertEquals(0x31fe, z80.getHL());
+        assertEquals(0xffff, z80.getBC());
+        assertTrue(z80.isZ());
+        assertTrue(z80.isP());
+    }
+
+    /** T-states exceeding a budget are carried to the next run */
+    @Test
+    public void testCycleBudget() throws Exception {
+        for (int i = 0; i < 0x100; i++) {
+            ram[i] = 0x00; // nop
+        }
+
+        long start = z80.getCycles();
+        int pc = z80.execute(0, 10L);
+        assertEquals(3, pc);
+        assertEquals(12, z80.getCycles() - start);
+        pc = z80.execute(pc, 10L);
+        assertEquals(5, pc);
+        assertEquals(20, z80.getCycles() - start);
+        pc = z80.execute(pc, 1000L);
+        assertEquals(255, pc);
+        assertEquals(1020, z80.getCycles() - start);
+    }
+
+    /** events run at the first instruction boundary at or after their time */
+    @Test
+    public void testEvents() throws Exception {
+        for (int i = 0; i < 0x100; i++) {
+            ram[i] = 0x00; // nop
+        }
+
+        List<String> events = new ArrayList<>();
+        Scheduler scheduler = bus.getScheduler();
+        long start = z80.getCycles();
+        scheduler.schedule(new Scheduler.Task() {
+            public void run() {
+                events.add("a" + (z80.getCycles() - start));
+            }
+        }, 10, 30);
+        Scheduler.Task b = new Scheduler.Task() {
+            public void run() {
+                events.add("b" + (z80.getCycles() - start));
+            }
+        };
+        scheduler.schedule(b, 40);
+        Scheduler.Task c = new Scheduler.Task() {
+            public void run() {
+                events.add("c" + (z80.getCycles() - start));
+            }
+        };
+        scheduler.schedule(c, 50);
+        assertTrue(c.cancel());
+
+        z80.execute(0, 100L);
+        assertEquals(Arrays.asList("a12", "b40", "a40", "a72", "a100"), events);
+        assertEquals(start + 130, scheduler.getDeadline());
+    }
+
+    /** halt skips to the next event instead of executing each nop */
+    @Test
+    public void testHalt() throws Exception {
+        ram[0] = (byte) 0xf3; // di
+        ram[1] = 0x76; // halt
+
+        List<Long> events = new ArrayList<>();
+        long start = z80.getCycles();
+        bus.getScheduler().schedule(new Scheduler.Task() {
+            public void run() {
+                events.add(z80.getCycles() - start);
+            }
+        }, 1000);
+
+        int pc = z80.execute(0, 2000L);
+        assertEquals(Arrays.asList(1000L), events);
+        assertEquals(2, pc);
+        assertEquals(2000, z80.getCycles() - start);
+    }
+
+    /**
+     * runs until a break from another thread.
+     * @return T-states per second of the wall clock
+     */
+    private double run(long millis) throws Exception {
+        Thread breaker = new Thread(() -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+            }
+            z80.requestBreak();
+        });
+        long start = z80.getCycles();
+        long time = System.nanoTime();
+        breaker.start();
+        z80.run(0);
+        long elapsed = System.nanoTime() - time;
+        breaker.join();
+        assertTrue(z80.isUserBroken());
+        return (z80.getCycles() - start) * 1e9 / elapsed;
+    }
+
+    /** run follows the wall clock frame by frame, unless unthrottled */
+    @Test
+    public void testRealTime() throws Exception {
+        for (int i = 0; i < 0x100; i++) {
+            ram[i] = 0x00; // nop
+        }
+
+        double rate = run(500);
+        assertTrue("throttled " + rate, rate > Z80.CLOCK * 0.5 && rate < Z80.CLOCK * 1.1);
+
+        z80.setThrottled(false);
+        rate = run(500);
+        assertTrue("unthrottled " + rate, rate > Z80.CLOCK * 2);
+    }
+
+    /** a halted cpu sleeps between the periodic interrupts of INTC in real time */
+    @Test
+    public void testHaltRealTime() throws Exception {
+        INTC intc = new INTC();
+        bus.addDevice(intc);
+        bus.reset();
+        intc.setRegister(0x08);
+        intc.setMask(0x03); // vrtc, 1/600 sec
+
+        int[] code = {
+            0x31, 0x00, 0x80, // ld sp,8000h
+            0xed, 0x56, // im 1
+            0x11, 0x00, 0x00, // ld de,0
+            0xfb, // ei
+            0x76, // 0009 halt
+            0x18, 0xfd, // jr 0009h
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+        ram[0x38] = 0x13; // inc de
+        ram[0x39] = (byte) 0xfb; // ei
+        ram[0x3a] = (byte) 0xc9; // ret
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isCurrentThreadCpuTimeSupported());
+        long cpu = threads.getCurrentThreadCpuTime();
+        long start = z80.getCycles();
+        long time = System.nanoTime();
+        double rate = run(500);
+        long elapsed = System.nanoTime() - time;
+        cpu = threads.getCurrentThreadCpuTime() - cpu;
+
+        assertTrue("rate " + rate, rate > Z80.CLOCK * 0.5 && rate < Z80.CLOCK * 1.1);
+        long interrupts = (z80.getCycles() - start) * (60 + 600) / Z80.CLOCK;
+        assertTrue("interrupts " + z80.getDE() + ", " + interrupts, Math.abs(z80.getDE() - interrupts) <= 2);
+        assertTrue("cpu " + cpu + " of " + elapsed + " ns", cpu < elapsed / 5);
+    }
+
+    /** an interrupt is checked at events only, and not just after ei */
+    @Test
+    public void testInterrupt() throws Exception {
+        INTC intc = new INTC();
+        bus.addDevice(intc);
+        bus.reset();
+        bus.getScheduler().clear();
+        intc.setRegister(0x08);
+        intc.setMask(0x07);
+
+        int[] code = {
+            0x31, 0x00, 0x80, // ld sp,8000h
+            0xed, 0x56, // im 1
+            0xfb, // ei
+            0x3e, 0x01, // ld a,01h
+            0x76, // halt
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+        ram[0x38] = 0x76; // halt
+
+        // requested just after ei, accepted after the next instruction
+        bus.getScheduler().schedule(new Scheduler.Task() {
+            public void run() {
+                intc.requestInterrupt(0);
+            }
+        }, 22);
+
+        int pc = z80.execute(0, 100L);
+        assertEquals(0x39, pc);
+        assertEquals(0x01, z80.getA());
+        assertEquals(0x7ffe, z80.getSP());
+        assertEquals(0x0008, bus.peekw(0x7ffe));
+        assertEquals(false, z80.isIff1());
+    }
+
+    /** requests are held while disabled, then accepted by the priority */
+    @Test
+    public void testIntc() throws Exception {
+        INTC intc = new INTC();
+        bus.addDevice(intc);
+        bus.reset();
+        bus.getScheduler().clear();
+
+        int[] code = {
+            0xf3, // di
+            0x31, 0x00, 0x80, // ld sp,8000h
+            0xed, 0x5e, // im 2
+            0x3e, 0x10, // ld a,10h
+            0xed, 0x47, // ld i,a
+            0xfb, // ei
+            0x76, // halt
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+        ram[0x40] = (byte) 0xfb; // ei
+        ram[0x41] = 0x76; // halt
+        ram[0x50] = 0x76; // halt
+        ram[0x1002] = 0x40; // channel 1
+        ram[0x1004] = 0x50; // channel 2
+
+        intc.setRegister(0x08);
+        intc.setMask(0x07);
+        intc.requestInterrupt(2);
+        intc.requestInterrupt(1);
+        intc.requestInterrupt(2);
+
+        int pc = z80.execute(0, 200L);
+        assertEquals(0x51, pc);
+        assertEquals(0x7ffc, z80.getSP());
+        assertEquals(0x000c, bus.peekw(0x7ffe));
+        assertEquals(0x0042, bus.peekw(0x7ffc));
+        assertEquals(4, intc.getOffsetAddress());
+        assertEquals(false, z80.isInterruptRequested());
+    }
+
+    /** an acknowledge with every channel masked is refused, the cpu doesn't take a vector */
+    @Test
+    public void testIntcMasked() throws Exception {
+        INTC intc = new INTC();
+        bus.addDevice(intc);
+        bus.reset();
+        bus.getScheduler().clear();
+
+        intc.setRegister(0x08);
+        intc.setMask(0x07);
+        intc.requestInterrupt(1);
+        assertEquals(true, intc.acknowledgeInterrupt());
+        assertEquals(2, intc.getOffsetAddress());
+
+        intc.setMask(0x00);
+        intc.requestInterrupt(2);
+        assertEquals(false, intc.acknowledgeInterrupt());
+        assertEquals(-2, intc.getOffsetAddress());
+
+        int[] code = {
+            0xf3, // di
+            0x31, 0x00, 0x80, // ld sp,8000h
+            0xed, 0x5e, // im 2
+            0xfb, // ei
+            0x00, // nop
+            0x76, // halt
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+
+        // the line is left asserted, as if the request is withdrawn after
+        z80.execute(0, 4);
+        z80.requestInterrupt();
+        int pc = z80.execute(z80.getPC(), 100L);
+        assertEquals(0x8000, z80.getSP());
+        assertEquals(0x09, pc);
+        assertEquals(false, z80.isInterruptRequested());
+    }
+
+    /** the profiler counts each address even in a hot loop */
+    @Test
+    public void testProfiler() throws Exception {
+        Profiler profiler = new Profiler();
+        bus.addDevice(profiler);
+        bus.reset();
+
+        int[] code = {
+            0x06, 0x64, // ld b,64h
+            0xcd, 0x10, 0x00, // call 0010h
+            0x10, 0xfb, // djnz 0002h
+            0x76, // halt
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+        ram[0x10] = (byte) 0xc9; // ret
+        int[] reads = new int[1];
+        bus.addWatchpoint(0x10, 0x10, Bus.Access.READ, (address, value, access) -> reads[0]++);
+
+        long start = z80.getCycles();
+        z80.execute(0, 10000L);
+        assertEquals(100, reads[0]); // the cpu's fetches only
+        assertEquals(1, profiler.getCount(0x00));
+        assertEquals(100, profiler.getCount(0x02));
+        assertEquals(100 * 17, profiler.getCycles(0x02));
+        assertEquals(100, profiler.getCount(0x05));
+        assertEquals(99 * 13 + 8, profiler.getCycles(0x05));
+        assertEquals(100, profiler.getCount(0x10));
+        assertEquals(100 * 10, profiler.getCycles(0x10));
+        assertEquals(z80.getCycles() - start, profiler.getCycles(0x00) + profiler.getCycles(0x02) + profiler.getCycles(0x05) +
+                     profiler.getCycles(0x07) + profiler.getCycles(0x10));
+    }
+
+    /** the call tree survives a routine returning by hand and an interrupt */
+    @Test
+    public void testCallGraph() throws Exception {
+        Profiler profiler = new Profiler();
+        bus.addDevice(profiler);
+        INTC intc = new INTC();
+        bus.addDevice(intc);
+        bus.reset();
+        bus.getScheduler().clear();
+        intc.setRegister(0x08);
+        intc.setMask(0x07);
+
+        int[] code = {
+            0x31, 0x00, 0x80, // ld sp,8000h
+            0xcd, 0x20, 0x00, // call 0020h
+            0xcd, 0x40, 0x00, // call 0040h
+            0xcd, 0x30, 0x00, // call 0030h
+            0xed, 0x56, // im 1
+            0xfb, // ei
+            0x76, // halt
+            0x76, // halt
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+        ram[0x20] = (byte) 0xcd; // call 0030h
+        ram[0x21] = 0x30;
+        ram[0x23] = (byte) 0xc9; // ret
+        ram[0x30] = (byte) 0xc9; // ret
+        ram[0x38] = (byte) 0xc9; // ret
+        ram[0x40] = (byte) 0xe1; // pop hl
+        ram[0x41] = (byte) 0xe9; // jp (hl)
+
+        bus.getScheduler().schedule(new Scheduler.Task() {
+            public void run() {
+                intc.requestInterrupt(0);
+            }
+        }, 200);
+
+        z80.execute(0, 1000L);
+        assertEquals(0x11, z80.getPC());
+        assertEquals(0x8000, z80.getSP());
+        assertEquals(profiler.getCycles(0x20) + profiler.getCycles(0x23), profiler.getExclusive(0x20));
+        assertEquals(profiler.getExclusive(0x20) + profiler.getCycles(0x30) / 2, profiler.getInclusive(0x20));
+        assertEquals(profiler.getCycles(0x30), profiler.getExclusive(0x30));
+        assertEquals(profiler.getCycles(0x40), profiler.getExclusive(0x40));
+        assertEquals(13 + profiler.getCycles(0x38), profiler.getInclusive(0x38));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        profiler.collapse(new PrintStream(baos));
+        List<String> stacks = new ArrayList<>();
+        for (String line : baos.toString().split("\n")) {
+            stacks.add(line.substring(0, line.lastIndexOf(' ')));
+        }
+        Collections.sort(stacks);
+        assertEquals(Arrays.asList("(top)", "(top);0020", "(top);0020;0030", "(top);0030", "(top);0040", "(top);interrupt 0038"), stacks);
+    }
+
+    /** the text vram watchpoint is set again only when CH-2 DMA changes the range */
+    @Test
+    public void testTextVramWatch() throws Exception {
+        PC88 pc88 = new PC88();
+        pc88.setRomDao((name, buf, length) -> {});
+        pc88.reset();
+        Bus bus = pc88.getBus();
+
+        long mappings = bus.getMappings();
+        for (int port = 0x60; port <= 0x67; port++) {
+            if (port != 0x64 && port != 0x65) {
+                bus.outp(port, 0x00);
+                bus.outp(port, 0x10);
+            }
+        }
+        assertEquals(mappings, bus.getMappings());
+
+        int[] writes = { 0x64, 0x00, 0x64, 0xf3, 0x65, 0xbf, 0x65, 0x0b }; // f300h, 0bbfh
+        for (int i = 0; i < writes.length; i += 2) {
+            bus.outp(writes[i], writes[i + 1]);
+        }
+        assertTrue(bus.getMappings() > mappings);
+
+        mappings = bus.getMappings();
+        for (int i = 0; i < writes.length; i += 2) {
+            bus.outp(writes[i], writes[i + 1]);
+        }
+        assertEquals(mappings, bus.getMappings());
+    }
+
+    /** ports are dispatched to the handlers devices set, and counted */
+    @Test
+    public void testPorts() throws Exception {
+        Bus bus = new Bus() {
+            protected Mapping getMapping(int address, Direction direction) {
+                Mapping mapping = new Mapping();
+                mapping.base = ram;
+                mapping.pointer = address;
+                return mapping;
+            }
+        };
+        Z80 z80 = new Z80();
+        bus.addDevice(z80);
+        bus.reset();
+
+        int[] data = new int[1];
+        bus.setInPort(0x20, port -> port + 1);
+        bus.setOutPort(0x21, (port, value) -> data[0] = value);
+
+        int[] code = {
+            0xdb, 0x20, // in a,(20h)
+            0xd3, 0x21, // out (21h),a
+            0xdb, 0x22, // in a,(22h)
+            0xd3, 0x23, // out (23h),a
+            0xdb, 0x20, // in a,(20h)
+            0x76, // halt
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+
+        z80.execute(0, 1);
+        assertEquals(0x21, z80.getA());
+        z80.execute(z80.getPC(), 1);
+        assertEquals(0x21, data[0]);
+        z80.execute(z80.getPC(), 3);
+        assertEquals(0x21, z80.getA());
+        assertEquals(2, bus.getInputs(0x20));
+        assertEquals(1, bus.getInputs(0x22));
+        assertEquals(1, bus.getOutputs(0x21));
+        assertEquals(1, bus.getOutputs(0x23));
+
+        bus.setInPort(0x20, null);
+        assertEquals(0, bus.inp(0x20));
+    }
+
+    /** a device is attached once, then reset by every reset */
+    @Test
+    public void testDevices() throws Exception {
+        List<String> calls = new ArrayList<>();
+        class Counter implements Device {
+            public void setBus(Bus bus) {
+                calls.add("attach " + (bus.getDevice(Z80.class) == z80));
+            }
+
+            public void reset() {
+                calls.add("reset");
+            }
+
+            public void powerOff() {
+                calls.add("power off");
+            }
+        }
+        Counter counter = new Counter();
+        bus.addDevice(counter);
+        bus.reset();
+        bus.reset();
+        assertEquals(counter, bus.getDevice(Counter.class));
+        assertEquals(z80, bus.getDevice(Device.class));
+        bus.powerOff();
+        assertEquals(Arrays.asList("attach true", "reset", "reset", "power off"), calls);
+    }
+
+    /** a device computes its port by time, a polling loop doesn't skip past the change */
+    @Test
+    public void testCatchUp() throws Exception {
+        Bus bus = new Bus() {
+            protected Mapping getMapping(int address, Direction direction) {
+                Mapping mapping = new Mapping();
+                mapping.base = ram;
+                mapping.pointer = address;
+                return mapping;
+            }
+        };
+        Z80 z80 = new Z80();
+        bus.addDevice(z80);
+        bus.reset();
+
+        long[] seen = new long[2];
+        class Timer implements Device {
+            int status;
+            public void setBus(Bus bus) {
+            }
+
+            public long catchUp(long time) {
+                seen[0]++;
+                status = time >= 10000 ? 0x20 : 0x00;
+                return status == 0 ? 10000 : Long.MAX_VALUE;
+            }
+        }
+        Timer timer = new Timer();
+        bus.setInPort(0x40, timer, port -> {
+            if (timer.status != 0 && seen[1] == 0) {
+                seen[1] = bus.getScheduler().getTime();
+            }
+            return timer.status;
+        });
+
+        int[] code = {
+            0xdb, 0x40, // in a,(40h)
+            0xe6, 0x20, // and 20h
+            0x28, 0xfa, // jr z,0000h
+            0x76, // halt
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+
+        // a round is 30 T-states
+        long start = z80.getCycles();
+        z80.execute(0, 20000L);
+        assertEquals(0x20, z80.getA());
+        assertTrue(seen[1] - start >= 10000);
+        assertTrue(seen[1] - start < 10000 + 30);
+        assertTrue(seen[0] < 10);
+    }
+
+    /** watchers are notified of accesses to the ranges, also by block transfers and cached code */
+    @Test
+    public void testWatchpoints() throws Exception {
+        List<String> accesses = new ArrayList<>();
+        Bus.Watcher watcher = (address, value, access) -> accesses.add(access + " " + Integer.toHexString(address) + " " + Integer.toHexString(value));
+        bus.addWatchpoint(0x4001, 0x4001, Bus.Access.WRITE, watcher);
+        bus.addWatchpoint(0x4102, 0x4102, Bus.Access.READ, watcher);
+        bus.addWatchpoint(0x0200, 0x0200, Bus.Access.EXECUTE, watcher);
+
+        int[] code = {
+            0xf3, // di
+            0x06, 0x02, // ld b,2
+            0xcd, 0x00, 0x02, // call 0200h
+            0x10, 0xfb, // djnz 0003h
+            0x21, 0x00, 0x41, // ld hl,4100h
+            0x11, 0x00, 0x40, // ld de,4000h
+            0x01, 0x04, 0x00, // ld bc,4
+            0xed, 0xb0, // ldir
+            0x21, 0x00, 0x41, // ld hl,4100h
+            0x01, 0x04, 0x00, // ld bc,4
+            0x3e, 0x33, // ld a,33h
+            0xed, 0xb1, // cpir
+            0x76, // halt
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+        ram[0x200] = (byte) 0xc9; // ret
+        for (int i = 0; i < 4; i++) {
+            ram[0x4100 + i] = (byte) (0x11 * (i + 1));
+        }
+
+        int pc = 0;
+        while (bus.peekb(pc) != 0x76) {
+            pc = z80.execute(pc, 1);
+        }
+        assertEquals(Arrays.asList("EXECUTE 200 c9", "EXECUTE 200 c9",
+                                   "WRITE 4001 22", "READ 4102 33",
+                                   "READ 4102 33"), accesses);
+
+        // observers don't trigger
+        accesses.clear();
+        assertEquals(0x3322, bus.peekwUntrapped(0x4101));
+        assertTrue(accesses.isEmpty());
+
+        // the loop is cached by now, then watched
+        bus.addWatchpoint(0x0003, 0x0003, Bus.Access.EXECUTE, watcher);
+        z80.execute(0, 12);
+        assertEquals(Arrays.asList("EXECUTE 3 cd", "EXECUTE 200 c9", "EXECUTE 3 cd", "EXECUTE 200 c9"), accesses.subList(0, 4));
+
+        accesses.clear();
+        bus.removeWatchpoint(watcher);
+        z80.execute(0, 30);
+        assertTrue(accesses.isEmpty());
+    }
+
+    /** a word is read and written at once in a page, byte by byte across pages or watched */
+    @Test
+    public void testWords() throws Exception {
+        bus.pokew(0x4010, 0x1234);
+        assertEquals(0x34, ram[0x4010]);
+        assertEquals(0x12, ram[0x4011]);
+        assertEquals(0x1234, bus.peekw(0x4010));
+
+        bus.pokew(0x40ff, 0x5678);
+        assertEquals(0x78, ram[0x40ff]);
+        assertEquals(0x56, ram[0x4100]);
+        assertEquals(0x5678, bus.peekw(0x40ff));
+
+        bus.pokew(0xffff, 0xabcd);
+        assertEquals((byte) 0xcd, ram[0xffff]);
+        assertEquals((byte) 0xab, ram[0x0000]);
+        assertEquals(0xabcd, bus.peekw(0xffff));
+
+        long writes = bus.getWrites();
+        List<String> accesses = new ArrayList<>();
+        bus.addWatchpoint(0x4111, 0x4111, Bus.Access.WRITE, (address, value, access) -> accesses.add(Integer.toHexString(value)));
+        bus.pokew(0x4110, 0x9abc);
+        bus.pokew(0x4020, 0x9abc);
+        assertEquals(Arrays.asList("9a"), accesses);
+        assertEquals(writes + 4, bus.getWrites());
+
+        // a decoded instruction written by a word
+        ram[0x4000] = 0x3c; // inc a
+        ram[0x4001] = 0x76; // halt
+        z80.execute(0x4000, 1);
+        int a = z80.getA();
+        bus.pokew(0x4000, 0x763d); // dec a
+        z80.execute(0x4000, 1);
+        assertEquals((a - 1) & 0xff, z80.getA());
+    }
+
+    /** a port polling loop skips to the event changing the port */
+    @Test
+    public void testIdleLoop() throws Exception {
+        int[] code = {
+            0xdb, 0x40, // in a,(40h)
+            0xe6, 0x20, // and 20h
+            0x28, 0xfa, // jr z,0000h
+            0x76, // halt
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+
+        bus.getScheduler().schedule(new Scheduler.Task() {
+            public void run() {
+                input = 0x20;
+            }
+        }, 10000);
+
+        // a round is 30 T-states, the port is read at 10031 first
+        long start = z80.getCycles();
+        int pc = z80.execute(0, 10045L);
+        assertEquals(6, pc);
+        assertEquals(10045, z80.getCycles() - start);
+        assertEquals(0x20, z80.getA());
+        assertTrue(inputs < 10);
+    }
+
+    /** a decoded instruction is discarded when its memory is written */
+    @Test
+    public void testSelfModifyingCode() throws Exception {
+        int[] code = {
+            0x00, // nop, inc a at the 2nd round
+            0x21, 0x00, 0x00, // ld hl,0000h
+            0x36, 0x3c, // ld (hl),3ch
+            0x10, 0xf8, // djnz 0000h
+            0x76, // halt
+        };
+        for (int i = 0; i < code.length; i++) {
+            ram[i] = (byte) code[i];
+        }
+        int[] main = {
+            0x06, 0x02, // ld b,2
+            0x3e, 0x00, // ld a,0
+            0xc3, 0x00, 0x00, // jp 0000h
+        };
+        for (int i = 0; i < main.length; i++) {
+            ram[0x10 + i] = (byte) main[i];
+        }
+
+        int pc = z80.execute(0x10, 3 + 4 * 2);
+        assertEquals(8, pc);
+        assertEquals(1, z80.getA());
+    }
+
+    /** a hot loop run by a trace ends at the same state as stepped one by one */
+    @Test
+    public void testTrace() throws Exception {
+        int[] code = {
+            0x21, 0x00, 0x80, // ld hl,8000h
+            0xdb, 0x40, // in a,(40h)
+            0x86, // add a,(hl)
+            0x77, // ld (hl),a
+            0x23, // inc hl
+            0xcb, 0x7c, // bit 7,h
+            0x20, 0xf7, // jr nz,0003h
+            0xc3, 0x00, 0x00, // jp 0000h
+        };
+        Scheduler.Task task = new Scheduler.Task() {
+            public void run() {
+                input++;
+            }
+        };
+
+        int[][] results = new int[2][];
+        for (int i = 0; i < 2; i++) {
+            Arrays.fill(ram, (byte) 0);
+            for (int j = 0; j < code.length; j++) {
+                ram[j] = (byte) code[j];
+            }
+            input = 0;
+            bus.getScheduler().schedule(task, 1000, 1000);
+
+            long start = z80.getCycles();
+            int pc;
+            if (i == 0) {
+                pc = z80.execute(0, 3000000L);
+            } else {
+                pc = z80.execute(0, 1);
+                while (z80.getCycles() - start < 3000000L) {
+                    pc = z80.execute(pc, 1);
+                }
+            }
+            task.cancel();
+            results[i] = new int[] { pc, (int) (z80.getCycles() - start), z80.getAF(), z80.getHL(), input, Arrays.hashCode(ram) };
+        }
+        assertEquals(Arrays.toString(results[1]), Arrays.toString(results[0]));
+    }
+
+    /**
+     * checks the dispatcher and instruction handlers are JIT compiled.
+     * <p>
+     * run by the "jit" profile, this spawns a vm with -XX:+PrintCompilation.
+     * </p>
+     */
+    @Test
+    public void testCompilation() throws Exception {
+        assumeTrue(Boolean.getBoolean("jit"));
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classPath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        ProcessBuilder pb = new ProcessBuilder(java, "-XX:+PrintCompilation", "-cp", classPath, Z80Test.class.getName());
+        pb.redirectErrorStream(true);
+        Process process = pb.start();
+
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        assertEquals(0, process.waitFor());
+
+        // "timestamp id attributes tier method (size)", tier 4 is C2
+        Pattern exec = Pattern.compile("^\\s*\\d+\\s+\\d+\\s+[%sbn! ]*4\\s+vavi\\.apps\\.em88\\.Z80::exec(ute)? \\(.*");
+        Pattern op = Pattern.compile("^\\s*\\d+\\s+\\d+\\s+[%sbn! ]*4\\s+vavi\\.apps\\.em88\\.Z80::op_\\w+ \\(.*");
+        assertTrue("dispatcher is not compiled by C2", lines.stream().anyMatch(l -> exec.matcher(l).matches()));
+        assertTrue("no handler is compiled by C2", lines.stream().anyMatch(l -> op.matcher(l).matches()));
+    }
+
+    /** workload for {@link #testCompilation()} */
+    public static void main(String[] args) throws Exception {
+        Z80Test test = new Z80Test();
+        test.before();
+        int steps = 0;
+        for (int i = 0; i < 5000; i++) {
+            steps += test.run();
+        }
+System.err.println("steps: " + steps);
+        System.exit(0);
+    }
+}
+
+/* */